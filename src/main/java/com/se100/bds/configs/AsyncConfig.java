@@ -1,11 +1,15 @@
 package com.se100.bds.configs;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
@@ -20,4 +24,51 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    // Fetches the parts of a property detail page in parallel. Kept small so a burst of cache misses cannot take
+    // more than its share of the connection pool; when full, the request thread runs the query itself
+    @Bean
+    public Executor propertyDetailsExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(100);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("property-details-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Rewrites property cards after their writes commit, off the request thread. Small, so cards waiting out a
+    // rebuild hold few connections; when full, the refresh is dropped and left to the nightly rebuild
+    @Bean
+    public ThreadPoolTaskExecutor propertyCardExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(1_000);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setThreadNamePrefix("property-card-");
+        executor.initialize();
+        return executor;
+    }
+
+    // The one pool every storage upload runs on. Bounded both ways: a full queue rejects instead of growing,
+    // and callers turn that into a 503 or a later retry
+    @Bean
+    public ThreadPoolTaskExecutor mediaUploadExecutor(
+            @Value("${app.media-upload.concurrency:6}") int concurrency,
+            @Value("${app.media-upload.queue-capacity:200}") int queueCapacity,
+            MeterRegistry meterRegistry) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setThreadNamePrefix("media-upload-");
+        executor.initialize();
+        // Queue depth and remaining capacity, pool and active threads under executor.* with name=mediaUpload
+        ExecutorServiceMetrics.monitor(meterRegistry, executor.getThreadPoolExecutor(), "mediaUpload");
+        return executor;
+    }
+}
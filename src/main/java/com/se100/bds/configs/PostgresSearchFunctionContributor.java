@@ -0,0 +1,34 @@
+package com.se100.bds.configs;
+
+import com.se100.bds.utils.Constants;
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicTypeRegistry;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers the PostgreSQL full-text search functions usable from JPQL:
+ * fts_match(vector, keyword) and fts_rank(vector, keyword). The keyword is folded the same way as
+ * properties.search_vector and parsed with websearch_to_tsquery, so quotes, OR and -word work as users expect.
+ * Loaded by Hibernate through META-INF/services.
+ */
+public class PostgresSearchFunctionContributor implements FunctionContributor {
+    private static final String FOLDED_QUERY = "websearch_to_tsquery('simple', lower(translate(?2, '"
+            + Constants.SEARCH_FOLD_FROM + "', '" + Constants.SEARCH_FOLD_TO + "')))";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicTypeRegistry basicTypeRegistry = functionContributions.getTypeConfiguration().getBasicTypeRegistry();
+
+        functionContributions.getFunctionRegistry().registerPattern(
+                "fts_match",
+                "(?1 @@ " + FOLDED_QUERY + ")",
+                basicTypeRegistry.resolve(StandardBasicTypes.BOOLEAN)
+        );
+        functionContributions.getFunctionRegistry().registerPattern(
+                "fts_rank",
+                "ts_rank(?1, " + FOLDED_QUERY + ")",
+                basicTypeRegistry.resolve(StandardBasicTypes.FLOAT)
+        );
+    }
+}
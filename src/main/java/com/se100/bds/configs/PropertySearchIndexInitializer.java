@@ -0,0 +1,28 @@
+package com.se100.bds.configs;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA @Index cannot declare the access method, so the GIN index backing the keyword search
+ * over properties.search_vector is created here once the schema exists.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PropertySearchIndexInitializer {
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createSearchIndex() {
+        try {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_properties_search_vector ON properties USING GIN (search_vector)");
+        } catch (Exception e) {
+            log.error("createSearchIndex - {}", e.getMessage());
+        }
+    }
+}
@@ -50,6 +50,7 @@ public class WebSecurityConfig {
                                 "/bookings/payment/**"
                         ).permitAll()
                         .requestMatchers("/admin/**").hasAuthority(Constants.RoleEnum.ADMIN.name())
+                        .requestMatchers("/actuator/metrics", "/actuator/metrics/**").hasAuthority(Constants.RoleEnum.ADMIN.name())
                         .anyRequest().authenticated()
                 )
                 .build();
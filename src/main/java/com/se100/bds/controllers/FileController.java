@@ -0,0 +1,138 @@
+package com.se100.bds.controllers;
+
+import com.se100.bds.controllers.base.AbstractBaseController;
+import com.se100.bds.services.fileupload.impl.LocalFileStorageServiceImpl;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/public/files")
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "local")
+@Tag(name = "016. Files", description = "Files kept by the local storage backend")
+public class FileController extends AbstractBaseController {
+    // Tomcat NIO connectors can hand the file to the kernel (sendfile) once the handler returns
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final LocalFileStorageServiceImpl localFileStorage;
+
+    @GetMapping("/{*key}")
+    @Operation(
+            summary = "Download a stored file",
+            description = "Serves a file of the local storage backend. Supports single byte ranges (Range, If-Range) and "
+                    + "conditional requests; files are content-addressed, so they are cacheable forever",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Whole file"),
+                    @ApiResponse(responseCode = "206", description = "Requested byte range"),
+                    @ApiResponse(responseCode = "304", description = "Not modified"),
+                    @ApiResponse(responseCode = "404", description = "File not found"),
+                    @ApiResponse(responseCode = "416", description = "Range not satisfiable")
+            }
+    )
+    public void getFile(
+            @Parameter(description = "Path of the file, as found in the stored URL after /public/files/")
+            @PathVariable String key,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        LocalFileStorageServiceImpl.StoredFile file = localFileStorage.find(key.substring(1));
+        if (new ServletWebRequest(request, response).checkNotModified(file.etag(), file.lastModified())) {
+            return;
+        }
+
+        long size = file.size();
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable().getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(MediaTypeFactory.getMediaType(file.path().getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+        long start = 0;
+        long end = size - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // A stale If-Range means the client's partial copy is of another version, send the whole file
+        if (rangeHeader != null && (ifRange == null || ifRange.equals(file.etag()))) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            // Several ranges would need a multipart body, the whole file is sent instead
+            if (ranges.size() == 1) {
+                try {
+                    start = ranges.get(0).getRangeStart(size);
+                    end = ranges.get(0).getRangeEnd(size);
+                } catch (IllegalArgumentException e) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()) || length == 0) {
+            return;
+        }
+        transfer(file.path(), start, length, request, response);
+    }
+
+    // Zero-copy: kernel sendfile when the connector supports it, FileChannel.transferTo into the response otherwise
+    private void transfer(Path path, long start, long length, HttpServletRequest request,
+                          HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+}
@@ -10,6 +10,7 @@ import com.se100.bds.dtos.responses.SingleResponse;
 import com.se100.bds.dtos.responses.SuccessResponse;
 import com.se100.bds.dtos.responses.error.DetailedErrorResponse;
 import com.se100.bds.dtos.responses.error.ErrorResponse;
+import com.se100.bds.dtos.responses.property.MediaUploadStatusResponse;
 import com.se100.bds.dtos.responses.property.PropertyTypeResponse;
 import com.se100.bds.dtos.responses.property.PropertyDetails;
 import com.se100.bds.services.domains.property.PropertyService;
@@ -32,6 +33,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.UUID;
 
 import static com.se100.bds.utils.Constants.SECURITY_SCHEME_NAME;
@@ -80,6 +82,21 @@ public class PropertyController extends AbstractBaseController {
         return responseFactory.successSingle(propertyDetails, "Property updated successfully");
     }
 
+    @PreAuthorize("hasAnyRole('ADMIN','PROPERTY_OWNER')")
+    @GetMapping("/{propertyId}/media-uploads")
+    @Operation(
+            summary = "Get the upload state of recently sent property images",
+            description = "Images sent with a create or update are uploaded in the background and attached when done. Lists each file of the last hour with its state (QUEUED, UPLOADING, RETRYING, COMPLETED, FAILED).",
+            security = @SecurityRequirement(name = SECURITY_SCHEME_NAME)
+    )
+    public ResponseEntity<SingleResponse<List<MediaUploadStatusResponse>>> getMediaUploads(
+            @Parameter(description = "Property ID", required = true)
+            @PathVariable UUID propertyId
+    ) {
+        List<MediaUploadStatusResponse> uploads = propertyService.getMediaUploads(propertyId);
+        return responseFactory.successSingle(uploads, "Media uploads retrieved successfully");
+    }
+
     @PreAuthorize("hasAnyRole('ADMIN','PROPERTY_OWNER')")
     @PatchMapping("/{propertyId}/status")
     @Operation(
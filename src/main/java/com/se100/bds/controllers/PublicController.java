@@ -13,7 +13,9 @@ import com.se100.bds.dtos.responses.error.DetailedErrorResponse;
 import com.se100.bds.dtos.responses.error.ErrorResponse;
 import com.se100.bds.dtos.responses.location.LocationCardResponse;
 import com.se100.bds.dtos.responses.location.LocationDetailsResponse;
+import com.se100.bds.dtos.responses.property.PropertyCluster;
 import com.se100.bds.dtos.responses.property.PropertyDetails;
+import com.se100.bds.dtos.responses.property.PropertyFacetCounts;
 import com.se100.bds.dtos.responses.property.PropertyTypeResponse;
 import com.se100.bds.dtos.responses.property.SimplePropertyCard;
 import com.se100.bds.dtos.responses.user.otherprofile.UserProfileResponse;
@@ -25,8 +27,11 @@ import com.se100.bds.services.domains.auth.AuthService;
 import com.se100.bds.services.domains.document.DocumentService;
 import com.se100.bds.services.domains.location.LocationService;
 import com.se100.bds.services.domains.property.PropertyService;
+import com.se100.bds.services.domains.property.index.GeoArea;
 import com.se100.bds.services.domains.user.UserService;
+import com.se100.bds.services.dtos.results.ContentVersion;
 import com.se100.bds.services.dtos.results.PropertyCard;
+import com.se100.bds.services.dtos.results.PropertyCardSlice;
 import com.se100.bds.utils.Constants;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -39,12 +44,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindException;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.io.IOException;
 import java.math.BigDecimal;
@@ -290,8 +297,59 @@ public class PublicController extends AbstractBaseController {
             @RequestParam(required = false) List<Constants.TransactionTypeEnum> transactionType,
 
             @Parameter(description = "Property statuses (e.g., AVAILABLE, SOLD, RENTED, PENDING, APPROVED)")
-            @RequestParam(required = false) List<Constants.PropertyStatusEnum> statuses
+            @RequestParam(required = false) List<Constants.PropertyStatusEnum> statuses,
+
+            @Parameter(description = "Bounding box (e.g. the map viewport): southern latitude, send with maxLatitude, minLongitude and maxLongitude")
+            @RequestParam(required = false) Double minLatitude,
+
+            @Parameter(description = "Bounding box: northern latitude")
+            @RequestParam(required = false) Double maxLatitude,
+
+            @Parameter(description = "Bounding box: western longitude")
+            @RequestParam(required = false) Double minLongitude,
+
+            @Parameter(description = "Bounding box: eastern longitude")
+            @RequestParam(required = false) Double maxLongitude,
+
+            @Parameter(description = "Radius search: latitude of the center, send with centerLongitude and radiusKm")
+            @RequestParam(required = false) Double centerLatitude,
+
+            @Parameter(description = "Radius search: longitude of the center")
+            @RequestParam(required = false) Double centerLongitude,
+
+            @Parameter(description = "Radius search: distance from the center in kilometers (at most 500)")
+            @RequestParam(required = false) Double radiusKm,
+
+            @Parameter(description = "Keyword searched in title, description and amenities, accents optional (e.g. \"can ho quan 7\"). Results are ordered by relevance")
+            @RequestParam(required = false) String keyword,
+
+            @Parameter(description = "Re-rank the page by the signed-in customer's liked locations, types, favorite properties and recent searches. Ignored for anonymous visitors and in cursor mode")
+            @RequestParam(defaultValue = "false") Boolean personalized,
+
+            @Parameter(description = "Cursor mode for infinite scroll: send an empty cursor for the first page, then paging.nextCursor. Ordered by newest first, page/sort params are ignored and no total is counted")
+            @RequestParam(required = false) String cursor
     ) {
+        GeoArea geoArea = GeoArea.of(minLatitude, maxLatitude, minLongitude, maxLongitude,
+                centerLatitude, centerLongitude, radiusKm);
+
+        if (cursor != null) {
+            if (keyword != null && !keyword.isBlank()) {
+                throw new IllegalArgumentException("Keyword search is ranked by relevance and cannot be combined with cursor mode");
+            }
+            PropertyCardSlice slice = propertyService.getCardsByCursor(
+                    cityIds, districtIds, wardIds, propertyTypeIds,
+                    ownerId, ownerName, ownerTier,
+                    agentId, agentName, agentTier,
+                    minPrice, maxPrice, minArea, maxArea,
+                    rooms, bathrooms, bedrooms, floors,
+                    houseOrientation, balconyOrientation,
+                    transactionType, statuses, topK,
+                    geoArea, cursor, limit
+            );
+            List<SimplePropertyCard> cards = propertyMapper.mapToList(slice.getCards(), SimplePropertyCard.class);
+            return responseFactory.successCursorPage(cards, limit, slice.getNextCursor(), "Property cards retrieved successfully");
+        }
+
         if (!topK)
             sortBy = null;
         Pageable pageable = createPageable(page, limit, sortType, sortBy);
@@ -320,6 +378,9 @@ public class PublicController extends AbstractBaseController {
                 transactionType,
                 statuses,
                 topK,
+                personalized,
+                geoArea,
+                keyword,
                 pageable
         );
 
@@ -328,6 +389,330 @@ public class PublicController extends AbstractBaseController {
         return responseFactory.successPage(simplePropertyCards, "Property cards retrieved successfully");
     }
 
+    @GetMapping("/properties/facets")
+    @Operation(
+            summary = "Get facet counts for a property search",
+            description = "Counts per city, district, property type, transaction type and price/area range for the given filters, computed in one pass. Takes the same filters as /properties/cards",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Successful operation",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = SingleResponse.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid parameters",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ErrorResponse.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "503",
+                            description = "Index still loading, retry after the Retry-After seconds",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ErrorResponse.class)
+                            )
+                    )
+            }
+    )
+    public ResponseEntity<SingleResponse<PropertyFacetCounts>> getCardFacets(
+            @Parameter(description = "List of city IDs to filter by")
+            @RequestParam(required = false) List<UUID> cityIds,
+
+            @Parameter(description = "List of district IDs to filter by")
+            @RequestParam(required = false) List<UUID> districtIds,
+
+            @Parameter(description = "List of ward IDs to filter by")
+            @RequestParam(required = false) List<UUID> wardIds,
+
+            @Parameter(description = "List of property type IDs to filter by")
+            @RequestParam(required = false) List<UUID> propertyTypeIds,
+
+            @Parameter(description = "Property owner ID")
+            @RequestParam(required = false) UUID ownerId,
+
+            @Parameter(description = "Property owner's name")
+            @RequestParam(required = false) String ownerName,
+
+            @Parameter(description = "Property owner's tier")
+            @RequestParam(required = false) List<Constants.ContributionTierEnum> ownerTier,
+
+            @Parameter(description = "Agent ID")
+            @RequestParam(required = false) UUID agentId,
+
+            @Parameter(description = "Agent's name")
+            @RequestParam(required = false) String agentName,
+
+            @Parameter(description = "Agent's tier")
+            @RequestParam(required = false) List<Constants.PerformanceTierEnum> agentTier,
+
+            @Parameter(description = "Restrict to the top K most searched properties")
+            @RequestParam(required = true, defaultValue = "false") Boolean topK,
+
+            @Parameter(description = "Minimum price")
+            @RequestParam(required = false) BigDecimal minPrice,
+
+            @Parameter(description = "Maximum price")
+            @RequestParam(required = false) BigDecimal maxPrice,
+
+            @Parameter(description = "Minimum area (square meters)")
+            @RequestParam(required = false) BigDecimal minArea,
+
+            @Parameter(description = "Maximum area (square meters)")
+            @RequestParam(required = false) BigDecimal maxArea,
+
+            @Parameter(description = "Number of rooms")
+            @RequestParam(required = false) Integer rooms,
+
+            @Parameter(description = "Number of bathrooms")
+            @RequestParam(required = false) Integer bathrooms,
+
+            @Parameter(description = "Number of bedrooms")
+            @RequestParam(required = false) Integer bedrooms,
+
+            @Parameter(description = "Number of floors")
+            @RequestParam(required = false) Integer floors,
+
+            @Parameter(description = "House orientation (e.g., EAST, WEST, NORTH, SOUTH)")
+            @RequestParam(required = false) Constants.OrientationEnum houseOrientation,
+
+            @Parameter(description = "Balcony orientation (e.g., EAST, WEST, NORTH, SOUTH)")
+            @RequestParam(required = false) Constants.OrientationEnum balconyOrientation,
+
+            @Parameter(description = "List of desire Transaction type (e.g., SALE, RENT)")
+            @RequestParam(required = false) List<Constants.TransactionTypeEnum> transactionType,
+
+            @Parameter(description = "Property statuses (e.g., AVAILABLE, SOLD, RENTED, PENDING, APPROVED)")
+            @RequestParam(required = false) List<Constants.PropertyStatusEnum> statuses,
+
+            @Parameter(description = "Bounding box (e.g. the map viewport): southern latitude, send with maxLatitude, minLongitude and maxLongitude")
+            @RequestParam(required = false) Double minLatitude,
+
+            @Parameter(description = "Bounding box: northern latitude")
+            @RequestParam(required = false) Double maxLatitude,
+
+            @Parameter(description = "Bounding box: western longitude")
+            @RequestParam(required = false) Double minLongitude,
+
+            @Parameter(description = "Bounding box: eastern longitude")
+            @RequestParam(required = false) Double maxLongitude,
+
+            @Parameter(description = "Radius search: latitude of the center, send with centerLongitude and radiusKm")
+            @RequestParam(required = false) Double centerLatitude,
+
+            @Parameter(description = "Radius search: longitude of the center")
+            @RequestParam(required = false) Double centerLongitude,
+
+            @Parameter(description = "Radius search: distance from the center in kilometers (at most 500)")
+            @RequestParam(required = false) Double radiusKm,
+
+            @Parameter(description = "Keyword searched in title, description and amenities")
+            @RequestParam(required = false) String keyword
+    ) {
+        PropertyFacetCounts facetCounts = propertyService.getCardFacets(
+                cityIds, districtIds, wardIds, propertyTypeIds,
+                ownerId, ownerName, ownerTier,
+                agentId, agentName, agentTier,
+                minPrice, maxPrice, minArea, maxArea,
+                rooms, bathrooms, bedrooms, floors,
+                houseOrientation, balconyOrientation,
+                transactionType, statuses, topK,
+                GeoArea.of(minLatitude, maxLatitude, minLongitude, maxLongitude, centerLatitude, centerLongitude, radiusKm),
+                keyword
+        );
+
+        return responseFactory.successSingle(facetCounts, "Property facets retrieved successfully");
+    }
+
+    @GetMapping("/properties/clusters")
+    @Operation(
+            summary = "Get map clusters of properties in a viewport",
+            description = "Properties matching the filters inside the viewport, grouped into grid cells sized for the zoom level. Each cluster carries its centroid and count, and the property ID when it holds a single property. Takes the same filters as /properties/cards",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Successful operation",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = SingleResponse.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid parameters",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ErrorResponse.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "503",
+                            description = "Index still loading, retry after the Retry-After seconds",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ErrorResponse.class)
+                            )
+                    )
+            }
+    )
+    public ResponseEntity<SingleResponse<List<PropertyCluster>>> getCardClusters(
+            @Parameter(description = "Viewport: southern latitude", required = true)
+            @RequestParam Double minLatitude,
+
+            @Parameter(description = "Viewport: northern latitude", required = true)
+            @RequestParam Double maxLatitude,
+
+            @Parameter(description = "Viewport: western longitude", required = true)
+            @RequestParam Double minLongitude,
+
+            @Parameter(description = "Viewport: eastern longitude", required = true)
+            @RequestParam Double maxLongitude,
+
+            @Parameter(description = "Map zoom level (0-22), clusters get smaller as it grows", required = true)
+            @RequestParam int zoom,
+
+            @Parameter(description = "Radius search: latitude of the center, send with centerLongitude and radiusKm")
+            @RequestParam(required = false) Double centerLatitude,
+
+            @Parameter(description = "Radius search: longitude of the center")
+            @RequestParam(required = false) Double centerLongitude,
+
+            @Parameter(description = "Radius search: distance from the center in kilometers (at most 500)")
+            @RequestParam(required = false) Double radiusKm,
+
+            @Parameter(description = "List of city IDs to filter by")
+            @RequestParam(required = false) List<UUID> cityIds,
+
+            @Parameter(description = "List of district IDs to filter by")
+            @RequestParam(required = false) List<UUID> districtIds,
+
+            @Parameter(description = "List of ward IDs to filter by")
+            @RequestParam(required = false) List<UUID> wardIds,
+
+            @Parameter(description = "List of property type IDs to filter by")
+            @RequestParam(required = false) List<UUID> propertyTypeIds,
+
+            @Parameter(description = "Property owner ID")
+            @RequestParam(required = false) UUID ownerId,
+
+            @Parameter(description = "Property owner's name")
+            @RequestParam(required = false) String ownerName,
+
+            @Parameter(description = "Property owner's tier")
+            @RequestParam(required = false) List<Constants.ContributionTierEnum> ownerTier,
+
+            @Parameter(description = "Agent ID")
+            @RequestParam(required = false) UUID agentId,
+
+            @Parameter(description = "Agent's name")
+            @RequestParam(required = false) String agentName,
+
+            @Parameter(description = "Agent's tier")
+            @RequestParam(required = false) List<Constants.PerformanceTierEnum> agentTier,
+
+            @Parameter(description = "Restrict to the top K most searched properties")
+            @RequestParam(required = true, defaultValue = "false") Boolean topK,
+
+            @Parameter(description = "Minimum price")
+            @RequestParam(required = false) BigDecimal minPrice,
+
+            @Parameter(description = "Maximum price")
+            @RequestParam(required = false) BigDecimal maxPrice,
+
+            @Parameter(description = "Minimum area (square meters)")
+            @RequestParam(required = false) BigDecimal minArea,
+
+            @Parameter(description = "Maximum area (square meters)")
+            @RequestParam(required = false) BigDecimal maxArea,
+
+            @Parameter(description = "Number of rooms")
+            @RequestParam(required = false) Integer rooms,
+
+            @Parameter(description = "Number of bathrooms")
+            @RequestParam(required = false) Integer bathrooms,
+
+            @Parameter(description = "Number of bedrooms")
+            @RequestParam(required = false) Integer bedrooms,
+
+            @Parameter(description = "Number of floors")
+            @RequestParam(required = false) Integer floors,
+
+            @Parameter(description = "House orientation (e.g., EAST, WEST, NORTH, SOUTH)")
+            @RequestParam(required = false) Constants.OrientationEnum houseOrientation,
+
+            @Parameter(description = "Balcony orientation (e.g., EAST, WEST, NORTH, SOUTH)")
+            @RequestParam(required = false) Constants.OrientationEnum balconyOrientation,
+
+            @Parameter(description = "List of desire Transaction type (e.g., SALE, RENT)")
+            @RequestParam(required = false) List<Constants.TransactionTypeEnum> transactionType,
+
+            @Parameter(description = "Property statuses (e.g., AVAILABLE, SOLD, RENTED, PENDING, APPROVED)")
+            @RequestParam(required = false) List<Constants.PropertyStatusEnum> statuses,
+
+            @Parameter(description = "Keyword searched in title, description and amenities")
+            @RequestParam(required = false) String keyword
+    ) {
+        List<PropertyCluster> clusters = propertyService.getCardClusters(
+                cityIds, districtIds, wardIds, propertyTypeIds,
+                ownerId, ownerName, ownerTier,
+                agentId, agentName, agentTier,
+                minPrice, maxPrice, minArea, maxArea,
+                rooms, bathrooms, bedrooms, floors,
+                houseOrientation, balconyOrientation,
+                transactionType, statuses, topK,
+                GeoArea.of(minLatitude, maxLatitude, minLongitude, maxLongitude, centerLatitude, centerLongitude, radiusKm),
+                keyword, zoom
+        );
+
+        return responseFactory.successSingle(clusters, "Property clusters retrieved successfully");
+    }
+
+    @GetMapping("/properties/trending")
+    @Operation(
+            summary = "Get trending properties",
+            description = "Properties with the most views and searches over the last hour or day, overall or within a city. Counts are approximate and kept in memory",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Successful operation",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = SingleResponse.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid parameters",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ErrorResponse.class)
+                            )
+                    )
+            }
+    )
+    public ResponseEntity<SingleResponse<List<SimplePropertyCard>>> getTrendingProperties(
+            @Parameter(description = "Time window: HOUR or DAY")
+            @RequestParam(defaultValue = "HOUR") Constants.TrendingWindowEnum window,
+
+            @Parameter(description = "Only properties of this city")
+            @RequestParam(required = false) UUID cityId,
+
+            @Parameter(description = "Number of properties (at most 50)")
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        log.info("Getting trending properties - window: {}, cityId: {}, limit: {}", window, cityId, limit);
+
+        List<PropertyCard> trendingCards = propertyService.getTrendingCards(window, cityId, limit);
+        List<SimplePropertyCard> cards = propertyMapper.mapToList(trendingCards, SimplePropertyCard.class);
+
+        return responseFactory.successSingle(cards, "Trending properties retrieved successfully");
+    }
+
     @GetMapping("/properties/{propertyId}")
     @Operation(
             summary = "Get property details by ID",
@@ -353,13 +738,71 @@ public class PublicController extends AbstractBaseController {
     )
     public ResponseEntity<SingleResponse<PropertyDetails>> getPropertyDetails(
             @Parameter(description = "Property ID", required = true)
-            @PathVariable UUID propertyId
+            @PathVariable UUID propertyId,
+
+            WebRequest webRequest
     ) {
         log.info("Getting property details for ID: {}", propertyId);
 
+        // A missing property has no version and falls through to the usual 404
+        ContentVersion version = propertyService.getPropertyDetailsVersion(propertyId);
+        if (version != null) {
+            // Revalidated pages are views too
+            propertyService.recordPropertyView(propertyId);
+            if (webRequest.checkNotModified(version.etag(), version.lastModified())) {
+                return null;
+            }
+        }
+
         PropertyDetails propertyDetails = propertyService.getPropertyDetailsById(propertyId);
 
-        return responseFactory.successSingle(propertyDetails, "Property details retrieved successfully");
+        return responseFactory.successSingle(propertyDetails, "Property details retrieved successfully", CacheControl.noCache());
+    }
+
+    @GetMapping("/properties/{propertyId}/similar")
+    @Operation(
+            summary = "Get similar properties",
+            description = "Available properties of the same city and transaction type closest in price, area, price per m², rooms, floors, type and location",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Successful operation",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = SingleResponse.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid parameters",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ErrorResponse.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "503",
+                            description = "Index still loading, retry after the Retry-After seconds",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ErrorResponse.class)
+                            )
+                    )
+            }
+    )
+    public ResponseEntity<SingleResponse<List<SimplePropertyCard>>> getSimilarProperties(
+            @Parameter(description = "Property ID", required = true)
+            @PathVariable UUID propertyId,
+
+            @Parameter(description = "Number of properties (at most 20)")
+            @RequestParam(defaultValue = "6") int limit
+    ) {
+        log.info("Getting similar properties for ID: {}, limit: {}", propertyId, limit);
+
+        List<PropertyCard> similarCards = propertyService.getSimilarCards(propertyId, limit);
+        List<SimplePropertyCard> cards = propertyMapper.mapToList(similarCards, SimplePropertyCard.class);
+
+        return responseFactory.successSingle(cards, "Similar properties retrieved successfully");
     }
 
     // ==================== LOCATION ENDPOINTS ====================
@@ -403,6 +846,44 @@ public class PublicController extends AbstractBaseController {
         return responseFactory.successPage(cityResponses, "Top most searched cities retrieved successfully");
     }
 
+    @GetMapping("/locations/cities/trending")
+    @Operation(
+            summary = "Get trending cities",
+            description = "Cities searched the most over the last hour or day. Counts are approximate and kept in memory",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Successful operation",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = SingleResponse.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid parameters",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ErrorResponse.class)
+                            )
+                    )
+            }
+    )
+    public ResponseEntity<SingleResponse<List<LocationCardResponse>>> getTrendingCities(
+            @Parameter(description = "Time window: HOUR or DAY")
+            @RequestParam(defaultValue = "HOUR") Constants.TrendingWindowEnum window,
+
+            @Parameter(description = "Number of cities (at most 50)")
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        log.info("Getting trending cities - window: {}, limit: {}", window, limit);
+
+        List<City> trendingCities = locationService.trendingCities(window, limit);
+        List<LocationCardResponse> cityResponses = locationMapper.mapToList(trendingCities, LocationCardResponse.class);
+
+        return responseFactory.successSingle(cityResponses, "Trending cities retrieved successfully");
+    }
+
     @GetMapping("/locations/children")
     @Operation(
             summary = "Get child locations by parent ID",
@@ -438,17 +919,24 @@ public class PublicController extends AbstractBaseController {
                     required = true,
                     example = "DISTRICT"
             )
-            @RequestParam Constants.SearchTypeEnum searchType
+            @RequestParam Constants.SearchTypeEnum searchType,
+
+            WebRequest webRequest
     ) {
         log.info("Getting child locations - parentId: {}, searchType: {}", parentId, searchType);
 
+        ContentVersion version = locationService.getLocationsVersion();
+        if (webRequest.checkNotModified(version.etag(), version.lastModified())) {
+            return null;
+        }
+
         Map<UUID, String> childLocations = locationService.findAllByParents(parentId, searchType);
 
         String message = parentId == null
                 ? String.format("All %ss retrieved successfully", searchType.name().toLowerCase())
                 : String.format("Child %ss retrieved successfully", searchType.name().toLowerCase());
 
-        return responseFactory.successSingle(childLocations, message);
+        return responseFactory.successSingle(childLocations, message, CacheControl.noCache());
     }
 
     @GetMapping("/locations/cards")
@@ -518,10 +1006,19 @@ public class PublicController extends AbstractBaseController {
             @RequestParam(required = false) Integer minPopulation,
 
             @Parameter(description = "Maximum population")
-            @RequestParam(required = false) Integer maxPopulation
+            @RequestParam(required = false) Integer maxPopulation,
+
+            WebRequest webRequest
     ) {
         log.info("Getting all location cards with filters - page: {}, limit: {}, locationTypeEnum: {}", page, limit, locationTypeEnum);
 
+        // The ETag is shared by every filter combination: any location change invalidates all of them.
+        // It also covers the caller's favorite flags, so a like or a sign-in changes it
+        ContentVersion version = locationService.getLocationCardsVersion(locationTypeEnum);
+        if (webRequest.checkNotModified(version.etag(), version.lastModified())) {
+            return null;
+        }
+
         Pageable pageable = createPageable(page, limit, sortType, sortBy);
         Page<LocationCardResponse> locationCards = locationService.findAllLocationCardsWithFilter(
                 pageable,
@@ -538,7 +1035,8 @@ public class PublicController extends AbstractBaseController {
                 maxPopulation
         );
 
-        return responseFactory.successPage(locationCards, "Location cards retrieved successfully");
+        // Favorite flags are per caller, shared caches must not keep the page
+        return responseFactory.successPage(locationCards, "Location cards retrieved successfully", CacheControl.noCache().cachePrivate());
     }
 
     @GetMapping("/locations/{locationId}/details")
@@ -569,14 +1067,21 @@ public class PublicController extends AbstractBaseController {
             @PathVariable UUID locationId,
 
             @Parameter(description = "Location type: CITY, DISTRICT, or WARD", required = true)
-            @RequestParam Constants.LocationEnum locationTypeEnum
+            @RequestParam Constants.LocationEnum locationTypeEnum,
+
+            WebRequest webRequest
     ) {
         log.info("Getting location details - locationId: {}, locationTypeEnum: {}", locationId, locationTypeEnum);
 
+        ContentVersion version = locationService.getLocationDetailsVersion(locationId, locationTypeEnum);
+        if (webRequest.checkNotModified(version.etag(), version.lastModified())) {
+            return null;
+        }
+
         LocationDetailsResponse locationDetails = 
                 locationService.getLocationDetails(locationId, locationTypeEnum);
 
-        return responseFactory.successSingle(locationDetails, "Location details retrieved successfully");
+        return responseFactory.successSingle(locationDetails, "Location details retrieved successfully", CacheControl.noCache().cachePrivate());
     }
 
     @GetMapping("/locations/property-types")
@@ -613,15 +1118,22 @@ public class PublicController extends AbstractBaseController {
             @RequestParam(defaultValue = "desc") String sortType,
 
             @Parameter(description = "Field to sort by")
-            @RequestParam(required = false) String sortBy
+            @RequestParam(required = false) String sortBy,
+
+            WebRequest webRequest
     ) {
         log.info("Getting all property types - page: {}, limit: {}", page, limit);
 
+        ContentVersion version = propertyService.getPropertyTypesVersion();
+        if (webRequest.checkNotModified(version.etag(), version.lastModified())) {
+            return null;
+        }
+
         Pageable pageable = createPageable(page, limit, sortType, sortBy);
         Page<PropertyType> propertyTypes = propertyService.getAllTypes(pageable);
         Page<PropertyTypeResponse> propertyTypeResponses = propertyMapper.mapToPage(propertyTypes, PropertyTypeResponse.class);
 
-        return responseFactory.successPage(propertyTypeResponses, "Property types retrieved successfully");
+        return responseFactory.successPage(propertyTypeResponses, "Property types retrieved successfully", CacheControl.noCache());
     }
 
     // ==================== DOCUMENT TYPE ENDPOINTS ====================
@@ -1,19 +1,25 @@
 package com.se100.bds.controllers;
 
 import com.se100.bds.controllers.base.AbstractBaseController;
+import com.se100.bds.dtos.responses.PageResponse;
 import com.se100.bds.dtos.responses.SingleResponse;
+import com.se100.bds.dtos.responses.ranking.LeaderboardEntryResponse;
 import com.se100.bds.models.schemas.ranking.*;
 import com.se100.bds.services.domains.ranking.RankingService;
+import com.se100.bds.utils.Constants;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.UUID;
 
 import static com.se100.bds.utils.Constants.SECURITY_SCHEME_NAME;
@@ -83,6 +89,44 @@ public class RankingController extends AbstractBaseController {
         return responseFactory.successSingle(career, "My sales agent career performance retrieved successfully");
     }
 
+    @PreAuthorize("hasAnyRole('ADMIN', 'SALESAGENT')")
+    @GetMapping("/agent/leaderboard")
+    @Operation(
+            summary = "Get the live sales agent leaderboard of a month",
+            description = "Positions are updated on every action instead of once a night; equal points share a position",
+            security = @SecurityRequirement(name = SECURITY_SCHEME_NAME)
+    )
+    public ResponseEntity<PageResponse<LeaderboardEntryResponse>> getSaleAgentLeaderboard(
+            @Parameter(description = "Month (1-12)", required = true)
+            @RequestParam int month,
+            @Parameter(description = "Year", required = true)
+            @RequestParam int year,
+            @Parameter(description = "Page number (1-based)")
+            @RequestParam(defaultValue = "1") int page,
+            @Parameter(description = "Number of items per page")
+            @RequestParam(defaultValue = "20") int limit) {
+        Pageable pageable = createPageable(page, limit, null, null);
+        Page<LeaderboardEntryResponse> leaderboard = rankingService.getLeaderboard(Constants.RoleEnum.SALESAGENT, month, year, pageable);
+        return responseFactory.successPage(leaderboard, "Sales agent leaderboard retrieved successfully");
+    }
+
+    @PreAuthorize("hasRole('SALESAGENT')")
+    @GetMapping("/agent/me/leaderboard")
+    @Operation(
+            summary = "Get my position in the live sales agent leaderboard with the users around me",
+            security = @SecurityRequirement(name = SECURITY_SCHEME_NAME)
+    )
+    public ResponseEntity<SingleResponse<List<LeaderboardEntryResponse>>> getMySaleAgentLeaderboardNeighbours(
+            @Parameter(description = "Month (1-12)", required = true)
+            @RequestParam int month,
+            @Parameter(description = "Year", required = true)
+            @RequestParam int year,
+            @Parameter(description = "Number of users shown above and below me")
+            @RequestParam(defaultValue = "5") int radius) {
+        List<LeaderboardEntryResponse> neighbours = rankingService.getMyLeaderboardNeighbours(Constants.RoleEnum.SALESAGENT, month, year, radius);
+        return responseFactory.successSingle(neighbours, "My sales agent leaderboard position retrieved successfully");
+    }
+
     // Customer endpoints
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/customer/{customerId}/month")
@@ -140,6 +184,44 @@ public class RankingController extends AbstractBaseController {
         return responseFactory.successSingle(potential, "My customer all-time potential retrieved successfully");
     }
 
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/customer/leaderboard")
+    @Operation(
+            summary = "Get the live customer leaderboard of a month",
+            description = "Positions are updated on every action instead of once a night; equal points share a position",
+            security = @SecurityRequirement(name = SECURITY_SCHEME_NAME)
+    )
+    public ResponseEntity<PageResponse<LeaderboardEntryResponse>> getCustomerLeaderboard(
+            @Parameter(description = "Month (1-12)", required = true)
+            @RequestParam int month,
+            @Parameter(description = "Year", required = true)
+            @RequestParam int year,
+            @Parameter(description = "Page number (1-based)")
+            @RequestParam(defaultValue = "1") int page,
+            @Parameter(description = "Number of items per page")
+            @RequestParam(defaultValue = "20") int limit) {
+        Pageable pageable = createPageable(page, limit, null, null);
+        Page<LeaderboardEntryResponse> leaderboard = rankingService.getLeaderboard(Constants.RoleEnum.CUSTOMER, month, year, pageable);
+        return responseFactory.successPage(leaderboard, "Customer leaderboard retrieved successfully");
+    }
+
+    @PreAuthorize("hasRole('CUSTOMER')")
+    @GetMapping("/customer/me/leaderboard")
+    @Operation(
+            summary = "Get my position in the live customer leaderboard with the users around me",
+            security = @SecurityRequirement(name = SECURITY_SCHEME_NAME)
+    )
+    public ResponseEntity<SingleResponse<List<LeaderboardEntryResponse>>> getMyCustomerLeaderboardNeighbours(
+            @Parameter(description = "Month (1-12)", required = true)
+            @RequestParam int month,
+            @Parameter(description = "Year", required = true)
+            @RequestParam int year,
+            @Parameter(description = "Number of users shown above and below me")
+            @RequestParam(defaultValue = "5") int radius) {
+        List<LeaderboardEntryResponse> neighbours = rankingService.getMyLeaderboardNeighbours(Constants.RoleEnum.CUSTOMER, month, year, radius);
+        return responseFactory.successSingle(neighbours, "My customer leaderboard position retrieved successfully");
+    }
+
     // Property Owner endpoints
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/property-owner/{propertyOwnerId}/month")
@@ -196,5 +278,42 @@ public class RankingController extends AbstractBaseController {
         IndividualPropertyOwnerContributionAll contribution = rankingService.getMyPropertyOwnerAll();
         return responseFactory.successSingle(contribution, "My property owner all-time contribution retrieved successfully");
     }
-}
 
+    @PreAuthorize("hasAnyRole('ADMIN', 'PROPERTY_OWNER')")
+    @GetMapping("/property-owner/leaderboard")
+    @Operation(
+            summary = "Get the live property owner leaderboard of a month",
+            description = "Positions are updated on every action instead of once a night; equal points share a position",
+            security = @SecurityRequirement(name = SECURITY_SCHEME_NAME)
+    )
+    public ResponseEntity<PageResponse<LeaderboardEntryResponse>> getPropertyOwnerLeaderboard(
+            @Parameter(description = "Month (1-12)", required = true)
+            @RequestParam int month,
+            @Parameter(description = "Year", required = true)
+            @RequestParam int year,
+            @Parameter(description = "Page number (1-based)")
+            @RequestParam(defaultValue = "1") int page,
+            @Parameter(description = "Number of items per page")
+            @RequestParam(defaultValue = "20") int limit) {
+        Pageable pageable = createPageable(page, limit, null, null);
+        Page<LeaderboardEntryResponse> leaderboard = rankingService.getLeaderboard(Constants.RoleEnum.PROPERTY_OWNER, month, year, pageable);
+        return responseFactory.successPage(leaderboard, "Property owner leaderboard retrieved successfully");
+    }
+
+    @PreAuthorize("hasRole('PROPERTY_OWNER')")
+    @GetMapping("/property-owner/me/leaderboard")
+    @Operation(
+            summary = "Get my position in the live property owner leaderboard with the users around me",
+            security = @SecurityRequirement(name = SECURITY_SCHEME_NAME)
+    )
+    public ResponseEntity<SingleResponse<List<LeaderboardEntryResponse>>> getMyPropertyOwnerLeaderboardNeighbours(
+            @Parameter(description = "Month (1-12)", required = true)
+            @RequestParam int month,
+            @Parameter(description = "Year", required = true)
+            @RequestParam int year,
+            @Parameter(description = "Number of users shown above and below me")
+            @RequestParam(defaultValue = "5") int radius) {
+        List<LeaderboardEntryResponse> neighbours = rankingService.getMyLeaderboardNeighbours(Constants.RoleEnum.PROPERTY_OWNER, month, year, radius);
+        return responseFactory.successSingle(neighbours, "My property owner leaderboard position retrieved successfully");
+    }
+}
@@ -3,6 +3,7 @@ package com.se100.bds.controllers.base;
 import com.se100.bds.dtos.responses.PageResponse;
 import com.se100.bds.dtos.responses.SingleResponse;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
@@ -50,6 +51,17 @@ public class ResponseFactory {
         );
     }
 
+    // With the validators set by WebRequest.checkNotModified, clients revalidate instead of reusing a stale copy
+    public <T> ResponseEntity<SingleResponse<T>> successSingle(
+            T data,
+            String message,
+            CacheControl cacheControl
+    ) {
+        return ResponseEntity.ok().cacheControl(cacheControl).body(
+                createSingleResponse(HttpStatus.OK, message, data)
+        );
+    }
+
     public <T> ResponseEntity<SingleResponse<T>> failedSingle(
             T data,
             String message
@@ -85,4 +97,29 @@ public class ResponseFactory {
 
         return ResponseEntity.ok(response);
     }
+
+    public <T> ResponseEntity<PageResponse<T>> successPage(
+            Page<T> page,
+            String message,
+            CacheControl cacheControl
+    ) {
+        ResponseEntity<PageResponse<T>> response = successPage(page, message);
+        return ResponseEntity.ok().cacheControl(cacheControl).body(response.getBody());
+    }
+
+    public <T> ResponseEntity<PageResponse<T>> successCursorPage(
+            List<T> data,
+            int limit,
+            String nextCursor,
+            String message
+    ) {
+        PageResponse<T> response = PageResponse.<T>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message(message)
+                .data(data)
+                .paging(new PageResponse.PagingResponse(0, limit, -1, -1, nextCursor))
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
 }
\ No newline at end of file
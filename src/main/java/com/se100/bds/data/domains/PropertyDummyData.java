@@ -77,6 +77,8 @@ public class PropertyDummyData {
                     .description(generatePropertyDescription(type.getTypeName(), area))
                     .transactionType(transactionType)
                     .fullAddress(String.format("%d %s Street, %s", i, type.getTypeName(), ward.getWardName()))
+                    .latitude(10.70 + random.nextDouble() * 0.15) // Around Ho Chi Minh City
+                    .longitude(106.60 + random.nextDouble() * 0.20)
                     .area(area)
                     .rooms(2 + random.nextInt(6)) // 2-7 rooms
                     .bathrooms(1 + random.nextInt(4)) // 1-4 bathrooms
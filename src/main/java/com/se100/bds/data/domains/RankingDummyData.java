@@ -24,6 +24,7 @@ import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -171,6 +172,13 @@ public class RankingDummyData {
         }
 
         ownerContributionMonthRepository.saveAll(rankings);
+        if (isCurrentMonth(month, year)) {
+            rankings.stream()
+                    .collect(Collectors.groupingBy(
+                            IndividualPropertyOwnerContributionMonth::getContributionTier,
+                            Collectors.mapping(IndividualPropertyOwnerContributionMonth::getOwnerId, Collectors.toList())))
+                    .forEach((tier, ownerIds) -> propertyOwnerRepository.updateCurrentTier(ownerIds, tier));
+        }
         log.info("Created {} property owner contribution rankings for {}/{}", rankings.size(), month, year);
     }
 
@@ -286,6 +294,13 @@ public class RankingDummyData {
         }
 
         agentPerformanceMonthRepository.saveAll(rankings);
+        if (isCurrentMonth(month, year)) {
+            rankings.stream()
+                    .collect(Collectors.groupingBy(
+                            IndividualSalesAgentPerformanceMonth::getPerformanceTier,
+                            Collectors.mapping(IndividualSalesAgentPerformanceMonth::getAgentId, Collectors.toList())))
+                    .forEach((tier, agentIds) -> saleAgentRepository.updateCurrentTier(agentIds, tier));
+        }
         log.info("Created {} sales agent performance rankings for {}/{}", rankings.size(), month, year);
     }
 
@@ -450,6 +465,11 @@ public class RankingDummyData {
         log.info("Created {} customer all-time potential rankings", rankings.size());
     }
 
+    private boolean isCurrentMonth(int month, int year) {
+        LocalDate now = LocalDate.now();
+        return now.getMonthValue() == month && now.getYear() == year;
+    }
+
     private Constants.ContributionTierEnum calculateContributionTier(int points) {
         if (points >= 90) return Constants.ContributionTierEnum.PLATINUM;
         if (points >= 75) return Constants.ContributionTierEnum.GOLD;
@@ -2,6 +2,7 @@ package com.se100.bds.dtos.requests.property;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.se100.bds.utils.Constants;
+import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -39,6 +40,14 @@ public class CreatePropertyRequest {
     @Size(max = 255, message = "Full address cannot exceed 255 characters")
     private String fullAddress;
 
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    private Double latitude;
+
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    private Double longitude;
+
     @NotNull(message = "Area is required")
     @DecimalMin(value = "0.0", inclusive = false, message = "Area must be greater than 0")
     private BigDecimal area;
@@ -10,7 +10,7 @@ import java.util.UUID;
 
 @Getter
 @Setter
-@SuperBuilder
+@SuperBuilder(toBuilder = true)
 @NoArgsConstructor
 public abstract class AbstractBaseDataResponse {
     private UUID id;
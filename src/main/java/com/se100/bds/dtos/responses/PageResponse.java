@@ -1,5 +1,6 @@
 package com.se100.bds.dtos.responses;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -37,5 +38,12 @@ public class PageResponse<T> extends AbstractBaseResponse {
         private long total;
         // The total number of pages available based on the total items and limit
         private int totalPages;
+        // Cursor of the next page in cursor mode, total and totalPages are -1 there since nothing is counted
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private String nextCursor;
+
+        public PagingResponse(int page, int limit, long total, int totalPages) {
+            this(page, limit, total, totalPages, null);
+        }
     }
 }
\ No newline at end of file
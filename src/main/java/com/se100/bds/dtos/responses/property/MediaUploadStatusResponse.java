@@ -0,0 +1,29 @@
+package com.se100.bds.dtos.responses.property;
+
+import com.se100.bds.utils.Constants;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaUploadStatusResponse {
+    private UUID uploadId;
+    private String fileName;
+    private Constants.MediaUploadStateEnum state;
+    private int attempts;
+    // Set once the upload completed and the media row is attached
+    private UUID mediaId;
+    private String filePath;
+    // Last failure, kept while retrying
+    private String error;
+    private LocalDateTime updatedAt;
+}
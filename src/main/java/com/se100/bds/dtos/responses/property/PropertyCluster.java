@@ -0,0 +1,23 @@
+package com.se100.bds.dtos.responses.property;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.UUID;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropertyCluster {
+    // Centroid of the properties in the cluster
+    private double latitude;
+    private double longitude;
+    private long count;
+    // Set only for single-property clusters, so the marker can link to the details directly
+    private UUID propertyId;
+}
@@ -16,7 +16,7 @@ import java.util.UUID;
 @Getter
 @Setter
 @NoArgsConstructor
-@SuperBuilder
+@SuperBuilder(toBuilder = true)
 public class PropertyDetails extends AbstractBaseDataResponse {
     private SimpleUserResponse owner;
     private SimpleUserResponse assignedAgent;
@@ -34,6 +34,8 @@ public class PropertyDetails extends AbstractBaseDataResponse {
     private String description;
     private String transactionType;
     private String fullAddress;
+    private Double latitude;
+    private Double longitude;
     private BigDecimal area;
     private Integer rooms;
     private Integer bathrooms;
@@ -51,4 +53,6 @@ public class PropertyDetails extends AbstractBaseDataResponse {
     private LocalDateTime approvedAt;
     private List<MediaResponse> mediaList;
     private List<DocumentResponse> documentList;
+    // Images sent with a create or update, still uploading when the response is returned
+    private List<MediaUploadStatusResponse> mediaUploads;
 }
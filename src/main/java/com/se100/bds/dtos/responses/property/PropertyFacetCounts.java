@@ -0,0 +1,47 @@
+package com.se100.bds.dtos.responses.property;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropertyFacetCounts {
+    // Number of properties matching the filters
+    private long total;
+    private List<FacetValue> cities;
+    private List<FacetValue> districts;
+    private List<FacetValue> propertyTypes;
+    private List<FacetValue> transactionTypes;
+    private List<FacetRange> priceRanges;
+    private List<FacetRange> areaRanges;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetValue {
+        // Id for locations and property types, enum name for transaction types
+        private String value;
+        private long count;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetRange {
+        // Inclusive bounds, usable as-is for the min/max filters
+        private BigDecimal min;
+        private BigDecimal max;
+        private long count;
+    }
+}
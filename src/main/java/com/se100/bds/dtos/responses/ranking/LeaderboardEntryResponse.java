@@ -0,0 +1,24 @@
+package com.se100.bds.dtos.responses.ranking;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.UUID;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntryResponse {
+    private UUID userId;
+    private String fullName;
+    private String avatarUrl;
+    // Equal points share a position (1, 1, 3)
+    private int position;
+    private int points;
+    private String tier;
+}
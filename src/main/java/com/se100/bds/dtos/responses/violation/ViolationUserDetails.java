@@ -1,6 +1,7 @@
 package com.se100.bds.dtos.responses.violation;
 
 import com.se100.bds.dtos.responses.AbstractBaseDataResponse;
+import com.se100.bds.dtos.responses.property.MediaUploadStatusResponse;
 import com.se100.bds.utils.Constants;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -22,6 +23,8 @@ public class ViolationUserDetails extends AbstractBaseDataResponse {
     private String description;
     private LocalDateTime resolvedAt;
     private List<String> evidenceUrls;
+    // Evidence files sent with the report, still uploading when the response is returned
+    private List<MediaUploadStatusResponse> evidenceUploads;
     private Constants.PenaltyAppliedEnum penaltyApplied;
     private String resolutionNotes;
 }
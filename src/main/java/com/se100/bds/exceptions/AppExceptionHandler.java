@@ -13,6 +13,7 @@ import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.crossstore.ChangeSetPersister;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -139,6 +140,21 @@ public class AppExceptionHandler {
         return build(HttpStatus.FORBIDDEN, e.getMessage());
     }
 
+    @ExceptionHandler(UploadCapacityExceededException.class)
+    public final ResponseEntity<ErrorResponse> handleUploadCapacityExceeded(final UploadCapacityExceededException e) {
+        log.warn("Upload rejected: {}", e.getMessage());
+        return build(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+    }
+
+    @ExceptionHandler(ServiceNotReadyException.class)
+    public final ResponseEntity<ErrorResponse> handleServiceNotReady(final ServiceNotReadyException e) {
+        log.warn("Service not ready: {}", e.getMessage());
+        ResponseEntity<ErrorResponse> response = build(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(response.getBody());
+    }
+
     @ExceptionHandler(Exception.class)
     public final ResponseEntity<ErrorResponse> handleAllExceptions(final Exception e) {
         log.error("Exception: {}", ExceptionUtils.getStackTrace(e));
@@ -0,0 +1,24 @@
+package com.se100.bds.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.io.Serial;
+
+// An in-memory structure the request needs is still loading, answered with 503 and Retry-After
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceNotReadyException extends RuntimeException {
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  private final long retryAfterSeconds;
+
+  public ServiceNotReadyException(final String message, final long retryAfterSeconds) {
+    super(message);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
@@ -0,0 +1,20 @@
+package com.se100.bds.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.io.Serial;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class UploadCapacityExceededException extends RuntimeException {
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  public UploadCapacityExceededException() {
+    super("Too many uploads in progress, please retry shortly");
+  }
+
+  public UploadCapacityExceededException(final String message) {
+    super(message);
+  }
+}
@@ -341,6 +341,8 @@ public class PropertyMapper extends BaseMapper {
                 .description(projection.description())
                 .transactionType(projection.transactionType())
                 .fullAddress(projection.fullAddress())
+                .latitude(projection.latitude())
+                .longitude(projection.longitude())
                 .area(projection.area())
                 .rooms(projection.rooms())
                 .bathrooms(projection.bathrooms())
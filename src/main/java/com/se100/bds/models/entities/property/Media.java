@@ -8,7 +8,10 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "media")
+@Table(name = "media", indexes = {
+        // Per-property media lookups: details, card cover image and count, details version
+        @Index(name = "idx_media_property_id", columnList = "property_id")
+})
 @Builder
 @Getter
 @Setter
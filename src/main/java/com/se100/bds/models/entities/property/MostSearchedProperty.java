@@ -0,0 +1,28 @@
+package com.se100.bds.models.entities.property;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+/**
+ * The current month's most searched properties, at most MostSearchedPropertyTracker.TOP_K rows.
+ * Rewritten only by MostSearchedPropertyTracker, so the topK card filter is a primary key lookup.
+ */
+@Entity
+@Table(name = "most_searched_properties")
+@Getter
+@Setter
+@NoArgsConstructor
+public class MostSearchedProperty {
+    // Same id as the property
+    @Id
+    @Column(name = "property_id", nullable = false)
+    private UUID id;
+
+    @Column(name = "search_count", nullable = false)
+    private long searchCount;
+
+    @Column(name = "ranking_position", nullable = false)
+    private int rankingPosition;
+}
@@ -19,7 +19,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "properties")
+@Table(name = "properties", indexes = {
+        // Seek index for the keyset mode of the public card listing
+        @Index(name = "idx_properties_created_at_id", columnList = "created_at DESC, property_id DESC"),
+        // Bounding-box lookups for the geo search fallback
+        @Index(name = "idx_properties_lat_lng", columnList = "latitude, longitude")
+})
 @Builder
 @Getter
 @Setter
@@ -68,6 +73,12 @@ public class Property extends AbstractBaseEntity {
     @Column(name = "full_address")
     private String fullAddress;
 
+    @Column(name = "latitude")
+    private Double latitude;
+
+    @Column(name = "longitude")
+    private Double longitude;
+
     @Column(name = "area", nullable = false, precision = 10, scale = 2)
     private BigDecimal area;
 
@@ -116,6 +127,15 @@ public class Property extends AbstractBaseEntity {
     @Column(name = "approved_at")
     private LocalDateTime approvedAt;
 
+    // Diacritic-folded tsvector of title, description and amenities, maintained by PostgreSQL on every write.
+    // Queried through fts_match/fts_rank (PostgresSearchFunctionContributor), GIN index created at startup
+    @JsonIgnore
+    @Column(name = "search_vector", insertable = false, updatable = false,
+            columnDefinition = "tsvector GENERATED ALWAYS AS (to_tsvector('simple', lower(translate("
+                    + "coalesce(title, '') || ' ' || coalesce(description, '') || ' ' || coalesce(amenities, ''), '"
+                    + Constants.SEARCH_FOLD_FROM + "', '" + Constants.SEARCH_FOLD_TO + "')))) STORED")
+    private String searchVector;
+
     @OneToMany(mappedBy = "property", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     @JsonIgnore
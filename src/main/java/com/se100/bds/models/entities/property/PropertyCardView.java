@@ -0,0 +1,135 @@
+package com.se100.bds.models.entities.property;
+
+import com.se100.bds.utils.Constants;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Denormalized copy of a property card, one row per property.
+ * Written only by PropertyCardProjector, so the public listing reads a single table without joins or grouping.
+ */
+@Entity
+@Table(name = "property_card", indexes = {
+        @Index(name = "idx_property_card_created_at_id", columnList = "created_at DESC, property_id DESC"),
+        @Index(name = "idx_property_card_city_id", columnList = "city_id"),
+        @Index(name = "idx_property_card_district_id", columnList = "district_id"),
+        @Index(name = "idx_property_card_owner_id", columnList = "owner_id"),
+        @Index(name = "idx_property_card_agent_id", columnList = "agent_id"),
+        @Index(name = "idx_property_card_price_amount", columnList = "price_amount"),
+        @Index(name = "idx_property_card_lat_lng", columnList = "latitude, longitude")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class PropertyCardView {
+    // Same id as the property
+    @Id
+    @Column(name = "property_id", nullable = false)
+    private UUID id;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "transaction_type", nullable = false)
+    private Constants.TransactionTypeEnum transactionType;
+
+    @Column(name = "title", nullable = false, length = 200)
+    private String title;
+
+    @Column(name = "thumbnail_url", length = 500)
+    private String thumbnailUrl;
+
+    @Column(name = "media_count", nullable = false)
+    private int mediaCount;
+
+    @Column(name = "full_address")
+    private String fullAddress;
+
+    @Column(name = "ward_id", nullable = false)
+    private UUID wardId;
+
+    @Column(name = "district_id", nullable = false)
+    private UUID districtId;
+
+    @Column(name = "district_name")
+    private String districtName;
+
+    @Column(name = "city_id", nullable = false)
+    private UUID cityId;
+
+    @Column(name = "city_name")
+    private String cityName;
+
+    @Column(name = "property_type_id", nullable = false)
+    private UUID propertyTypeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private Constants.PropertyStatusEnum status;
+
+    @Column(name = "price_amount", precision = 15, scale = 2)
+    private BigDecimal priceAmount;
+
+    @Column(name = "area", precision = 10, scale = 2)
+    private BigDecimal area;
+
+    @Column(name = "latitude")
+    private Double latitude;
+
+    @Column(name = "longitude")
+    private Double longitude;
+
+    @Column(name = "rooms")
+    private Integer rooms;
+
+    @Column(name = "bathrooms")
+    private Integer bathrooms;
+
+    @Column(name = "bedrooms")
+    private Integer bedrooms;
+
+    @Column(name = "floors")
+    private Integer floors;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "house_orientation", length = 100)
+    private Constants.OrientationEnum houseOrientation;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "balcony_orientation", length = 100)
+    private Constants.OrientationEnum balconyOrientation;
+
+    @Column(name = "owner_id")
+    private UUID ownerId;
+
+    @Column(name = "owner_first_name")
+    private String ownerFirstName;
+
+    @Column(name = "owner_last_name")
+    private String ownerLastName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "owner_tier", length = 20)
+    private Constants.ContributionTierEnum ownerTier;
+
+    @Column(name = "agent_id")
+    private UUID agentId;
+
+    @Column(name = "agent_first_name")
+    private String agentFirstName;
+
+    @Column(name = "agent_last_name")
+    private String agentLastName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "agent_tier", length = 20)
+    private Constants.PerformanceTierEnum agentTier;
+}
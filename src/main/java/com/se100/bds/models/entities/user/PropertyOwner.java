@@ -2,6 +2,7 @@ package com.se100.bds.models.entities.user;
 
 import com.se100.bds.models.entities.AbstractBaseEntity;
 import com.se100.bds.models.entities.property.Property;
+import com.se100.bds.utils.Constants;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -10,7 +11,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "property_owners")
+@Table(name = "property_owners", indexes = {
+        @Index(name = "idx_property_owners_current_tier", columnList = "current_tier")
+})
 @Builder
 @Getter
 @Setter
@@ -28,6 +31,11 @@ public class PropertyOwner extends AbstractBaseEntity {
     @Column(name = "approved_at", nullable = true)
     private LocalDateTime approvedAt;
 
+    // Denormalized copy of the current month contribution tier, kept in sync by PropertyOwnerRankingScheduler
+    @Enumerated(EnumType.STRING)
+    @Column(name = "current_tier", length = 20)
+    private Constants.ContributionTierEnum currentTier;
+
     @OneToMany(mappedBy = "owner", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<Property> properties = new ArrayList<>();
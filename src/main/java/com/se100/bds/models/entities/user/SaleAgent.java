@@ -14,7 +14,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "sale_agents")
+@Table(name = "sale_agents", indexes = {
+        @Index(name = "idx_sale_agents_current_tier", columnList = "current_tier")
+})
 @Builder
 @Getter
 @Setter
@@ -35,6 +37,11 @@ public class SaleAgent extends AbstractBaseEntity {
     @Column(name = "hired_date", nullable = false)
     private LocalDateTime hiredDate;
 
+    // Denormalized copy of the current month performance tier, kept in sync by SaleAgentRankingScheduler
+    @Enumerated(EnumType.STRING)
+    @Column(name = "current_tier", length = 20)
+    private Constants.PerformanceTierEnum currentTier;
+
     @OneToMany(mappedBy = "assignedAgent", cascade = CascadeType.ALL)
     @Builder.Default
     private List<Property> assignedProperties = new ArrayList<>();
@@ -2,6 +2,7 @@ package com.se100.bds.models.schemas.ranking;
 
 import com.se100.bds.models.schemas.AbstractBaseMongoSchema;
 import lombok.*;
+import org.springframework.data.mongodb.core.index.IndexDirection;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
@@ -21,6 +22,7 @@ public class IndividualCustomerPotentialAll extends AbstractBaseMongoSchema {
     private UUID customerId;
 
     @Field("lead_score")
+    @Indexed(direction = IndexDirection.DESCENDING)
     private Integer leadScore;
 
     @Field("lead_position")
@@ -7,13 +7,15 @@ import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
 import java.util.UUID;
 
 @Document(collection = "individual_customer_potential_month")
 @CompoundIndexes({
-        @CompoundIndex(name = "customer_month_year_idx", def = "{'customer_id': 1, 'month': 1, 'year': 1}", unique = true)
+        @CompoundIndex(name = "customer_month_year_idx", def = "{'customer_id': 1, 'month': 1, 'year': 1}", unique = true),
+        @CompoundIndex(name = "month_year_lead_idx", def = "{'month': 1, 'year': 1, 'lead_score': -1}")
 })
 @Builder
 @Getter
@@ -45,7 +47,8 @@ public class IndividualCustomerPotentialMonth extends AbstractBaseMongoSchema {
     @Field("month_viewings_attended")
     private Integer monthViewingAttended;
 
-    @Field("month_spending")
+    // Decimal128 so actions can $inc it in place
+    @Field(name = "month_spending", targetType = FieldType.DECIMAL128)
     private BigDecimal monthSpending;
 
     @Field("month_purchases")
@@ -2,6 +2,7 @@ package com.se100.bds.models.schemas.ranking;
 
 import com.se100.bds.models.schemas.AbstractBaseMongoSchema;
 import lombok.*;
+import org.springframework.data.mongodb.core.index.IndexDirection;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
@@ -21,6 +22,7 @@ public class IndividualPropertyOwnerContributionAll extends AbstractBaseMongoSch
     private UUID ownerId;
 
     @Field("contribution_point")
+    @Indexed(direction = IndexDirection.DESCENDING)
     private Integer contributionPoint;
 
     @Field("ranking_position")
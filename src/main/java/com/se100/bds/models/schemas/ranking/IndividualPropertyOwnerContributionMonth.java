@@ -7,13 +7,15 @@ import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
 import java.util.UUID;
 
 @Document(collection = "individual_property_owner_contribution_month")
 @CompoundIndexes({
-        @CompoundIndex(name = "owner_month_year_idx", def = "{'owner_id': 1, 'month': 1, 'year': 1}", unique = true)
+        @CompoundIndex(name = "owner_month_year_idx", def = "{'owner_id': 1, 'month': 1, 'year': 1}", unique = true),
+        @CompoundIndex(name = "month_year_contribution_idx", def = "{'month': 1, 'year': 1, 'contribution_point': -1}")
 })
 @Builder
 @Getter
@@ -39,7 +41,8 @@ public class IndividualPropertyOwnerContributionMonth extends AbstractBaseMongoS
     @Field("ranking_position")
     private Integer rankingPosition;
 
-    @Field("month_contribution_value")
+    // Decimal128 so actions can $inc it in place
+    @Field(name = "month_contribution_value", targetType = FieldType.DECIMAL128)
     private BigDecimal monthContributionValue;
 
     @Field("month_total_properties")
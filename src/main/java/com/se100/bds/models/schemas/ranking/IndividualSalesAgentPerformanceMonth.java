@@ -7,13 +7,16 @@ import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.UUID;
 
 @Document(collection = "individual_sales_agent_performance_month")
 @CompoundIndexes({
-        @CompoundIndex(name = "agent_month_year_idx", def = "{'agent_id': 1, 'month': 1, 'year': 1}", unique = true)
+        @CompoundIndex(name = "agent_month_year_idx", def = "{'agent_id': 1, 'month': 1, 'year': 1}", unique = true),
+        @CompoundIndex(name = "month_year_performance_idx", def = "{'month': 1, 'year': 1, 'performance_point': -1}")
 })
 @Builder
 @Getter
@@ -57,9 +60,36 @@ public class IndividualSalesAgentPerformanceMonth extends AbstractBaseMongoSchem
     @Field("month_rates")
     private Integer monthRates;
 
+    // Sum of the ratings of the month, the average is derived from it and month_rates
+    @Field(name = "rating_sum", targetType = FieldType.DECIMAL128)
+    private BigDecimal ratingSum;
+
+    // Ratings above 3 stars
+    @Field("month_satisfied_rates")
+    private Integer monthSatisfiedRates;
+
     @Field("avg_rating")
     private BigDecimal avgRating;
 
     @Field("month_customer_satisfaction_avg")
     private BigDecimal monthCustomerSatisfactionAvg;
+
+    // Rows without rating_sum predate the counters and keep their stored averages
+    public BigDecimal getAvgRating() {
+        if (ratingSum == null) {
+            return avgRating;
+        }
+        return monthRates != null && monthRates > 0
+                ? ratingSum.divide(BigDecimal.valueOf(monthRates), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+    }
+
+    public BigDecimal getMonthCustomerSatisfactionAvg() {
+        if (ratingSum == null) {
+            return monthCustomerSatisfactionAvg;
+        }
+        return monthRates != null && monthRates > 0 && monthSatisfiedRates != null
+                ? BigDecimal.valueOf(monthSatisfiedRates * 100L).divide(BigDecimal.valueOf(monthRates), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+    }
 }
@@ -1,6 +1,7 @@
 package com.se100.bds.repositories.domains.location;
 
 import com.se100.bds.models.entities.location.City;
+import com.se100.bds.repositories.dtos.TableVersionProjection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
@@ -81,4 +82,7 @@ public interface CityRepository extends JpaRepository<City, UUID>, JpaSpecificat
         WHERE w.id = :wardId
     """)
     String getCityNameByWardId(@Param("wardId") UUID wardId);
+
+    @Query("SELECT new com.se100.bds.repositories.dtos.TableVersionProjection(MAX(c.updatedAt), COUNT(c)) FROM City c")
+    TableVersionProjection findTableVersion();
 }
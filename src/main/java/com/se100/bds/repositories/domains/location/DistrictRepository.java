@@ -1,6 +1,7 @@
 package com.se100.bds.repositories.domains.location;
 
 import com.se100.bds.models.entities.location.District;
+import com.se100.bds.repositories.dtos.TableVersionProjection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
@@ -70,4 +71,7 @@ public interface DistrictRepository extends JpaRepository<District, UUID>, JpaSp
         WHERE w.id = :wardId
     """)
     String getDistrictNameByWardId(@Param("wardId") UUID wardId);
+
+    @Query("SELECT new com.se100.bds.repositories.dtos.TableVersionProjection(MAX(d.updatedAt), COUNT(d)) FROM District d")
+    TableVersionProjection findTableVersion();
 }
@@ -1,6 +1,7 @@
 package com.se100.bds.repositories.domains.location;
 
 import com.se100.bds.models.entities.location.Ward;
+import com.se100.bds.repositories.dtos.TableVersionProjection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
@@ -59,4 +60,7 @@ public interface WardRepository extends JpaRepository<Ward, UUID>, JpaSpecificat
         WHERE w.id = :wardId
     """)
     String getWardName(@Param("wardId") UUID wardId);
+
+    @Query("SELECT new com.se100.bds.repositories.dtos.TableVersionProjection(MAX(w.updatedAt), COUNT(w)) FROM Ward w")
+    TableVersionProjection findTableVersion();
 }
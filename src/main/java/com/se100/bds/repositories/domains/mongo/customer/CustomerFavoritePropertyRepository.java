@@ -1,8 +1,16 @@
 package com.se100.bds.repositories.domains.mongo.customer;
 
 import com.se100.bds.models.schemas.customer.CustomerFavoriteProperty;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
 @Repository
 public interface CustomerFavoritePropertyRepository extends BaseCustomerPreferenceRepository<CustomerFavoriteProperty> {
+    // Only the ref ids are read back, one query resolves a whole page of cards
+    @Query(value = "{ 'customer_id': ?0, 'ref_id': { $in: ?1 } }", fields = "{ 'ref_id': 1 }")
+    List<CustomerFavoriteProperty> findRefIdsByCustomerIdAndRefIdIn(UUID customerId, Collection<UUID> refIds);
 }
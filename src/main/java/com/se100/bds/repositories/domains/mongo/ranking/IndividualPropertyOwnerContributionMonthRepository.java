@@ -4,6 +4,7 @@ import com.se100.bds.models.schemas.ranking.IndividualPropertyOwnerContributionM
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -19,6 +20,11 @@ public interface IndividualPropertyOwnerContributionMonthRepository extends Mong
      */
     IndividualPropertyOwnerContributionMonth findByOwnerIdAndMonthAndYear(UUID ownerId, Integer month, Integer year);
 
+    /**
+     * Find property owner contribution records of several users for a specific month and year
+     */
+    List<IndividualPropertyOwnerContributionMonth> findAllByOwnerIdInAndMonthAndYear(Collection<UUID> ownerIds, Integer month, Integer year);
+
     /**
      * Find all property owner contribution records by month and year
      */
@@ -4,6 +4,7 @@ import com.se100.bds.models.schemas.ranking.IndividualSalesAgentPerformanceMonth
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -19,6 +20,11 @@ public interface IndividualSalesAgentPerformanceMonthRepository extends MongoRep
      */
     IndividualSalesAgentPerformanceMonth findByAgentIdAndMonthAndYear(UUID agentId, Integer month, Integer year);
 
+    /**
+     * Find agent performance records of several users for a specific month and year
+     */
+    List<IndividualSalesAgentPerformanceMonth> findAllByAgentIdInAndMonthAndYear(Collection<UUID> agentIds, Integer month, Integer year);
+
     /**
      * Find all agent performance records for a specific month and year
      */
@@ -4,6 +4,10 @@ import com.se100.bds.models.schemas.search.SearchLog;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.UUID;
+
 @Repository
 public interface SearchLogRepository extends MongoRepository<SearchLog, String> {
+    List<SearchLog> findTop200ByUserIdOrderByCreatedAtDesc(UUID userId);
 }
@@ -0,0 +1,11 @@
+package com.se100.bds.repositories.domains.property;
+
+import com.se100.bds.models.entities.property.MostSearchedProperty;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface MostSearchedPropertyRepository extends JpaRepository<MostSearchedProperty, UUID> {
+}
@@ -0,0 +1,239 @@
+package com.se100.bds.repositories.domains.property;
+
+import com.se100.bds.models.entities.property.PropertyCardView;
+import com.se100.bds.repositories.dtos.PropertyCardProtection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PropertyCardViewRepository extends JpaRepository<PropertyCardView, UUID> {
+
+    // Copies properties into the read model in one statement, media are aggregated by correlated subqueries
+    String INSERT_FROM_PROPERTIES = """
+        INSERT INTO PropertyCardView (
+            id, createdAt, updatedAt, transactionType, title, thumbnailUrl, mediaCount, fullAddress,
+            wardId, districtId, districtName, cityId, cityName, propertyTypeId, status, priceAmount, area,
+            latitude, longitude, rooms, bathrooms, bedrooms, floors, houseOrientation, balconyOrientation,
+            ownerId, ownerFirstName, ownerLastName, ownerTier, agentId, agentFirstName, agentLastName, agentTier
+        )
+        SELECT
+            p.id, p.createdAt, p.updatedAt, p.transactionType, p.title,
+            (SELECT MIN(m.filePath) FROM Media m WHERE m.property.id = p.id),
+            (SELECT CAST(COUNT(m2.id) AS int) FROM Media m2 WHERE m2.property.id = p.id),
+            p.fullAddress, w.id, d.id, d.districtName, c.id, c.cityName, pt.id, p.status, p.priceAmount, p.area,
+            p.latitude, p.longitude, p.rooms, p.bathrooms, p.bedrooms, p.floors, p.houseOrientation, p.balconyOrientation,
+            po.id, u.firstName, u.lastName, po.currentTier, sa.id, au.firstName, au.lastName, sa.currentTier
+        FROM Property p
+        JOIN p.ward w
+        JOIN w.district d
+        JOIN d.city c
+        JOIN p.propertyType pt
+        LEFT JOIN p.owner po
+        LEFT JOIN po.user u
+        LEFT JOIN p.assignedAgent sa
+        LEFT JOIN sa.user au
+        """;
+
+    String CARD_SELECT = """
+        SELECT new com.se100.bds.repositories.dtos.PropertyCardProtection (
+            v.id,
+            v.createdAt,
+            v.updatedAt,
+            v.transactionType,
+            v.title,
+            v.thumbnailUrl,
+            false,
+            v.mediaCount,
+            v.fullAddress,
+            v.districtName,
+            v.cityName,
+            CAST(v.status AS string),
+            v.priceAmount,
+            v.area,
+            v.ownerId,
+            v.ownerFirstName,
+            v.ownerLastName,
+            v.agentId,
+            v.agentFirstName,
+            v.agentLastName
+        )
+        FROM PropertyCardView v
+        """;
+
+    // Same filters as PropertyRepository.findAllPropertyCardsWithFilter, on the denormalized columns.
+    // The geographic area is checked like PropertyRepository.GEO_FILTER, on idx_property_card_lat_lng
+    String CARD_FILTER = """
+        WHERE
+            (COALESCE(:propertyIds, NULL) IS NULL OR v.id IN :propertyIds)
+            AND (:south IS NULL OR v.latitude BETWEEN :south AND :north)
+            AND (:west IS NULL OR v.longitude BETWEEN :west AND :east)
+            AND (:radiusKm IS NULL OR 12742.0176 * asin(sqrt(
+                power(sin((:centerLatitude - v.latitude) * 0.00872664625997165), 2)
+                + cos(v.latitude * 0.0174532925199433) * cos(:centerLatitude * 0.0174532925199433)
+                * power(sin((:centerLongitude - v.longitude) * 0.00872664625997165), 2))) <= :radiusKm)
+            AND (:mostSearchedOnly = false OR v.id IN (SELECT t.id FROM MostSearchedProperty t))
+            AND (COALESCE(:cityIds, NULL) IS NULL OR v.cityId IN :cityIds)
+            AND (COALESCE(:districtIds, NULL) IS NULL OR v.districtId IN :districtIds)
+            AND (COALESCE(:wardIds, NULL) IS NULL OR v.wardId IN :wardIds)
+            AND (COALESCE(:propertyTypeIds, NULL) IS NULL OR v.propertyTypeId IN :propertyTypeIds)
+            AND (:ownerId IS NULL OR v.ownerId = :ownerId)
+            AND (:agentId IS NULL OR v.agentId = :agentId)
+            AND (:ownerName IS NULL OR LOWER(CAST(CONCAT(v.ownerLastName, ' ', v.ownerFirstName) AS string)) LIKE LOWER(CONCAT('%', CAST(:ownerName AS string), '%')))
+            AND (:agentName IS NULL OR LOWER(CAST(CONCAT(v.agentLastName, ' ', v.agentFirstName) AS string)) LIKE LOWER(CONCAT('%', CAST(:agentName AS string), '%')))
+            AND (COALESCE(:ownerTiers, NULL) IS NULL OR CAST(v.ownerTier AS string) IN :ownerTiers)
+            AND (COALESCE(:agentTiers, NULL) IS NULL OR CAST(v.agentTier AS string) IN :agentTiers)
+            AND (:minPrice IS NULL OR v.priceAmount >= :minPrice)
+            AND (:maxPrice IS NULL OR v.priceAmount <= :maxPrice)
+            AND (:minArea IS NULL OR v.area >= :minArea)
+            AND (:maxArea IS NULL OR v.area <= :maxArea)
+            AND (:rooms IS NULL OR v.rooms = :rooms)
+            AND (:bathrooms IS NULL OR v.bathrooms = :bathrooms)
+            AND (:bedrooms IS NULL OR v.bedrooms = :bedrooms)
+            AND (:floors IS NULL OR v.floors = :floors)
+            AND (:houseOrientation IS NULL OR CAST(v.houseOrientation AS string) = :houseOrientation)
+            AND (:balconyOrientation IS NULL OR CAST(v.balconyOrientation AS string) = :balconyOrientation)
+            AND (COALESCE(:transactionType, NULL) IS NULL OR CAST(v.transactionType AS string) IN :transactionType)
+            AND (:statuses IS NULL OR CAST(v.status AS string) IN :statuses)
+        """;
+
+    @Modifying
+    @Query(INSERT_FROM_PROPERTIES)
+    int insertAllFromProperties();
+
+    @Modifying
+    @Query(INSERT_FROM_PROPERTIES + " WHERE p.id = :propertyId")
+    int insertFromProperty(@Param("propertyId") UUID propertyId);
+
+    @Modifying
+    @Query("DELETE FROM PropertyCardView v WHERE v.id = :propertyId")
+    int deleteByPropertyId(@Param("propertyId") UUID propertyId);
+
+    // Transaction-scoped advisory locks of the read model writers, released on commit or rollback
+    @Query(value = "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(:key)) AS locked", nativeQuery = true)
+    long lockExclusive(@Param("key") long key);
+
+    @Query(value = "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock_shared(:key)) AS locked", nativeQuery = true)
+    long lockShared(@Param("key") long key);
+
+    // Two-key form, its lock space is separate from the single-key locks above
+    @Query(value = "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(:space, hashtext(CAST(:propertyId AS text)))) AS locked", nativeQuery = true)
+    long lockProperty(@Param("space") int space, @Param("propertyId") UUID propertyId);
+
+    @Modifying
+    @Query("UPDATE PropertyCardView v SET v.ownerTier = (SELECT po.currentTier FROM PropertyOwner po WHERE po.id = v.ownerId) WHERE v.ownerId IS NOT NULL")
+    int refreshOwnerTiers();
+
+    @Modifying
+    @Query("UPDATE PropertyCardView v SET v.agentTier = (SELECT sa.currentTier FROM SaleAgent sa WHERE sa.id = v.agentId) WHERE v.agentId IS NOT NULL")
+    int refreshAgentTiers();
+
+    @Modifying
+    @Query("""
+        UPDATE PropertyCardView v
+        SET v.ownerFirstName = (SELECT u.firstName FROM User u WHERE u.id = v.ownerId),
+            v.ownerLastName = (SELECT u.lastName FROM User u WHERE u.id = v.ownerId)
+        WHERE v.ownerId = :userId
+        """)
+    int refreshOwnerNames(@Param("userId") UUID userId);
+
+    @Modifying
+    @Query("""
+        UPDATE PropertyCardView v
+        SET v.agentFirstName = (SELECT u.firstName FROM User u WHERE u.id = v.agentId),
+            v.agentLastName = (SELECT u.lastName FROM User u WHERE u.id = v.agentId)
+        WHERE v.agentId = :userId
+        """)
+    int refreshAgentNames(@Param("userId") UUID userId);
+
+    @Query(value = CARD_SELECT + CARD_FILTER, countQuery = "SELECT COUNT(v) FROM PropertyCardView v " + CARD_FILTER)
+    Page<PropertyCardProtection> findAllCardsWithFilter(
+            Pageable pageable,
+            @Param("propertyIds") List<UUID> propertyIds,
+            @Param("south") Double south,
+            @Param("north") Double north,
+            @Param("west") Double west,
+            @Param("east") Double east,
+            @Param("centerLatitude") Double centerLatitude,
+            @Param("centerLongitude") Double centerLongitude,
+            @Param("radiusKm") Double radiusKm,
+            @Param("mostSearchedOnly") boolean mostSearchedOnly,
+            @Param("cityIds") List<UUID> cityIds,
+            @Param("districtIds") List<UUID> districtIds,
+            @Param("wardIds") List<UUID> wardIds,
+            @Param("propertyTypeIds") List<UUID> propertyTypeIds,
+            @Param("ownerId") UUID ownerId,
+            @Param("agentId") UUID agentId,
+            @Param("ownerName") String ownerName,
+            @Param("agentName") String agentName,
+            @Param("ownerTiers") List<String> ownerTiers,
+            @Param("agentTiers") List<String> agentTiers,
+            @Param("minPrice") BigDecimal minPrice,
+            @Param("maxPrice") BigDecimal maxPrice,
+            @Param("minArea") BigDecimal minArea,
+            @Param("maxArea") BigDecimal maxArea,
+            @Param("rooms") Integer rooms,
+            @Param("bathrooms") Integer bathrooms,
+            @Param("bedrooms") Integer bedrooms,
+            @Param("floors") Integer floors,
+            @Param("houseOrientation") String houseOrientation,
+            @Param("balconyOrientation") String balconyOrientation,
+            @Param("transactionType") List<String> transactionType,
+            @Param("statuses") List<String> statuses
+    );
+
+    // Keyset variant, served by idx_property_card_created_at_id
+    @Query(CARD_SELECT + CARD_FILTER + """
+            AND (v.createdAt, v.id) < (:cursorCreatedAt, :cursorId)
+        ORDER BY v.createdAt DESC, v.id DESC
+        """)
+    List<PropertyCardProtection> findCardsAfterCursor(
+            Pageable pageable,
+            @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+            @Param("cursorId") UUID cursorId,
+            @Param("propertyIds") List<UUID> propertyIds,
+            @Param("south") Double south,
+            @Param("north") Double north,
+            @Param("west") Double west,
+            @Param("east") Double east,
+            @Param("centerLatitude") Double centerLatitude,
+            @Param("centerLongitude") Double centerLongitude,
+            @Param("radiusKm") Double radiusKm,
+            @Param("mostSearchedOnly") boolean mostSearchedOnly,
+            @Param("cityIds") List<UUID> cityIds,
+            @Param("districtIds") List<UUID> districtIds,
+            @Param("wardIds") List<UUID> wardIds,
+            @Param("propertyTypeIds") List<UUID> propertyTypeIds,
+            @Param("ownerId") UUID ownerId,
+            @Param("agentId") UUID agentId,
+            @Param("ownerName") String ownerName,
+            @Param("agentName") String agentName,
+            @Param("ownerTiers") List<String> ownerTiers,
+            @Param("agentTiers") List<String> agentTiers,
+            @Param("minPrice") BigDecimal minPrice,
+            @Param("maxPrice") BigDecimal maxPrice,
+            @Param("minArea") BigDecimal minArea,
+            @Param("maxArea") BigDecimal maxArea,
+            @Param("rooms") Integer rooms,
+            @Param("bathrooms") Integer bathrooms,
+            @Param("bedrooms") Integer bedrooms,
+            @Param("floors") Integer floors,
+            @Param("houseOrientation") String houseOrientation,
+            @Param("balconyOrientation") String balconyOrientation,
+            @Param("transactionType") List<String> transactionType,
+            @Param("statuses") List<String> statuses
+    );
+
+    @Query(CARD_SELECT + " WHERE v.id IN :propertyIds")
+    List<PropertyCardProtection> findCardsByIds(@Param("propertyIds") Collection<UUID> propertyIds);
+}
@@ -5,7 +5,10 @@ import com.se100.bds.models.entities.user.PropertyOwner;
 import com.se100.bds.repositories.dtos.DocumentProjection;
 import com.se100.bds.repositories.dtos.MediaProjection;
 import com.se100.bds.repositories.dtos.PropertyCardProtection;
+import com.se100.bds.repositories.dtos.PropertyCityProjection;
 import com.se100.bds.repositories.dtos.PropertyDetailsProjection;
+import com.se100.bds.repositories.dtos.PropertyFacetProjection;
+import com.se100.bds.repositories.dtos.PropertyVersionProjection;
 import com.se100.bds.utils.Constants;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -17,6 +20,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -25,6 +29,17 @@ import java.util.UUID;
 @Repository
 public interface PropertyRepository extends JpaRepository<Property, UUID>, JpaSpecificationExecutor<Property> {
 
+    // Geographic area of the card queries, applied in the same statement: the effective bounding box on
+    // idx_properties_lat_lng, then the exact haversine radius as in GeoArea.contains. All null without an area
+    String GEO_FILTER = """
+        AND (:south IS NULL OR p.latitude BETWEEN :south AND :north)
+        AND (:west IS NULL OR p.longitude BETWEEN :west AND :east)
+        AND (:radiusKm IS NULL OR 12742.0176 * asin(sqrt(
+            power(sin((:centerLatitude - p.latitude) * 0.00872664625997165), 2)
+            + cos(p.latitude * 0.0174532925199433) * cos(:centerLatitude * 0.0174532925199433)
+            * power(sin((:centerLongitude - p.longitude) * 0.00872664625997165), 2))) <= :radiusKm)
+        """;
+
     @Query("""
     SELECT new com.se100.bds.repositories.dtos.PropertyCardProtection (
         p.id,
@@ -55,15 +70,22 @@ public interface PropertyRepository extends JpaRepository<Property, UUID>, JpaSp
     LEFT JOIN PropertyOwner po ON p.owner.id = po.id
     LEFT JOIN SaleAgent sa ON p.assignedAgent.id = sa.id
     LEFT JOIN User u ON po.user.id = u.id
+    LEFT JOIN User au ON sa.user.id = au.id
     LEFT JOIN Media m ON m.property.id = p.id
     WHERE
         (COALESCE(:propertyIds, NULL) IS NULL OR p.id IN :propertyIds)
+    """ + GEO_FILTER + """
+        AND (:mostSearchedOnly = false OR p.id IN (SELECT t.id FROM MostSearchedProperty t))
         AND (COALESCE(:cityIds, NULL) IS NULL OR c.id IN :cityIds)
         AND (COALESCE(:districtIds, NULL) IS NULL OR d.id IN :districtIds)
         AND (COALESCE(:wardIds, NULL) IS NULL OR w.id IN :wardIds)
         AND (COALESCE(:propertyTypeIds, NULL) IS NULL OR p.propertyType.id IN :propertyTypeIds)
-        AND (COALESCE(:ownerIds, NULL) IS NULL OR po.id IN :ownerIds)
-        AND (COALESCE(:agentIds, NULL) IS NULL OR sa.id IN :agentIds)
+        AND (:ownerId IS NULL OR po.id = :ownerId)
+        AND (:agentId IS NULL OR sa.id = :agentId)
+        AND (:ownerName IS NULL OR LOWER(CAST(CONCAT(u.lastName, ' ', u.firstName) AS string)) LIKE LOWER(CONCAT('%', CAST(:ownerName AS string), '%')))
+        AND (:agentName IS NULL OR LOWER(CAST(CONCAT(au.lastName, ' ', au.firstName) AS string)) LIKE LOWER(CONCAT('%', CAST(:agentName AS string), '%')))
+        AND (COALESCE(:ownerTiers, NULL) IS NULL OR CAST(po.currentTier AS string) IN :ownerTiers)
+        AND (COALESCE(:agentTiers, NULL) IS NULL OR CAST(sa.currentTier AS string) IN :agentTiers)
         AND (:minPrice IS NULL OR p.priceAmount >= :minPrice)
         AND (:maxPrice IS NULL OR p.priceAmount <= :maxPrice)
         AND (:minArea IS NULL OR p.area >= :minArea)
@@ -98,12 +120,24 @@ public interface PropertyRepository extends JpaRepository<Property, UUID>, JpaSp
     Page<PropertyCardProtection> findAllPropertyCardsWithFilter(
             Pageable pageable,
             @Param("propertyIds") List<UUID> propertyIds,
+            @Param("south") Double south,
+            @Param("north") Double north,
+            @Param("west") Double west,
+            @Param("east") Double east,
+            @Param("centerLatitude") Double centerLatitude,
+            @Param("centerLongitude") Double centerLongitude,
+            @Param("radiusKm") Double radiusKm,
+            @Param("mostSearchedOnly") boolean mostSearchedOnly,
             @Param("cityIds") List<UUID> cityIds,
             @Param("districtIds") List<UUID> districtIds,
             @Param("wardIds") List<UUID> wardIds,
             @Param("propertyTypeIds") List<UUID> propertyTypeIds,
-            @Param("ownerIds") List<UUID> ownerIds,
-            @Param("agentIds") List<UUID> agentIds,
+            @Param("ownerId") UUID ownerId,
+            @Param("agentId") UUID agentId,
+            @Param("ownerName") String ownerName,
+            @Param("agentName") String agentName,
+            @Param("ownerTiers") List<String> ownerTiers,
+            @Param("agentTiers") List<String> agentTiers,
             @Param("minPrice") BigDecimal minPrice,
             @Param("maxPrice") BigDecimal maxPrice,
             @Param("minArea") BigDecimal minArea,
@@ -115,8 +149,255 @@ public interface PropertyRepository extends JpaRepository<Property, UUID>, JpaSp
             @Param("houseOrientation") String houseOrientation,
             @Param("balconyOrientation") String balconyOrientation,
             @Param("transactionType") List<String> transactionType,
-            @Param("statuses") List<String> statuses,
-            @Param("userId") UUID userId
+            @Param("statuses") List<String> statuses
+    );
+
+    @Query("""
+    SELECT p.id
+    FROM Property p
+    LEFT JOIN PropertyOwner po ON p.owner.id = po.id
+    LEFT JOIN SaleAgent sa ON p.assignedAgent.id = sa.id
+    LEFT JOIN User u ON po.user.id = u.id
+    LEFT JOIN User au ON sa.user.id = au.id
+    WHERE
+        (:ownerName IS NULL OR LOWER(CAST(CONCAT(u.lastName, ' ', u.firstName) AS string)) LIKE LOWER(CONCAT('%', CAST(:ownerName AS string), '%')))
+        AND (:agentName IS NULL OR LOWER(CAST(CONCAT(au.lastName, ' ', au.firstName) AS string)) LIKE LOWER(CONCAT('%', CAST(:agentName AS string), '%')))
+        AND (COALESCE(:ownerTiers, NULL) IS NULL OR CAST(po.currentTier AS string) IN :ownerTiers)
+        AND (COALESCE(:agentTiers, NULL) IS NULL OR CAST(sa.currentTier AS string) IN :agentTiers)
+    """)
+    List<UUID> findPropertyIdsByOwnerAndAgent(
+            @Param("ownerName") String ownerName,
+            @Param("agentName") String agentName,
+            @Param("ownerTiers") List<String> ownerTiers,
+            @Param("agentTiers") List<String> agentTiers
+    );
+
+    String FACET_ROW_SELECT = """
+        SELECT new com.se100.bds.repositories.dtos.PropertyFacetProjection (
+            p.id, c.id, d.id, w.id, pt.id, po.id, sa.id,
+            p.transactionType, p.status, p.houseOrientation, p.balconyOrientation,
+            p.rooms, p.bathrooms, p.bedrooms, p.floors, p.priceAmount, p.area,
+            p.latitude, p.longitude
+        )
+        FROM Property p
+        JOIN p.ward w
+        JOIN w.district d
+        JOIN d.city c
+        JOIN p.propertyType pt
+        JOIN p.owner po
+        LEFT JOIN p.assignedAgent sa
+        """;
+
+    // Oldest first, the facet index relies on this order to rank newest first
+    @Query(FACET_ROW_SELECT + " ORDER BY p.createdAt, p.id")
+    List<PropertyFacetProjection> findAllFacetRows();
+
+    @Query(FACET_ROW_SELECT + " WHERE p.id = :propertyId")
+    Optional<PropertyFacetProjection> findFacetRowById(@Param("propertyId") UUID propertyId);
+
+    /**
+     * Keyword variant of findAllPropertyCardsWithFilter: the full-text match on search_vector drives the plan
+     * through its GIN index, the structured filters only narrow those candidates. Ordered by relevance.
+     */
+    @Query("""
+    SELECT new com.se100.bds.repositories.dtos.PropertyCardProtection (
+        p.id,
+        p.createdAt,
+        p.updatedAt,
+        p.transactionType,
+        p.title,
+        (SELECT MIN(m.filePath) FROM Media m WHERE m.property.id = p.id),
+        false,
+        (SELECT CAST(COUNT(m2.id) AS int) FROM Media m2 WHERE m2.property.id = p.id),
+        p.fullAddress,
+        d.districtName,
+        c.cityName,
+        CAST(p.status AS string),
+        p.priceAmount,
+        p.area,
+        po.id,
+        u.firstName,
+        u.lastName,
+        sa.id,
+        au.firstName,
+        au.lastName
+    )
+    FROM Property p
+    JOIN Ward w ON p.ward.id = w.id
+    JOIN District d ON w.district.id = d.id
+    JOIN City c ON d.city.id = c.id
+    LEFT JOIN PropertyOwner po ON p.owner.id = po.id
+    LEFT JOIN SaleAgent sa ON p.assignedAgent.id = sa.id
+    LEFT JOIN User u ON po.user.id = u.id
+    LEFT JOIN User au ON sa.user.id = au.id
+    WHERE
+        fts_match(p.searchVector, :keyword) = true
+        AND (COALESCE(:propertyIds, NULL) IS NULL OR p.id IN :propertyIds)
+    """ + GEO_FILTER + """
+        AND (:mostSearchedOnly = false OR p.id IN (SELECT t.id FROM MostSearchedProperty t))
+        AND (COALESCE(:cityIds, NULL) IS NULL OR c.id IN :cityIds)
+        AND (COALESCE(:districtIds, NULL) IS NULL OR d.id IN :districtIds)
+        AND (COALESCE(:wardIds, NULL) IS NULL OR w.id IN :wardIds)
+        AND (COALESCE(:propertyTypeIds, NULL) IS NULL OR p.propertyType.id IN :propertyTypeIds)
+        AND (:ownerId IS NULL OR po.id = :ownerId)
+        AND (:agentId IS NULL OR sa.id = :agentId)
+        AND (:ownerName IS NULL OR LOWER(CAST(CONCAT(u.lastName, ' ', u.firstName) AS string)) LIKE LOWER(CONCAT('%', CAST(:ownerName AS string), '%')))
+        AND (:agentName IS NULL OR LOWER(CAST(CONCAT(au.lastName, ' ', au.firstName) AS string)) LIKE LOWER(CONCAT('%', CAST(:agentName AS string), '%')))
+        AND (COALESCE(:ownerTiers, NULL) IS NULL OR CAST(po.currentTier AS string) IN :ownerTiers)
+        AND (COALESCE(:agentTiers, NULL) IS NULL OR CAST(sa.currentTier AS string) IN :agentTiers)
+        AND (:minPrice IS NULL OR p.priceAmount >= :minPrice)
+        AND (:maxPrice IS NULL OR p.priceAmount <= :maxPrice)
+        AND (:minArea IS NULL OR p.area >= :minArea)
+        AND (:maxArea IS NULL OR p.area <= :maxArea)
+        AND (:rooms IS NULL OR p.rooms = :rooms)
+        AND (:bathrooms IS NULL OR p.bathrooms = :bathrooms)
+        AND (:bedrooms IS NULL OR p.bedrooms = :bedrooms)
+        AND (:floors IS NULL OR p.floors = :floors)
+        AND (:houseOrientation IS NULL OR CAST(p.houseOrientation AS string) = :houseOrientation)
+        AND (:balconyOrientation IS NULL OR CAST(p.balconyOrientation AS string) = :balconyOrientation)
+        AND (COALESCE(:transactionType, NULL) IS NULL OR CAST(p.transactionType AS string) IN :transactionType)
+        AND (:statuses IS NULL OR CAST(p.status AS string) IN :statuses)
+    ORDER BY fts_rank(p.searchVector, :keyword) DESC, p.createdAt DESC
+    """)
+    Page<PropertyCardProtection> findAllPropertyCardsByKeyword(
+            Pageable pageable,
+            @Param("keyword") String keyword,
+            @Param("propertyIds") List<UUID> propertyIds,
+            @Param("south") Double south,
+            @Param("north") Double north,
+            @Param("west") Double west,
+            @Param("east") Double east,
+            @Param("centerLatitude") Double centerLatitude,
+            @Param("centerLongitude") Double centerLongitude,
+            @Param("radiusKm") Double radiusKm,
+            @Param("mostSearchedOnly") boolean mostSearchedOnly,
+            @Param("cityIds") List<UUID> cityIds,
+            @Param("districtIds") List<UUID> districtIds,
+            @Param("wardIds") List<UUID> wardIds,
+            @Param("propertyTypeIds") List<UUID> propertyTypeIds,
+            @Param("ownerId") UUID ownerId,
+            @Param("agentId") UUID agentId,
+            @Param("ownerName") String ownerName,
+            @Param("agentName") String agentName,
+            @Param("ownerTiers") List<String> ownerTiers,
+            @Param("agentTiers") List<String> agentTiers,
+            @Param("minPrice") BigDecimal minPrice,
+            @Param("maxPrice") BigDecimal maxPrice,
+            @Param("minArea") BigDecimal minArea,
+            @Param("maxArea") BigDecimal maxArea,
+            @Param("rooms") Integer rooms,
+            @Param("bathrooms") Integer bathrooms,
+            @Param("bedrooms") Integer bedrooms,
+            @Param("floors") Integer floors,
+            @Param("houseOrientation") String houseOrientation,
+            @Param("balconyOrientation") String balconyOrientation,
+            @Param("transactionType") List<String> transactionType,
+            @Param("statuses") List<String> statuses
+    );
+
+    @Query("SELECT p.id FROM Property p WHERE fts_match(p.searchVector, :keyword) = true")
+    List<UUID> findPropertyIdsByKeyword(@Param("keyword") String keyword);
+
+    /**
+     * Keyset variant of findAllPropertyCardsWithFilter for infinite scroll: newest first, seeking past
+     * (cursorCreatedAt, cursorId) on idx_properties_created_at_id. Media are read through correlated
+     * subqueries so there is no GROUP BY, and the pageable only supplies the limit (no count query).
+     */
+    @Query("""
+    SELECT new com.se100.bds.repositories.dtos.PropertyCardProtection (
+        p.id,
+        p.createdAt,
+        p.updatedAt,
+        p.transactionType,
+        p.title,
+        (SELECT MIN(m.filePath) FROM Media m WHERE m.property.id = p.id),
+        false,
+        (SELECT CAST(COUNT(m2.id) AS int) FROM Media m2 WHERE m2.property.id = p.id),
+        p.fullAddress,
+        d.districtName,
+        c.cityName,
+        CAST(p.status AS string),
+        p.priceAmount,
+        p.area,
+        po.id,
+        u.firstName,
+        u.lastName,
+        sa.id,
+        au.firstName,
+        au.lastName
+    )
+    FROM Property p
+    JOIN Ward w ON p.ward.id = w.id
+    JOIN District d ON w.district.id = d.id
+    JOIN City c ON d.city.id = c.id
+    LEFT JOIN PropertyOwner po ON p.owner.id = po.id
+    LEFT JOIN SaleAgent sa ON p.assignedAgent.id = sa.id
+    LEFT JOIN User u ON po.user.id = u.id
+    LEFT JOIN User au ON sa.user.id = au.id
+    WHERE
+        (p.createdAt, p.id) < (:cursorCreatedAt, :cursorId)
+        AND (COALESCE(:propertyIds, NULL) IS NULL OR p.id IN :propertyIds)
+    """ + GEO_FILTER + """
+        AND (:mostSearchedOnly = false OR p.id IN (SELECT t.id FROM MostSearchedProperty t))
+        AND (COALESCE(:cityIds, NULL) IS NULL OR c.id IN :cityIds)
+        AND (COALESCE(:districtIds, NULL) IS NULL OR d.id IN :districtIds)
+        AND (COALESCE(:wardIds, NULL) IS NULL OR w.id IN :wardIds)
+        AND (COALESCE(:propertyTypeIds, NULL) IS NULL OR p.propertyType.id IN :propertyTypeIds)
+        AND (:ownerId IS NULL OR po.id = :ownerId)
+        AND (:agentId IS NULL OR sa.id = :agentId)
+        AND (:ownerName IS NULL OR LOWER(CAST(CONCAT(u.lastName, ' ', u.firstName) AS string)) LIKE LOWER(CONCAT('%', CAST(:ownerName AS string), '%')))
+        AND (:agentName IS NULL OR LOWER(CAST(CONCAT(au.lastName, ' ', au.firstName) AS string)) LIKE LOWER(CONCAT('%', CAST(:agentName AS string), '%')))
+        AND (COALESCE(:ownerTiers, NULL) IS NULL OR CAST(po.currentTier AS string) IN :ownerTiers)
+        AND (COALESCE(:agentTiers, NULL) IS NULL OR CAST(sa.currentTier AS string) IN :agentTiers)
+        AND (:minPrice IS NULL OR p.priceAmount >= :minPrice)
+        AND (:maxPrice IS NULL OR p.priceAmount <= :maxPrice)
+        AND (:minArea IS NULL OR p.area >= :minArea)
+        AND (:maxArea IS NULL OR p.area <= :maxArea)
+        AND (:rooms IS NULL OR p.rooms = :rooms)
+        AND (:bathrooms IS NULL OR p.bathrooms = :bathrooms)
+        AND (:bedrooms IS NULL OR p.bedrooms = :bedrooms)
+        AND (:floors IS NULL OR p.floors = :floors)
+        AND (:houseOrientation IS NULL OR CAST(p.houseOrientation AS string) = :houseOrientation)
+        AND (:balconyOrientation IS NULL OR CAST(p.balconyOrientation AS string) = :balconyOrientation)
+        AND (COALESCE(:transactionType, NULL) IS NULL OR CAST(p.transactionType AS string) IN :transactionType)
+        AND (:statuses IS NULL OR CAST(p.status AS string) IN :statuses)
+    ORDER BY p.createdAt DESC, p.id DESC
+    """)
+    List<PropertyCardProtection> findPropertyCardsAfterCursor(
+            Pageable pageable,
+            @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+            @Param("cursorId") UUID cursorId,
+            @Param("propertyIds") List<UUID> propertyIds,
+            @Param("south") Double south,
+            @Param("north") Double north,
+            @Param("west") Double west,
+            @Param("east") Double east,
+            @Param("centerLatitude") Double centerLatitude,
+            @Param("centerLongitude") Double centerLongitude,
+            @Param("radiusKm") Double radiusKm,
+            @Param("mostSearchedOnly") boolean mostSearchedOnly,
+            @Param("cityIds") List<UUID> cityIds,
+            @Param("districtIds") List<UUID> districtIds,
+            @Param("wardIds") List<UUID> wardIds,
+            @Param("propertyTypeIds") List<UUID> propertyTypeIds,
+            @Param("ownerId") UUID ownerId,
+            @Param("agentId") UUID agentId,
+            @Param("ownerName") String ownerName,
+            @Param("agentName") String agentName,
+            @Param("ownerTiers") List<String> ownerTiers,
+            @Param("agentTiers") List<String> agentTiers,
+            @Param("minPrice") BigDecimal minPrice,
+            @Param("maxPrice") BigDecimal maxPrice,
+            @Param("minArea") BigDecimal minArea,
+            @Param("maxArea") BigDecimal maxArea,
+            @Param("rooms") Integer rooms,
+            @Param("bathrooms") Integer bathrooms,
+            @Param("bedrooms") Integer bedrooms,
+            @Param("floors") Integer floors,
+            @Param("houseOrientation") String houseOrientation,
+            @Param("balconyOrientation") String balconyOrientation,
+            @Param("transactionType") List<String> transactionType,
+            @Param("statuses") List<String> statuses
     );
 
     @Query("""
@@ -152,6 +433,8 @@ public interface PropertyRepository extends JpaRepository<Property, UUID>, JpaSp
             p.description AS description,
             CAST(p.transactionType AS string) AS transactionType,
             p.fullAddress AS fullAddress,
+            p.latitude AS latitude,
+            p.longitude AS longitude,
             p.area AS area,
             p.rooms AS rooms,
             p.bathrooms AS bathrooms,
@@ -180,6 +463,41 @@ public interface PropertyRepository extends JpaRepository<Property, UUID>, JpaSp
     """)
     PropertyDetailsProjection findPropertyDetailsById(@Param("propertyId") UUID propertyId);
 
+    // Cheap stand-in for findPropertyDetailsById when only the version of the details is needed
+    @Query("""
+        SELECT new com.se100.bds.repositories.dtos.PropertyVersionProjection (
+            p.updatedAt,
+            (SELECT MAX(m.updatedAt) FROM Media m WHERE m.property.id = p.id),
+            (SELECT COUNT(m2.id) FROM Media m2 WHERE m2.property.id = p.id),
+            (SELECT MAX(doc.updatedAt) FROM IdentificationDocument doc WHERE doc.property.id = p.id),
+            (SELECT COUNT(doc2.id) FROM IdentificationDocument doc2 WHERE doc2.property.id = p.id),
+            u.updatedAt,
+            po.currentTier,
+            sa.id,
+            au.updatedAt,
+            sa.currentTier
+        )
+        FROM Property p
+        JOIN p.owner po
+        JOIN po.user u
+        LEFT JOIN p.assignedAgent sa
+        LEFT JOIN sa.user au
+        WHERE p.id = :propertyId
+    """)
+    Optional<PropertyVersionProjection> findPropertyVersionById(@Param("propertyId") UUID propertyId);
+
+    @Query("SELECT p.viewCount FROM Property p WHERE p.id = :propertyId")
+    Integer findViewCountById(@Param("propertyId") UUID propertyId);
+
+    @Query("""
+        SELECT new com.se100.bds.repositories.dtos.PropertyCityProjection(p.id, d.city.id)
+        FROM Property p
+        JOIN p.ward w
+        JOIN w.district d
+        WHERE p.id IN :propertyIds
+    """)
+    List<PropertyCityProjection> findCityIdsByPropertyIds(@Param("propertyIds") Collection<UUID> propertyIds);
+
     @Query("""
         SELECT
             m.id AS id,
@@ -1,6 +1,7 @@
 package com.se100.bds.repositories.domains.property;
 
 import com.se100.bds.models.entities.property.PropertyType;
+import com.se100.bds.repositories.dtos.TableVersionProjection;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -25,5 +26,7 @@ public interface PropertyTypeRepository extends JpaRepository<PropertyType, UUID
         WHERE p.id = :id
     """)
     String getPropertyTypeNameById(@Param("id") UUID id);
-}
 
+    @Query("SELECT new com.se100.bds.repositories.dtos.TableVersionProjection(MAX(p.updatedAt), COUNT(p)) FROM PropertyType p")
+    TableVersionProjection findTableVersion();
+}
@@ -1,12 +1,23 @@
 package com.se100.bds.repositories.domains.user;
 
 import com.se100.bds.models.entities.user.PropertyOwner;
+import com.se100.bds.utils.Constants;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.UUID;
 
 @Repository
 public interface PropertyOwnerRepository extends JpaRepository<PropertyOwner, UUID>, JpaSpecificationExecutor<PropertyOwner> {
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE PropertyOwner po SET po.currentTier = :tier WHERE po.id IN :ownerIds")
+    int updateCurrentTier(@Param("ownerIds") Collection<UUID> ownerIds, @Param("tier") Constants.ContributionTierEnum tier);
 }
@@ -1,13 +1,23 @@
 package com.se100.bds.repositories.domains.user;
 
 import com.se100.bds.models.entities.user.SaleAgent;
+import com.se100.bds.utils.Constants;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.UUID;
 
 @Repository
 public interface SaleAgentRepository extends JpaRepository<SaleAgent, UUID>, JpaSpecificationExecutor<SaleAgent> {
-}
 
+    @Modifying
+    @Transactional
+    @Query("UPDATE SaleAgent sa SET sa.currentTier = :tier WHERE sa.id IN :agentIds")
+    int updateCurrentTier(@Param("agentIds") Collection<UUID> agentIds, @Param("tier") Constants.PerformanceTierEnum tier);
+}
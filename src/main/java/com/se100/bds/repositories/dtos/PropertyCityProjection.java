@@ -0,0 +1,8 @@
+package com.se100.bds.repositories.dtos;
+
+import java.util.UUID;
+
+public record PropertyCityProjection(
+    UUID propertyId,
+    UUID cityId
+) {}
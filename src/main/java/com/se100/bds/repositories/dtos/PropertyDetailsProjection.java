@@ -42,6 +42,8 @@ public record PropertyDetailsProjection(
     String description,
     String transactionType,
     String fullAddress,
+    Double latitude,
+    Double longitude,
     BigDecimal area,
     Integer rooms,
     Integer bathrooms,
@@ -0,0 +1,28 @@
+package com.se100.bds.repositories.dtos;
+
+import com.se100.bds.utils.Constants;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record PropertyFacetProjection(
+    UUID id,
+    UUID cityId,
+    UUID districtId,
+    UUID wardId,
+    UUID propertyTypeId,
+    UUID ownerId,
+    UUID agentId,
+    Constants.TransactionTypeEnum transactionType,
+    Constants.PropertyStatusEnum status,
+    Constants.OrientationEnum houseOrientation,
+    Constants.OrientationEnum balconyOrientation,
+    Integer rooms,
+    Integer bathrooms,
+    Integer bedrooms,
+    Integer floors,
+    BigDecimal priceAmount,
+    BigDecimal area,
+    Double latitude,
+    Double longitude
+) {}
@@ -0,0 +1,21 @@
+package com.se100.bds.repositories.dtos;
+
+import com.se100.bds.utils.Constants;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Everything the property details response is built from, reduced to timestamps, counts and tiers.
+// The view count is left out: it is overlaid live and would change the version on every flush
+public record PropertyVersionProjection(
+    LocalDateTime updatedAt,
+    LocalDateTime mediaUpdatedAt,
+    long mediaCount,
+    LocalDateTime documentUpdatedAt,
+    long documentCount,
+    LocalDateTime ownerUpdatedAt,
+    Constants.ContributionTierEnum ownerTier,
+    UUID agentId,
+    LocalDateTime agentUpdatedAt,
+    Constants.PerformanceTierEnum agentTier
+) {}
@@ -0,0 +1,9 @@
+package com.se100.bds.repositories.dtos;
+
+import java.time.LocalDateTime;
+
+// Latest update and row count of a table, together they change on every insert, update or delete
+public record TableVersionProjection(
+    LocalDateTime lastUpdatedAt,
+    long rowCount
+) {}
@@ -42,6 +42,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -474,10 +475,14 @@ public class AppointmentServiceImpl implements AppointmentService {
 
             if (agentTiers != null && !agentTiers.isEmpty()) {
                 // Filter by both name and tier
+                Map<UUID, String> currentAgentTiers = rankingService.getCurrentTiers(
+                        agents.stream().map(AbstractBaseEntity::getId).toList(),
+                        Constants.RoleEnum.SALESAGENT
+                );
                 for (User agent : agents) {
-                    Constants.PerformanceTierEnum agentTier = rankingService.getSaleAgentCurrentMonth(agent.getId()).getPerformanceTier();
+                    String agentTier = currentAgentTiers.get(agent.getId());
                     for (Constants.PerformanceTierEnum desiredTier: agentTiers) {
-                        if (desiredTier.equals(agentTier)) {
+                        if (desiredTier.name().equals(agentTier)) {
                             agentWithMatchedTiers.add(agent.getId());
                             break;
                         }
@@ -501,10 +506,14 @@ public class AppointmentServiceImpl implements AppointmentService {
 
             if (customerTiers != null && !customerTiers.isEmpty()) {
                 // Filter by both name and tier
+                Map<UUID, String> currentCustomerTiers = rankingService.getCurrentTiers(
+                        customers.stream().map(AbstractBaseEntity::getId).toList(),
+                        Constants.RoleEnum.CUSTOMER
+                );
                 for (User customer : customers) {
-                    Constants.CustomerTierEnum customerTier = rankingService.getCustomerCurrentMonth(customer.getId()).getCustomerTier();
+                    String customerTier = currentCustomerTiers.get(customer.getId());
                     for (Constants.CustomerTierEnum desiredTier: customerTiers) {
-                        if (desiredTier.equals(customerTier)) {
+                        if (desiredTier.name().equals(customerTier)) {
                             customerWithMatchedTiers.add(customer.getId());
                             break;
                         }
@@ -541,6 +550,10 @@ public class AppointmentServiceImpl implements AppointmentService {
         int end = Math.min(start + pageable.getPageSize(), finalAppointments.size());
         List<Appointment> pagedAppointments = finalAppointments.subList(start, end);
 
+        // Resolve the tiers of the whole page with one lookup per role
+        Map<UUID, String> customerTiersById = getCustomerTiers(pagedAppointments);
+        Map<UUID, String> agentTiersById = getAgentTiers(pagedAppointments);
+
         // Map appointments to ViewingListItemDto with enriched data
         List<ViewingListItem> viewingListItems = pagedAppointments.stream()
                 .map(appointment -> {
@@ -548,18 +561,12 @@ public class AppointmentServiceImpl implements AppointmentService {
                     ViewingListItem dto = appointmentMapper.mapTo(appointment, ViewingListItem.class);
 
                     // Get customer tier
-                    String customerTier = rankingService.getCurrentTier(
-                            appointment.getCustomer().getId(),
-                            Constants.RoleEnum.CUSTOMER
-                    );
+                    String customerTier = customerTiersById.get(appointment.getCustomer().getId());
 
                     // Get sales agent tier (null if no agent assigned)
-                    String agentTier = null;
-                    if (appointment.getAgent() != null) {
-                        agentTier = rankingService.getSaleAgentCurrentMonth(
-                                appointment.getAgent().getId()
-                        ).getPerformanceTier().getValue();
-                    }
+                    String agentTier = appointment.getAgent() != null
+                            ? agentTiersById.get(appointment.getAgent().getId())
+                            : null;
 
                     // Enrich with customer, agent, and thumbnail data
                     appointmentMapper.enrichViewingListItem(dto, appointment, customerTier, agentTier);
@@ -662,6 +669,9 @@ public class AppointmentServiceImpl implements AppointmentService {
         int end = Math.min(start + pageable.getPageSize(), finalAppointments.size());
         List<Appointment> pagedAppointments = finalAppointments.subList(start, end);
 
+        Map<UUID, String> customerTiersById = getCustomerTiers(pagedAppointments);
+        Map<UUID, String> agentTiersById = getAgentTiers(pagedAppointments);
+
         // Map appointments to ViewingListItem with enriched data
         List<ViewingListItem> viewingListItems = pagedAppointments.stream()
                 .map(appointment -> {
@@ -669,17 +679,11 @@ public class AppointmentServiceImpl implements AppointmentService {
                     ViewingListItem dto = appointmentMapper.mapTo(appointment, ViewingListItem.class);
 
                     // Get customer tier
-                    String customerTier = rankingService.getCurrentTier(
-                            appointment.getCustomer().getId(),
-                            Constants.RoleEnum.CUSTOMER
-                    );
+                    String customerTier = customerTiersById.get(appointment.getCustomer().getId());
 
-                    String agentTier = null;
-                    if (appointment.getAgent() != null) {
-                        agentTier = rankingService.getSaleAgentCurrentMonth(appointment.getAgent().getId())
-                                                    .getPerformanceTier()
-                                                    .getValue();
-                    }
+                    String agentTier = appointment.getAgent() != null
+                            ? agentTiersById.get(appointment.getAgent().getId())
+                            : null;
 
                     // Enrich with customer, agent, and thumbnail data
                     appointmentMapper.enrichViewingListItem(dto, appointment, customerTier, agentTier);
@@ -691,6 +695,25 @@ public class AppointmentServiceImpl implements AppointmentService {
         return new PageImpl<>(viewingListItems, pageable, finalAppointments.size());
     }
 
+    private Map<UUID, String> getCustomerTiers(List<Appointment> appointments) {
+        return rankingService.getCurrentTiers(
+                appointments.stream()
+                        .map(appointment -> appointment.getCustomer().getId())
+                        .collect(Collectors.toSet()),
+                Constants.RoleEnum.CUSTOMER
+        );
+    }
+
+    private Map<UUID, String> getAgentTiers(List<Appointment> appointments) {
+        return rankingService.getCurrentTiers(
+                appointments.stream()
+                        .filter(appointment -> appointment.getAgent() != null)
+                        .map(appointment -> appointment.getAgent().getId())
+                        .collect(Collectors.toSet()),
+                Constants.RoleEnum.SALESAGENT
+        );
+    }
+
     @Override
     public int countByAgentId(UUID agentId) {
         Long count = appointmentRepository.countByAgent_Id(agentId);
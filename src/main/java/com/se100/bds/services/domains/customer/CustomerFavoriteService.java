@@ -2,10 +2,13 @@ package com.se100.bds.services.domains.customer;
 
 import com.se100.bds.utils.Constants;
 
+import java.util.List;
 import java.util.UUID;
 
 public interface CustomerFavoriteService {
     boolean like(UUID refId, Constants.LikeTypeEnum likeType);
     boolean isLike(UUID refId, UUID customerId, Constants.LikeTypeEnum likeType);
     boolean isLikeByMe(UUID refId, Constants.LikeTypeEnum likeType);
+    // Sorted ids the signed-in customer likes, empty for anonymous visitors
+    List<UUID> findLikedIdsByMe(Constants.LikeTypeEnum likeType);
 }
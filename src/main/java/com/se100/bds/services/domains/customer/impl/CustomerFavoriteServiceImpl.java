@@ -5,12 +5,14 @@ import com.se100.bds.models.schemas.customer.AbstractCustomerPreferenceMongoSche
 import com.se100.bds.repositories.domains.mongo.customer.*;
 import com.se100.bds.services.domains.customer.CustomerFavoriteService;
 import com.se100.bds.services.domains.customer.CustomerPreferenceEntityFactory;
+import com.se100.bds.services.domains.customer.profile.CustomerPreferenceProfiles;
 import com.se100.bds.services.domains.user.UserService;
 import com.se100.bds.utils.Constants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -24,6 +26,7 @@ public class CustomerFavoriteServiceImpl implements CustomerFavoriteService {
     private final CustomerPreferredPropertyTypeRepository customerPreferredPropertyTypeRepository;
     private final CustomerPreferredWardRepository customerPreferredWardRepository;
     private final UserService userService;
+    private final CustomerPreferenceProfiles customerPreferenceProfiles;
 
     private Map<Constants.LikeTypeEnum, BaseCustomerPreferenceRepository<? extends AbstractCustomerPreferenceMongoSchema>> repositoryMap;
 
@@ -56,12 +59,14 @@ public class CustomerFavoriteServiceImpl implements CustomerFavoriteService {
         try {
             if (isLike(id, customerId, likeType)) {
                 repository.deleteByCustomerIdAndRefId(customerId, id);
+                customerPreferenceProfiles.onLike(customerId, likeType, id, false);
                 log.info("Removed {} preference {} for customer {}", likeType, id, customerId);
                 return false;
             } else {
                 AbstractCustomerPreferenceMongoSchema entity = CustomerPreferenceEntityFactory.createEntity(
                         likeType, customerId, id);
                 saveEntity(repository, entity);
+                customerPreferenceProfiles.onLike(customerId, likeType, id, true);
                 log.info("Added {} preference {} for customer {}", likeType, id, customerId);
                 return true;
             }
@@ -98,6 +103,25 @@ public class CustomerFavoriteServiceImpl implements CustomerFavoriteService {
         }
     }
 
+    @Override
+    public List<UUID> findLikedIdsByMe(Constants.LikeTypeEnum likeType) {
+        BaseCustomerPreferenceRepository<? extends AbstractCustomerPreferenceMongoSchema> repository = getRepository(likeType);
+        UUID customerId;
+        try {
+            customerId = userService.getUserId();
+        } catch (Exception e) {
+            return List.of();
+        }
+        if (repository == null) {
+            log.error("Invalid like type: {}", likeType);
+            return List.of();
+        }
+        return repository.findByCustomerId(customerId).stream()
+                .map(AbstractCustomerPreferenceMongoSchema::getRefId)
+                .sorted()
+                .toList();
+    }
+
     @SuppressWarnings("unchecked")
     private <T extends AbstractCustomerPreferenceMongoSchema> void saveEntity(
             BaseCustomerPreferenceRepository<? extends AbstractCustomerPreferenceMongoSchema> repository,
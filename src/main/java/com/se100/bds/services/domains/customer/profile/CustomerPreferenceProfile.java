@@ -0,0 +1,96 @@
+package com.se100.bds.services.domains.customer.profile;
+
+import com.se100.bds.repositories.dtos.PropertyFacetProjection;
+import com.se100.bds.services.domains.property.index.PropertyFacetIndex;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact interest profile of one customer: a weight per city, district, ward, property type and price band
+ * (the 1-2-5 buckets of the facet index). Explicit likes weigh the most, liked properties spread their
+ * weight over their location, type and price, each search adds a little to what it filtered on.
+ */
+public class CustomerPreferenceProfile {
+    static final float LIKED_WEIGHT = 3f;
+    static final float SEARCH_WEIGHT = 0.2f;
+    // How a liked property spreads over its attributes
+    private static final float FAVORITE_CITY_WEIGHT = 1f;
+    private static final float FAVORITE_DISTRICT_WEIGHT = 1.5f;
+    private static final float FAVORITE_WARD_WEIGHT = 2f;
+    private static final float FAVORITE_TYPE_WEIGHT = 1f;
+    private static final float FAVORITE_PRICE_WEIGHT = 2f;
+
+    private final Map<UUID, Float> cities = new ConcurrentHashMap<>();
+    private final Map<UUID, Float> districts = new ConcurrentHashMap<>();
+    private final Map<UUID, Float> wards = new ConcurrentHashMap<>();
+    private final Map<UUID, Float> propertyTypes = new ConcurrentHashMap<>();
+    private final Map<Integer, Float> priceBands = new ConcurrentHashMap<>();
+
+    public boolean isEmpty() {
+        return cities.isEmpty() && districts.isEmpty() && wards.isEmpty()
+                && propertyTypes.isEmpty() && priceBands.isEmpty();
+    }
+
+    // Higher is closer to the customer's interests, 0 for an unknown property
+    public float score(PropertyFacetProjection row) {
+        if (row == null) {
+            return 0f;
+        }
+        return weight(cities, row.cityId())
+                + weight(districts, row.districtId())
+                + weight(wards, row.wardId())
+                + weight(propertyTypes, row.propertyTypeId())
+                + (row.priceAmount() != null ? weight(priceBands, PropertyFacetIndex.bucketOf(row.priceAmount())) : 0f);
+    }
+
+    void addCity(UUID cityId, float weight) {
+        add(cities, cityId, weight);
+    }
+
+    void addDistrict(UUID districtId, float weight) {
+        add(districts, districtId, weight);
+    }
+
+    void addWard(UUID wardId, float weight) {
+        add(wards, wardId, weight);
+    }
+
+    void addPropertyType(UUID propertyTypeId, float weight) {
+        add(propertyTypes, propertyTypeId, weight);
+    }
+
+    // sign is -1 when the property is unliked
+    void addFavoriteProperty(PropertyFacetProjection row, int sign) {
+        add(cities, row.cityId(), sign * FAVORITE_CITY_WEIGHT);
+        add(districts, row.districtId(), sign * FAVORITE_DISTRICT_WEIGHT);
+        add(wards, row.wardId(), sign * FAVORITE_WARD_WEIGHT);
+        add(propertyTypes, row.propertyTypeId(), sign * FAVORITE_TYPE_WEIGHT);
+        if (row.priceAmount() != null) {
+            add(priceBands, PropertyFacetIndex.bucketOf(row.priceAmount()), sign * FAVORITE_PRICE_WEIGHT);
+        }
+    }
+
+    void addSearch(UUID cityId, UUID districtId, UUID wardId, UUID propertyTypeId) {
+        add(cities, cityId, SEARCH_WEIGHT);
+        add(districts, districtId, SEARCH_WEIGHT);
+        add(wards, wardId, SEARCH_WEIGHT);
+        add(propertyTypes, propertyTypeId, SEARCH_WEIGHT);
+    }
+
+    private <K> void add(Map<K, Float> weights, K key, float weight) {
+        if (key == null) {
+            return;
+        }
+        // Entries falling back to zero are dropped to keep the profile compact
+        weights.compute(key, (k, current) -> {
+            float updated = (current != null ? current : 0f) + weight;
+            return updated > 0.001f ? updated : null;
+        });
+    }
+
+    private <K> float weight(Map<K, Float> weights, K key) {
+        return key != null ? weights.getOrDefault(key, 0f) : 0f;
+    }
+}
@@ -0,0 +1,115 @@
+package com.se100.bds.services.domains.customer.profile;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.se100.bds.models.schemas.customer.AbstractCustomerPreferenceMongoSchema;
+import com.se100.bds.models.schemas.search.SearchLog;
+import com.se100.bds.repositories.domains.mongo.customer.CustomerFavoritePropertyRepository;
+import com.se100.bds.repositories.domains.mongo.customer.CustomerPreferredCityRepository;
+import com.se100.bds.repositories.domains.mongo.customer.CustomerPreferredDistrictRepository;
+import com.se100.bds.repositories.domains.mongo.customer.CustomerPreferredPropertyTypeRepository;
+import com.se100.bds.repositories.domains.mongo.customer.CustomerPreferredWardRepository;
+import com.se100.bds.repositories.domains.mongo.search.SearchLogRepository;
+import com.se100.bds.repositories.dtos.PropertyFacetProjection;
+import com.se100.bds.services.domains.property.index.PropertyFacetIndex;
+import com.se100.bds.utils.Constants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Per-customer {@link CustomerPreferenceProfile}s, built once from the preference collections and the latest
+ * search logs, then kept current by the like and search paths instead of being rebuilt.
+ * A personalized search costs a single lookup in this cache.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CustomerPreferenceProfiles {
+    private static final String CACHE_NAME = "customerPreferenceProfiles";
+
+    private final CustomerFavoritePropertyRepository customerFavoritePropertyRepository;
+    private final CustomerPreferredCityRepository customerPreferredCityRepository;
+    private final CustomerPreferredDistrictRepository customerPreferredDistrictRepository;
+    private final CustomerPreferredWardRepository customerPreferredWardRepository;
+    private final CustomerPreferredPropertyTypeRepository customerPreferredPropertyTypeRepository;
+    private final SearchLogRepository searchLogRepository;
+    private final PropertyFacetIndex propertyFacetIndex;
+    private final MeterRegistry meterRegistry;
+
+    private final Cache<UUID, CustomerPreferenceProfile> profiles = Caffeine.newBuilder()
+            .maximumSize(20_000)
+            .expireAfterAccess(Duration.ofHours(2))
+            .recordStats()
+            .build();
+
+    @PostConstruct
+    void registerMetrics() {
+        CaffeineCacheMetrics.monitor(meterRegistry, profiles, CACHE_NAME);
+    }
+
+    public CustomerPreferenceProfile get(UUID customerId) {
+        return profiles.get(customerId, this::load);
+    }
+
+    // Profiles not loaded yet pick the change up from the database when they are
+    public void onLike(UUID customerId, Constants.LikeTypeEnum likeType, UUID refId, boolean liked) {
+        CustomerPreferenceProfile profile = profiles.getIfPresent(customerId);
+        if (profile == null) {
+            return;
+        }
+        float weight = liked ? CustomerPreferenceProfile.LIKED_WEIGHT : -CustomerPreferenceProfile.LIKED_WEIGHT;
+        switch (likeType) {
+            case CITY -> profile.addCity(refId, weight);
+            case DISTRICT -> profile.addDistrict(refId, weight);
+            case WARD -> profile.addWard(refId, weight);
+            case PROPERTY_TYPE -> profile.addPropertyType(refId, weight);
+            case PROPERTY -> {
+                PropertyFacetProjection row = propertyFacetIndex.findRows(List.of(refId)).get(refId);
+                if (row != null) {
+                    profile.addFavoriteProperty(row, liked ? 1 : -1);
+                }
+            }
+        }
+    }
+
+    public void onSearch(UUID customerId, UUID cityId, UUID districtId, UUID wardId, UUID propertyTypeId) {
+        CustomerPreferenceProfile profile = profiles.getIfPresent(customerId);
+        if (profile != null) {
+            profile.addSearch(cityId, districtId, wardId, propertyTypeId);
+        }
+    }
+
+    private CustomerPreferenceProfile load(UUID customerId) {
+        CustomerPreferenceProfile profile = new CustomerPreferenceProfile();
+        customerPreferredCityRepository.findByCustomerId(customerId)
+                .forEach(like -> profile.addCity(like.getRefId(), CustomerPreferenceProfile.LIKED_WEIGHT));
+        customerPreferredDistrictRepository.findByCustomerId(customerId)
+                .forEach(like -> profile.addDistrict(like.getRefId(), CustomerPreferenceProfile.LIKED_WEIGHT));
+        customerPreferredWardRepository.findByCustomerId(customerId)
+                .forEach(like -> profile.addWard(like.getRefId(), CustomerPreferenceProfile.LIKED_WEIGHT));
+        customerPreferredPropertyTypeRepository.findByCustomerId(customerId)
+                .forEach(like -> profile.addPropertyType(like.getRefId(), CustomerPreferenceProfile.LIKED_WEIGHT));
+
+        List<UUID> favoriteIds = customerFavoritePropertyRepository.findByCustomerId(customerId).stream()
+                .map(AbstractCustomerPreferenceMongoSchema::getRefId)
+                .toList();
+        propertyFacetIndex.findRows(favoriteIds).values()
+                .forEach(row -> profile.addFavoriteProperty(row, 1));
+
+        List<SearchLog> searches = searchLogRepository.findTop200ByUserIdOrderByCreatedAtDesc(customerId);
+        searches.forEach(search -> profile.addSearch(
+                search.getCityId(), search.getDistrictId(), search.getWardId(), search.getPropertyTypeId()));
+
+        log.debug("Preference profile of customer {} built from {} favorites and {} searches",
+                customerId, favoriteIds.size(), searches.size());
+        return profile;
+    }
+}
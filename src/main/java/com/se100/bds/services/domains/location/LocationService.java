@@ -5,6 +5,7 @@ import com.se100.bds.dtos.requests.location.UpdateLocationRequest;
 import com.se100.bds.dtos.responses.location.LocationCardResponse;
 import com.se100.bds.dtos.responses.location.LocationDetailsResponse;
 import com.se100.bds.models.entities.location.City;
+import com.se100.bds.services.dtos.results.ContentVersion;
 import com.se100.bds.utils.Constants;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -18,6 +19,7 @@ import java.util.UUID;
 public interface LocationService {
     // public
     Page<City> topMostSearchedCities(Pageable pageable);
+    List<City> trendingCities(Constants.TrendingWindowEnum window, int limit);
     Map<UUID, String> findAllByParents(UUID parentId, Constants.SearchTypeEnum searchTypeEnum);
     Page<LocationCardResponse> findAllLocationCardsWithFilter(
             Pageable pageable,
@@ -30,6 +32,11 @@ public interface LocationService {
             Integer minPopulation, Integer maxPopulation
     );
     LocationDetailsResponse getLocationDetails(UUID locationId, Constants.LocationEnum locationTypeEnum);
+    // Versions of the location data, for conditional GETs
+    ContentVersion getLocationsVersion();
+    // Cards and details also carry the caller's favorite flags, their versions include them
+    ContentVersion getLocationCardsVersion(Constants.LocationEnum locationTypeEnum);
+    ContentVersion getLocationDetailsVersion(UUID locationId, Constants.LocationEnum locationTypeEnum);
     LocationDetailsResponse create(CreateLocationRequest createLocationRequest) throws IOException;
     LocationDetailsResponse update(UpdateLocationRequest updateLocationRequest) throws IOException;
     boolean delete(UUID locationId, Constants.LocationEnum locationTypeEnum);
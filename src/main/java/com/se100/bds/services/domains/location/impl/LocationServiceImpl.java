@@ -12,9 +12,12 @@ import com.se100.bds.repositories.domains.location.CityRepository;
 import com.se100.bds.repositories.domains.location.DistrictRepository;
 import com.se100.bds.repositories.domains.location.WardRepository;
 import com.se100.bds.repositories.domains.property.PropertyRepository;
+import com.se100.bds.repositories.dtos.TableVersionProjection;
+import com.se100.bds.services.domains.customer.CustomerFavoriteService;
 import com.se100.bds.services.domains.location.LocationService;
 import com.se100.bds.services.domains.search.SearchService;
-import com.se100.bds.services.fileupload.CloudinaryService;
+import com.se100.bds.services.dtos.results.ContentVersion;
+import com.se100.bds.services.fileupload.FileStorageService;
 import com.se100.bds.utils.Constants;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -29,7 +32,9 @@ import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -41,7 +46,8 @@ public class LocationServiceImpl implements LocationService {
     private final PropertyRepository propertyRepository;
     private final SearchService searchService;
     private final LocationMapper locationMapper;
-    private final CloudinaryService cloudinaryService;
+    private final FileStorageService fileStorageService;
+    private final CustomerFavoriteService customerFavoriteService;
 
 
     @Override
@@ -65,6 +71,20 @@ public class LocationServiceImpl implements LocationService {
         return cityRepository.findAllByIdIn(topCityIds, pageable);
     }
 
+    @Override
+    public List<City> trendingCities(Constants.TrendingWindowEnum window, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+        List<UUID> trendingIds = searchService.getTrendingCityIds(window, limit);
+        Map<UUID, City> citiesById = cityRepository.findAllById(trendingIds).stream()
+                .collect(Collectors.toMap(City::getId, city -> city));
+        return trendingIds.stream()
+                .map(citiesById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     @Override
     public Map<UUID, String> findAllByParents(UUID parentId, Constants.SearchTypeEnum searchTypeEnum) {
         Map<UUID, String> results = new HashMap<>();
@@ -192,6 +212,46 @@ public class LocationServiceImpl implements LocationService {
         return locationDetailsResponse;
     }
 
+    @Override
+    public ContentVersion getLocationsVersion() {
+        TableVersionProjection cities = cityRepository.findTableVersion();
+        TableVersionProjection districts = districtRepository.findTableVersion();
+        TableVersionProjection wards = wardRepository.findTableVersion();
+        return ContentVersion.of(
+                ContentVersion.latest(cities.lastUpdatedAt(), districts.lastUpdatedAt(), wards.lastUpdatedAt()),
+                cities, districts, wards);
+    }
+
+    @Override
+    public ContentVersion getLocationCardsVersion(Constants.LocationEnum locationTypeEnum) {
+        ContentVersion locations = getLocationsVersion();
+        // Anonymous visitors and customers without likes get the same flags, and so the same version.
+        // Likes carry no timestamp here, a personalized version has no Last-Modified
+        List<UUID> likedIds = customerFavoriteService.findLikedIdsByMe(likeTypeOf(locationTypeEnum));
+        return likedIds.isEmpty() ? locations : ContentVersion.of(null, locations.etag(), likedIds);
+    }
+
+    @Override
+    public ContentVersion getLocationDetailsVersion(UUID locationId, Constants.LocationEnum locationTypeEnum) {
+        // The details also count the available properties of the location, which carry no timestamp here:
+        // no Last-Modified, the ETag alone decides
+        int activeProperties = switch (locationTypeEnum) {
+            case CITY -> propertyRepository.countActivePropertiesByCityId(locationId);
+            case DISTRICT -> propertyRepository.countActivePropertiesByDistrictId(locationId);
+            case WARD -> propertyRepository.countActivePropertiesByWardId(locationId);
+        };
+        boolean favorite = customerFavoriteService.findLikedIdsByMe(likeTypeOf(locationTypeEnum)).contains(locationId);
+        return ContentVersion.of(null, getLocationsVersion().etag(), locationId, locationTypeEnum, activeProperties, favorite);
+    }
+
+    private static Constants.LikeTypeEnum likeTypeOf(Constants.LocationEnum locationTypeEnum) {
+        return switch (locationTypeEnum) {
+            case CITY -> Constants.LikeTypeEnum.CITY;
+            case DISTRICT -> Constants.LikeTypeEnum.DISTRICT;
+            case WARD -> Constants.LikeTypeEnum.WARD;
+        };
+    }
+
     @Override
     @Transactional
     public LocationDetailsResponse create(CreateLocationRequest createLocationRequest) throws IOException {
@@ -199,7 +259,7 @@ public class LocationServiceImpl implements LocationService {
 
         String imgUrl = null;
         if (createLocationRequest.getImage() != null) {
-            imgUrl = cloudinaryService.uploadFile(createLocationRequest.getImage(), "locations");
+            imgUrl = fileStorageService.uploadFile(createLocationRequest.getImage(), "locations");
         }
 
         switch (createLocationRequest.getLocationTypeEnum()) {
@@ -251,7 +311,7 @@ public class LocationServiceImpl implements LocationService {
 
         String imgUrl = null;
         if (updateLocationRequest.getImage() != null) {
-            imgUrl = cloudinaryService.uploadFile(updateLocationRequest.getImage(), "locations");
+            imgUrl = fileStorageService.uploadFile(updateLocationRequest.getImage(), "locations");
         }
 
         switch (updateLocationRequest.getLocationTypeEnum()) {
@@ -261,7 +321,7 @@ public class LocationServiceImpl implements LocationService {
 
                 // Delete old image if exists and new image is provided
                 if (imgUrl != null && city.getImgUrl() != null) {
-                    cloudinaryService.deleteFile(city.getImgUrl());
+                    fileStorageService.deleteFile(city.getImgUrl());
                 }
 
                 // Update fields only if they are not null
@@ -299,7 +359,7 @@ public class LocationServiceImpl implements LocationService {
 
                 // Delete old image if exists and new image is provided
                 if (imgUrl != null && district.getImgUrl() != null) {
-                    cloudinaryService.deleteFile(district.getImgUrl());
+                    fileStorageService.deleteFile(district.getImgUrl());
                 }
 
                 // Update parent city if provided
@@ -344,7 +404,7 @@ public class LocationServiceImpl implements LocationService {
 
                 // Delete old image if exists and new image is provided
                 if (imgUrl != null && ward.getImgUrl() != null) {
-                    cloudinaryService.deleteFile(ward.getImgUrl());
+                    fileStorageService.deleteFile(ward.getImgUrl());
                 }
 
                 // Update parent district if provided
@@ -401,7 +461,7 @@ public class LocationServiceImpl implements LocationService {
                     // Delete image from Cloudinary if exists
                     if (city.getImgUrl() != null) {
                         try {
-                            cloudinaryService.deleteFile(city.getImgUrl());
+                            fileStorageService.deleteFile(city.getImgUrl());
                         } catch (IOException e) {
                             log.error("Failed to delete city image from Cloudinary: {}", e.getMessage());
                         }
@@ -417,7 +477,7 @@ public class LocationServiceImpl implements LocationService {
                     // Delete image from Cloudinary if exists
                     if (district.getImgUrl() != null) {
                         try {
-                            cloudinaryService.deleteFile(district.getImgUrl());
+                            fileStorageService.deleteFile(district.getImgUrl());
                         } catch (IOException e) {
                             log.error("Failed to delete district image from Cloudinary: {}", e.getMessage());
                         }
@@ -433,7 +493,7 @@ public class LocationServiceImpl implements LocationService {
                     // Delete image from Cloudinary if exists
                     if (ward.getImgUrl() != null) {
                         try {
-                            cloudinaryService.deleteFile(ward.getImgUrl());
+                            fileStorageService.deleteFile(ward.getImgUrl());
                         } catch (IOException e) {
                             log.error("Failed to delete ward image from Cloudinary: {}", e.getMessage());
                         }
@@ -4,11 +4,13 @@ import com.se100.bds.models.entities.contract.Payment;
 import com.se100.bds.repositories.domains.property.PropertyRepository;
 import com.se100.bds.services.domains.payment.webhook.PaymentGatewayWebhookEvent;
 import com.se100.bds.services.domains.payment.webhook.PaymentSucceededSideEffectHandler;
+import com.se100.bds.services.domains.property.event.PropertyChangedEvent;
 import com.se100.bds.services.domains.report.FinancialUpdateService;
 import com.se100.bds.utils.Constants;
 import com.se100.bds.utils.Constants.PaymentTypeEnum;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -23,6 +25,7 @@ public class ServiceFeePaymentSucceededHandler implements PaymentSucceededSideEf
 
     private final FinancialUpdateService financialUpdateService;
     private final PropertyRepository propertyRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public boolean supports(Payment payment) {
@@ -49,6 +52,7 @@ public class ServiceFeePaymentSucceededHandler implements PaymentSucceededSideEf
             property.setStatus(Constants.PropertyStatusEnum.AVAILABLE);
         }
         propertyRepository.save(property);
+        eventPublisher.publishEvent(new PropertyChangedEvent(property.getId()));
 
         log.info("SERVICE_FEE succeeded for paymentId={}, contractId={}, propertyId={}, gatewayEventId={}",
                 payment.getId(),
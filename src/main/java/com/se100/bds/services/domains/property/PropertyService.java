@@ -5,12 +5,18 @@ import com.se100.bds.dtos.requests.property.UpdatePropertyTypeRequest;
 import com.se100.bds.dtos.requests.property.CreatePropertyRequest;
 import com.se100.bds.dtos.requests.property.UpdatePropertyRequest;
 import com.se100.bds.dtos.requests.property.UpdatePropertyStatusRequest;
+import com.se100.bds.dtos.responses.property.PropertyCluster;
+import com.se100.bds.dtos.responses.property.MediaUploadStatusResponse;
 import com.se100.bds.dtos.responses.property.PropertyDetails;
+import com.se100.bds.dtos.responses.property.PropertyFacetCounts;
 import com.se100.bds.dtos.responses.property.PropertyTypeResponse;
 import com.se100.bds.dtos.responses.property.SimplePropertyCard;
 import com.se100.bds.models.entities.property.Property;
 import com.se100.bds.models.entities.property.PropertyType;
+import com.se100.bds.services.domains.property.index.GeoArea;
+import com.se100.bds.services.dtos.results.ContentVersion;
 import com.se100.bds.services.dtos.results.PropertyCard;
+import com.se100.bds.services.dtos.results.PropertyCardSlice;
 import com.se100.bds.utils.Constants;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -34,12 +40,48 @@ public interface PropertyService {
                                               BigDecimal minPrice, BigDecimal maxPrice, BigDecimal minArea, BigDecimal maxArea,
                                               Integer rooms, Integer bathrooms, Integer bedrooms, Integer floors, Constants.OrientationEnum houseOrientation, Constants.OrientationEnum balconyOrientation,
                                               List<Constants.TransactionTypeEnum> transactionType, List<Constants.PropertyStatusEnum> statuses, boolean topK,
-                                              Pageable pageable);
+                                              boolean personalized, GeoArea geoArea, String keyword, Pageable pageable);
+    PropertyCardSlice getCardsByCursor(List<UUID> cityIds, List<UUID> districtIds, List<UUID> wardIds,
+                                       List<UUID> propertyTypeIds, UUID ownerId, String ownerName,
+                                       List<Constants.ContributionTierEnum> ownerTier,
+                                       UUID agentId, String agentName,
+                                       List<Constants.PerformanceTierEnum> agentTier,
+                                       BigDecimal minPrice, BigDecimal maxPrice, BigDecimal minArea, BigDecimal maxArea,
+                                       Integer rooms, Integer bathrooms, Integer bedrooms, Integer floors, Constants.OrientationEnum houseOrientation, Constants.OrientationEnum balconyOrientation,
+                                       List<Constants.TransactionTypeEnum> transactionType, List<Constants.PropertyStatusEnum> statuses, boolean topK,
+                                       GeoArea geoArea, String cursor, int limit);
+    PropertyFacetCounts getCardFacets(List<UUID> cityIds, List<UUID> districtIds, List<UUID> wardIds,
+                                      List<UUID> propertyTypeIds, UUID ownerId, String ownerName,
+                                      List<Constants.ContributionTierEnum> ownerTier,
+                                      UUID agentId, String agentName,
+                                      List<Constants.PerformanceTierEnum> agentTier,
+                                      BigDecimal minPrice, BigDecimal maxPrice, BigDecimal minArea, BigDecimal maxArea,
+                                      Integer rooms, Integer bathrooms, Integer bedrooms, Integer floors, Constants.OrientationEnum houseOrientation, Constants.OrientationEnum balconyOrientation,
+                                      List<Constants.TransactionTypeEnum> transactionType, List<Constants.PropertyStatusEnum> statuses, boolean topK,
+                                      GeoArea geoArea, String keyword);
+    List<PropertyCluster> getCardClusters(List<UUID> cityIds, List<UUID> districtIds, List<UUID> wardIds,
+                                          List<UUID> propertyTypeIds, UUID ownerId, String ownerName,
+                                          List<Constants.ContributionTierEnum> ownerTier,
+                                          UUID agentId, String agentName,
+                                          List<Constants.PerformanceTierEnum> agentTier,
+                                          BigDecimal minPrice, BigDecimal maxPrice, BigDecimal minArea, BigDecimal maxArea,
+                                          Integer rooms, Integer bathrooms, Integer bedrooms, Integer floors, Constants.OrientationEnum houseOrientation, Constants.OrientationEnum balconyOrientation,
+                                          List<Constants.TransactionTypeEnum> transactionType, List<Constants.PropertyStatusEnum> statuses, boolean topK,
+                                          GeoArea geoArea, String keyword, int zoom);
+    // Ordered by views and searches over the window, cityId == null for all cities
+    List<PropertyCard> getTrendingCards(Constants.TrendingWindowEnum window, UUID cityId, int limit);
+    // AVAILABLE properties of the same city and transaction type, closest first
+    List<PropertyCard> getSimilarCards(UUID propertyId, int limit);
     Page<PropertyType> getAllTypes(Pageable pageable);
     PropertyDetails getPropertyDetailsById(UUID propertyId);
+    void recordPropertyView(UUID propertyId);
+    // Null when the property does not exist
+    ContentVersion getPropertyDetailsVersion(UUID propertyId);
+    ContentVersion getPropertyTypesVersion();
     List<Property> getAllByUserIdAndStatus(UUID ownerId, UUID customerId, UUID salesAgentId, List<Constants.PropertyStatusEnum> statuses);
     PropertyDetails createProperty(CreatePropertyRequest request, MultipartFile[] mediaFiles);
     PropertyDetails updateProperty(UUID propertyId, UpdatePropertyRequest request, MultipartFile[] mediaFiles);
+    List<MediaUploadStatusResponse> getMediaUploads(UUID propertyId);
     PropertyDetails updatePropertyStatus(UUID propertyId, UpdatePropertyStatusRequest request);
     void deleteProperty(UUID propertyId);
     void assignAgentToProperty(UUID agentId, UUID propertyId);
@@ -0,0 +1,34 @@
+package com.se100.bds.services.domains.property.cache;
+
+import com.se100.bds.services.domains.property.index.GeoArea;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Normalized card search: lists are sorted (null when empty), texts trimmed and lower-cased and numbers stripped of
+ * trailing zeros, so equivalent requests share one cache entry.
+ */
+public record CardPageKey(List<UUID> cityIds, List<UUID> districtIds, List<UUID> wardIds, List<UUID> propertyTypeIds,
+                          UUID ownerId, UUID agentId, String ownerName, String agentName,
+                          List<String> ownerTiers, List<String> agentTiers,
+                          BigDecimal minPrice, BigDecimal maxPrice, BigDecimal minArea, BigDecimal maxArea,
+                          Integer rooms, Integer bathrooms, Integer bedrooms, Integer floors,
+                          String houseOrientation, String balconyOrientation,
+                          List<String> transactionTypes, List<String> statuses, boolean topK,
+                          GeoArea geoArea, String keyword, int pageNumber, int pageSize, Sort sort) {
+
+    public static <T extends Comparable<? super T>> List<T> normalize(List<T> values) {
+        return values == null || values.isEmpty() ? null : values.stream().distinct().sorted().toList();
+    }
+
+    public static String normalize(String value) {
+        return value == null || value.isBlank() ? null : value.trim().toLowerCase();
+    }
+
+    public static BigDecimal normalize(BigDecimal value) {
+        return value == null ? null : value.stripTrailingZeros();
+    }
+}
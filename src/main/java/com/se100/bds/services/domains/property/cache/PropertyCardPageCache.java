@@ -0,0 +1,92 @@
+package com.se100.bds.services.domains.property.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.se100.bds.repositories.domains.property.PropertyRepository;
+import com.se100.bds.repositories.dtos.PropertyFacetProjection;
+import com.se100.bds.services.domains.property.event.PropertyChangedEvent;
+import com.se100.bds.services.dtos.results.PropertyCard;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of the card pages served to anonymous visitors, who all get the same result for the same filters.
+ * <p>
+ * A property change evicts the pages showing that property and the pages whose location and type filters would
+ * include it; the TTL bounds what this misses (e.g. later pages shifting by one). Hit, miss and eviction counters
+ * are published as the "cache.*" actuator metrics with the tag cache=propertyCardPages.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PropertyCardPageCache {
+    private static final String CACHE_NAME = "propertyCardPages";
+
+    private final PropertyRepository propertyRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final Cache<CardPageKey, Page<PropertyCard>> pages = Caffeine.newBuilder()
+            .maximumSize(5_000)
+            .expireAfterWrite(Duration.ofSeconds(60))
+            .recordStats()
+            .build();
+
+    @PostConstruct
+    void registerMetrics() {
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, CACHE_NAME);
+    }
+
+    public Page<PropertyCard> get(CardPageKey key, Supplier<Page<PropertyCard>> loader) {
+        return pages.get(key, k -> loader.get());
+    }
+
+    public void invalidateAll() {
+        pages.invalidateAll();
+        log.debug("Property card page cache cleared");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        evict(event.propertyId());
+    }
+
+    // Also called once the property's card was rewritten, pages loaded in between showed the old card
+    public void evict(UUID propertyId) {
+        PropertyFacetProjection row = propertyRepository.findFacetRowById(propertyId).orElse(null);
+        if (row == null) {
+            // Location unknown after a hard delete
+            pages.invalidateAll();
+            return;
+        }
+
+        long before = pages.estimatedSize();
+        pages.asMap().entrySet().removeIf(entry -> shows(entry.getValue(), propertyId) || mayInclude(entry.getKey(), row));
+        log.debug("Property {} changed, evicted {} card pages", propertyId, before - pages.estimatedSize());
+    }
+
+    private boolean shows(Page<PropertyCard> page, UUID propertyId) {
+        return page.getContent().stream().anyMatch(card -> propertyId.equals(card.getId()));
+    }
+
+    private boolean mayInclude(CardPageKey key, PropertyFacetProjection row) {
+        return allows(key.cityIds(), row.cityId())
+                && allows(key.districtIds(), row.districtId())
+                && allows(key.wardIds(), row.wardId())
+                && allows(key.propertyTypeIds(), row.propertyTypeId());
+    }
+
+    private boolean allows(List<UUID> filter, UUID value) {
+        return filter == null || filter.contains(value);
+    }
+}
@@ -0,0 +1,60 @@
+package com.se100.bds.services.domains.property.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.se100.bds.dtos.responses.property.PropertyDetails;
+import com.se100.bds.services.domains.property.event.PropertyChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Assembled property detail pages by property id.
+ * <p>
+ * Property, media and document writes all publish a {@link PropertyChangedEvent} and evict their property once
+ * committed; the ranking schedulers clear the whole cache after recalculating tiers, and the card projector after
+ * an owner or agent is renamed. The view count is not cached, it is overlaid when serving. Other changes made
+ * elsewhere (owner/agent contacts, document type names) show up when the entry expires.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PropertyDetailsCache {
+    private static final String CACHE_NAME = "propertyDetails";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Cache<UUID, PropertyDetails> details = Caffeine.newBuilder()
+            .maximumSize(2_000)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .recordStats()
+            .build();
+
+    @PostConstruct
+    void registerMetrics() {
+        CaffeineCacheMetrics.monitor(meterRegistry, details, CACHE_NAME);
+    }
+
+    // Loading is atomic per property: concurrent misses share one load, and an eviction waits for it
+    public PropertyDetails get(UUID propertyId, Function<UUID, PropertyDetails> loader) {
+        return details.get(propertyId, loader);
+    }
+
+    public void invalidateAll() {
+        details.invalidateAll();
+        log.debug("Property details cache cleared");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        details.invalidate(event.propertyId());
+    }
+}
@@ -0,0 +1,97 @@
+package com.se100.bds.services.domains.property.counter;
+
+import com.se100.bds.services.domains.property.event.PropertyViewsFlushedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts property detail views in memory and adds them to properties.view_count in one JDBC batch per flush.
+ * <p>
+ * Each property gets a {@link LongAdder}, whose striped cells keep a viral listing from serializing its viewers on
+ * one counter; the database sees one row update per property per flush instead of one per view. Rows are updated
+ * every flush interval (app.property-views.flush-interval-ms) and a last time on shutdown; detail responses add the
+ * views still pending here, so they show the count live.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PropertyViewCounter {
+    private static final String ADD_VIEWS_SQL =
+            "UPDATE properties SET view_count = COALESCE(view_count, 0) + ? WHERE property_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Adders are never removed: a viewer may still hold one while it is flushed, and sumThenReset loses nothing
+    private final Map<UUID, LongAdder> pending = new ConcurrentHashMap<>();
+
+    public void record(UUID propertyId) {
+        pending.computeIfAbsent(propertyId, id -> new LongAdder()).increment();
+    }
+
+    // Views recorded but not flushed yet
+    public long pendingViews(UUID propertyId) {
+        LongAdder adder = pending.get(propertyId);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${app.property-views.flush-interval-ms:30000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    synchronized void flush() {
+        Map<UUID, Long> views = new LinkedHashMap<>();
+        List<Object[]> batch = new ArrayList<>();
+        // Sorted so that concurrent flushes from several instances lock the rows in the same order
+        pending.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> {
+                    long count = entry.getValue().sumThenReset();
+                    if (count > 0) {
+                        views.put(entry.getKey(), count);
+                        batch.add(new Object[]{count, entry.getKey()});
+                    }
+                });
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            // One transaction, so a batch failing halfway leaves no rows counted before they are put back
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(ADD_VIEWS_SQL, batch));
+        } catch (RuntimeException e) {
+            // Put the views back, the next flush retries them
+            batch.forEach(row -> record((UUID) row[1], (long) row[0]));
+            log.warn("Could not flush views of {} properties, retrying next time: {}", batch.size(), e.getMessage());
+            return;
+        }
+
+        eventPublisher.publishEvent(new PropertyViewsFlushedEvent(views));
+        log.debug("Flushed views of {} properties", batch.size());
+    }
+
+    private void record(UUID propertyId, long views) {
+        pending.computeIfAbsent(propertyId, id -> new LongAdder()).add(views);
+    }
+}
@@ -0,0 +1,8 @@
+package com.se100.bds.services.domains.property.event;
+
+import java.util.UUID;
+
+/**
+ * Published whenever a property row is created or modified, consumed after commit by the read-side structures.
+ */
+public record PropertyChangedEvent(UUID propertyId) {}
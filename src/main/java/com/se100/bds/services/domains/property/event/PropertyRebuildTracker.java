@@ -0,0 +1,39 @@
+package com.se100.bds.services.domains.property.event;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Remembers the properties changed while an in-memory index rebuilds from a snapshot.
+ * <p>
+ * A change committed after the snapshot was read is missing from it, and one applied before the rebuilt structures
+ * are in place would be overwritten by them. The index defers such changes here and replays them once the rebuild
+ * is done.
+ */
+public class PropertyRebuildTracker {
+    private final Set<UUID> changed = new HashSet<>();
+    private boolean rebuilding;
+
+    // Call before reading the snapshot
+    public synchronized void begin() {
+        rebuilding = true;
+        changed.clear();
+    }
+
+    // Whether the change was deferred to the replay of a running rebuild
+    public synchronized boolean deferIfRebuilding(UUID propertyId) {
+        if (rebuilding) {
+            changed.add(propertyId);
+        }
+        return rebuilding;
+    }
+
+    // Ends the rebuild and hands out the deferred changes, later ones are applied directly again
+    public synchronized Set<UUID> finish() {
+        rebuilding = false;
+        Set<UUID> deferred = new HashSet<>(changed);
+        changed.clear();
+        return deferred;
+    }
+}
@@ -0,0 +1,9 @@
+package com.se100.bds.services.domains.property.event;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Published by PropertyViewCounter after each successful flush, with the views it added per property.
+ */
+public record PropertyViewsFlushedEvent(Map<UUID, Long> views) {}
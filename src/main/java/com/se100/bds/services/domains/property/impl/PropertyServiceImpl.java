@@ -6,9 +6,13 @@ import com.se100.bds.dtos.requests.property.CreatePropertyTypeRequest;
 import com.se100.bds.dtos.requests.property.UpdatePropertyRequest;
 import com.se100.bds.dtos.requests.property.UpdatePropertyStatusRequest;
 import com.se100.bds.dtos.requests.property.UpdatePropertyTypeRequest;
+import com.se100.bds.dtos.responses.property.PropertyCluster;
+import com.se100.bds.dtos.responses.property.MediaUploadStatusResponse;
 import com.se100.bds.dtos.responses.property.PropertyDetails;
+import com.se100.bds.dtos.responses.property.PropertyFacetCounts;
 import com.se100.bds.dtos.responses.property.PropertyTypeResponse;
 import com.se100.bds.exceptions.NotFoundException;
+import com.se100.bds.exceptions.ServiceNotReadyException;
 import com.se100.bds.mappers.PropertyMapper;
 import com.se100.bds.models.entities.location.Ward;
 import com.se100.bds.models.entities.property.Media;
@@ -17,7 +21,10 @@ import com.se100.bds.models.entities.property.PropertyType;
 import com.se100.bds.models.entities.user.PropertyOwner;
 import com.se100.bds.models.entities.user.SaleAgent;
 import com.se100.bds.models.entities.user.User;
+import com.se100.bds.models.schemas.customer.CustomerFavoriteProperty;
 import com.se100.bds.repositories.domains.location.WardRepository;
+import com.se100.bds.repositories.domains.mongo.customer.CustomerFavoritePropertyRepository;
+import com.se100.bds.repositories.domains.property.PropertyCardViewRepository;
 import com.se100.bds.repositories.domains.property.PropertyRepository;
 import com.se100.bds.repositories.domains.property.PropertyTypeRepository;
 import com.se100.bds.repositories.domains.user.PropertyOwnerRepository;
@@ -25,20 +32,41 @@ import com.se100.bds.repositories.dtos.DocumentProjection;
 import com.se100.bds.repositories.dtos.MediaProjection;
 import com.se100.bds.repositories.dtos.PropertyCardProtection;
 import com.se100.bds.repositories.dtos.PropertyDetailsProjection;
+import com.se100.bds.repositories.dtos.PropertyFacetProjection;
+import com.se100.bds.repositories.dtos.TableVersionProjection;
+import com.se100.bds.services.domains.customer.profile.CustomerPreferenceProfile;
+import com.se100.bds.services.domains.customer.profile.CustomerPreferenceProfiles;
 import com.se100.bds.services.domains.notification.NotificationService;
 import com.se100.bds.services.domains.payment.PaymentService;
 import com.se100.bds.services.domains.property.PropertyService;
+import com.se100.bds.services.domains.property.cache.CardPageKey;
+import com.se100.bds.services.domains.property.cache.PropertyCardPageCache;
+import com.se100.bds.services.domains.property.cache.PropertyDetailsCache;
+import com.se100.bds.services.domains.property.counter.PropertyViewCounter;
+import com.se100.bds.services.domains.property.event.PropertyChangedEvent;
+import com.se100.bds.services.domains.property.index.GeoArea;
+import com.se100.bds.services.domains.property.index.PropertyFacetIndex;
+import com.se100.bds.services.domains.property.index.PropertyFacetQuery;
+import com.se100.bds.services.domains.property.readmodel.PropertyCardProjector;
+import com.se100.bds.services.domains.property.similar.SimilarPropertyIndex;
 import com.se100.bds.services.domains.ranking.RankingService;
 import com.se100.bds.services.domains.search.SearchService;
 import com.se100.bds.services.domains.user.UserService;
+import com.se100.bds.services.dtos.results.ContentVersion;
 import com.se100.bds.services.dtos.results.PropertyCard;
-import com.se100.bds.services.fileupload.CloudinaryService;
+import com.se100.bds.services.dtos.results.PropertyCardSlice;
+import com.se100.bds.services.fileupload.FileStorageService;
+import com.se100.bds.services.fileupload.pipeline.MediaUploadPipeline;
 import com.se100.bds.utils.Constants;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -47,13 +75,23 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -75,6 +113,12 @@ public class PropertyServiceImpl implements PropertyService {
             Constants.PropertyStatusEnum.UNAVAILABLE
     );
 
+    // Sortable columns of the property_card read model, other sorts go to the join query
+    private static final Set<String> CARD_VIEW_SORT_FIELDS = Set.of("id", "createdAt", "updatedAt", "title", "priceAmount", "area");
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+    // The in-memory indexes load in a few seconds at startup
+    private static final long INDEX_RETRY_AFTER_SECONDS = 5;
+
     private final PropertyRepository propertyRepository;
     private final PropertyTypeRepository propertyTypeRepository;
     private final PropertyOwnerRepository propertyOwnerRepository;
@@ -83,9 +127,22 @@ public class PropertyServiceImpl implements PropertyService {
     private final UserService userService;
     private final SearchService searchService;
     private final RankingService rankingService;
-    private final CloudinaryService cloudinaryService;
+    private final FileStorageService fileStorageService;
     private final PaymentService paymentService;
     private final NotificationService notificationService;
+    private final PropertyFacetIndex propertyFacetIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PropertyCardViewRepository propertyCardViewRepository;
+    private final PropertyCardProjector propertyCardProjector;
+    private final PropertyCardPageCache propertyCardPageCache;
+    private final PropertyDetailsCache propertyDetailsCache;
+    private final PropertyViewCounter propertyViewCounter;
+    private final SimilarPropertyIndex similarPropertyIndex;
+    private final CustomerPreferenceProfiles customerPreferenceProfiles;
+    private final CustomerFavoritePropertyRepository customerFavoritePropertyRepository;
+    private final MediaUploadPipeline mediaUploadPipeline;
+    // Resolved by name among the executors of AsyncConfig
+    private final Executor propertyDetailsExecutor;
 
     @Override
     public Page<Property> getAll(Pageable pageable) {
@@ -108,78 +165,554 @@ public class PropertyServiceImpl implements PropertyService {
                                                      Constants.OrientationEnum houseOrientation, Constants.OrientationEnum balconyOrientation,
                                                      List<Constants.TransactionTypeEnum> transactionType,
                                                      List<Constants.PropertyStatusEnum> statuses, boolean topK,
-                                                     Pageable pageable) {
+                                                     boolean personalized, GeoArea geoArea, String keyword, Pageable pageable) {
+
+        CardFilter filter = buildCardFilter(cityIds, districtIds, wardIds, propertyTypeIds,
+                ownerId, ownerName, ownerTier, agentId, agentName, agentTier,
+                minPrice, maxPrice, minArea, maxArea, rooms, bathrooms, bedrooms, floors,
+                houseOrientation, balconyOrientation, transactionType, statuses, topK, geoArea, true);
+
+        String keywordFilter = keyword != null && !keyword.isBlank() ? keyword.trim() : null;
+        if (filter.userId() != null) {
+            Page<PropertyCard> page = findCardPage(filter, keywordFilter, pageable);
+            markFavorites(page.getContent(), filter.userId());
+            return personalized ? personalize(page, filter.userId()) : page;
+        }
+        // Anonymous visitors all get the same page for the same filters
+        return propertyCardPageCache.get(toCardPageKey(filter, keywordFilter, pageable),
+                () -> findCardPage(filter, keywordFilter, pageable));
+    }
 
-        User currentUser = null;
-        try {
-            currentUser = userService.getUser();
-            searchService.addSearchList(currentUser.getId(), cityIds, districtIds, wardIds, propertyTypeIds);
-        } catch (Exception ignored) {
+    // Re-ranks the candidate page by the customer's preference profile, ties keep the requested order
+    private Page<PropertyCard> personalize(Page<PropertyCard> page, UUID customerId) {
+        if (page.getNumberOfElements() < 2) {
+            return page;
+        }
+        CustomerPreferenceProfile profile = customerPreferenceProfiles.get(customerId);
+        if (profile.isEmpty()) {
+            return page;
         }
 
-        List<UUID> propertyIds = null;
-        if (topK) {
-            // Lấy tháng và năm hiện tại
-            int currentYear = LocalDateTime.now().getYear();
-            int currentMonth = LocalDateTime.now().getMonthValue();
+        Map<UUID, PropertyFacetProjection> rows = propertyFacetIndex.findRows(
+                page.getContent().stream().map(PropertyCard::getId).toList());
+        List<PropertyCard> ranked = new ArrayList<>(page.getContent());
+        ranked.sort(Comparator.comparingDouble((PropertyCard card) -> profile.score(rows.get(card.getId()))).reversed());
+        return new PageImpl<>(ranked, page.getPageable(), page.getTotalElements());
+    }
 
-            propertyIds = searchService.getMostSearchedPropertyIds(1000, currentYear, currentMonth);
-            log.info("Found {} most searched properties", propertyIds.size());
+    private Page<PropertyCard> findCardPage(CardFilter filter, String keywordFilter, Pageable pageable) {
+        if (keywordFilter != null) {
+            // Keyword results are ordered by relevance, the requested sort does not apply
+            Page<PropertyCardProtection> matches = propertyRepository.findAllPropertyCardsByKeyword(
+                    PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()),
+                    keywordFilter,
+                    null,
+                    filter.south(), filter.north(), filter.west(), filter.east(),
+                    filter.centerLatitude(), filter.centerLongitude(), filter.radiusKm(),
+                    filter.mostSearchedOnly(),
+                    filter.cityIds(),
+                    filter.districtIds(),
+                    filter.wardIds(),
+                    filter.propertyTypeIds(),
+                    filter.ownerId(),
+                    filter.agentId(),
+                    filter.ownerName(),
+                    filter.agentName(),
+                    filter.ownerTiers(),
+                    filter.agentTiers(),
+                    filter.minPrice(),
+                    filter.maxPrice(),
+                    filter.minArea(),
+                    filter.maxArea(),
+                    filter.rooms(),
+                    filter.bathrooms(),
+                    filter.bedrooms(),
+                    filter.floors(),
+                    filter.houseOrientation(),
+                    filter.balconyOrientation(),
+                    filter.transactionTypes(),
+                    filter.statuses()
+            );
+            Page<PropertyCard> keywordCards = propertyMapper.mapToPage(matches, PropertyCard.class);
+            enrichCardTiers(keywordCards.getContent());
+            return keywordCards;
         }
 
-        List<String> transactionTypeStrings = (transactionType != null && !transactionType.isEmpty())
-                ? transactionType.stream().map(Enum::name).toList()
-                : null;
+        // Name and tier filters live outside the facet index, and it only serves the default (newest first) order
+        if (propertyFacetIndex.isReady() && pageable.getSort().isUnsorted()
+                && filter.ownerName() == null && filter.agentName() == null
+                && filter.ownerTiers() == null && filter.agentTiers() == null) {
+            return getCardsFromFacetIndex(toFacetQuery(filter, mostSearchedIds(filter)), pageable);
+        }
 
-        List<UUID> ownerIds;
-        if (ownerId != null) {
-            ownerIds = List.of(ownerId);
+        Page<PropertyCardProtection> cardProtections;
+        if (propertyCardProjector.isReady() && CARD_VIEW_SORT_FIELDS.containsAll(
+                pageable.getSort().stream().map(Sort.Order::getProperty).toList())) {
+            // Single-table read on the property_card read model
+            cardProtections = propertyCardViewRepository.findAllCardsWithFilter(
+                    pageable.getSort().isSorted() ? pageable
+                            : PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), NEWEST_FIRST),
+                    null,
+                    filter.south(), filter.north(), filter.west(), filter.east(),
+                    filter.centerLatitude(), filter.centerLongitude(), filter.radiusKm(),
+                    filter.mostSearchedOnly(),
+                    filter.cityIds(),
+                    filter.districtIds(),
+                    filter.wardIds(),
+                    filter.propertyTypeIds(),
+                    filter.ownerId(),
+                    filter.agentId(),
+                    filter.ownerName(),
+                    filter.agentName(),
+                    filter.ownerTiers(),
+                    filter.agentTiers(),
+                    filter.minPrice(),
+                    filter.maxPrice(),
+                    filter.minArea(),
+                    filter.maxArea(),
+                    filter.rooms(),
+                    filter.bathrooms(),
+                    filter.bedrooms(),
+                    filter.floors(),
+                    filter.houseOrientation(),
+                    filter.balconyOrientation(),
+                    filter.transactionTypes(),
+                    filter.statuses()
+            );
         } else {
-            String searchName = ownerName != null ? ownerName : "";
-            List<User> owners = userService.getAllByName(searchName);
-
-            if (ownerTier != null && !ownerTier.isEmpty()) {
-                int currentMonth = LocalDateTime.now().getMonthValue();
-                int currentYear = LocalDateTime.now().getYear();
-
-                ownerIds = owners.stream()
-                        .map(User::getId)
-                        .filter(id -> {
-                            String tier = rankingService.getTier(id, Constants.RoleEnum.PROPERTY_OWNER, currentMonth, currentYear);
-                            return tier != null && ownerTier.stream().anyMatch(filter -> filter.name().equals(tier));
-                        })
-                        .toList();
-            } else {
-                ownerIds = owners.stream()
-                        .map(User::getId)
-                        .toList();
-            }
+            cardProtections = propertyRepository.findAllPropertyCardsWithFilter(
+                    pageable,
+                    null,
+                    filter.south(), filter.north(), filter.west(), filter.east(),
+                    filter.centerLatitude(), filter.centerLongitude(), filter.radiusKm(),
+                    filter.mostSearchedOnly(),
+                    filter.cityIds(),
+                    filter.districtIds(),
+                    filter.wardIds(),
+                    filter.propertyTypeIds(),
+                    filter.ownerId(),
+                    filter.agentId(),
+                    filter.ownerName(),
+                    filter.agentName(),
+                    filter.ownerTiers(),
+                    filter.agentTiers(),
+                    filter.minPrice(),
+                    filter.maxPrice(),
+                    filter.minArea(),
+                    filter.maxArea(),
+                    filter.rooms(),
+                    filter.bathrooms(),
+                    filter.bedrooms(),
+                    filter.floors(),
+                    filter.houseOrientation(),
+                    filter.balconyOrientation(),
+                    filter.transactionTypes(),
+                    filter.statuses()
+            );
         }
 
-        List<UUID> agentIds;
-        if (agentId != null) {
-            agentIds = List.of(agentId);
-        } else {
-            String searchName = agentName != null ? agentName : "";
-            List<User> agents = userService.getAllByName(searchName);
-            if (agentTier != null && !agentTier.isEmpty()) {
-                int currentMonth = LocalDateTime.now().getMonthValue();
-                int currentYear = LocalDateTime.now().getYear();
-
-                agentIds = agents.stream()
-                        .map(User::getId)
-                        .filter(id -> {
-                            String tier = rankingService.getTier(id, Constants.RoleEnum.SALESAGENT, currentMonth, currentYear);
-                            return tier != null && agentTier.stream().anyMatch(filter -> filter.name().equals(tier));
-                        })
-                        .toList();
-            } else {
-                agentIds = agents.stream()
-                        .map(User::getId)
-                        .toList();
+        Page<PropertyCard> propertyCardsPage = propertyMapper.mapToPage(cardProtections, PropertyCard.class);
+        enrichCardTiers(propertyCardsPage.getContent());
+
+        return propertyCardsPage;
+    }
+
+    @Override
+    public PropertyCardSlice getCardsByCursor(List<UUID> cityIds, List<UUID> districtIds, List<UUID> wardIds,
+                                              List<UUID> propertyTypeIds, UUID ownerId, String ownerName,
+                                              List<Constants.ContributionTierEnum> ownerTier,
+                                              UUID agentId, String agentName, List<Constants.PerformanceTierEnum> agentTier,
+                                              BigDecimal minPrice, BigDecimal maxPrice, BigDecimal minArea, BigDecimal maxArea,
+                                              Integer rooms, Integer bathrooms, Integer bedrooms, Integer floors,
+                                              Constants.OrientationEnum houseOrientation, Constants.OrientationEnum balconyOrientation,
+                                              List<Constants.TransactionTypeEnum> transactionType,
+                                              List<Constants.PropertyStatusEnum> statuses, boolean topK,
+                                              GeoArea geoArea, String cursor, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+
+        // Blank cursor means first page: seek from the largest possible key
+        LocalDateTime cursorCreatedAt = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+        UUID cursorId = new UUID(-1L, -1L);
+        if (cursor != null && !cursor.isBlank()) {
+            String[] key = decodeCursor(cursor);
+            cursorCreatedAt = LocalDateTime.parse(key[0]);
+            cursorId = UUID.fromString(key[1]);
+        }
+
+        CardFilter filter = buildCardFilter(cityIds, districtIds, wardIds, propertyTypeIds,
+                ownerId, ownerName, ownerTier, agentId, agentName, agentTier,
+                minPrice, maxPrice, minArea, maxArea, rooms, bathrooms, bedrooms, floors,
+                houseOrientation, balconyOrientation, transactionType, statuses, topK, geoArea, true);
+
+        // Fetch one extra row to know whether a next page exists without counting
+        List<PropertyCardProtection> cardProtections = propertyCardProjector.isReady()
+                ? propertyCardViewRepository.findCardsAfterCursor(
+                        PageRequest.of(0, limit + 1),
+                        cursorCreatedAt,
+                        cursorId,
+                        null,
+                        filter.south(), filter.north(), filter.west(), filter.east(),
+                        filter.centerLatitude(), filter.centerLongitude(), filter.radiusKm(),
+                        filter.mostSearchedOnly(),
+                        filter.cityIds(),
+                        filter.districtIds(),
+                        filter.wardIds(),
+                        filter.propertyTypeIds(),
+                        filter.ownerId(),
+                        filter.agentId(),
+                        filter.ownerName(),
+                        filter.agentName(),
+                        filter.ownerTiers(),
+                        filter.agentTiers(),
+                        filter.minPrice(),
+                        filter.maxPrice(),
+                        filter.minArea(),
+                        filter.maxArea(),
+                        filter.rooms(),
+                        filter.bathrooms(),
+                        filter.bedrooms(),
+                        filter.floors(),
+                        filter.houseOrientation(),
+                        filter.balconyOrientation(),
+                        filter.transactionTypes(),
+                        filter.statuses()
+                )
+                : propertyRepository.findPropertyCardsAfterCursor(
+                        PageRequest.of(0, limit + 1),
+                        cursorCreatedAt,
+                        cursorId,
+                        null,
+                        filter.south(), filter.north(), filter.west(), filter.east(),
+                        filter.centerLatitude(), filter.centerLongitude(), filter.radiusKm(),
+                        filter.mostSearchedOnly(),
+                        filter.cityIds(),
+                        filter.districtIds(),
+                        filter.wardIds(),
+                        filter.propertyTypeIds(),
+                        filter.ownerId(),
+                        filter.agentId(),
+                        filter.ownerName(),
+                        filter.agentName(),
+                        filter.ownerTiers(),
+                        filter.agentTiers(),
+                        filter.minPrice(),
+                        filter.maxPrice(),
+                        filter.minArea(),
+                        filter.maxArea(),
+                        filter.rooms(),
+                        filter.bathrooms(),
+                        filter.bedrooms(),
+                        filter.floors(),
+                        filter.houseOrientation(),
+                        filter.balconyOrientation(),
+                        filter.transactionTypes(),
+                        filter.statuses()
+                );
+
+        boolean hasNext = cardProtections.size() > limit;
+        List<PropertyCard> cards = propertyMapper.mapToList(
+                hasNext ? cardProtections.subList(0, limit) : cardProtections, PropertyCard.class);
+        enrichCardTiers(cards);
+        if (filter.userId() != null) {
+            markFavorites(cards, filter.userId());
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            PropertyCard last = cards.get(cards.size() - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+
+        return new PropertyCardSlice(cards, nextCursor);
+    }
+
+    @Override
+    public PropertyFacetCounts getCardFacets(List<UUID> cityIds, List<UUID> districtIds, List<UUID> wardIds,
+                                             List<UUID> propertyTypeIds, UUID ownerId, String ownerName,
+                                             List<Constants.ContributionTierEnum> ownerTier,
+                                             UUID agentId, String agentName, List<Constants.PerformanceTierEnum> agentTier,
+                                             BigDecimal minPrice, BigDecimal maxPrice, BigDecimal minArea, BigDecimal maxArea,
+                                             Integer rooms, Integer bathrooms, Integer bedrooms, Integer floors,
+                                             Constants.OrientationEnum houseOrientation, Constants.OrientationEnum balconyOrientation,
+                                             List<Constants.TransactionTypeEnum> transactionType,
+                                             List<Constants.PropertyStatusEnum> statuses, boolean topK,
+                                             GeoArea geoArea, String keyword) {
+        if (!propertyFacetIndex.isReady()) {
+            throw new ServiceNotReadyException("Property facet index is still loading, please retry shortly", INDEX_RETRY_AFTER_SECONDS);
+        }
+
+        // The cards call already tracks this search, so the facets call does not
+        CardFilter filter = buildCardFilter(cityIds, districtIds, wardIds, propertyTypeIds,
+                ownerId, ownerName, ownerTier, agentId, agentName, agentTier,
+                minPrice, maxPrice, minArea, maxArea, rooms, bathrooms, bedrooms, floors,
+                houseOrientation, balconyOrientation, transactionType, statuses, topK, geoArea, false);
+
+        PropertyFacetIndex.FacetCounts counts = propertyFacetIndex.countFacets(
+                toFacetQuery(filter, indexCandidateIds(filter, keyword)));
+
+        return PropertyFacetCounts.builder()
+                .total(counts.total())
+                .cities(toFacetValues(counts.cities()))
+                .districts(toFacetValues(counts.districts()))
+                .propertyTypes(toFacetValues(counts.propertyTypes()))
+                .transactionTypes(toFacetValues(counts.transactionTypes()))
+                .priceRanges(toFacetRanges(counts.priceBuckets()))
+                .areaRanges(toFacetRanges(counts.areaBuckets()))
+                .build();
+    }
+
+    @Override
+    public List<PropertyCluster> getCardClusters(List<UUID> cityIds, List<UUID> districtIds, List<UUID> wardIds,
+                                                 List<UUID> propertyTypeIds, UUID ownerId, String ownerName,
+                                                 List<Constants.ContributionTierEnum> ownerTier,
+                                                 UUID agentId, String agentName, List<Constants.PerformanceTierEnum> agentTier,
+                                                 BigDecimal minPrice, BigDecimal maxPrice, BigDecimal minArea, BigDecimal maxArea,
+                                                 Integer rooms, Integer bathrooms, Integer bedrooms, Integer floors,
+                                                 Constants.OrientationEnum houseOrientation, Constants.OrientationEnum balconyOrientation,
+                                                 List<Constants.TransactionTypeEnum> transactionType,
+                                                 List<Constants.PropertyStatusEnum> statuses, boolean topK,
+                                                 GeoArea geoArea, String keyword, int zoom) {
+        if (geoArea == null || !geoArea.hasBox()) {
+            throw new IllegalArgumentException("Clusters need a viewport: minLatitude, maxLatitude, minLongitude and maxLongitude");
+        }
+        if (zoom < 0 || zoom > PropertyFacetIndex.MAX_CLUSTER_ZOOM) {
+            throw new IllegalArgumentException("Zoom must be between 0 and " + PropertyFacetIndex.MAX_CLUSTER_ZOOM);
+        }
+        if (!propertyFacetIndex.isReady()) {
+            throw new ServiceNotReadyException("Property facet index is still loading, please retry shortly", INDEX_RETRY_AFTER_SECONDS);
+        }
+
+        // Map panning is not a search, it is not tracked
+        CardFilter filter = buildCardFilter(cityIds, districtIds, wardIds, propertyTypeIds,
+                ownerId, ownerName, ownerTier, agentId, agentName, agentTier,
+                minPrice, maxPrice, minArea, maxArea, rooms, bathrooms, bedrooms, floors,
+                houseOrientation, balconyOrientation, transactionType, statuses, topK, geoArea, false);
+
+        return propertyFacetIndex.cluster(toFacetQuery(filter, indexCandidateIds(filter, keyword)), zoom).stream()
+                .map(cluster -> PropertyCluster.builder()
+                        .latitude(cluster.latitude())
+                        .longitude(cluster.longitude())
+                        .count(cluster.count())
+                        .propertyId(cluster.propertyId())
+                        .build())
+                .toList();
+    }
+
+    private CardPageKey toCardPageKey(CardFilter filter, String keywordFilter, Pageable pageable) {
+        return new CardPageKey(
+                CardPageKey.normalize(filter.cityIds()),
+                CardPageKey.normalize(filter.districtIds()),
+                CardPageKey.normalize(filter.wardIds()),
+                CardPageKey.normalize(filter.propertyTypeIds()),
+                filter.ownerId(),
+                filter.agentId(),
+                CardPageKey.normalize(filter.ownerName()),
+                CardPageKey.normalize(filter.agentName()),
+                CardPageKey.normalize(filter.ownerTiers()),
+                CardPageKey.normalize(filter.agentTiers()),
+                CardPageKey.normalize(filter.minPrice()),
+                CardPageKey.normalize(filter.maxPrice()),
+                CardPageKey.normalize(filter.minArea()),
+                CardPageKey.normalize(filter.maxArea()),
+                filter.rooms(),
+                filter.bathrooms(),
+                filter.bedrooms(),
+                filter.floors(),
+                filter.houseOrientation(),
+                filter.balconyOrientation(),
+                CardPageKey.normalize(filter.transactionTypes()),
+                CardPageKey.normalize(filter.statuses()),
+                filter.mostSearchedOnly(),
+                filter.geoArea(),
+                CardPageKey.normalize(keywordFilter),
+                pageable.getPageNumber(),
+                pageable.getPageSize(),
+                pageable.getSort()
+        );
+    }
+
+    // Name, tier and keyword filters are not facets: narrow them in SQL once, the index does the rest
+    private List<UUID> indexCandidateIds(CardFilter filter, String keyword) {
+        List<UUID> candidateIds = mostSearchedIds(filter);
+        if (filter.ownerName() != null || filter.agentName() != null
+                || filter.ownerTiers() != null || filter.agentTiers() != null) {
+            candidateIds = intersectIds(candidateIds, propertyRepository.findPropertyIdsByOwnerAndAgent(
+                    filter.ownerName(), filter.agentName(), filter.ownerTiers(), filter.agentTiers()));
+        }
+        if (keyword != null && !keyword.isBlank()) {
+            candidateIds = intersectIds(candidateIds, propertyRepository.findPropertyIdsByKeyword(keyword.trim()));
+        }
+        return candidateIds;
+    }
+
+    // The facet index has no ranking table to join, it gets the ranking kept in memory
+    private List<UUID> mostSearchedIds(CardFilter filter) {
+        return filter.mostSearchedOnly() ? searchService.getCurrentMostSearchedPropertyIds() : null;
+    }
+
+    // null stands for "no restriction"
+    private List<UUID> intersectIds(List<UUID> current, List<UUID> matched) {
+        if (current == null) {
+            return matched;
+        }
+        Set<UUID> currentIds = new HashSet<>(current);
+        return matched.stream().filter(currentIds::contains).toList();
+    }
+
+    private List<PropertyFacetCounts.FacetValue> toFacetValues(Map<?, Integer> counts) {
+        return counts.entrySet().stream()
+                .sorted((a, b) -> Integer.compare(b.getValue(), a.getValue()))
+                .map(entry -> new PropertyFacetCounts.FacetValue(entry.getKey().toString(), entry.getValue()))
+                .toList();
+    }
+
+    private List<PropertyFacetCounts.FacetRange> toFacetRanges(Map<Integer, Integer> bucketCounts) {
+        return bucketCounts.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> new PropertyFacetCounts.FacetRange(
+                        PropertyFacetIndex.bucketMin(entry.getKey()),
+                        PropertyFacetIndex.bucketMax(entry.getKey()),
+                        entry.getValue()))
+                .toList();
+    }
+
+    private PropertyFacetQuery toFacetQuery(CardFilter filter, List<UUID> propertyIds) {
+        return PropertyFacetQuery.builder()
+                .propertyIds(propertyIds)
+                .cityIds(filter.cityIds())
+                .districtIds(filter.districtIds())
+                .wardIds(filter.wardIds())
+                .propertyTypeIds(filter.propertyTypeIds())
+                .ownerId(filter.ownerId())
+                .agentId(filter.agentId())
+                .transactionTypes(filter.transactionTypeEnums())
+                .statuses(filter.statusEnums())
+                .houseOrientation(filter.houseOrientationEnum())
+                .balconyOrientation(filter.balconyOrientationEnum())
+                .rooms(filter.rooms())
+                .bathrooms(filter.bathrooms())
+                .bedrooms(filter.bedrooms())
+                .floors(filter.floors())
+                .minPrice(filter.minPrice())
+                .maxPrice(filter.maxPrice())
+                .minArea(filter.minArea())
+                .maxArea(filter.maxArea())
+                .geoArea(filter.geoArea())
+                .build();
+    }
+
+    private Page<PropertyCard> getCardsFromFacetIndex(PropertyFacetQuery facetQuery, Pageable pageable) {
+        PropertyFacetIndex.FacetPage facetPage = propertyFacetIndex.search(
+                facetQuery, pageable.getOffset(), pageable.getPageSize());
+        if (facetPage.propertyIds().isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, facetPage.total());
+        }
+
+        // Hydrate only the requested page
+        return new PageImpl<>(findCardsInOrder(facetPage.propertyIds()), pageable, facetPage.total());
+    }
+
+    // Cards of the given properties in the given order, missing ones skipped
+    private List<PropertyCard> findCardsInOrder(List<UUID> propertyIds) {
+        List<PropertyCardProtection> rows = propertyCardProjector.isReady()
+                ? propertyCardViewRepository.findCardsByIds(propertyIds)
+                : propertyRepository.findAllPropertyCardsWithFilter(
+                        Pageable.unpaged(), propertyIds, null, null, null, null, null, null, null, false,
+                        null, null, null, null, null, null, null, null, null, null,
+                        null, null, null, null, null, null, null, null, null, null, null, null
+                ).getContent();
+        Map<UUID, PropertyCardProtection> rowsById = rows.stream()
+                .collect(Collectors.toMap(PropertyCardProtection::id, row -> row));
+        List<PropertyCardProtection> ordered = propertyIds.stream()
+                .map(rowsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        List<PropertyCard> cards = propertyMapper.mapToList(ordered, PropertyCard.class);
+        enrichCardTiers(cards);
+        return cards;
+    }
+
+    private record CardFilter(boolean mostSearchedOnly, List<UUID> cityIds, List<UUID> districtIds, List<UUID> wardIds,
+                              List<UUID> propertyTypeIds, UUID ownerId, UUID agentId, String ownerName, String agentName,
+                              List<String> ownerTiers, List<String> agentTiers,
+                              BigDecimal minPrice, BigDecimal maxPrice, BigDecimal minArea, BigDecimal maxArea,
+                              Integer rooms, Integer bathrooms, Integer bedrooms, Integer floors,
+                              String houseOrientation, String balconyOrientation,
+                              List<String> transactionTypes, List<String> statuses, UUID userId,
+                              List<Constants.TransactionTypeEnum> transactionTypeEnums,
+                              List<Constants.PropertyStatusEnum> statusEnums,
+                              Constants.OrientationEnum houseOrientationEnum,
+                              Constants.OrientationEnum balconyOrientationEnum,
+                              GeoArea geoArea) {
+        // Geographic parameters of the card queries, null without an area
+
+        Double south() {
+            return geoArea != null ? geoArea.south() : null;
+        }
+
+        Double north() {
+            return geoArea != null ? geoArea.north() : null;
+        }
+
+        Double west() {
+            return geoArea != null ? geoArea.west() : null;
+        }
+
+        Double east() {
+            return geoArea != null ? geoArea.east() : null;
+        }
+
+        Double centerLatitude() {
+            return geoArea != null ? geoArea.centerLatitude() : null;
+        }
+
+        Double centerLongitude() {
+            return geoArea != null ? geoArea.centerLongitude() : null;
+        }
+
+        Double radiusKm() {
+            return geoArea != null ? geoArea.radiusKm() : null;
+        }
+    }
+
+    private CardFilter buildCardFilter(List<UUID> cityIds, List<UUID> districtIds, List<UUID> wardIds,
+                                       List<UUID> propertyTypeIds, UUID ownerId, String ownerName,
+                                       List<Constants.ContributionTierEnum> ownerTier,
+                                       UUID agentId, String agentName, List<Constants.PerformanceTierEnum> agentTier,
+                                       BigDecimal minPrice, BigDecimal maxPrice, BigDecimal minArea, BigDecimal maxArea,
+                                       Integer rooms, Integer bathrooms, Integer bedrooms, Integer floors,
+                                       Constants.OrientationEnum houseOrientation, Constants.OrientationEnum balconyOrientation,
+                                       List<Constants.TransactionTypeEnum> transactionType,
+                                       List<Constants.PropertyStatusEnum> statuses, boolean topK,
+                                       GeoArea geoArea, boolean trackSearch) {
+        User currentUser = null;
+        try {
+            currentUser = userService.getUser();
+            if (trackSearch) {
+                searchService.addSearchList(currentUser.getId(), cityIds, districtIds, wardIds, propertyTypeIds);
             }
+        } catch (Exception ignored) {
         }
 
+        List<String> transactionTypeStrings = (transactionType != null && !transactionType.isEmpty())
+                ? transactionType.stream().map(Enum::name).toList()
+                : null;
+
+        // Owner/agent name and tier filters are resolved by the card query itself (tiers via the
+        // denormalized current_tier columns), so the cost no longer depends on the size of the users table
+        String ownerNameFilter = ownerId == null && ownerName != null && !ownerName.isBlank() ? ownerName.trim() : null;
+        String agentNameFilter = agentId == null && agentName != null && !agentName.isBlank() ? agentName.trim() : null;
+
+        List<String> ownerTierStrings = (ownerId == null && ownerTier != null && !ownerTier.isEmpty())
+                ? ownerTier.stream().map(Enum::name).toList()
+                : null;
+        List<String> agentTierStrings = (agentId == null && agentTier != null && !agentTier.isEmpty())
+                ? agentTier.stream().map(Enum::name).toList()
+                : null;
+
         List<String> statusStrings = (statuses != null && !statuses.isEmpty())
                 ? statuses.stream().map(Enum::name).toList()
                 : null;
@@ -187,48 +720,96 @@ public class PropertyServiceImpl implements PropertyService {
         String houseOrientationValue = houseOrientation != null ? houseOrientation.getValue() : null;
         String balconyOrientationValue = balconyOrientation != null ? balconyOrientation.getValue() : null;
 
-        Page<PropertyCardProtection> cardProtections = propertyRepository.findAllPropertyCardsWithFilter(
-                pageable,
-                propertyIds,
-                cityIds,
-                districtIds,
-                wardIds,
-                propertyTypeIds,
-                ownerIds,
-                agentIds,
-                minPrice,
-                maxPrice,
-                minArea,
-                maxArea,
-                rooms,
-                bathrooms,
-                bedrooms,
-                floors,
-                houseOrientationValue,
-                balconyOrientationValue,
-                transactionTypeStrings,
-                statusStrings,
-                currentUser != null ? currentUser.getId() : null
-        );
-
-        Page<PropertyCard> propertyCardsPage = propertyMapper.mapToPage(cardProtections, PropertyCard.class);
+        return new CardFilter(topK, cityIds, districtIds, wardIds, propertyTypeIds,
+                ownerId, agentId, ownerNameFilter, agentNameFilter, ownerTierStrings, agentTierStrings,
+                minPrice, maxPrice, minArea, maxArea, rooms, bathrooms, bedrooms, floors,
+                houseOrientationValue, balconyOrientationValue, transactionTypeStrings, statusStrings,
+                currentUser != null ? currentUser.getId() : null,
+                transactionType, statuses, houseOrientation, balconyOrientation, geoArea);
+    }
 
-        for (PropertyCard propertyCard : propertyCardsPage) {
+    // One tier lookup per role for the whole page
+    private void enrichCardTiers(List<PropertyCard> cards) {
+        Map<UUID, String> ownerTiers = rankingService.getCurrentTiers(
+                cards.stream().map(PropertyCard::getOwnerId).filter(Objects::nonNull).collect(Collectors.toSet()),
+                Constants.RoleEnum.PROPERTY_OWNER
+        );
+        Map<UUID, String> agentTiers = rankingService.getCurrentTiers(
+                cards.stream().map(PropertyCard::getAgentId).filter(Objects::nonNull).collect(Collectors.toSet()),
+                Constants.RoleEnum.SALESAGENT
+        );
+        for (PropertyCard propertyCard : cards) {
             if (propertyCard.getOwnerId() != null) {
-                propertyCard.setOwnerTier(rankingService.getCurrentTier(
-                        propertyCard.getOwnerId(),
-                        Constants.RoleEnum.PROPERTY_OWNER
-                ));
+                propertyCard.setOwnerTier(ownerTiers.get(propertyCard.getOwnerId()));
             }
             if (propertyCard.getAgentId() != null) {
-                propertyCard.setAgentTier(rankingService.getCurrentTier(
-                        propertyCard.getAgentId(),
-                        Constants.RoleEnum.SALESAGENT
-                ));
+                propertyCard.setAgentTier(agentTiers.get(propertyCard.getAgentId()));
             }
         }
+    }
 
-        return propertyCardsPage;
+    // One $in lookup against the customer's favorites for the whole page
+    private void markFavorites(List<PropertyCard> cards, UUID customerId) {
+        if (cards.isEmpty()) {
+            return;
+        }
+        Set<UUID> favoriteIds = customerFavoritePropertyRepository.findRefIdsByCustomerIdAndRefIdIn(
+                        customerId, cards.stream().map(PropertyCard::getId).toList())
+                .stream()
+                .map(CustomerFavoriteProperty::getRefId)
+                .collect(Collectors.toSet());
+        for (PropertyCard card : cards) {
+            card.setFavorite(favoriteIds.contains(card.getId()));
+        }
+    }
+
+    private String encodeCursor(LocalDateTime createdAt, UUID id) {
+        String key = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = key.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            // Validate both parts up front so a tampered cursor is a 400, not a query error
+            LocalDateTime.parse(parts[0]);
+            UUID.fromString(parts[1]);
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    @Override
+    public List<PropertyCard> getTrendingCards(Constants.TrendingWindowEnum window, UUID cityId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+        List<UUID> trendingIds = searchService.getTrendingPropertyIds(window, cityId, limit);
+        if (trendingIds.isEmpty()) {
+            return List.of();
+        }
+        return findCardsInOrder(trendingIds);
+    }
+
+    @Override
+    public List<PropertyCard> getSimilarCards(UUID propertyId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+        if (!similarPropertyIndex.isReady()) {
+            throw new ServiceNotReadyException("Similar property index is still loading, please retry shortly", INDEX_RETRY_AFTER_SECONDS);
+        }
+        // The neighbours come from memory, only their cards are read
+        List<UUID> similarIds = similarPropertyIndex.findSimilar(propertyId, limit);
+        if (similarIds.isEmpty()) {
+            return List.of();
+        }
+        return findCardsInOrder(similarIds);
     }
 
     @Override
@@ -238,21 +819,55 @@ public class PropertyServiceImpl implements PropertyService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    public ContentVersion getPropertyDetailsVersion(UUID propertyId) {
+        return propertyRepository.findPropertyVersionById(propertyId)
+                .map(version -> ContentVersion.of(
+                        ContentVersion.latest(version.updatedAt(), version.mediaUpdatedAt(), version.documentUpdatedAt(),
+                                version.ownerUpdatedAt(), version.agentUpdatedAt()),
+                        propertyId, version))
+                .orElse(null);
+    }
+
+    @Override
+    public ContentVersion getPropertyTypesVersion() {
+        TableVersionProjection version = propertyTypeRepository.findTableVersion();
+        return ContentVersion.of(version.lastUpdatedAt(), version);
+    }
+
+    @Override
     public PropertyDetails getPropertyDetailsById(UUID propertyId) {
+        // No surrounding transaction: a cache hit should not hold a connection
+        PropertyDetails details = propertyDetailsCache.get(propertyId, this::loadPropertyDetails);
+
+        // The live view count goes on a copy, the cached details stay shared
+        Integer storedViews = propertyRepository.findViewCountById(propertyId);
+        long views = (storedViews != null ? storedViews : 0) + propertyViewCounter.pendingViews(propertyId);
+        return details.toBuilder()
+                .viewCount((int) Math.min(views, Integer.MAX_VALUE))
+                .build();
+    }
+
+    @Override
+    public void recordPropertyView(UUID propertyId) {
+        propertyViewCounter.record(propertyId);
+    }
+
+    private PropertyDetails loadPropertyDetails(UUID propertyId) {
+        // Media and documents are fetched alongside the property rather than after it
+        CompletableFuture<List<MediaProjection>> mediaFuture = CompletableFuture.supplyAsync(
+                () -> propertyRepository.findMediaByPropertyId(propertyId), propertyDetailsExecutor);
+        CompletableFuture<List<DocumentProjection>> documentsFuture = CompletableFuture.supplyAsync(
+                () -> propertyRepository.findDocumentsByPropertyId(propertyId), propertyDetailsExecutor);
+
         PropertyDetailsProjection projection = propertyRepository.findPropertyDetailsById(propertyId);
         if (projection == null) {
             throw new RuntimeException("Property not found with id: " + propertyId);
         }
 
-        // Get media list
-        List<MediaProjection> mediaProjections = propertyRepository.findMediaByPropertyId(propertyId);
-
-        // Get document list
-        List<DocumentProjection> documentProjections = propertyRepository.findDocumentsByPropertyId(propertyId);
-
         // Use mapper to convert projection to DTO
-        PropertyDetails propertyDetails = propertyMapper.toPropertyDetails(projection, mediaProjections, documentProjections);
+        PropertyDetails propertyDetails = propertyMapper.toPropertyDetails(projection, mediaFuture.join(), documentsFuture.join());
+        // Overlaid on every response instead, a cached count would be stale after the next flush
+        propertyDetails.setViewCount(null);
 
         // Set tier for owner
         if (propertyDetails.getOwner() != null && propertyDetails.getOwner().getId() != null) {
@@ -331,9 +946,12 @@ public class PropertyServiceImpl implements PropertyService {
         ensureMediaCollection(property);
         Property persisted = propertyRepository.save(property);
 
-        addMediaFiles(persisted, mediaFiles);
+        // Images upload after commit, the listing is saved without waiting on them
+        List<MediaUploadStatusResponse> mediaUploads = mediaUploadPipeline.enqueue(
+                MediaUploadPipeline.Target.PROPERTY, persisted.getId(), mediaFiles);
 
         Property saved = propertyRepository.save(persisted);
+        eventPublisher.publishEvent(new PropertyChangedEvent(saved.getId()));
         if (isAdmin) {
             log.info("Admin created property {} for owner {}", saved.getId(), owner.getId());
         } else {
@@ -345,7 +963,9 @@ public class PropertyServiceImpl implements PropertyService {
                 rankingService.propertyOwnerAction(owner.getId(), Constants.PropertyOwnerActionEnum.PROPERTY_FOR_RENT_LISTED, null);
             }
         }
-        return propertyMapper.mapTo(saved, PropertyDetails.class);
+        PropertyDetails details = propertyMapper.mapTo(saved, PropertyDetails.class);
+        details.setMediaUploads(mediaUploads);
+        return details;
     }
 
     @Override
@@ -391,10 +1011,25 @@ public class PropertyServiceImpl implements PropertyService {
         //! WARN: this code is trash. this 100% will cause a bug related to media management or when admin refuses to approve
         ensureMediaCollection(property);
         removeMediaFiles(property, request.getMediaIdsToRemove());
-        addMediaFiles(property, mediaFiles);
+        List<MediaUploadStatusResponse> mediaUploads = mediaUploadPipeline.enqueue(
+                MediaUploadPipeline.Target.PROPERTY, property.getId(), mediaFiles);
 
         Property saved = propertyRepository.save(property);
-        return propertyMapper.mapTo(saved, PropertyDetails.class);
+        eventPublisher.publishEvent(new PropertyChangedEvent(saved.getId()));
+        PropertyDetails details = propertyMapper.mapTo(saved, PropertyDetails.class);
+        details.setMediaUploads(mediaUploads);
+        return details;
+    }
+
+    @Override
+    public List<MediaUploadStatusResponse> getMediaUploads(UUID propertyId) {
+        User currentUser = userService.getUser();
+        Property property = propertyRepository.findById(propertyId)
+                .orElseThrow(() -> new NotFoundException("Property not found with id: " + propertyId));
+        if (!isAdmin(currentUser) && !property.getOwner().getId().equals(currentUser.getId())) {
+            throw new AccessDeniedException("You do not have permission to view this property's uploads");
+        }
+        return mediaUploadPipeline.getStatuses(propertyId);
     }
 
     @Override
@@ -431,6 +1066,7 @@ public class PropertyServiceImpl implements PropertyService {
 
         property.setStatus(targetStatus);
         Property saved = propertyRepository.save(property);
+        eventPublisher.publishEvent(new PropertyChangedEvent(saved.getId()));
         log.info("Owner {} updated property {} status to {}", currentUser.getId(), saved.getId(), targetStatus);
 
         // Track property status change action for ranking
@@ -497,6 +1133,7 @@ public class PropertyServiceImpl implements PropertyService {
 
         property.setStatus(targetStatus);
         Property saved = propertyRepository.save(property);
+        eventPublisher.publishEvent(new PropertyChangedEvent(saved.getId()));
         log.info("Admin updated property {} status to {}", saved.getId(), targetStatus);
         return propertyMapper.mapTo(saved, PropertyDetails.class);
     }
@@ -515,6 +1152,7 @@ public class PropertyServiceImpl implements PropertyService {
         property.setApprovedAt(null);
         property.setAssignedAgent(null);
         propertyRepository.save(property);
+        eventPublisher.publishEvent(new PropertyChangedEvent(propertyId));
         log.info("Soft deleted property {}", propertyId);
     }
 
@@ -525,6 +1163,7 @@ public class PropertyServiceImpl implements PropertyService {
         Property assignedProperty = propertyRepository.findById(propertyId)
                 .orElseThrow(() -> new NotFoundException("Property not found with id: " + propertyId));
         assignedProperty.setAssignedAgent(salesAgent);
+        eventPublisher.publishEvent(new PropertyChangedEvent(propertyId));
     }
 
     @Override
@@ -533,7 +1172,7 @@ public class PropertyServiceImpl implements PropertyService {
         // Upload avatar if provided
         String avatarUrl = null;
         if (request.getAvatar() != null) {
-            avatarUrl = cloudinaryService.uploadFile(request.getAvatar(), "property-types");
+            avatarUrl = fileStorageService.uploadFile(request.getAvatar(), "property-types");
         }
 
         // Create new PropertyType
@@ -559,12 +1198,12 @@ public class PropertyServiceImpl implements PropertyService {
         // Upload new avatar if provided
         String newAvatarUrl = null;
         if (request.getAvatar() != null) {
-            newAvatarUrl = cloudinaryService.uploadFile(request.getAvatar(), "property-types");
+            newAvatarUrl = fileStorageService.uploadFile(request.getAvatar(), "property-types");
 
             // Delete old avatar if exists
             if (propertyType.getAvatarUrl() != null) {
                 try {
-                    cloudinaryService.deleteFile(propertyType.getAvatarUrl());
+                    fileStorageService.deleteFile(propertyType.getAvatarUrl());
                 } catch (IOException e) {
                     log.error("Failed to delete old avatar from Cloudinary: {}", e.getMessage());
                 }
@@ -600,7 +1239,7 @@ public class PropertyServiceImpl implements PropertyService {
         // Delete avatar from Cloudinary if exists
         if (propertyType.getAvatarUrl() != null) {
             try {
-                cloudinaryService.deleteFile(propertyType.getAvatarUrl());
+                fileStorageService.deleteFile(propertyType.getAvatarUrl());
             } catch (IOException e) {
                 log.error("Failed to delete avatar from Cloudinary: {}", e.getMessage());
                 throw e; // rethrow to fail request
@@ -628,6 +1267,7 @@ public class PropertyServiceImpl implements PropertyService {
             if (property.getAssignedAgent() != null) {
                 property.setAssignedAgent(null);
                 propertyRepository.save(property);
+                eventPublisher.publishEvent(new PropertyChangedEvent(propertyId));
                 log.info("Removed agent from property: {}", propertyId);
                 return true;
             }
@@ -648,6 +1288,7 @@ public class PropertyServiceImpl implements PropertyService {
 
         property.setAssignedAgent(agentUser.getSaleAgent());
         propertyRepository.save(property);
+        eventPublisher.publishEvent(new PropertyChangedEvent(propertyId));
         log.info("Assigned agent {} to property: {}", agentId, propertyId);
 
         // Track property assignment action for agent ranking
@@ -679,18 +1320,20 @@ public class PropertyServiceImpl implements PropertyService {
         Page<SimplePropertyCard> propertyCards = propertyMapper.mapToPage(properties, SimplePropertyCard.class);
 
         // Enrich with owner and agent tiers
+        Map<UUID, String> ownerTiers = rankingService.getCurrentTiers(
+                propertyCards.stream().map(SimplePropertyCard::getOwnerId).filter(Objects::nonNull).collect(Collectors.toSet()),
+                Constants.RoleEnum.PROPERTY_OWNER
+        );
+        Map<UUID, String> agentTiers = rankingService.getCurrentTiers(
+                propertyCards.stream().map(SimplePropertyCard::getAgentId).filter(Objects::nonNull).collect(Collectors.toSet()),
+                Constants.RoleEnum.SALESAGENT
+        );
         propertyCards.forEach(card -> {
             if (card.getOwnerId() != null) {
-                card.setOwnerTier(rankingService.getCurrentTier(
-                        card.getOwnerId(),
-                        Constants.RoleEnum.PROPERTY_OWNER
-                ));
+                card.setOwnerTier(ownerTiers.get(card.getOwnerId()));
             }
             if (card.getAgentId() != null) {
-                card.setAgentTier(rankingService.getCurrentTier(
-                        card.getAgentId(),
-                        Constants.RoleEnum.SALESAGENT
-                ));
+                card.setAgentTier(agentTiers.get(card.getAgentId()));
             }
         });
 
@@ -758,6 +1401,8 @@ public class PropertyServiceImpl implements PropertyService {
         property.setDescription(request.getDescription());
         property.setTransactionType(request.getTransactionType());
         property.setFullAddress(request.getFullAddress());
+        property.setLatitude(request.getLatitude());
+        property.setLongitude(request.getLongitude());
         property.setArea(request.getArea());
         property.setRooms(request.getRooms());
         property.setBathrooms(request.getBathrooms());
@@ -781,32 +1426,6 @@ public class PropertyServiceImpl implements PropertyService {
         return priceAmount.multiply(commissionRate).setScale(2, RoundingMode.HALF_UP);
     }
 
-    private void addMediaFiles(Property property, MultipartFile[] mediaFiles) {
-        if (mediaFiles == null) {
-            return;
-        }
-
-        for (MultipartFile mediaFile : mediaFiles) {
-            if (mediaFile == null || mediaFile.isEmpty()) {
-                continue;
-            }
-            try {
-                String fileUrl = cloudinaryService.uploadFile(mediaFile, buildMediaFolderPath(property.getId()));
-                String mimeType = mediaFile.getContentType() != null ? mediaFile.getContentType() : "application/octet-stream";
-                Media media = Media.builder()
-                        .property(property)
-                        .mediaType(Constants.MediaTypeEnum.IMAGE)
-                        .fileName(mediaFile.getOriginalFilename() != null ? mediaFile.getOriginalFilename() : mediaFile.getName())
-                        .filePath(fileUrl)
-                        .mimeType(mimeType)
-                        .build();
-                property.getMediaList().add(media);
-            } catch (IOException e) {
-                throw new IllegalStateException("Failed to upload property media", e);
-            }
-        }
-    }
-
     private void removeMediaFiles(Property property, List<UUID> mediaIds) {
         if (mediaIds == null || mediaIds.isEmpty() || property.getMediaList().isEmpty()) {
             return;
@@ -817,7 +1436,7 @@ public class PropertyServiceImpl implements PropertyService {
             Media media = iterator.next();
             if (mediaIds.contains(media.getId())) {
                 try {
-                    cloudinaryService.deleteFile(media.getFilePath());
+                    fileStorageService.deleteFile(media.getFilePath());
                 } catch (IOException e) {
                     throw new IllegalStateException("Failed to delete property media", e);
                 }
@@ -832,10 +1451,6 @@ public class PropertyServiceImpl implements PropertyService {
         }
     }
 
-    private String buildMediaFolderPath(UUID propertyId) {
-        return "properties/" + propertyId;
-    }
-
     private boolean isAdmin(User user) {
         return user != null && user.getRole() == Constants.RoleEnum.ADMIN;
     }
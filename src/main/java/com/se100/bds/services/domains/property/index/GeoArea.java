@@ -0,0 +1,132 @@
+package com.se100.bds.services.domains.property.index;
+
+/**
+ * Geographic restriction of a property search: a bounding box (typically the map viewport), a circle around a
+ * point, or both at once. Longitudes do not wrap around the antimeridian.
+ */
+public record GeoArea(Double minLatitude, Double maxLatitude, Double minLongitude, Double maxLongitude,
+                      Double centerLatitude, Double centerLongitude, Double radiusKm) {
+    public static final double MAX_RADIUS_KM = 500;
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = 111.32;
+
+    /**
+     * Validates the raw request parameters, null when none of them is given.
+     */
+    public static GeoArea of(Double minLatitude, Double maxLatitude, Double minLongitude, Double maxLongitude,
+                             Double centerLatitude, Double centerLongitude, Double radiusKm) {
+        boolean anyBox = minLatitude != null || maxLatitude != null || minLongitude != null || maxLongitude != null;
+        boolean anyCircle = centerLatitude != null || centerLongitude != null || radiusKm != null;
+        if (!anyBox && !anyCircle) {
+            return null;
+        }
+
+        if (anyBox) {
+            if (minLatitude == null || maxLatitude == null || minLongitude == null || maxLongitude == null) {
+                throw new IllegalArgumentException("minLatitude, maxLatitude, minLongitude and maxLongitude must be given together");
+            }
+            checkLatitude(minLatitude);
+            checkLatitude(maxLatitude);
+            checkLongitude(minLongitude);
+            checkLongitude(maxLongitude);
+            if (minLatitude > maxLatitude || minLongitude > maxLongitude) {
+                throw new IllegalArgumentException("Bounding box minimums must not exceed its maximums");
+            }
+        }
+        if (anyCircle) {
+            if (centerLatitude == null || centerLongitude == null || radiusKm == null) {
+                throw new IllegalArgumentException("centerLatitude, centerLongitude and radiusKm must be given together");
+            }
+            checkLatitude(centerLatitude);
+            checkLongitude(centerLongitude);
+            if (radiusKm <= 0 || radiusKm > MAX_RADIUS_KM) {
+                throw new IllegalArgumentException("radiusKm must be greater than 0 and at most " + MAX_RADIUS_KM);
+            }
+        }
+        return new GeoArea(minLatitude, maxLatitude, minLongitude, maxLongitude, centerLatitude, centerLongitude, radiusKm);
+    }
+
+    public boolean hasBox() {
+        return minLatitude != null;
+    }
+
+    public boolean hasCircle() {
+        return radiusKm != null;
+    }
+
+    // Effective bounding box: the given box clipped to the bounding box of the circle.
+    // south > north or west > east means the two do not overlap
+
+    public double south() {
+        double south = hasBox() ? minLatitude : -90;
+        return hasCircle() ? Math.max(south, Math.max(-90, centerLatitude - radiusKm / KM_PER_DEGREE)) : south;
+    }
+
+    public double north() {
+        double north = hasBox() ? maxLatitude : 90;
+        return hasCircle() ? Math.min(north, Math.min(90, centerLatitude + radiusKm / KM_PER_DEGREE)) : north;
+    }
+
+    public double west() {
+        double west = hasBox() ? minLongitude : -180;
+        return hasCircle() ? Math.max(west, Math.max(-180, centerLongitude - longitudeDelta())) : west;
+    }
+
+    public double east() {
+        double east = hasBox() ? maxLongitude : 180;
+        return hasCircle() ? Math.min(east, Math.min(180, centerLongitude + longitudeDelta())) : east;
+    }
+
+    public boolean contains(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            return false;
+        }
+        if (latitude < south() || latitude > north() || longitude < west() || longitude > east()) {
+            return false;
+        }
+        return !hasCircle() || distanceKm(centerLatitude, centerLongitude, latitude, longitude) <= radiusKm;
+    }
+
+    /**
+     * Whether the whole rectangle lies inside the area, so its points need no individual check.
+     * The farthest point of such a small rectangle from the center is one of its corners.
+     */
+    public boolean covers(double south, double north, double west, double east) {
+        if (south < south() || north > north() || west < west() || east > east()) {
+            return false;
+        }
+        return !hasCircle()
+                || distanceKm(centerLatitude, centerLongitude, south, west) <= radiusKm
+                && distanceKm(centerLatitude, centerLongitude, south, east) <= radiusKm
+                && distanceKm(centerLatitude, centerLongitude, north, west) <= radiusKm
+                && distanceKm(centerLatitude, centerLongitude, north, east) <= radiusKm;
+    }
+
+    // Haversine great-circle distance
+    public static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private double longitudeDelta() {
+        // Meridians converge towards the poles, keep the delta finite there
+        double cos = Math.max(Math.cos(Math.toRadians(centerLatitude)), 0.01);
+        return radiusKm / (KM_PER_DEGREE * cos);
+    }
+
+    private static void checkLatitude(double latitude) {
+        if (latitude < -90 || latitude > 90) {
+            throw new IllegalArgumentException("Latitude must be between -90 and 90");
+        }
+    }
+
+    private static void checkLongitude(double longitude) {
+        if (longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Longitude must be between -180 and 180");
+        }
+    }
+}
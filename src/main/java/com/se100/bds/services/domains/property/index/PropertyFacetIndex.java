@@ -0,0 +1,561 @@
+package com.se100.bds.services.domains.property.index;
+
+import com.se100.bds.repositories.domains.property.PropertyRepository;
+import com.se100.bds.repositories.dtos.PropertyFacetProjection;
+import com.se100.bds.services.domains.property.event.PropertyChangedEvent;
+import com.se100.bds.services.domains.property.event.PropertyRebuildTracker;
+import com.se100.bds.utils.Constants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * In-memory bitmap index over the facet columns of every property.
+ * <p>
+ * Each property gets a dense ordinal (assigned oldest first, so a higher ordinal means a newer listing) and every
+ * facet value keeps a compressed bitmap of the ordinals having it. A search is a handful of bitmap unions and
+ * intersections, the database is only hit afterwards to hydrate the requested page.
+ * Price and area are range-encoded into 1-2-5 buckets (..., 1, 2, 5, 10, 20, 50, ...), whose bounds make readable
+ * facet ranges; only the two boundary buckets are checked row by row.
+ * Coordinates go into a fixed grid of {@value #GEO_CELL_DEG} degree cells, only the cells crossing the edge of a
+ * searched area are checked row by row.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PropertyFacetIndex {
+    // About 1.1 km at the equator
+    private static final double GEO_CELL_DEG = 0.01;
+    // Clusters per map tile side, a 256px tile then gets markers about 64px apart
+    private static final int CLUSTER_CELLS_PER_TILE = 4;
+    public static final int MAX_CLUSTER_ZOOM = 22;
+    // Bucket bounds per power of ten, the steps people round prices and areas to
+    private static final int[] BUCKET_STEPS = {1, 2, 5};
+    private static final BigDecimal HUNDREDTH = new BigDecimal("0.01");
+
+    private final PropertyRepository propertyRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final PropertyRebuildTracker rebuildTracker = new PropertyRebuildTracker();
+    private volatile boolean ready = false;
+
+    private final Map<UUID, Integer> ordinals = new HashMap<>();
+    private final List<PropertyFacetProjection> rows = new ArrayList<>();
+    private final RoaringBitmap live = new RoaringBitmap();
+
+    private final Map<UUID, RoaringBitmap> byCity = new HashMap<>();
+    private final Map<UUID, RoaringBitmap> byDistrict = new HashMap<>();
+    private final Map<UUID, RoaringBitmap> byWard = new HashMap<>();
+    private final Map<UUID, RoaringBitmap> byPropertyType = new HashMap<>();
+    private final Map<UUID, RoaringBitmap> byOwner = new HashMap<>();
+    private final Map<UUID, RoaringBitmap> byAgent = new HashMap<>();
+    private final Map<Constants.TransactionTypeEnum, RoaringBitmap> byTransactionType = new HashMap<>();
+    private final Map<Constants.PropertyStatusEnum, RoaringBitmap> byStatus = new HashMap<>();
+    private final Map<Constants.OrientationEnum, RoaringBitmap> byHouseOrientation = new HashMap<>();
+    private final Map<Constants.OrientationEnum, RoaringBitmap> byBalconyOrientation = new HashMap<>();
+    private final Map<Integer, RoaringBitmap> byRooms = new HashMap<>();
+    private final Map<Integer, RoaringBitmap> byBathrooms = new HashMap<>();
+    private final Map<Integer, RoaringBitmap> byBedrooms = new HashMap<>();
+    private final Map<Integer, RoaringBitmap> byFloors = new HashMap<>();
+    private final Map<Integer, RoaringBitmap> byPriceBucket = new HashMap<>();
+    private final Map<Integer, RoaringBitmap> byAreaBucket = new HashMap<>();
+    // Key: latitude cell in the high 32 bits, longitude cell in the low ones
+    private final Map<Long, RoaringBitmap> byGeoCell = new HashMap<>();
+    private final List<Map<?, RoaringBitmap>> facets = List.of(
+            byCity, byDistrict, byWard, byPropertyType, byOwner, byAgent,
+            byTransactionType, byStatus, byHouseOrientation, byBalconyOrientation,
+            byRooms, byBathrooms, byBedrooms, byFloors, byPriceBucket, byAreaBucket, byGeoCell
+    );
+
+    public record FacetPage(List<UUID> propertyIds, long total) {}
+
+    public record FacetCounts(int total,
+                              Map<UUID, Integer> cities,
+                              Map<UUID, Integer> districts,
+                              Map<UUID, Integer> propertyTypes,
+                              Map<Constants.TransactionTypeEnum, Integer> transactionTypes,
+                              Map<Integer, Integer> priceBuckets,
+                              Map<Integer, Integer> areaBuckets) {}
+
+    public record GeoCluster(double latitude, double longitude, int count, UUID propertyId) {}
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // Full rebuild every night as a safety net for writes that bypass PropertyChangedEvent
+    @Scheduled(cron = "0 30 0 * * ?")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        rebuildTracker.begin();
+        int size;
+        try {
+            List<PropertyFacetProjection> allRows = propertyRepository.findAllFacetRows();
+
+            lock.writeLock().lock();
+            try {
+                clear();
+                for (PropertyFacetProjection row : allRows) {
+                    upsert(row);
+                }
+                runOptimize();
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            size = allRows.size();
+        } finally {
+            replay(rebuildTracker.finish());
+        }
+        log.info("Property facet index built with {} properties in {} ms", size, System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        // Replayed once the running rebuild has swapped its rows in
+        if (rebuildTracker.deferIfRebuilding(event.propertyId()) || !ready) {
+            return;
+        }
+        apply(event.propertyId());
+    }
+
+    private void replay(Set<UUID> propertyIds) {
+        if (!ready || propertyIds.isEmpty()) {
+            return;
+        }
+        for (UUID propertyId : propertyIds) {
+            try {
+                apply(propertyId);
+            } catch (RuntimeException e) {
+                log.warn("Property facet index - replaying {} failed: {}", propertyId, e.getMessage());
+            }
+        }
+        log.debug("Property facet index - replayed {} changes made during the rebuild", propertyIds.size());
+    }
+
+    private void apply(UUID propertyId) {
+        PropertyFacetProjection row = propertyRepository.findFacetRowById(propertyId).orElse(null);
+
+        lock.writeLock().lock();
+        try {
+            if (row == null) {
+                remove(propertyId);
+            } else {
+                upsert(row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public FacetPage search(PropertyFacetQuery query, long offset, int size) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = match(query);
+            int total = matches.getCardinality();
+
+            // Newest first: the k-th result is the (total - 1 - k)-th smallest ordinal
+            List<UUID> pageIds = new ArrayList<>(size);
+            for (long k = offset; k < total && pageIds.size() < size; k++) {
+                int ordinal = matches.select((int) (total - 1 - k));
+                pageIds.add(rows.get(ordinal).id());
+            }
+            return new FacetPage(pageIds, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts of every facet value within the matches of the query, in a single pass over the facet bitmaps.
+     * Values without matches are left out.
+     */
+    public FacetCounts countFacets(PropertyFacetQuery query) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = match(query);
+            return new FacetCounts(
+                    matches.getCardinality(),
+                    countWithin(matches, byCity),
+                    countWithin(matches, byDistrict),
+                    countWithin(matches, byPropertyType),
+                    countWithin(matches, byTransactionType),
+                    countWithin(matches, byPriceBucket),
+                    countWithin(matches, byAreaBucket)
+            );
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Matches of the query grouped into grid cells sized for the given map zoom level. Each cluster is placed at
+     * the centroid of its properties; properties without coordinates are left out.
+     */
+    public List<GeoCluster> cluster(PropertyFacetQuery query, int zoom) {
+        double cellDeg = 360.0 / (1L << zoom) / CLUSTER_CELLS_PER_TILE;
+
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = match(query);
+            Map<Long, ClusterSum> sums = new HashMap<>();
+            IntIterator iterator = matches.getIntIterator();
+            while (iterator.hasNext()) {
+                int ordinal = iterator.next();
+                PropertyFacetProjection row = rows.get(ordinal);
+                if (row.latitude() == null || row.longitude() == null) continue;
+
+                long cell = cellKey((int) Math.floor((row.latitude() + 90) / cellDeg),
+                        (int) Math.floor((row.longitude() + 180) / cellDeg));
+                sums.computeIfAbsent(cell, key -> new ClusterSum(ordinal)).add(row);
+            }
+
+            List<GeoCluster> clusters = new ArrayList<>(sums.size());
+            for (ClusterSum sum : sums.values()) {
+                clusters.add(new GeoCluster(sum.latitude / sum.count, sum.longitude / sum.count, sum.count,
+                        sum.count == 1 ? rows.get(sum.firstOrdinal).id() : null));
+            }
+            return clusters;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Current rows of the given properties, unknown and removed ones are left out
+    public Map<UUID, PropertyFacetProjection> findRows(Collection<UUID> propertyIds) {
+        lock.readLock().lock();
+        try {
+            Map<UUID, PropertyFacetProjection> found = new HashMap<>();
+            for (UUID propertyId : propertyIds) {
+                Integer ordinal = ordinals.get(propertyId);
+                if (ordinal != null && live.contains(ordinal)) {
+                    found.put(propertyId, rows.get(ordinal));
+                }
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static final class ClusterSum {
+        private final int firstOrdinal;
+        private double latitude;
+        private double longitude;
+        private int count;
+
+        private ClusterSum(int firstOrdinal) {
+            this.firstOrdinal = firstOrdinal;
+        }
+
+        private void add(PropertyFacetProjection row) {
+            latitude += row.latitude();
+            longitude += row.longitude();
+            count++;
+        }
+    }
+
+    // Smallest value falling into the bucket
+    public static BigDecimal bucketMin(int bucket) {
+        if (bucket == 0) return BigDecimal.ZERO.setScale(2);
+        int step = (bucket - 1) % BUCKET_STEPS.length;
+        return BigDecimal.valueOf(BUCKET_STEPS[step]).scaleByPowerOfTen((bucket - 1) / BUCKET_STEPS.length).setScale(2);
+    }
+
+    // Largest value falling into the bucket (prices and areas have scale 2)
+    public static BigDecimal bucketMax(int bucket) {
+        return bucketMin(bucket + 1).subtract(HUNDREDTH);
+    }
+
+    private <K> Map<K, Integer> countWithin(RoaringBitmap matches, Map<K, RoaringBitmap> facet) {
+        Map<K, Integer> counts = new HashMap<>();
+        facet.forEach((key, bitmap) -> {
+            int count = RoaringBitmap.andCardinality(matches, bitmap);
+            if (count > 0) counts.put(key, count);
+        });
+        return counts;
+    }
+
+    // Callers must hold the read lock
+    private RoaringBitmap match(PropertyFacetQuery query) {
+        RoaringBitmap result = live.clone();
+
+        if (query.getPropertyIds() != null) {
+            RoaringBitmap selected = new RoaringBitmap();
+            for (UUID propertyId : query.getPropertyIds()) {
+                Integer ordinal = ordinals.get(propertyId);
+                if (ordinal != null) selected.add(ordinal);
+            }
+            result.and(selected);
+        }
+
+        andAny(result, byCity, query.getCityIds());
+        andAny(result, byDistrict, query.getDistrictIds());
+        andAny(result, byWard, query.getWardIds());
+        andAny(result, byPropertyType, query.getPropertyTypeIds());
+        andOne(result, byOwner, query.getOwnerId());
+        andOne(result, byAgent, query.getAgentId());
+        andAny(result, byTransactionType, query.getTransactionTypes());
+        andAny(result, byStatus, query.getStatuses());
+        andOne(result, byHouseOrientation, query.getHouseOrientation());
+        andOne(result, byBalconyOrientation, query.getBalconyOrientation());
+        andOne(result, byRooms, query.getRooms());
+        andOne(result, byBathrooms, query.getBathrooms());
+        andOne(result, byBedrooms, query.getBedrooms());
+        andOne(result, byFloors, query.getFloors());
+
+        if (query.getMinPrice() != null || query.getMaxPrice() != null) {
+            andRange(result, byPriceBucket, query.getMinPrice(), query.getMaxPrice(), PropertyFacetProjection::priceAmount);
+        }
+        if (query.getMinArea() != null || query.getMaxArea() != null) {
+            andRange(result, byAreaBucket, query.getMinArea(), query.getMaxArea(), PropertyFacetProjection::area);
+        }
+        if (query.getGeoArea() != null) {
+            andGeo(result, query.getGeoArea());
+        }
+        return result;
+    }
+
+    private <K> void andAny(RoaringBitmap result, Map<K, RoaringBitmap> facet, Collection<K> keys) {
+        if (keys == null || keys.isEmpty()) return;
+        RoaringBitmap union = new RoaringBitmap();
+        for (K key : keys) {
+            RoaringBitmap bitmap = facet.get(key);
+            if (bitmap != null) union.or(bitmap);
+        }
+        result.and(union);
+    }
+
+    private <K> void andOne(RoaringBitmap result, Map<K, RoaringBitmap> facet, K key) {
+        if (key == null) return;
+        RoaringBitmap bitmap = facet.get(key);
+        if (bitmap == null) {
+            result.clear();
+        } else {
+            result.and(bitmap);
+        }
+    }
+
+    private void andRange(RoaringBitmap result, Map<Integer, RoaringBitmap> buckets, BigDecimal min, BigDecimal max,
+                          Function<PropertyFacetProjection, BigDecimal> value) {
+        int minBucket = min != null ? bucketOf(min) : 0;
+        int maxBucket = max != null ? bucketOf(max) : Integer.MAX_VALUE;
+
+        RoaringBitmap inner = new RoaringBitmap();
+        RoaringBitmap boundary = new RoaringBitmap();
+        buckets.forEach((bucket, bitmap) -> {
+            if (bucket < minBucket || bucket > maxBucket) return;
+            if (bucket == minBucket || bucket == maxBucket) {
+                boundary.or(bitmap);
+            } else {
+                inner.or(bitmap);
+            }
+        });
+
+        // Boundary buckets hold values on both sides of the limit, check them against the stored value
+        boundary.and(result);
+        IntIterator iterator = boundary.getIntIterator();
+        while (iterator.hasNext()) {
+            int ordinal = iterator.next();
+            BigDecimal v = value.apply(rows.get(ordinal));
+            if (v != null && (min == null || v.compareTo(min) >= 0) && (max == null || v.compareTo(max) <= 0)) {
+                inner.add(ordinal);
+            }
+        }
+        result.and(inner);
+    }
+
+    private void andGeo(RoaringBitmap result, GeoArea area) {
+        RoaringBitmap inner = new RoaringBitmap();
+        RoaringBitmap boundary = new RoaringBitmap();
+
+        if (area.south() <= area.north() && area.west() <= area.east()) {
+            int minLatCell = latCellOf(area.south());
+            int maxLatCell = latCellOf(area.north());
+            int minLngCell = lngCellOf(area.west());
+            int maxLngCell = lngCellOf(area.east());
+
+            // Walk the cells of the area, or the occupied cells when the area is the larger of the two
+            long areaCells = (long) (maxLatCell - minLatCell + 1) * (maxLngCell - minLngCell + 1);
+            if (areaCells <= byGeoCell.size()) {
+                for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+                    for (int lngCell = minLngCell; lngCell <= maxLngCell; lngCell++) {
+                        RoaringBitmap bitmap = byGeoCell.get(cellKey(latCell, lngCell));
+                        if (bitmap != null) classifyCell(area, latCell, lngCell, bitmap, inner, boundary);
+                    }
+                }
+            } else {
+                byGeoCell.forEach((key, bitmap) -> {
+                    int latCell = (int) (key >>> 32);
+                    int lngCell = (int) key.longValue();
+                    if (latCell >= minLatCell && latCell <= maxLatCell && lngCell >= minLngCell && lngCell <= maxLngCell) {
+                        classifyCell(area, latCell, lngCell, bitmap, inner, boundary);
+                    }
+                });
+            }
+        }
+
+        boundary.and(result);
+        IntIterator iterator = boundary.getIntIterator();
+        while (iterator.hasNext()) {
+            int ordinal = iterator.next();
+            PropertyFacetProjection row = rows.get(ordinal);
+            if (area.contains(row.latitude(), row.longitude())) {
+                inner.add(ordinal);
+            }
+        }
+        result.and(inner);
+    }
+
+    private void classifyCell(GeoArea area, int latCell, int lngCell, RoaringBitmap bitmap,
+                              RoaringBitmap inner, RoaringBitmap boundary) {
+        double south = latCell * GEO_CELL_DEG - 90;
+        double west = lngCell * GEO_CELL_DEG - 180;
+        if (area.covers(south, south + GEO_CELL_DEG, west, west + GEO_CELL_DEG)) {
+            inner.or(bitmap);
+        } else {
+            boundary.or(bitmap);
+        }
+    }
+
+    // Callers must hold the write lock
+    private void upsert(PropertyFacetProjection row) {
+        Integer ordinal = ordinals.get(row.id());
+        if (ordinal == null) {
+            ordinal = rows.size();
+            ordinals.put(row.id(), ordinal);
+            rows.add(row);
+        } else {
+            unindex(ordinal, rows.get(ordinal));
+            rows.set(ordinal, row);
+        }
+        index(ordinal, row);
+    }
+
+    private void remove(UUID propertyId) {
+        Integer ordinal = ordinals.get(propertyId);
+        if (ordinal != null) {
+            // The ordinal is not reused, its row stays only to resolve the id
+            unindex(ordinal, rows.get(ordinal));
+        }
+    }
+
+    private void index(int ordinal, PropertyFacetProjection row) {
+        live.add(ordinal);
+        add(byCity, row.cityId(), ordinal);
+        add(byDistrict, row.districtId(), ordinal);
+        add(byWard, row.wardId(), ordinal);
+        add(byPropertyType, row.propertyTypeId(), ordinal);
+        add(byOwner, row.ownerId(), ordinal);
+        add(byAgent, row.agentId(), ordinal);
+        add(byTransactionType, row.transactionType(), ordinal);
+        add(byStatus, row.status(), ordinal);
+        add(byHouseOrientation, row.houseOrientation(), ordinal);
+        add(byBalconyOrientation, row.balconyOrientation(), ordinal);
+        add(byRooms, row.rooms(), ordinal);
+        add(byBathrooms, row.bathrooms(), ordinal);
+        add(byBedrooms, row.bedrooms(), ordinal);
+        add(byFloors, row.floors(), ordinal);
+        add(byPriceBucket, row.priceAmount() != null ? bucketOf(row.priceAmount()) : null, ordinal);
+        add(byAreaBucket, row.area() != null ? bucketOf(row.area()) : null, ordinal);
+        add(byGeoCell, geoCellOf(row), ordinal);
+    }
+
+    private void unindex(int ordinal, PropertyFacetProjection row) {
+        live.remove(ordinal);
+        remove(byCity, row.cityId(), ordinal);
+        remove(byDistrict, row.districtId(), ordinal);
+        remove(byWard, row.wardId(), ordinal);
+        remove(byPropertyType, row.propertyTypeId(), ordinal);
+        remove(byOwner, row.ownerId(), ordinal);
+        remove(byAgent, row.agentId(), ordinal);
+        remove(byTransactionType, row.transactionType(), ordinal);
+        remove(byStatus, row.status(), ordinal);
+        remove(byHouseOrientation, row.houseOrientation(), ordinal);
+        remove(byBalconyOrientation, row.balconyOrientation(), ordinal);
+        remove(byRooms, row.rooms(), ordinal);
+        remove(byBathrooms, row.bathrooms(), ordinal);
+        remove(byBedrooms, row.bedrooms(), ordinal);
+        remove(byFloors, row.floors(), ordinal);
+        remove(byPriceBucket, row.priceAmount() != null ? bucketOf(row.priceAmount()) : null, ordinal);
+        remove(byAreaBucket, row.area() != null ? bucketOf(row.area()) : null, ordinal);
+        remove(byGeoCell, geoCellOf(row), ordinal);
+    }
+
+    private <K> void add(Map<K, RoaringBitmap> facet, K key, int ordinal) {
+        if (key == null) return;
+        facet.computeIfAbsent(key, k -> new RoaringBitmap()).add(ordinal);
+    }
+
+    private <K> void remove(Map<K, RoaringBitmap> facet, K key, int ordinal) {
+        if (key == null) return;
+        RoaringBitmap bitmap = facet.get(key);
+        if (bitmap != null) {
+            bitmap.remove(ordinal);
+            if (bitmap.isEmpty()) facet.remove(key);
+        }
+    }
+
+    // Bucket 0 holds values below 1, then three buckets per power of ten: [1, 2), [2, 5), [5, 10), [10, 20), ...
+    public static int bucketOf(BigDecimal value) {
+        String digits = value.setScale(0, RoundingMode.DOWN).toBigInteger().toString();
+        if (value.signum() <= 0 || digits.equals("0")) return 0;
+        int leading = digits.charAt(0) - '0';
+        int step = leading >= 5 ? 2 : leading >= 2 ? 1 : 0;
+        return 1 + (digits.length() - 1) * BUCKET_STEPS.length + step;
+    }
+
+    private static Long geoCellOf(PropertyFacetProjection row) {
+        if (row.latitude() == null || row.longitude() == null) return null;
+        return cellKey(latCellOf(row.latitude()), lngCellOf(row.longitude()));
+    }
+
+    private static int latCellOf(double latitude) {
+        return (int) Math.floor((latitude + 90) / GEO_CELL_DEG);
+    }
+
+    private static int lngCellOf(double longitude) {
+        return (int) Math.floor((longitude + 180) / GEO_CELL_DEG);
+    }
+
+    private static long cellKey(int latCell, int lngCell) {
+        return ((long) latCell << 32) | (lngCell & 0xffffffffL);
+    }
+
+    private void clear() {
+        ordinals.clear();
+        rows.clear();
+        live.clear();
+        facets.forEach(Map::clear);
+    }
+
+    private void runOptimize() {
+        live.runOptimize();
+        facets.forEach(facet -> facet.values().forEach(RoaringBitmap::runOptimize));
+    }
+}
@@ -0,0 +1,38 @@
+package com.se100.bds.services.domains.property.index;
+
+import com.se100.bds.utils.Constants;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Filters answerable by {@link PropertyFacetIndex}. Same semantics as the card query: null/empty means "any",
+ * lists are OR-ed inside a facet and facets are AND-ed together.
+ */
+@Getter
+@Builder
+public class PropertyFacetQuery {
+    private List<UUID> propertyIds;
+    private List<UUID> cityIds;
+    private List<UUID> districtIds;
+    private List<UUID> wardIds;
+    private List<UUID> propertyTypeIds;
+    private UUID ownerId;
+    private UUID agentId;
+    private List<Constants.TransactionTypeEnum> transactionTypes;
+    private List<Constants.PropertyStatusEnum> statuses;
+    private Constants.OrientationEnum houseOrientation;
+    private Constants.OrientationEnum balconyOrientation;
+    private Integer rooms;
+    private Integer bathrooms;
+    private Integer bedrooms;
+    private Integer floors;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private BigDecimal minArea;
+    private BigDecimal maxArea;
+    private GeoArea geoArea;
+}
@@ -0,0 +1,136 @@
+package com.se100.bds.services.domains.property.readmodel;
+
+import com.se100.bds.repositories.domains.property.PropertyCardViewRepository;
+import com.se100.bds.services.domains.property.cache.PropertyCardPageCache;
+import com.se100.bds.services.domains.property.cache.PropertyDetailsCache;
+import com.se100.bds.services.domains.property.event.PropertyChangedEvent;
+import com.se100.bds.services.domains.user.event.UserNameChangedEvent;
+import com.se100.bds.utils.Constants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+/**
+ * Keeps the property_card read model in sync with the properties.
+ * <p>
+ * Every property write publishes a {@link PropertyChangedEvent}; once it commits, the card row is rewritten from
+ * the source tables in a single statement, and a {@link UserNameChangedEvent} rewrites the names on the cards of
+ * that owner or agent. Tiers are refreshed after the ranking schedulers, and the whole table is rebuilt at startup
+ * and every night to catch writes that bypass the events.
+ * <p>
+ * Writers are serialized with PostgreSQL advisory locks, across instances: the rebuild holds an exclusive lock,
+ * refreshes share it and also lock their property, so a refresh runs after an overlapping rebuild commits
+ * instead of inserting a row the rebuild just inserted. Event refreshes run on the small propertyCardExecutor,
+ * so requests committing during a rebuild do not wait for it while holding connections.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PropertyCardProjector {
+    // Advisory lock keys, "propcard" and "card" in ASCII
+    private static final long WRITE_LOCK = 0x70726f7063617264L;
+    private static final int PROPERTY_LOCK_SPACE = 0x63617264;
+
+    private final PropertyCardViewRepository propertyCardViewRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor propertyCardExecutor;
+    private final PropertyCardPageCache propertyCardPageCache;
+    private final PropertyDetailsCache propertyDetailsCache;
+
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(cron = "0 45 0 * * ?")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        // One transaction, readers keep seeing the previous rows until it commits
+        Integer inserted = transactionTemplate.execute(status -> {
+            // Waits for running refreshes, later ones wait for the commit
+            propertyCardViewRepository.lockExclusive(WRITE_LOCK);
+            propertyCardViewRepository.deleteAllInBatch();
+            return propertyCardViewRepository.insertAllFromProperties();
+        });
+        ready = true;
+        log.info("Property card read model rebuilt with {} rows in {} ms", inserted, System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        UUID propertyId = event.propertyId();
+        submit("property card " + propertyId, () -> {
+            transactionTemplate.executeWithoutResult(status -> refresh(propertyId));
+            // Pages loaded between the commit of the write and this refresh showed the old card
+            propertyCardPageCache.evict(propertyId);
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserNameChanged(UserNameChangedEvent event) {
+        UUID userId = event.userId();
+        submit("names of user " + userId, () -> {
+            Integer updated = transactionTemplate.execute(status -> {
+                propertyCardViewRepository.lockShared(WRITE_LOCK);
+                return propertyCardViewRepository.refreshOwnerNames(userId) + propertyCardViewRepository.refreshAgentNames(userId);
+            });
+            // Renames are rare, the names may be on any page and detail
+            propertyCardPageCache.invalidateAll();
+            propertyDetailsCache.invalidateAll();
+            log.debug("Property card read model: renamed user {} on {} cards", userId, updated);
+        });
+    }
+
+    // The write itself already committed, a failed refresh is left to the nightly rebuild
+    private void submit(String what, Runnable refresh) {
+        try {
+            propertyCardExecutor.execute(() -> {
+                try {
+                    refresh.run();
+                } catch (RuntimeException e) {
+                    log.warn("Could not refresh {}, the nightly rebuild will: {}", what, e.getMessage());
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.warn("Property card refresh queue is full, the nightly rebuild will refresh {}", what);
+        }
+    }
+
+    @Transactional
+    public void refreshTiers(Constants.RoleEnum role) {
+        propertyCardViewRepository.lockShared(WRITE_LOCK);
+        int updated = switch (role) {
+            case PROPERTY_OWNER -> propertyCardViewRepository.refreshOwnerTiers();
+            case SALESAGENT -> propertyCardViewRepository.refreshAgentTiers();
+            default -> 0;
+        };
+        log.info("Property card read model: refreshed {} {} tiers", updated, role);
+    }
+
+    private void refresh(UUID propertyId) {
+        propertyCardViewRepository.lockShared(WRITE_LOCK);
+        // Two refreshes of the same property would both insert its row
+        propertyCardViewRepository.lockProperty(PROPERTY_LOCK_SPACE, propertyId);
+        propertyCardViewRepository.deleteByPropertyId(propertyId);
+        // Inserts nothing when the property was deleted
+        propertyCardViewRepository.insertFromProperty(propertyId);
+    }
+}
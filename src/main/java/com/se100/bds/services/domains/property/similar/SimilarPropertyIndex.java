@@ -0,0 +1,259 @@
+package com.se100.bds.services.domains.property.similar;
+
+import com.se100.bds.repositories.domains.property.PropertyRepository;
+import com.se100.bds.repositories.dtos.PropertyFacetProjection;
+import com.se100.bds.services.domains.property.event.PropertyChangedEvent;
+import com.se100.bds.services.domains.property.event.PropertyRebuildTracker;
+import com.se100.bds.utils.Constants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory nearest-neighbour index of the AVAILABLE properties for the "similar listings" block.
+ * <p>
+ * Every property is reduced to a feature vector: log price, log area, log price per m², and scaled bedroom,
+ * bathroom and floor counts; a different property type, district or ward adds a fixed penalty to the distance.
+ * Candidates are partitioned by city and transaction type, so a query scans only the listings a visitor could
+ * consider instead of the whole catalogue, and keeps the k closest in a bounded heap.
+ * The vectors are built from the facet rows and kept up to date by {@link PropertyChangedEvent}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SimilarPropertyIndex {
+    public static final int MAX_RESULTS = 20;
+
+    private static final int DIMENSIONS = 6;
+    // Squared distance penalties for categorical mismatches
+    private static final float TYPE_PENALTY = 1.0f;
+    private static final float DISTRICT_PENALTY = 0.5f;
+    private static final float WARD_PENALTY = 0.1f;
+
+    private final PropertyRepository propertyRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final PropertyRebuildTracker rebuildTracker = new PropertyRebuildTracker();
+    private volatile boolean ready = false;
+
+    // Every property, queryable even when it is no longer a candidate (e.g. sold)
+    private final Map<UUID, Listing> listings = new HashMap<>();
+    private final Map<PartitionKey, Partition> partitions = new HashMap<>();
+
+    private record PartitionKey(UUID cityId, Constants.TransactionTypeEnum transactionType) {}
+
+    private record Listing(UUID id, PartitionKey partition, boolean candidate,
+                           UUID propertyTypeId, UUID districtId, UUID wardId, float[] features) {}
+
+    // Swap-remove list of the candidates of one partition
+    private static final class Partition {
+        final List<Listing> members = new ArrayList<>();
+        final Map<UUID, Integer> positions = new HashMap<>();
+
+        void add(Listing listing) {
+            positions.put(listing.id(), members.size());
+            members.add(listing);
+        }
+
+        void remove(UUID id) {
+            Integer position = positions.remove(id);
+            if (position == null) {
+                return;
+            }
+            Listing last = members.remove(members.size() - 1);
+            if (position < members.size()) {
+                members.set(position, last);
+                positions.put(last.id(), position);
+            }
+        }
+    }
+
+    private record Neighbour(UUID id, float distance) {}
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // Vectors are rebuilt from scratch nightly, a few minutes after the facet index
+    @Scheduled(cron = "0 35 0 * * ?")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        rebuildTracker.begin();
+        int size;
+        try {
+            List<PropertyFacetProjection> allRows = propertyRepository.findAllFacetRows();
+
+            lock.writeLock().lock();
+            try {
+                listings.clear();
+                partitions.clear();
+                allRows.forEach(this::upsert);
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            size = allRows.size();
+        } finally {
+            replay(rebuildTracker.finish());
+        }
+        log.info("Similar property index built with {} properties in {} ms", size, System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        if (rebuildTracker.deferIfRebuilding(event.propertyId()) || !ready) {
+            return;
+        }
+        apply(event.propertyId());
+    }
+
+    private void replay(Set<UUID> propertyIds) {
+        if (!ready) {
+            return;
+        }
+        for (UUID propertyId : propertyIds) {
+            try {
+                apply(propertyId);
+            } catch (RuntimeException e) {
+                log.warn("Similar property index - could not replay {}: {}", propertyId, e.getMessage());
+            }
+        }
+    }
+
+    private void apply(UUID propertyId) {
+        PropertyFacetProjection row = propertyRepository.findFacetRowById(propertyId).orElse(null);
+
+        lock.writeLock().lock();
+        try {
+            if (row == null) {
+                remove(propertyId);
+            } else {
+                upsert(row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Closest AVAILABLE properties first, the property itself excluded; empty when it is unknown
+    public List<UUID> findSimilar(UUID propertyId, int limit) {
+        int k = Math.min(limit, MAX_RESULTS);
+        lock.readLock().lock();
+        try {
+            Listing target = listings.get(propertyId);
+            if (target == null || k <= 0) {
+                return List.of();
+            }
+            Partition partition = partitions.get(target.partition());
+            if (partition == null) {
+                return List.of();
+            }
+
+            // Max-heap on distance holding the k best so far
+            PriorityQueue<Neighbour> best = new PriorityQueue<>(k + 1,
+                    Comparator.comparingDouble(Neighbour::distance).reversed());
+            for (Listing candidate : partition.members) {
+                if (candidate.id().equals(propertyId)) {
+                    continue;
+                }
+                float distance = distance(target, candidate);
+                if (best.size() < k) {
+                    best.add(new Neighbour(candidate.id(), distance));
+                } else if (distance < best.peek().distance()) {
+                    best.poll();
+                    best.add(new Neighbour(candidate.id(), distance));
+                }
+            }
+
+            List<Neighbour> ordered = new ArrayList<>(best);
+            ordered.sort(Comparator.comparingDouble(Neighbour::distance));
+            return ordered.stream().map(Neighbour::id).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private float distance(Listing a, Listing b) {
+        float sum = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            float diff = a.features()[i] - b.features()[i];
+            sum += diff * diff;
+        }
+        if (!Objects.equals(a.propertyTypeId(), b.propertyTypeId())) {
+            sum += TYPE_PENALTY;
+        }
+        if (!Objects.equals(a.districtId(), b.districtId())) {
+            sum += DISTRICT_PENALTY;
+        } else if (!Objects.equals(a.wardId(), b.wardId())) {
+            sum += WARD_PENALTY;
+        }
+        return sum;
+    }
+
+    private void upsert(PropertyFacetProjection row) {
+        remove(row.id());
+        PartitionKey key = new PartitionKey(row.cityId(), row.transactionType());
+        Listing listing = new Listing(row.id(), key, row.status() == Constants.PropertyStatusEnum.AVAILABLE,
+                row.propertyTypeId(), row.districtId(), row.wardId(), features(row));
+        listings.put(row.id(), listing);
+        if (listing.candidate()) {
+            partitions.computeIfAbsent(key, k -> new Partition()).add(listing);
+        }
+    }
+
+    private void remove(UUID propertyId) {
+        Listing listing = listings.remove(propertyId);
+        if (listing != null && listing.candidate()) {
+            Partition partition = partitions.get(listing.partition());
+            if (partition != null) {
+                partition.remove(propertyId);
+            }
+        }
+    }
+
+    // Logs make a 10% price gap count the same at every price level; counts are scaled to similar spreads
+    private float[] features(PropertyFacetProjection row) {
+        double price = positive(row.priceAmount());
+        double area = positive(row.area());
+        double pricePerSquareMeter = area > 0 ? price / area : 0;
+        return new float[]{
+                (float) Math.log1p(price),
+                (float) Math.log1p(area),
+                (float) Math.log1p(pricePerSquareMeter),
+                count(row.bedrooms()) / 2f,
+                count(row.bathrooms()) / 2f,
+                count(row.floors()) / 3f
+        };
+    }
+
+    private double positive(BigDecimal value) {
+        return value != null && value.signum() > 0 ? value.doubleValue() : 0;
+    }
+
+    private int count(Integer value) {
+        return value != null ? value : 0;
+    }
+}
@@ -1,11 +1,15 @@
 package com.se100.bds.services.domains.ranking;
 
+import com.se100.bds.dtos.responses.ranking.LeaderboardEntryResponse;
 import com.se100.bds.models.schemas.ranking.*;
 import com.se100.bds.utils.Constants;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface RankingService {
@@ -13,7 +17,10 @@ public interface RankingService {
     ///  Internal
     String getTier(UUID userId, Constants.RoleEnum role, int month, int year);
     String getCurrentTier(UUID userId, Constants.RoleEnum role);
+    Map<UUID, String> getCurrentTiers(Collection<UUID> userIds, Constants.RoleEnum role);
+    void refreshTierCache(Constants.RoleEnum role);
     IndividualSalesAgentPerformanceMonth getSaleAgentCurrentMonth(UUID agentId);
+    Map<UUID, Integer> getSaleAgentCurrentRankings(Collection<UUID> agentIds);
     IndividualCustomerPotentialMonth getCustomerCurrentMonth(UUID customerId);
     IndividualPropertyOwnerContributionMonth getPropertyOwnerCurrentMonth(UUID propertyOwnerId);
 
@@ -30,6 +37,8 @@ public interface RankingService {
     IndividualCustomerPotentialAll getMyCustomerAll();
     IndividualPropertyOwnerContributionMonth getMyPropertyOwnerMonth(int month, int year);
     IndividualPropertyOwnerContributionAll getMyPropertyOwnerAll();
+    Page<LeaderboardEntryResponse> getLeaderboard(Constants.RoleEnum role, int month, int year, Pageable pageable);
+    List<LeaderboardEntryResponse> getMyLeaderboardNeighbours(Constants.RoleEnum role, int month, int year, int radius);
 
     /// Action methods
     void agentAction(UUID agentId, Constants.AgentActionEnum actionType, BigDecimal amount);
@@ -0,0 +1,357 @@
+package com.se100.bds.services.domains.ranking.counter;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.se100.bds.models.schemas.ranking.IndividualCustomerPotentialMonth;
+import com.se100.bds.models.schemas.ranking.IndividualPropertyOwnerContributionMonth;
+import com.se100.bds.models.schemas.ranking.IndividualSalesAgentPerformanceMonth;
+import com.se100.bds.services.domains.ranking.leaderboard.RankingLeaderboard;
+import com.se100.bds.services.domains.ranking.scheduler.RankingBulkWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.data.util.Pair;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind buffer of the ranking action counters.
+ * <p>
+ * Actions only add their deltas to one entry per (user, role, month), so a busy user costs one $inc upsert per
+ * flush instead of one Mongo write per action. Every flush interval (app.ranking.action-flush-interval-ms) the
+ * entries go out as one unordered bulk write per role; once app.ranking.action-buffer-max-users entries are
+ * pending, an early flush is scheduled on the task scheduler, recorders never wait for Mongo. Past
+ * app.ranking.action-buffer-hard-limit entries (pending plus retrying) actions of new users are dropped and counted.
+ * Flushed a last time on shutdown.
+ * <p>
+ * Each upsert carries a write id, pushed to the row's {@value #WRITE_IDS_FIELD} and excluded by its filter, and a
+ * failed write is retried with the same id and deltas. A write the server applied before the error reached us then
+ * fails the retry with a duplicate key instead of counting twice.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RankingActionBuffer {
+    static final String WRITE_IDS_FIELD = "write_ids";
+    // Write ids kept per row, far more than the retries a write can go through before newer writes push it out
+    private static final int KEPT_WRITE_IDS = 50;
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final RankingLeaderboard rankingLeaderboard;
+    private final MeterRegistry meterRegistry;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${app.ranking.action-buffer-max-users:2000}")
+    private int maxBufferedUsers;
+
+    @Value("${app.ranking.action-buffer-hard-limit:20000}")
+    private int hardLimit;
+
+    private record BufferKey(Class<?> type, UUID userId, int month, int year) {}
+
+    // Deltas of one entry and the number of actions merged into them
+    private static final class Deltas {
+        private final Map<String, Number> values = new HashMap<>();
+        private int events;
+    }
+
+    // One upsert as sent, a retry resends it unchanged
+    private record PendingWrite(BufferKey key, String writeId, Map<String, Number> deltas, int events) {}
+
+    // Recorders share the read lock, a flush takes the write lock only to swap the map
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile Map<BufferKey, Deltas> pending = new ConcurrentHashMap<>();
+    // Guarded by this (flush)
+    private final List<PendingWrite> retries = new ArrayList<>();
+    private volatile int retryCount;
+    // Actions recorded and not written yet, retries included
+    private final AtomicInteger bufferedEvents = new AtomicInteger();
+    private final AtomicBoolean earlyFlushScheduled = new AtomicBoolean();
+    private Counter droppedEvents;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("ranking.actions.buffered", bufferedEvents, AtomicInteger::get)
+                .description("Ranking actions waiting for the next flush")
+                .register(meterRegistry);
+        Gauge.builder("ranking.actions.buffered.users", this, buffer -> buffer.pending.size() + buffer.retryCount)
+                .description("User-months with pending ranking deltas")
+                .register(meterRegistry);
+        droppedEvents = Counter.builder("ranking.actions.dropped")
+                .description("Ranking actions dropped because the buffer was full")
+                .register(meterRegistry);
+    }
+
+    public void recordAgent(UUID agentId, Map<String, ? extends Number> deltas) {
+        record(IndividualSalesAgentPerformanceMonth.class, agentId, deltas);
+    }
+
+    public void recordCustomer(UUID customerId, Map<String, ? extends Number> deltas) {
+        record(IndividualCustomerPotentialMonth.class, customerId, deltas);
+    }
+
+    public void recordPropertyOwner(UUID ownerId, Map<String, ? extends Number> deltas) {
+        record(IndividualPropertyOwnerContributionMonth.class, ownerId, deltas);
+    }
+
+    @Scheduled(fixedDelayString = "${app.ranking.action-flush-interval-ms:3000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void record(Class<?> type, UUID userId, Map<String, ? extends Number> deltas) {
+        LocalDate today = LocalDate.now();
+        BufferKey key = new BufferKey(type, userId, today.getMonthValue(), today.getYear());
+
+        boolean accepted;
+        int users;
+        swapLock.readLock().lock();
+        try {
+            // A user already buffered does not grow the buffer
+            accepted = pending.containsKey(key) || pending.size() + retryCount < hardLimit;
+            if (accepted) {
+                merge(key, deltas, 1);
+                bufferedEvents.incrementAndGet();
+            }
+            users = pending.size();
+        } finally {
+            swapLock.readLock().unlock();
+        }
+
+        if (!accepted) {
+            droppedEvents.increment();
+            log.debug("Ranking action buffer full, dropped a {} action of {}", type.getSimpleName(), userId);
+        }
+        if (users >= maxBufferedUsers && earlyFlushScheduled.compareAndSet(false, true)) {
+            try {
+                taskScheduler.schedule(this::earlyFlush, Instant.now());
+            } catch (TaskRejectedException e) {
+                earlyFlushScheduled.set(false);
+            }
+        }
+    }
+
+    private void earlyFlush() {
+        // Cleared first, the buffer may fill up again while this flush runs
+        earlyFlushScheduled.set(false);
+        flush();
+    }
+
+    synchronized void flush() {
+        Map<BufferKey, Deltas> batch;
+        swapLock.writeLock().lock();
+        try {
+            if (pending.isEmpty() && retries.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+
+        // Retries first, with their original write ids
+        List<PendingWrite> writes = new ArrayList<>(retries);
+        retries.clear();
+        batch.forEach((key, deltas) -> writes.add(new PendingWrite(key, UUID.randomUUID().toString(), deltas.values, deltas.events)));
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Map<Class<?>, List<PendingWrite>> writesByType = writes.stream()
+                .collect(Collectors.groupingBy(write -> write.key().type()));
+
+        int written = 0;
+        for (Map.Entry<Class<?>, List<PendingWrite>> entry : writesByType.entrySet()) {
+            List<PendingWrite> failed = write(entry.getKey(), entry.getValue());
+            retries.addAll(failed);
+            Set<PendingWrite> retried = new HashSet<>(failed);
+            List<PendingWrite> succeeded = entry.getValue().stream().filter(write -> !retried.contains(write)).toList();
+            succeeded.forEach(write -> bufferedEvents.addAndGet(-write.events()));
+            written += succeeded.size();
+            publish(entry.getKey(), succeeded.stream().map(PendingWrite::key).toList());
+        }
+
+        // Retries count against the hard limit as well, the oldest give way
+        int dropped = 0;
+        while (retries.size() > hardLimit) {
+            PendingWrite oldest = retries.remove(0);
+            bufferedEvents.addAndGet(-oldest.events());
+            droppedEvents.increment(oldest.events());
+            dropped++;
+        }
+        retryCount = retries.size();
+
+        sample.stop(Timer.builder("ranking.actions.flush")
+                .description("Write-behind flush of the ranking action counters")
+                .tag("result", retries.isEmpty() ? "success" : "partial")
+                .register(meterRegistry));
+        log.debug("Flushed {} ranking user-months, {} to retry, {} dropped", written, retries.size(), dropped);
+    }
+
+    // Returns the writes that have to be retried
+    private List<PendingWrite> write(Class<?> type, List<PendingWrite> writes) {
+        String userField = RankingCounterStore.userField(type);
+        List<PendingWrite> sent = new ArrayList<>();
+        List<Pair<Query, UpdateDefinition>> upserts = new ArrayList<>();
+        List<Pair<Query, UpdateDefinition>> clamps = new ArrayList<>();
+
+        for (PendingWrite write : writes) {
+            BufferKey key = write.key();
+            Map<String, Number> net = new LinkedHashMap<>();
+            write.deltas().forEach((field, delta) -> {
+                if (signum(delta) != 0) {
+                    net.put(field, delta);
+                }
+            });
+            if (net.isEmpty()) {
+                continue;
+            }
+            sent.add(write);
+            Update update = RankingCounterStore.counterUpdate(type, net);
+            update.push(WRITE_IDS_FIELD).slice(-KEPT_WRITE_IDS).each(write.writeId());
+            // A row that already has the write id does not match, the upsert then hits the unique index
+            upserts.add(Pair.of(RankingBulkWriter.byUserAndMonth(userField, key.userId(), key.month(), key.year())
+                    .addCriteria(Criteria.where(WRITE_IDS_FIELD).ne(write.writeId())), update));
+            // Cancellations that outnumber the buffered requests must not push a counter below zero
+            net.forEach((field, delta) -> {
+                if (signum(delta) < 0) {
+                    clamps.add(Pair.of(RankingBulkWriter.byUserAndMonth(userField, key.userId(), key.month(), key.year())
+                            .addCriteria(Criteria.where(field).lt(0)), new Update().set(field, 0)));
+                }
+            });
+        }
+        if (upserts.isEmpty()) {
+            return List.of();
+        }
+
+        List<PendingWrite> failed = new ArrayList<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type).upsert(upserts).execute();
+        } catch (BulkOperationException e) {
+            // Unordered: everything but the reported operations was applied
+            for (BulkWriteError error : e.getErrors()) {
+                PendingWrite write = sent.get(error.getIndex());
+                if (error.getCode() != DUPLICATE_KEY || !isApplied(type, write)) {
+                    failed.add(write);
+                }
+            }
+            log.warn("Ranking action flush - {} of {} {} upserts failed: {}", failed.size(), upserts.size(), type.getSimpleName(), e.getMessage());
+        } catch (RuntimeException e) {
+            // Some may have been applied, their write ids make the retry skip them
+            log.warn("Ranking action flush - {} upserts of {} failed, retrying next time: {}", upserts.size(), type.getSimpleName(), e.getMessage());
+            return sent;
+        }
+
+        if (!clamps.isEmpty()) {
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type).updateOne(clamps).execute();
+            } catch (RuntimeException e) {
+                log.warn("Ranking action flush - clamping {} counters of {} failed: {}", clamps.size(), type.getSimpleName(), e.getMessage());
+            }
+        }
+        return failed;
+    }
+
+    // A duplicate key also comes from two instances inserting the same new row at once, only the write id tells
+    private boolean isApplied(Class<?> type, PendingWrite write) {
+        BufferKey key = write.key();
+        try {
+            return mongoTemplate.exists(RankingBulkWriter.byUserAndMonth(RankingCounterStore.userField(type), key.userId(), key.month(), key.year())
+                    .addCriteria(Criteria.where(WRITE_IDS_FIELD).is(write.writeId())), type);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    // Re-reads the flushed rows, one query per month, so the live leaderboard sees the new counters
+    private void publish(Class<?> type, List<BufferKey> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Map<List<Integer>, List<UUID>> userIdsByMonth = keys.stream().collect(Collectors.groupingBy(
+                key -> List.of(key.month(), key.year()),
+                Collectors.mapping(BufferKey::userId, Collectors.toList())
+        ));
+        try {
+            userIdsByMonth.forEach((monthYear, userIds) -> {
+                Query query = Query.query(Criteria.where(RankingCounterStore.userField(type)).in(userIds)
+                        .and("month").is(monthYear.get(0))
+                        .and("year").is(monthYear.get(1)));
+                for (Object row : mongoTemplate.find(query, type)) {
+                    if (row instanceof IndividualSalesAgentPerformanceMonth performance) {
+                        rankingLeaderboard.onAgentMonth(performance);
+                    } else if (row instanceof IndividualCustomerPotentialMonth potential) {
+                        rankingLeaderboard.onCustomerMonth(potential);
+                    } else if (row instanceof IndividualPropertyOwnerContributionMonth contribution) {
+                        rankingLeaderboard.onPropertyOwnerMonth(contribution);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // The nightly rebuild catches the leaderboard up
+            log.warn("Ranking action flush - could not refresh the {} leaderboard: {}", type.getSimpleName(), e.getMessage());
+        }
+    }
+
+    // Callers hold the read lock
+    private void merge(BufferKey key, Map<String, ? extends Number> deltas, int events) {
+        pending.compute(key, (k, current) -> {
+            Deltas merged = current != null ? current : new Deltas();
+            deltas.forEach((field, delta) -> merged.values.merge(field, delta, RankingActionBuffer::add));
+            merged.events += events;
+            return merged;
+        });
+    }
+
+    // Integer counters stay integers, money stays BigDecimal (Decimal128 in Mongo)
+    private static Number add(Number a, Number b) {
+        if (a instanceof BigDecimal || b instanceof BigDecimal) {
+            return toBigDecimal(a).add(toBigDecimal(b));
+        }
+        return a.intValue() + b.intValue();
+    }
+
+    private static BigDecimal toBigDecimal(Number value) {
+        return value instanceof BigDecimal decimal ? decimal : BigDecimal.valueOf(value.longValue());
+    }
+
+    private static int signum(Number value) {
+        return value instanceof BigDecimal decimal ? decimal.signum() : Integer.signum(value.intValue());
+    }
+}
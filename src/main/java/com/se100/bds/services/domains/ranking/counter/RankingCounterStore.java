@@ -0,0 +1,118 @@
+package com.se100.bds.services.domains.ranking.counter;
+
+import com.se100.bds.models.schemas.ranking.IndividualCustomerPotentialMonth;
+import com.se100.bds.models.schemas.ranking.IndividualPropertyOwnerContributionMonth;
+import com.se100.bds.models.schemas.ranking.IndividualSalesAgentPerformanceMonth;
+import com.se100.bds.services.domains.ranking.scheduler.RankingBulkWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Atomic counter updates of the monthly ranking rows.
+ * <p>
+ * Counters are only ever changed with $inc upserts, $setOnInsert filling the zero defaults of a new row,
+ * so concurrent writers for the same user never overwrite each other and no read is needed before the write.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RankingCounterStore {
+    private static final Map<Class<?>, String> USER_FIELDS = Map.of(
+            IndividualSalesAgentPerformanceMonth.class, "agent_id",
+            IndividualCustomerPotentialMonth.class, "customer_id",
+            IndividualPropertyOwnerContributionMonth.class, "owner_id"
+    );
+
+    // Counters a new month row starts with
+    private static final Map<Class<?>, Map<String, Object>> DEFAULTS = Map.of(
+            IndividualSalesAgentPerformanceMonth.class, Map.of(
+                    "handling_properties", 0,
+                    "month_properties_assigned", 0,
+                    "month_appointments_assigned", 0,
+                    "month_appointments_completed", 0,
+                    "month_contracts", 0,
+                    "month_rates", 0,
+                    "rating_sum", BigDecimal.ZERO,
+                    "month_satisfied_rates", 0
+            ),
+            IndividualCustomerPotentialMonth.class, Map.of(
+                    "month_viewings_requested", 0,
+                    "month_viewings_attended", 0,
+                    "month_spending", BigDecimal.ZERO,
+                    "month_purchases", 0,
+                    "month_rentals", 0,
+                    "month_contracts_signed", 0
+            ),
+            IndividualPropertyOwnerContributionMonth.class, Map.of(
+                    "month_contribution_value", BigDecimal.ZERO,
+                    "month_total_properties", 0,
+                    "month_total_for_sales", 0,
+                    "month_total_for_rents", 0,
+                    "month_total_properties_sold", 0,
+                    "month_total_properties_rented", 0
+            )
+    );
+
+    private final MongoTemplate mongoTemplate;
+
+    public static Update counterUpdate(Class<?> type, Map<String, ? extends Number> increments) {
+        Update update = RankingBulkWriter.upsertUpdate();
+        increments.forEach(update::inc);
+        // The same path cannot be in both $inc and $setOnInsert
+        DEFAULTS.get(type).forEach((field, value) -> {
+            if (!increments.containsKey(field)) {
+                update.setOnInsert(field, value);
+            }
+        });
+        return update;
+    }
+
+    public static String userField(Class<?> type) {
+        return USER_FIELDS.get(type);
+    }
+
+    /**
+     * Rows written before the counters were incremented in place keep money as strings and only the rating
+     * averages. Converts them once so $inc applies; rows already converted are not matched again.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyCounters() {
+        long agents = mongoTemplate.getCollection(mongoTemplate.getCollectionName(IndividualSalesAgentPerformanceMonth.class)).updateMany(
+                new Document("rating_sum", new Document("$exists", false)),
+                List.of(new Document("$set", new Document()
+                        .append("rating_sum", new Document("$multiply", List.of(
+                                decimal("$avg_rating"), new Document("$ifNull", List.of("$month_rates", 0)))))
+                        .append("month_satisfied_rates", new Document("$toInt", new Document("$round", List.of(
+                                new Document("$divide", List.of(new Document("$multiply", List.of(
+                                        decimal("$month_customer_satisfaction_avg"),
+                                        new Document("$ifNull", List.of("$month_rates", 0)))), 100)), 0))))))
+        ).getModifiedCount();
+        long customers = toDecimal(IndividualCustomerPotentialMonth.class, "month_spending");
+        long owners = toDecimal(IndividualPropertyOwnerContributionMonth.class, "month_contribution_value");
+
+        if (agents + customers + owners > 0) {
+            log.info("migrateLegacyCounters - converted {} agent, {} customer and {} owner month rows", agents, customers, owners);
+        }
+    }
+
+    private long toDecimal(Class<?> type, String field) {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(type)).updateMany(
+                new Document(field, new Document("$type", "string")),
+                List.of(new Document("$set", new Document(field, decimal("$" + field))))
+        ).getModifiedCount();
+    }
+
+    private static Document decimal(String path) {
+        return new Document("$toDecimal", new Document("$ifNull", List.of(path, "0")));
+    }
+}
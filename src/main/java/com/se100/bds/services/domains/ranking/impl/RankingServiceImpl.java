@@ -1,19 +1,32 @@
 package com.se100.bds.services.domains.ranking.impl;
 
+import com.se100.bds.dtos.responses.ranking.LeaderboardEntryResponse;
+import com.se100.bds.models.entities.user.User;
 import com.se100.bds.models.schemas.ranking.*;
 import com.se100.bds.repositories.domains.mongo.ranking.*;
+import com.se100.bds.repositories.domains.user.UserRepository;
 import com.se100.bds.services.domains.ranking.RankingService;
+import com.se100.bds.services.domains.ranking.counter.RankingActionBuffer;
+import com.se100.bds.services.domains.ranking.leaderboard.RankingLeaderboard;
+import com.se100.bds.services.domains.ranking.utils.RankingUtil;
 import com.se100.bds.services.domains.user.UserService;
 import com.se100.bds.utils.Constants;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -26,9 +39,28 @@ public class RankingServiceImpl implements RankingService {
     private final IndividualPropertyOwnerContributionAllRepository individualPropertyOwnerContributionAllRepository;
     private final IndividualPropertyOwnerContributionMonthRepository individualPropertyOwnerContributionMonthRepository;
     private final UserService userService;
+    private final UserRepository userRepository;
+    private final RankingLeaderboard rankingLeaderboard;
+    private final RankingActionBuffer rankingActionBuffer;
+
+    // (userId, role, month, year) -> tier; Optional.empty() caches "no ranking yet" as well
+    private final Cache<TierKey, Optional<String>> tierCache = Caffeine.newBuilder()
+            .maximumSize(50_000)
+            .expireAfterWrite(Duration.ofHours(6))
+            .build();
+
+    private record TierKey(UUID userId, Constants.RoleEnum role, int month, int year) {}
 
     @Override
     public String getTier(UUID userId, Constants.RoleEnum role, int month, int year) {
+        if (userId == null) {
+            return null;
+        }
+        return tierCache.get(new TierKey(userId, role, month, year),
+                key -> Optional.ofNullable(loadTier(userId, role, month, year))).orElse(null);
+    }
+
+    private String loadTier(UUID userId, Constants.RoleEnum role, int month, int year) {
         switch(role){
             case CUSTOMER -> {
                 var ranking = individualCustomerPotentialMonthRepository.findByCustomerIdAndMonthAndYear(
@@ -67,11 +99,109 @@ public class RankingServiceImpl implements RankingService {
         return getTier(userId, role, month, year);
     }
 
+    @Override
+    public Map<UUID, String> getCurrentTiers(Collection<UUID> userIds, Constants.RoleEnum role) {
+        Map<UUID, String> result = new HashMap<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return result;
+        }
+
+        int month = LocalDateTime.now().getMonthValue();
+        int year = LocalDateTime.now().getYear();
+
+        Set<UUID> misses = new HashSet<>();
+        for (UUID userId : userIds) {
+            if (userId == null) continue;
+            Optional<String> cached = tierCache.getIfPresent(new TierKey(userId, role, month, year));
+            if (cached == null) {
+                misses.add(userId);
+            } else {
+                cached.ifPresent(tier -> result.put(userId, tier));
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            // One $in query for all the misses of this page
+            Map<UUID, String> loaded = loadTiers(misses, role, month, year);
+            for (UUID userId : misses) {
+                String tier = loaded.get(userId);
+                tierCache.put(new TierKey(userId, role, month, year), Optional.ofNullable(tier));
+                if (tier != null) {
+                    result.put(userId, tier);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public void refreshTierCache(Constants.RoleEnum role) {
+        tierCache.asMap().keySet().removeIf(key -> key.role() == role);
+
+        int month = LocalDateTime.now().getMonthValue();
+        int year = LocalDateTime.now().getYear();
+
+        // Re-warm the current month so the first pages after the scheduler run stay cheap
+        Map<UUID, String> tiers = loadTiers(null, role, month, year);
+        tiers.forEach((userId, tier) ->
+                tierCache.put(new TierKey(userId, role, month, year), Optional.ofNullable(tier)));
+        log.info("refreshTierCache - role {}: {} tiers cached for {}/{}", role, tiers.size(), month, year);
+    }
+
+    // userIds == null loads the whole month
+    private Map<UUID, String> loadTiers(Collection<UUID> userIds, Constants.RoleEnum role, int month, int year) {
+        Map<UUID, String> tiers = new HashMap<>();
+        switch (role) {
+            case CUSTOMER -> {
+                var rankings = userIds == null
+                        ? individualCustomerPotentialMonthRepository.findAllByMonthAndYear(month, year)
+                        : individualCustomerPotentialMonthRepository.findAllByCustomerIdInAndMonthAndYear(userIds, month, year);
+                for (var ranking : rankings) {
+                    if (ranking.getCustomerTier() != null) {
+                        tiers.put(ranking.getCustomerId(), ranking.getCustomerTier().name());
+                    }
+                }
+            }
+            case SALESAGENT -> {
+                var rankings = userIds == null
+                        ? individualSalesAgentPerformanceMonthRepository.findAllByMonthAndYear(month, year)
+                        : individualSalesAgentPerformanceMonthRepository.findAllByAgentIdInAndMonthAndYear(userIds, month, year);
+                for (var ranking : rankings) {
+                    if (ranking.getPerformanceTier() != null) {
+                        tiers.put(ranking.getAgentId(), ranking.getPerformanceTier().name());
+                    }
+                }
+            }
+            case PROPERTY_OWNER -> {
+                var rankings = userIds == null
+                        ? individualPropertyOwnerContributionMonthRepository.findAllByMonthAndYear(month, year)
+                        : individualPropertyOwnerContributionMonthRepository.findAllByOwnerIdInAndMonthAndYear(userIds, month, year);
+                for (var ranking : rankings) {
+                    if (ranking.getContributionTier() != null) {
+                        tiers.put(ranking.getOwnerId(), ranking.getContributionTier().name());
+                    }
+                }
+            }
+            default -> {
+            }
+        }
+        return tiers;
+    }
+
     @Override
     public IndividualSalesAgentPerformanceMonth getSaleAgentMonth(UUID agentId, int month, int year) {
-        return individualSalesAgentPerformanceMonthRepository.findByAgentIdAndMonthAndYear(
+        IndividualSalesAgentPerformanceMonth performance = individualSalesAgentPerformanceMonthRepository.findByAgentIdAndMonthAndYear(
                 agentId, month, year
         );
+        // Stored points and position are the nightly ones, the leaderboard has the live values
+        if (performance != null) {
+            liveStanding(Constants.RoleEnum.SALESAGENT, agentId, month, year).ifPresent(standing -> {
+                performance.setPerformancePoint(standing.points());
+                performance.setRankingPosition(standing.position());
+            });
+        }
+        return performance;
     }
 
     @Override
@@ -87,6 +217,32 @@ public class RankingServiceImpl implements RankingService {
         return getSaleAgentMonth(agentId, month, year);
     }
 
+    @Override
+    public Map<UUID, Integer> getSaleAgentCurrentRankings(Collection<UUID> agentIds) {
+        Map<UUID, Integer> rankings = new HashMap<>();
+        if (agentIds == null || agentIds.isEmpty()) {
+            return rankings;
+        }
+
+        int month = LocalDateTime.now().getMonthValue();
+        int year = LocalDateTime.now().getYear();
+
+        if (rankingLeaderboard.isReady()) {
+            for (UUID agentId : agentIds) {
+                liveStanding(Constants.RoleEnum.SALESAGENT, agentId, month, year)
+                        .ifPresent(standing -> rankings.put(agentId, standing.position()));
+            }
+            return rankings;
+        }
+        // Nightly positions until the leaderboard is loaded, one $in query for all of them
+        for (var performance : individualSalesAgentPerformanceMonthRepository.findAllByAgentIdInAndMonthAndYear(agentIds, month, year)) {
+            if (performance.getRankingPosition() != null) {
+                rankings.put(performance.getAgentId(), performance.getRankingPosition());
+            }
+        }
+        return rankings;
+    }
+
     @Override
     public IndividualSalesAgentPerformanceCareer getSaleAgentCareer(UUID agentId) {
         return individualSalesAgentPerformanceCareerRepository.findByAgentId(agentId);
@@ -99,9 +255,16 @@ public class RankingServiceImpl implements RankingService {
 
     @Override
     public IndividualCustomerPotentialMonth getCustomerMonth(UUID customerId, int month, int year) {
-        return individualCustomerPotentialMonthRepository.findByCustomerIdAndMonthAndYear(
+        IndividualCustomerPotentialMonth potential = individualCustomerPotentialMonthRepository.findByCustomerIdAndMonthAndYear(
                 customerId, month, year
         );
+        if (potential != null) {
+            liveStanding(Constants.RoleEnum.CUSTOMER, customerId, month, year).ifPresent(standing -> {
+                potential.setLeadScore(standing.points());
+                potential.setLeadPosition(standing.position());
+            });
+        }
+        return potential;
     }
 
     @Override
@@ -129,9 +292,16 @@ public class RankingServiceImpl implements RankingService {
 
     @Override
     public IndividualPropertyOwnerContributionMonth getPropertyOwnerMonth(UUID propertyOwnerId, int month, int year) {
-        return individualPropertyOwnerContributionMonthRepository.findByOwnerIdAndMonthAndYear(
+        IndividualPropertyOwnerContributionMonth contribution = individualPropertyOwnerContributionMonthRepository.findByOwnerIdAndMonthAndYear(
                 propertyOwnerId, month, year
         );
+        if (contribution != null) {
+            liveStanding(Constants.RoleEnum.PROPERTY_OWNER, propertyOwnerId, month, year).ifPresent(standing -> {
+                contribution.setContributionPoint(standing.points());
+                contribution.setRankingPosition(standing.position());
+            });
+        }
+        return contribution;
     }
 
     @Override
@@ -157,216 +327,102 @@ public class RankingServiceImpl implements RankingService {
     }
 
     @Override
-    @Async
-    public void agentAction(UUID agentId, Constants.AgentActionEnum actionType, BigDecimal amount) {
-        int month = LocalDateTime.now().getMonthValue();
-        int year = LocalDateTime.now().getYear();
-
-        IndividualSalesAgentPerformanceMonth performance =
-            individualSalesAgentPerformanceMonthRepository.findByAgentIdAndMonthAndYear(agentId, month, year);
-
-        if (performance == null) {
-            // Create new record if not exists
-            performance = IndividualSalesAgentPerformanceMonth.builder()
-                .agentId(agentId)
-                .month(month)
-                .year(year)
-                .monthPropertiesAssigned(0)
-                .monthAppointmentsAssigned(0)
-                .monthAppointmentsCompleted(0)
-                .monthContracts(0)
-                .monthRates(0)
-                .build();
+    public Page<LeaderboardEntryResponse> getLeaderboard(Constants.RoleEnum role, int month, int year, Pageable pageable) {
+        if (pageable.getPageSize() > RankingLeaderboard.MAX_PAGE_SIZE) {
+            pageable = PageRequest.of(pageable.getPageNumber(), RankingLeaderboard.MAX_PAGE_SIZE);
         }
+        Page<RankingLeaderboard.Standing> standings = rankingLeaderboard.getPage(role, month, year, pageable);
+        return new PageImpl<>(toLeaderboardEntries(standings.getContent()), pageable, standings.getTotalElements());
+    }
 
-        switch (actionType) {
-            case PROPERTY_ASSIGNED -> {
-                performance.setMonthPropertiesAssigned(
-                    (performance.getMonthPropertiesAssigned() != null ? performance.getMonthPropertiesAssigned() : 0) + 1
-                );
-                performance.setHandlingProperties(
-                    (performance.getHandlingProperties() != null ? performance.getHandlingProperties() : 0) + 1
-                );
-            }
-            case APPOINTMENT_ASSIGNED -> {
-                performance.setMonthAppointmentsAssigned(
-                    (performance.getMonthAppointmentsAssigned() != null ? performance.getMonthAppointmentsAssigned() : 0) + 1
-                );
-                performance.setHandlingProperties(
-                    (performance.getHandlingProperties() != null ? performance.getHandlingProperties() : 0) + 1
-                );
-            }
-            case APPOINTMENT_COMPLETED ->
-                performance.setMonthAppointmentsCompleted(
-                    (performance.getMonthAppointmentsCompleted() != null ? performance.getMonthAppointmentsCompleted() : 0) + 1
-                );
-            case APPOINTMENT_CANCELLED -> {
-                performance.setHandlingProperties(
-                    Math.max(0, (performance.getHandlingProperties() != null ? performance.getHandlingProperties() : 0) - 1)
-                );
-            }
-            case CONTRACT_SIGNED ->
-                performance.setMonthContracts(
-                    (performance.getMonthContracts() != null ? performance.getMonthContracts() : 0) + 1
-                );
-            case RATED -> {
-                int currentRates = (performance.getMonthRates() != null ? performance.getMonthRates() : 0);
-                BigDecimal currentAvgRating = (performance.getAvgRating() != null ? performance.getAvgRating() : BigDecimal.ZERO);
-
-                // Calculate new average rating
-                BigDecimal totalRating = currentAvgRating.multiply(BigDecimal.valueOf(currentRates));
-                totalRating = totalRating.add(amount);
-                int newRatesCount = currentRates + 1;
-                BigDecimal newAvgRating = totalRating.divide(BigDecimal.valueOf(newRatesCount), 2, RoundingMode.HALF_UP);
-
-                performance.setMonthRates(newRatesCount);
-                performance.setAvgRating(newAvgRating);
-
-                // Calculate customer satisfaction percentage (ratings > 3 stars are satisfied)
-                BigDecimal currentSatisfactionAvg = (performance.getMonthCustomerSatisfactionAvg() != null
-                    ? performance.getMonthCustomerSatisfactionAvg()
-                    : BigDecimal.ZERO);
-
-                int satisfiedCount = currentSatisfactionAvg.multiply(BigDecimal.valueOf(currentRates))
-                    .divide(BigDecimal.valueOf(100), 0, RoundingMode.HALF_UP)
-                    .intValue();
-
-                if (amount.compareTo(BigDecimal.valueOf(3)) > 0) {
-                    satisfiedCount++;
-                }
-
-                BigDecimal newSatisfactionAvg = BigDecimal.valueOf(satisfiedCount)
-                    .multiply(BigDecimal.valueOf(100))
-                    .divide(BigDecimal.valueOf(newRatesCount), 2, RoundingMode.HALF_UP);
+    @Override
+    public List<LeaderboardEntryResponse> getMyLeaderboardNeighbours(Constants.RoleEnum role, int month, int year, int radius) {
+        int boundedRadius = Math.max(0, Math.min(radius, RankingLeaderboard.MAX_PAGE_SIZE / 2));
+        return toLeaderboardEntries(rankingLeaderboard.getAround(role, month, year, userService.getUserId(), boundedRadius));
+    }
 
-                performance.setMonthCustomerSatisfactionAvg(newSatisfactionAvg);
-            }
-        }
+    private Optional<RankingLeaderboard.Standing> liveStanding(Constants.RoleEnum role, UUID userId, int month, int year) {
+        return rankingLeaderboard.isReady()
+                ? rankingLeaderboard.getStanding(role, month, year, userId)
+                : Optional.empty();
+    }
 
-        individualSalesAgentPerformanceMonthRepository.save(performance);
+    private List<LeaderboardEntryResponse> toLeaderboardEntries(List<RankingLeaderboard.Standing> standings) {
+        // One query for the names of the whole page
+        Map<UUID, User> users = userRepository.findAllById(
+                standings.stream().map(RankingLeaderboard.Standing::userId).toList()
+        ).stream().collect(Collectors.toMap(User::getId, Function.identity()));
+
+        return standings.stream().map(standing -> {
+            User user = users.get(standing.userId());
+            return LeaderboardEntryResponse.builder()
+                    .userId(standing.userId())
+                    .fullName(user != null ? user.getFirstName() + " " + user.getLastName() : null)
+                    .avatarUrl(user != null ? user.getAvatarUrl() : null)
+                    .position(standing.position())
+                    .points(standing.points())
+                    .tier(RankingUtil.getCustomerTier(standing.points()))
+                    .build();
+        }).toList();
     }
 
+    // Actions only buffer their deltas, RankingActionBuffer writes them behind in bulk
     @Override
-    @Async
-    public void customerAction(UUID customerId, Constants.CustomerActionEnum actionType, BigDecimal amount) {
-        int month = LocalDateTime.now().getMonthValue();
-        int year = LocalDateTime.now().getYear();
-
-        IndividualCustomerPotentialMonth potential =
-            individualCustomerPotentialMonthRepository.findByCustomerIdAndMonthAndYear(customerId, month, year);
-
-        if (potential == null) {
-            // Create new record if not exists
-            potential = IndividualCustomerPotentialMonth.builder()
-                .customerId(customerId)
-                .month(month)
-                .year(year)
-                .monthViewingsRequested(0)
-                .monthViewingAttended(0)
-                .monthPurchases(0)
-                .monthRentals(0)
-                .monthContractsSigned(0)
-                .build();
+    public void agentAction(UUID agentId, Constants.AgentActionEnum actionType, BigDecimal amount) {
+        if (actionType == Constants.AgentActionEnum.RATED && amount == null) {
+            log.warn("agentAction - RATED without a rating for agent {}", agentId);
+            return;
         }
 
-        switch (actionType) {
-            case VIEWING_REQUESTED -> {
-                potential.setMonthViewingsRequested(
-                    (potential.getMonthViewingsRequested() != null ? potential.getMonthViewingsRequested() : 0) + 1
-                );
-            }
-            case VIEWING_ATTENDED -> {
-                potential.setMonthViewingAttended(
-                    (potential.getMonthViewingAttended() != null ? potential.getMonthViewingAttended() : 0) + 1
-                );
-            }
-            case VIEWING_CANCELLED -> {
-                potential.setMonthViewingsRequested(
-                    Math.max(0, (potential.getMonthViewingsRequested() != null ? potential.getMonthViewingsRequested() : 0) - 1)
-                );
-            }
-            case PURCHASE_MADE -> {
-                potential.setMonthPurchases(
-                    (potential.getMonthPurchases() != null ? potential.getMonthPurchases() : 0) + 1
-                );
-            }
-            case SPENDING_MADE -> {
-                BigDecimal currentSpending = (potential.getMonthSpending() != null ? potential.getMonthSpending() : BigDecimal.ZERO);
-                potential.setMonthSpending(currentSpending.add(amount));
-            }
-            case RENTAL_MADE -> {
-                potential.setMonthRentals(
-                    (potential.getMonthRentals() != null ? potential.getMonthRentals() : 0) + 1
-                );
-            }
-            case CONTRACT_SIGNED -> {
-                potential.setMonthContractsSigned(
-                    (potential.getMonthContractsSigned() != null ? potential.getMonthContractsSigned() : 0) + 1
-                );
-            }
-        }
+        rankingActionBuffer.recordAgent(agentId, switch (actionType) {
+            case PROPERTY_ASSIGNED -> Map.of(
+                    "month_properties_assigned", 1,
+                    "handling_properties", 1
+            );
+            case APPOINTMENT_ASSIGNED -> Map.of(
+                    "month_appointments_assigned", 1,
+                    "handling_properties", 1
+            );
+            case APPOINTMENT_COMPLETED -> Map.of("month_appointments_completed", 1);
+            case APPOINTMENT_CANCELLED -> Map.of("handling_properties", -1);
+            case CONTRACT_SIGNED -> Map.of("month_contracts", 1);
+            // Average rating and satisfaction are derived from these counters when read
+            case RATED -> Map.of(
+                    "month_rates", 1,
+                    "rating_sum", amount,
+                    // ratings > 3 stars are satisfied
+                    "month_satisfied_rates", amount.compareTo(BigDecimal.valueOf(3)) > 0 ? 1 : 0
+            );
+        });
+    }
 
-        individualCustomerPotentialMonthRepository.save(potential);
+    @Override
+    public void customerAction(UUID customerId, Constants.CustomerActionEnum actionType, BigDecimal amount) {
+        rankingActionBuffer.recordCustomer(customerId, switch (actionType) {
+            case VIEWING_REQUESTED -> Map.of("month_viewings_requested", 1);
+            case VIEWING_ATTENDED -> Map.of("month_viewings_attended", 1);
+            case VIEWING_CANCELLED -> Map.of("month_viewings_requested", -1);
+            case PURCHASE_MADE -> Map.of("month_purchases", 1);
+            case SPENDING_MADE -> Map.of("month_spending", amount != null ? amount : BigDecimal.ZERO);
+            case RENTAL_MADE -> Map.of("month_rentals", 1);
+            case CONTRACT_SIGNED -> Map.of("month_contracts_signed", 1);
+        });
     }
 
     @Override
-    @Async
     public void propertyOwnerAction(UUID ownerId, Constants.PropertyOwnerActionEnum actionType, BigDecimal amount) {
-        int month = LocalDateTime.now().getMonthValue();
-        int year = LocalDateTime.now().getYear();
-
-        IndividualPropertyOwnerContributionMonth contribution =
-            individualPropertyOwnerContributionMonthRepository.findByOwnerIdAndMonthAndYear(ownerId, month, year);
-
-        if (contribution == null) {
-            // Create new record if not exists
-            contribution = IndividualPropertyOwnerContributionMonth.builder()
-                .ownerId(ownerId)
-                .month(month)
-                .year(year)
-                .monthTotalProperties(0)
-                .monthTotalForSales(0)
-                .monthTotalForRents(0)
-                .monthTotalPropertiesSold(0)
-                .monthTotalPropertiesRented(0)
-                .build();
-        }
-
-        switch (actionType) {
-            case PROPERTY_FOR_SALE_LISTED -> {
-                contribution.setMonthTotalProperties(
-                    (contribution.getMonthTotalProperties() != null ? contribution.getMonthTotalProperties() : 0) + 1
-                );
-                contribution.setMonthTotalForSales(
-                    (contribution.getMonthTotalForSales() != null ? contribution.getMonthTotalForSales() : 0) + 1
-                );
-            }
-            case PROPERTY_FOR_RENT_LISTED -> {
-                contribution.setMonthTotalProperties(
-                    (contribution.getMonthTotalProperties() != null ? contribution.getMonthTotalProperties() : 0) + 1
-                );
-                contribution.setMonthTotalForRents(
-                    (contribution.getMonthTotalForRents() != null ? contribution.getMonthTotalForRents() : 0) + 1
-                );
-            }
-            case PROPERTY_SOLD -> {
-                contribution.setMonthTotalPropertiesSold(
-                    (contribution.getMonthTotalPropertiesSold() != null ? contribution.getMonthTotalPropertiesSold() : 0) + 1
-                );
-            }
-            case PROPERTY_RENTED -> {
-                contribution.setMonthTotalPropertiesRented(
-                    (contribution.getMonthTotalPropertiesRented() != null ? contribution.getMonthTotalPropertiesRented() : 0) + 1
-                );
-            }
-            case MONEY_RECEIVED -> {
-                BigDecimal currentContribution = (contribution.getMonthContributionValue() != null
-                    ? contribution.getMonthContributionValue()
-                    : BigDecimal.ZERO);
-                contribution.setMonthContributionValue(currentContribution.add(amount));
-            }
-        }
-
-        individualPropertyOwnerContributionMonthRepository.save(contribution);
+        rankingActionBuffer.recordPropertyOwner(ownerId, switch (actionType) {
+            case PROPERTY_FOR_SALE_LISTED -> Map.of(
+                    "month_total_properties", 1,
+                    "month_total_for_sales", 1
+            );
+            case PROPERTY_FOR_RENT_LISTED -> Map.of(
+                    "month_total_properties", 1,
+                    "month_total_for_rents", 1
+            );
+            case PROPERTY_SOLD -> Map.of("month_total_properties_sold", 1);
+            case PROPERTY_RENTED -> Map.of("month_total_properties_rented", 1);
+            case MONEY_RECEIVED -> Map.of("month_contribution_value", amount != null ? amount : BigDecimal.ZERO);
+        });
     }
 }
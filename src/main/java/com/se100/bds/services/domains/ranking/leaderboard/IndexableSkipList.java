@@ -0,0 +1,167 @@
+package com.se100.bds.services.domains.ranking.leaderboard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sorted list with O(log n) insert, remove, "how many elements sort before x" and "element at index i".
+ * <p>
+ * A skip list whose forward links also store their width (the number of bottom-level steps they skip),
+ * so a search can add up positions on the way down. Elements must be unique under the comparator.
+ * Not thread-safe, callers guard it.
+ */
+class IndexableSkipList<E> {
+    private static final int MAX_LEVEL = 32;
+
+    private final Comparator<? super E> comparator;
+    private final Node<E> head = new Node<>(null, MAX_LEVEL);
+    private int level = 1;
+    private int size;
+
+    // width[i] is the distance to next[i], or to one past the last element when next[i] is null
+    private static final class Node<E> {
+        final E value;
+        final Node<E>[] next;
+        final int[] width;
+
+        @SuppressWarnings("unchecked")
+        Node(E value, int level) {
+            this.value = value;
+            this.next = new Node[level];
+            this.width = new int[level];
+        }
+    }
+
+    IndexableSkipList(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+        head.width[0] = 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(E value) {
+        @SuppressWarnings("unchecked")
+        Node<E>[] update = new Node[MAX_LEVEL];
+        int[] positions = new int[MAX_LEVEL];
+
+        Node<E> x = head;
+        int position = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && comparator.compare(x.next[i].value, value) < 0) {
+                position += x.width[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+            positions[i] = position;
+        }
+
+        int nodeLevel = randomLevel();
+        if (nodeLevel > level) {
+            for (int i = level; i < nodeLevel; i++) {
+                update[i] = head;
+                positions[i] = 0;
+                head.width[i] = size + 1;
+            }
+            level = nodeLevel;
+        }
+
+        Node<E> node = new Node<>(value, nodeLevel);
+        for (int i = 0; i < nodeLevel; i++) {
+            int skipped = position - positions[i];
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.width[i] = update[i].width[i] - skipped;
+            update[i].width[i] = skipped + 1;
+        }
+        for (int i = nodeLevel; i < level; i++) {
+            update[i].width[i]++;
+        }
+        size++;
+    }
+
+    boolean remove(E value) {
+        @SuppressWarnings("unchecked")
+        Node<E>[] update = new Node[MAX_LEVEL];
+
+        Node<E> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && comparator.compare(x.next[i].value, value) < 0) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        Node<E> target = x.next[0];
+        if (target == null || comparator.compare(target.value, value) != 0) {
+            return false;
+        }
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == target) {
+                update[i].width[i] += target.width[i] - 1;
+                update[i].next[i] = target.next[i];
+            } else {
+                update[i].width[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        size--;
+        return true;
+    }
+
+    // Number of elements that sort strictly before the probe, which does not need to be in the list
+    int countBefore(E probe) {
+        Node<E> x = head;
+        int position = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && comparator.compare(x.next[i].value, probe) < 0) {
+                position += x.width[i];
+                x = x.next[i];
+            }
+        }
+        return position;
+    }
+
+    // Up to limit elements starting at the zero-based offset
+    List<E> range(int offset, int limit) {
+        List<E> result = new ArrayList<>(Math.max(0, Math.min(limit, size - offset)));
+        if (offset < 0 || offset >= size || limit <= 0) {
+            return result;
+        }
+
+        int target = offset + 1;
+        Node<E> x = head;
+        int position = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && position + x.width[i] <= target) {
+                position += x.width[i];
+                x = x.next[i];
+            }
+        }
+        for (; x != null && result.size() < limit; x = x.next[0]) {
+            result.add(x.value);
+        }
+        return result;
+    }
+
+    void clear() {
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            head.next[i] = null;
+            head.width[i] = 0;
+        }
+        head.width[0] = 1;
+        level = 1;
+        size = 0;
+    }
+
+    // Level i + 1 with probability 2^-(i + 1)
+    private static int randomLevel() {
+        int bits = ThreadLocalRandom.current().nextInt() | (1 << (MAX_LEVEL - 1));
+        return Math.min(Integer.numberOfTrailingZeros(bits) + 1, MAX_LEVEL);
+    }
+}
@@ -0,0 +1,380 @@
+package com.se100.bds.services.domains.ranking.leaderboard;
+
+import com.se100.bds.exceptions.ServiceNotReadyException;
+import com.se100.bds.models.schemas.ranking.IndividualCustomerPotentialMonth;
+import com.se100.bds.models.schemas.ranking.IndividualPropertyOwnerContributionMonth;
+import com.se100.bds.models.schemas.ranking.IndividualSalesAgentPerformanceMonth;
+import com.se100.bds.repositories.domains.mongo.ranking.IndividualCustomerPotentialMonthRepository;
+import com.se100.bds.repositories.domains.mongo.ranking.IndividualPropertyOwnerContributionMonthRepository;
+import com.se100.bds.repositories.domains.mongo.ranking.IndividualSalesAgentPerformanceMonthRepository;
+import com.se100.bds.services.domains.ranking.utils.RankingUtil;
+import com.se100.bds.utils.Constants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Live monthly leaderboards of sales agents, customers and property owners.
+ * <p>
+ * Each (role, month) board keeps the users ordered by points in an {@link IndexableSkipList}, so the
+ * position of a user and any page of the ranking cost O(log n). Boards are loaded from Mongo with the same
+ * formulas as the nightly schedulers and re-scored on every ranking action, instead of waiting for midnight.
+ * Month-wide benchmarks (average spending, transactions, revenue) are snapshotted when a board is loaded and
+ * refreshed by the nightly rebuild.
+ * <p>
+ * Live boards cover the current and the previous month. Updates published while a board loads are replayed onto
+ * it before it replaces the old one, so a reload never loses them.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RankingLeaderboard {
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final long RETRY_AFTER_SECONDS = 5;
+    private static final long LOAD_RETRY_SECONDS = 30;
+
+    private static final UUID LOWEST_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+    // Points descending, ties broken by id so entries stay unique
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::points).reversed()
+            .thenComparing(Entry::userId);
+
+    private final IndividualSalesAgentPerformanceMonthRepository individualSalesAgentPerformanceMonthRepository;
+    private final IndividualCustomerPotentialMonthRepository individualCustomerPotentialMonthRepository;
+    private final IndividualPropertyOwnerContributionMonthRepository individualPropertyOwnerContributionMonthRepository;
+    private final TaskScheduler taskScheduler;
+
+    private final Map<BoardKey, Board> boards = new ConcurrentHashMap<>();
+    // Scores published while a board loads, by board and user. Guarded by itself
+    private final Map<BoardKey, Map<UUID, Function<Board, Integer>>> loading = new HashMap<>();
+    private volatile boolean ready = false;
+
+    private record BoardKey(Constants.RoleEnum role, YearMonth month) {}
+
+    private record Entry(UUID userId, int points) {}
+
+    // position follows the nightly tie handling: equal points share a position (1, 1, 3)
+    public record Standing(UUID userId, int position, int points) {}
+
+    private static final class Board {
+        final IndexableSkipList<Entry> ranking = new IndexableSkipList<>(ORDER);
+        final Map<UUID, Entry> entries = new HashMap<>();
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        // Extra point earned by last month's tier
+        final Map<UUID, Integer> extraPoints;
+        final BigDecimal avgSpendingBenchmark;
+        final double avgTransactionBenchmark;
+        final BigDecimal avgRevenueBenchmark;
+
+        Board(Map<UUID, Integer> extraPoints, BigDecimal avgSpendingBenchmark,
+              double avgTransactionBenchmark, BigDecimal avgRevenueBenchmark) {
+            this.extraPoints = extraPoints;
+            this.avgSpendingBenchmark = avgSpendingBenchmark;
+            this.avgTransactionBenchmark = avgTransactionBenchmark;
+            this.avgRevenueBenchmark = avgRevenueBenchmark;
+        }
+
+        int extraPoint(UUID userId) {
+            return extraPoints.getOrDefault(userId, 0);
+        }
+
+        // Callers hold the write lock, or own the board before it is published
+        void put(UUID userId, int points) {
+            Entry previous = entries.get(userId);
+            if (previous != null) {
+                if (previous.points() == points) {
+                    return;
+                }
+                ranking.remove(previous);
+            }
+            Entry entry = new Entry(userId, points);
+            entries.put(userId, entry);
+            ranking.add(entry);
+        }
+
+        int position(int points) {
+            return ranking.countBefore(new Entry(LOWEST_ID, points)) + 1;
+        }
+
+        List<Standing> standings(int offset, int limit) {
+            List<Entry> slice = ranking.range(offset, limit);
+            List<Standing> result = new ArrayList<>(slice.size());
+            int position = 0;
+            Integer previousPoints = null;
+            for (int i = 0; i < slice.size(); i++) {
+                Entry entry = slice.get(i);
+                if (previousPoints == null) {
+                    position = position(entry.points());
+                } else if (previousPoints != entry.points()) {
+                    position = offset + i + 1;
+                }
+                result.add(new Standing(entry.userId(), position, entry.points()));
+                previousPoints = entry.points();
+            }
+            return result;
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        loadCurrentBoards();
+    }
+
+    // Called after the nightly scheduler run: fresh benchmarks and tiers, older boards dropped
+    public void rebuild(Constants.RoleEnum role) {
+        YearMonth currentMonth = YearMonth.now();
+        loadBoard(new BoardKey(role, currentMonth));
+        // The closed month was re-scored as well, it is loaded again on its next read
+        boards.keySet().removeIf(key -> key.role() == role && !key.month().equals(currentMonth));
+    }
+
+    public void onAgentMonth(IndividualSalesAgentPerformanceMonth performance) {
+        update(Constants.RoleEnum.SALESAGENT, performance.getMonth(), performance.getYear(), performance.getAgentId(),
+                board -> RankingUtil.agentPerformancePoint(performance, board.extraPoint(performance.getAgentId())));
+    }
+
+    public void onCustomerMonth(IndividualCustomerPotentialMonth potential) {
+        update(Constants.RoleEnum.CUSTOMER, potential.getMonth(), potential.getYear(), potential.getCustomerId(),
+                board -> RankingUtil.customerLeadScore(potential, board.avgSpendingBenchmark, board.extraPoint(potential.getCustomerId())));
+    }
+
+    public void onPropertyOwnerMonth(IndividualPropertyOwnerContributionMonth contribution) {
+        update(Constants.RoleEnum.PROPERTY_OWNER, contribution.getMonth(), contribution.getYear(), contribution.getOwnerId(),
+                board -> RankingUtil.ownerContributionPoint(contribution, board.avgTransactionBenchmark,
+                        board.avgRevenueBenchmark, board.extraPoint(contribution.getOwnerId())));
+    }
+
+    // Empty when the user has no row for that month, or the month has no live board
+    public Optional<Standing> getStanding(Constants.RoleEnum role, int month, int year, UUID userId) {
+        if (month < 1 || month > 12 || !isLive(YearMonth.of(year, month))) {
+            return Optional.empty();
+        }
+        Board board = board(role, month, year);
+        board.lock.readLock().lock();
+        try {
+            Entry entry = board.entries.get(userId);
+            return entry == null
+                    ? Optional.empty()
+                    : Optional.of(new Standing(userId, board.position(entry.points()), entry.points()));
+        } finally {
+            board.lock.readLock().unlock();
+        }
+    }
+
+    public Page<Standing> getPage(Constants.RoleEnum role, int month, int year, Pageable pageable) {
+        Board board = board(role, month, year);
+        board.lock.readLock().lock();
+        try {
+            int offset = (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE);
+            return new PageImpl<>(board.standings(offset, pageable.getPageSize()), pageable, board.ranking.size());
+        } finally {
+            board.lock.readLock().unlock();
+        }
+    }
+
+    // The user with up to radius neighbours on each side; empty when the user has no row for that month
+    public List<Standing> getAround(Constants.RoleEnum role, int month, int year, UUID userId, int radius) {
+        Board board = board(role, month, year);
+        board.lock.readLock().lock();
+        try {
+            Entry entry = board.entries.get(userId);
+            if (entry == null) {
+                return List.of();
+            }
+            int index = board.ranking.countBefore(entry);
+            int offset = Math.max(0, index - radius);
+            return board.standings(offset, index - offset + radius + 1);
+        } finally {
+            board.lock.readLock().unlock();
+        }
+    }
+
+    private void update(Constants.RoleEnum role, Integer month, Integer year, UUID userId, Function<Board, Integer> score) {
+        if (month == null || year == null || userId == null) {
+            return;
+        }
+        BoardKey key = new BoardKey(role, YearMonth.of(year, month));
+        Board board;
+        synchronized (loading) {
+            Map<UUID, Function<Board, Integer>> pending = loading.get(key);
+            if (pending != null) {
+                pending.put(userId, score);
+            }
+            board = boards.get(key);
+        }
+        // Boards that are not loaded yet will read the saved row when they are
+        if (board == null) {
+            return;
+        }
+        board.lock.writeLock().lock();
+        try {
+            board.put(userId, score.apply(board));
+        } finally {
+            board.lock.writeLock().unlock();
+        }
+    }
+
+    private Board board(Constants.RoleEnum role, int month, int year) {
+        if (month < 1 || month > 12) {
+            throw new IllegalArgumentException("Month must be between 1 and 12");
+        }
+        YearMonth yearMonth = YearMonth.of(year, month);
+        if (!isLive(yearMonth)) {
+            throw new IllegalArgumentException("Live leaderboards cover the current and the previous month only");
+        }
+        if (!ready) {
+            throw new ServiceNotReadyException("Leaderboard is still loading, please retry shortly", RETRY_AFTER_SECONDS);
+        }
+        BoardKey key = new BoardKey(role, yearMonth);
+        Board board = boards.get(key);
+        return board != null ? board : loadIfAbsent(key);
+    }
+
+    private static boolean isLive(YearMonth yearMonth) {
+        YearMonth currentMonth = YearMonth.now();
+        return yearMonth.equals(currentMonth) || yearMonth.equals(currentMonth.minusMonths(1));
+    }
+
+    private void loadCurrentBoards() {
+        try {
+            YearMonth currentMonth = YearMonth.now();
+            for (Constants.RoleEnum role : List.of(Constants.RoleEnum.SALESAGENT, Constants.RoleEnum.CUSTOMER, Constants.RoleEnum.PROPERTY_OWNER)) {
+                loadBoard(new BoardKey(role, currentMonth));
+            }
+            ready = true;
+        } catch (RuntimeException e) {
+            log.error("Leaderboard load failed, retrying in {} s: {}", LOAD_RETRY_SECONDS, e.getMessage());
+            taskScheduler.schedule(this::loadCurrentBoards, Instant.now().plusSeconds(LOAD_RETRY_SECONDS));
+        }
+    }
+
+    private synchronized Board loadIfAbsent(BoardKey key) {
+        Board board = boards.get(key);
+        return board != null ? board : loadBoard(key);
+    }
+
+    // Loads are serialized, a reload and an on-demand load of the same board never overlap
+    private synchronized Board loadBoard(BoardKey key) {
+        synchronized (loading) {
+            loading.put(key, new HashMap<>());
+        }
+        Board board;
+        try {
+            board = load(key.role(), key.month());
+        } catch (RuntimeException e) {
+            synchronized (loading) {
+                loading.remove(key);
+            }
+            throw e;
+        }
+        synchronized (loading) {
+            // Rows saved after the snapshot was read, scored with the new board's benchmarks
+            loading.remove(key).forEach((userId, score) -> board.put(userId, score.apply(board)));
+            boards.put(key, board);
+        }
+        return board;
+    }
+
+    private Board load(Constants.RoleEnum role, YearMonth yearMonth) {
+        long start = System.currentTimeMillis();
+        int month = yearMonth.getMonthValue();
+        int year = yearMonth.getYear();
+        YearMonth previous = yearMonth.minusMonths(1);
+
+        Board board;
+        switch (role) {
+            case SALESAGENT -> {
+                List<IndividualSalesAgentPerformanceMonth> rows = individualSalesAgentPerformanceMonthRepository.findAllByMonthAndYear(month, year);
+                board = new Board(extraPoints(
+                        individualSalesAgentPerformanceMonthRepository.findAllByMonthAndYear(previous.getMonthValue(), previous.getYear()),
+                        IndividualSalesAgentPerformanceMonth::getAgentId,
+                        m -> m.getPerformanceTier() != null ? m.getPerformanceTier().getValue() : null
+                ), BigDecimal.ZERO, 0, BigDecimal.ZERO);
+                for (IndividualSalesAgentPerformanceMonth row : rows) {
+                    if (row.getAgentId() != null) {
+                        board.put(row.getAgentId(), RankingUtil.agentPerformancePoint(row, board.extraPoint(row.getAgentId())));
+                    }
+                }
+            }
+            case CUSTOMER -> {
+                List<IndividualCustomerPotentialMonth> rows = individualCustomerPotentialMonthRepository.findAllByMonthAndYear(month, year);
+                BigDecimal totalSpending = rows.stream()
+                        .map(m -> RankingUtil.orZero(m.getMonthSpending()))
+                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                board = new Board(extraPoints(
+                        individualCustomerPotentialMonthRepository.findAllByMonthAndYear(previous.getMonthValue(), previous.getYear()),
+                        IndividualCustomerPotentialMonth::getCustomerId,
+                        m -> m.getCustomerTier() != null ? m.getCustomerTier().getValue() : null
+                ), average(totalSpending, rows.size()), 0, BigDecimal.ZERO);
+                for (IndividualCustomerPotentialMonth row : rows) {
+                    if (row.getCustomerId() != null) {
+                        board.put(row.getCustomerId(), RankingUtil.customerLeadScore(row, board.avgSpendingBenchmark, board.extraPoint(row.getCustomerId())));
+                    }
+                }
+            }
+            case PROPERTY_OWNER -> {
+                List<IndividualPropertyOwnerContributionMonth> rows = individualPropertyOwnerContributionMonthRepository.findAllByMonthAndYear(month, year);
+                int totalTransactions = rows.stream().mapToInt(RankingUtil::ownerTransactions).sum();
+                BigDecimal totalRevenue = rows.stream()
+                        .map(m -> RankingUtil.orZero(m.getMonthContributionValue()))
+                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                board = new Board(extraPoints(
+                        individualPropertyOwnerContributionMonthRepository.findAllByMonthAndYear(previous.getMonthValue(), previous.getYear()),
+                        IndividualPropertyOwnerContributionMonth::getOwnerId,
+                        m -> m.getContributionTier() != null ? m.getContributionTier().getValue() : null
+                ), BigDecimal.ZERO, rows.isEmpty() ? 0 : (double) totalTransactions / rows.size(), average(totalRevenue, rows.size()));
+                for (IndividualPropertyOwnerContributionMonth row : rows) {
+                    if (row.getOwnerId() != null) {
+                        board.put(row.getOwnerId(), RankingUtil.ownerContributionPoint(row, board.avgTransactionBenchmark,
+                                board.avgRevenueBenchmark, board.extraPoint(row.getOwnerId())));
+                    }
+                }
+            }
+            default -> throw new IllegalArgumentException("No leaderboard for role: " + role);
+        }
+
+        log.info("Leaderboard {} {}/{} loaded with {} users in {} ms", role, month, year, board.ranking.size(), System.currentTimeMillis() - start);
+        return board;
+    }
+
+    private static <T> Map<UUID, Integer> extraPoints(List<T> previousRows, Function<T, UUID> userId, Function<T, String> tier) {
+        Map<UUID, Integer> extraPoints = new HashMap<>();
+        for (T row : previousRows) {
+            String previousTier = tier.apply(row);
+            if (userId.apply(row) != null && previousTier != null) {
+                extraPoints.putIfAbsent(userId.apply(row), RankingUtil.getExtraPoint(previousTier));
+            }
+        }
+        return extraPoints;
+    }
+
+    private static BigDecimal average(BigDecimal total, int count) {
+        return count > 0 ? total.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
+    }
+}
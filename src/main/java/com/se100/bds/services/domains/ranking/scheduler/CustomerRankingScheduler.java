@@ -3,267 +3,150 @@ package com.se100.bds.services.domains.ranking.scheduler;
 import com.se100.bds.models.entities.user.User;
 import com.se100.bds.models.schemas.ranking.IndividualCustomerPotentialAll;
 import com.se100.bds.models.schemas.ranking.IndividualCustomerPotentialMonth;
-import com.se100.bds.repositories.domains.mongo.ranking.IndividualCustomerPotentialAllRepository;
 import com.se100.bds.repositories.domains.mongo.ranking.IndividualCustomerPotentialMonthRepository;
+import com.se100.bds.services.domains.ranking.RankingService;
+import com.se100.bds.services.domains.ranking.leaderboard.RankingLeaderboard;
 import com.se100.bds.services.domains.user.UserService;
 import com.se100.bds.utils.Constants;
 import com.se100.bds.services.domains.ranking.utils.RankingUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.time.YearMonth;
+import java.util.*;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class CustomerRankingScheduler {
     private final IndividualCustomerPotentialMonthRepository individualCustomerPotentialMonthRepository;
-    private final IndividualCustomerPotentialAllRepository individualCustomerPotentialAllRepository;
     private final UserService userService;
+    private final RankingService rankingService;
+    private final RankingBulkWriter rankingBulkWriter;
+    private final RankingLeaderboard rankingLeaderboard;
 
     // Run every day at 00:00 AM (midnight)
-     @Scheduled(cron = "0 0 0 * * ?")
-     protected void calculateRanking() {
-        createIfNotExist();
-
-        calculateRankingMonth();
+    @Scheduled(cron = "0 0 0 * * ?")
+    protected void calculateRanking() {
+        YearMonth currentMonth = YearMonth.now();
+        List<YearMonth> scoredMonths = new ArrayList<>();
+        // The first run of a month closes out the previous one so its last day is scored and ranked as well
+        if (LocalDate.now().getDayOfMonth() == 1) {
+            calculateRankingMonth(currentMonth.minusMonths(1), List.of());
+            scoredMonths.add(currentMonth.minusMonths(1));
+        }
+        calculateRankingMonth(currentMonth, userService.findAllByRoleAndStillAvailable(Constants.RoleEnum.CUSTOMER));
+        scoredMonths.add(currentMonth);
         calculateRankingAll();
-        calculateRankingPosition();
+        calculateRankingPosition(scoredMonths);
+        rankingService.refreshTierCache(Constants.RoleEnum.CUSTOMER);
+        rankingLeaderboard.rebuild(Constants.RoleEnum.CUSTOMER);
     }
     
-    private void calculateRankingMonth() {
-
-        List<IndividualCustomerPotentialMonth> customerPerformanceMonthList = individualCustomerPotentialMonthRepository.findAll();
-        for (IndividualCustomerPotentialMonth customerPerformanceMonth : customerPerformanceMonthList) {
-            updatePointMonth(customerPerformanceMonth);
+    private void calculateRankingMonth(YearMonth yearMonth, List<User> availableCustomers) {
+        int month = yearMonth.getMonthValue();
+        int year = yearMonth.getYear();
+        YearMonth previous = yearMonth.minusMonths(1);
+
+        // Two queries: this month's counters and last month's tiers for the extra point
+        Map<UUID, IndividualCustomerPotentialMonth> currentByCustomer = new LinkedHashMap<>();
+        for (IndividualCustomerPotentialMonth potential : individualCustomerPotentialMonthRepository.findAllByMonthAndYear(month, year)) {
+            if (potential.getCustomerId() != null) {
+                currentByCustomer.putIfAbsent(potential.getCustomerId(), potential);
+            }
         }
-
-        individualCustomerPotentialMonthRepository.saveAll(customerPerformanceMonthList);
-    }
-
-    private void calculateRankingAll() {
-        List<IndividualCustomerPotentialAll> customerPerformanceCareerList = individualCustomerPotentialAllRepository.findAll();
-        for (IndividualCustomerPotentialAll customerPerformanceCareer : customerPerformanceCareerList) {
-            updatePointAll(customerPerformanceCareer);
+        Map<UUID, Constants.CustomerTierEnum> previousTiers = new HashMap<>();
+        for (IndividualCustomerPotentialMonth potential : individualCustomerPotentialMonthRepository.findAllByMonthAndYear(previous.getMonthValue(), previous.getYear())) {
+            if (potential.getCustomerId() != null && potential.getCustomerTier() != null) {
+                previousTiers.putIfAbsent(potential.getCustomerId(), potential.getCustomerTier());
+            }
         }
 
-        individualCustomerPotentialAllRepository.saveAll(customerPerformanceCareerList);
-    }
-    
-    private void updatePointMonth(IndividualCustomerPotentialMonth individualCustomerPotentialMonth) {
-        // Get previous month data for ExtraPoint
-        LocalDateTime previousMonthTime = RankingUtil.getPreviousMonth(
-                individualCustomerPotentialMonth.getMonth(),
-                individualCustomerPotentialMonth.getYear()
-        );
-        IndividualCustomerPotentialMonth previousMonthData = individualCustomerPotentialMonthRepository.findByCustomerIdAndMonthAndYear(
-                individualCustomerPotentialMonth.getCustomerId(),
-                previousMonthTime.getMonthValue(), previousMonthTime.getYear()
-        );
-        int extraPoint = 0;
-        if (previousMonthData != null) {
-            extraPoint = RankingUtil.getExtraPoint(previousMonthData.getCustomerTier().getValue());
-        }
+        Set<UUID> customerIds = new LinkedHashSet<>(currentByCustomer.keySet());
+        availableCustomers.forEach(customer -> customerIds.add(customer.getId()));
 
-        // Calculate avg_spending_benchmark
-        List<IndividualCustomerPotentialMonth> allMonthData = individualCustomerPotentialMonthRepository.findAll().stream()
-                .filter(m -> m.getMonth().equals(individualCustomerPotentialMonth.getMonth()) && m.getYear().equals(individualCustomerPotentialMonth.getYear()))
-                .toList();
-        BigDecimal totalSpending = allMonthData.stream()
-                .map(IndividualCustomerPotentialMonth::getMonthSpending)
+        // avg_spending_benchmark is shared by every customer of the month, so it is computed once
+        BigDecimal totalSpending = currentByCustomer.values().stream()
+                .map(m -> RankingUtil.orZero(m.getMonthSpending()))
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
-        int totalCustomers = allMonthData.size();
-        BigDecimal avgSpendingBenchmark = totalCustomers > 0 ? totalSpending.divide(BigDecimal.valueOf(totalCustomers), 2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
-
-        // Calculate scores
-        int leadScore = calculateLeadScore(individualCustomerPotentialMonth, avgSpendingBenchmark, extraPoint);
-
-        // Set lead_score and tier
-        individualCustomerPotentialMonth.setLeadScore(leadScore);
-        Constants.CustomerTierEnum newTier = Constants.CustomerTierEnum.get(RankingUtil.getCustomerTier(leadScore));
-        individualCustomerPotentialMonth.setCustomerTier(newTier);
-    }
-
-    private static int calculateLeadScore(IndividualCustomerPotentialMonth individualCustomerPotentialMonth, BigDecimal avgSpendingBenchmark, int extraPoint) {
-        int viewingAttendedScore = individualCustomerPotentialMonth.getMonthViewingsRequested() > 0 ?
-                (int) ((double) individualCustomerPotentialMonth.getMonthViewingAttended() / individualCustomerPotentialMonth.getMonthViewingsRequested() * 100) : 0;
-
-        int totalContractsSigned = individualCustomerPotentialMonth.getMonthPurchases() + individualCustomerPotentialMonth.getMonthRentals();
-
-        int conversionScore = individualCustomerPotentialMonth.getMonthViewingAttended() > 0 ?
-                (int) ((double) totalContractsSigned / individualCustomerPotentialMonth.getMonthViewingAttended() * 100) : 0;
-
-        BigDecimal spendingScore = avgSpendingBenchmark.compareTo(BigDecimal.ZERO) > 0 ?
-                individualCustomerPotentialMonth.getMonthSpending().divide(avgSpendingBenchmark, 2, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100)) : BigDecimal.ZERO;
-        spendingScore = spendingScore.min(BigDecimal.valueOf(150));
-
-        int contractScore = Math.min(totalContractsSigned * 25, 100);
+        BigDecimal avgSpendingBenchmark = !customerIds.isEmpty()
+                ? totalSpending.divide(BigDecimal.valueOf(customerIds.size()), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+
+        RankingBulkWriter.Batch<IndividualCustomerPotentialMonth> batch = rankingBulkWriter.batch(IndividualCustomerPotentialMonth.class);
+        for (UUID customerId : customerIds) {
+            IndividualCustomerPotentialMonth potential = currentByCustomer.get(customerId);
+            Constants.CustomerTierEnum previousTier = previousTiers.get(customerId);
+            int extraPoint = previousTier != null ? RankingUtil.getExtraPoint(previousTier.getValue()) : 0;
+
+            int leadScore = potential != null ? RankingUtil.customerLeadScore(potential, avgSpendingBenchmark, extraPoint) : extraPoint;
+            Constants.CustomerTierEnum customerTier = Constants.CustomerTierEnum.get(RankingUtil.getCustomerTier(leadScore));
+
+            // Counters belong to customerAction, only brand-new rows get zeroed defaults
+            Update update = RankingBulkWriter.upsertUpdate()
+                    .set("lead_score", leadScore)
+                    .set("customer_tier", customerTier)
+                    .setOnInsert("lead_position", 0)
+                    .setOnInsert("month_viewings_requested", 0)
+                    .setOnInsert("month_viewings_attended", 0)
+                    .setOnInsert("month_spending", BigDecimal.ZERO)
+                    .setOnInsert("month_purchases", 0)
+                    .setOnInsert("month_rentals", 0)
+                    .setOnInsert("month_contracts_signed", 0);
+            batch.upsert(RankingBulkWriter.byUserAndMonth("customer_id", customerId, month, year), update);
+        }
 
-        // Calculate lead_score
-        double leadScoreDouble = (0.2 * viewingAttendedScore) + (0.2 * conversionScore) + (0.4 * spendingScore.doubleValue()) + (0.2 * contractScore) + extraPoint;
-        return (int) leadScoreDouble;
+        int written = batch.execute();
+        log.info("calculateRankingMonth - {}/{}: {} customers scored, {} rows written", month, year, customerIds.size(), written);
     }
 
-    private void updatePointAll(IndividualCustomerPotentialAll individualCustomerPotentialAll) {
-        int month = LocalDate.now().getMonthValue();
-        int year = LocalDate.now().getYear();
-
-        IndividualCustomerPotentialMonth currentMonthData = individualCustomerPotentialMonthRepository.findByCustomerIdAndMonthAndYear(
-                individualCustomerPotentialAll.getCustomerId(),
-                month, year
-        );
-
-        if (currentMonthData != null) {
-            individualCustomerPotentialAll.setLeadScore(
-                    individualCustomerPotentialAll.getLeadScore() +
-                    currentMonthData.getLeadScore());
-            individualCustomerPotentialAll.setViewingsRequested(
-                    individualCustomerPotentialAll.getViewingsRequested() +
-                    currentMonthData.getMonthViewingsRequested()
-            );
-            individualCustomerPotentialAll.setViewingsAttended(
-                    individualCustomerPotentialAll.getViewingsAttended() +
-                    currentMonthData.getMonthViewingAttended()
-            );
-            individualCustomerPotentialAll.setSpending(
-                    individualCustomerPotentialAll.getSpending().add(
-                            currentMonthData.getMonthSpending()
-                    )
-            );
-            individualCustomerPotentialAll.setTotalPurchases(
-                    individualCustomerPotentialAll.getTotalPurchases() +
-                    currentMonthData.getMonthPurchases()
-            );
-            individualCustomerPotentialAll.setTotalRentals(
-                    individualCustomerPotentialAll.getTotalRentals() +
-                    currentMonthData.getMonthRentals()
-            );
-            individualCustomerPotentialAll.setTotalContractsSigned(
-                    individualCustomerPotentialAll.getTotalContractsSigned() +
-                    currentMonthData.getMonthPurchases() + currentMonthData.getMonthRentals() // assuming contracts signed = purchases + rentals
-            );
-        }
+    private void calculateRankingAll() {
+        // Lifetime totals are re-derived from every month on each run, so re-running the job never double counts
+        rankingBulkWriter.mergeTotals(IndividualCustomerPotentialMonth.class, IndividualCustomerPotentialAll.class, "customer_id",
+                new Document("lead_score", new Document("$sum", "$lead_score"))
+                        .append("viewings_requested", new Document("$sum", "$month_viewings_requested"))
+                        .append("viewings_attended", new Document("$sum", "$month_viewings_attended"))
+                        .append("spending", new Document("$sum", new Document("$toDecimal", "$month_spending")))
+                        .append("total_purchases", new Document("$sum", "$month_purchases"))
+                        .append("total_rentals", new Document("$sum", "$month_rentals")),
+                new Document("lead_score", "$lead_score")
+                        .append("viewings_requested", "$viewings_requested")
+                        .append("viewings_attended", "$viewings_attended")
+                        .append("spending", new Document("$toString", "$spending"))
+                        .append("total_purchases", "$total_purchases")
+                        .append("total_rentals", "$total_rentals")
+                        // assuming contracts signed = purchases + rentals
+                        .append("total_contracts_signed", new Document("$add", List.of("$total_purchases", "$total_rentals"))),
+                new Document("lead_position", 0));
+        log.info("calculateRankingAll - customer lifetime totals merged");
     }
-    
-    private void calculateRankingPosition() {
-        int month = LocalDate.now().getMonthValue();
-        int year = LocalDate.now().getYear();
-
-        // Calculate ranking for current month
-        try {
-            List<IndividualCustomerPotentialMonth> customerPotentialMonthList = individualCustomerPotentialMonthRepository.findAll().stream()
-                    .filter(m -> m.getMonth().equals(month) && m.getYear().equals(year))
-                    .collect(Collectors.toList());
-
-            // Sort by leadScore descending
-            customerPotentialMonthList.sort((c1, c2) -> c2.getLeadScore().compareTo(c1.getLeadScore()));
-
-            // Update ranking with handling for same points
-            int ranking = 1;
-            Integer previousPoint = null;
-            int currentPosition = 1;
 
-            for (IndividualCustomerPotentialMonth customerPotential : customerPotentialMonthList) {
-                if (previousPoint != null && !previousPoint.equals(customerPotential.getLeadScore())) {
-                    // Different point, update ranking to current position
-                    ranking = currentPosition;
-                }
-                customerPotential.setLeadPosition(ranking);
-                previousPoint = customerPotential.getLeadScore();
-                currentPosition++;
+    private void calculateRankingPosition(List<YearMonth> months) {
+        // Calculate ranking for each scored month, served by the (month, year, points desc) index
+        for (YearMonth yearMonth : months) {
+            int month = yearMonth.getMonthValue();
+            int year = yearMonth.getYear();
+            try {
+                rankingBulkWriter.rankPositions(IndividualCustomerPotentialMonth.class,
+                        new Document("month", month).append("year", year),
+                        "lead_score", "lead_position");
+            } catch (Exception e) {
+                log.error("calculateRankingPosition for month {}/{} - {}", month, year, e.getMessage());
             }
-
-            // Save all
-            individualCustomerPotentialMonthRepository.saveAll(customerPotentialMonthList);
-        } catch (Exception e) {
-            log.error("calculateRankingPosition for month - {}", e.getMessage());
         }
 
         // Calculate ranking for all time
         try {
-            List<IndividualCustomerPotentialAll> customerPotentialAllList = individualCustomerPotentialAllRepository.findAll();
-
-            // Sort by leadScore descending
-            customerPotentialAllList.sort((c1, c2) -> c2.getLeadScore().compareTo(c1.getLeadScore()));
-
-            // Update ranking with handling for same points
-            int ranking = 1;
-            Integer previousPoint = null;
-            int currentPosition = 1;
-
-            for (IndividualCustomerPotentialAll customerPotential : customerPotentialAllList) {
-                if (previousPoint != null && !previousPoint.equals(customerPotential.getLeadScore())) {
-                    // Different point, update ranking to current position
-                    ranking = currentPosition;
-                }
-                customerPotential.setLeadPosition(ranking);
-                previousPoint = customerPotential.getLeadScore();
-                currentPosition++;
-            }
-
-            // Save all
-            individualCustomerPotentialAllRepository.saveAll(customerPotentialAllList);
+            rankingBulkWriter.rankPositions(IndividualCustomerPotentialAll.class, null, "lead_score", "lead_position");
         } catch (Exception e) {
             log.error("calculateRankingPosition for all - {}", e.getMessage());
         }
     }
-
-    private void createIfNotExist() {
-        int month = LocalDate.now().getMonthValue();
-        int year = LocalDate.now().getYear();
-
-        List<User> availableCustomers = userService.findAllByRoleAndStillAvailable(Constants.RoleEnum.CUSTOMER);
-
-
-        for (User availableCustomer : availableCustomers) {
-
-            // Check if data exists for all history tracking
-            if (individualCustomerPotentialAllRepository.findByCustomerId(
-                    availableCustomer.getId()
-            ) == null) {
-                individualCustomerPotentialAllRepository.save(
-                    IndividualCustomerPotentialAll.builder()
-                            .customerId(availableCustomer.getId())
-                            .leadScore(0)
-                            .leadPosition(0)
-                            .viewingsRequested(0)
-                            .viewingsAttended(0)
-                            .spending(BigDecimal.ZERO)
-                            .totalPurchases(0)
-                            .totalRentals(0)
-                            .totalContractsSigned(0)
-                            .build()
-                );
-            }
-
-            // Check if data exists for current month tracking
-            if (individualCustomerPotentialMonthRepository.findByCustomerIdAndMonthAndYear(
-                    availableCustomer.getId(),
-                    month, year
-            ) == null) {
-                individualCustomerPotentialMonthRepository.save(
-                        IndividualCustomerPotentialMonth.builder()
-                                .customerId(availableCustomer.getId())
-                                .month(month)
-                                .year(year)
-                                .leadScore(0)
-                                .customerTier(Constants.CustomerTierEnum.BRONZE)
-                                .leadPosition(0)
-                                .monthViewingsRequested(0)
-                                .monthViewingAttended(0)
-                                .monthSpending(BigDecimal.ZERO)
-                                .monthPurchases(0)
-                                .monthRentals(0)
-                                .build()
-                );
-            }
-        }
-    }
 }
@@ -3,20 +3,26 @@ package com.se100.bds.services.domains.ranking.scheduler;
 import com.se100.bds.models.entities.user.User;
 import com.se100.bds.models.schemas.ranking.IndividualPropertyOwnerContributionAll;
 import com.se100.bds.models.schemas.ranking.IndividualPropertyOwnerContributionMonth;
-import com.se100.bds.repositories.domains.mongo.ranking.IndividualPropertyOwnerContributionAllRepository;
 import com.se100.bds.repositories.domains.mongo.ranking.IndividualPropertyOwnerContributionMonthRepository;
+import com.se100.bds.repositories.domains.user.PropertyOwnerRepository;
+import com.se100.bds.services.domains.property.cache.PropertyDetailsCache;
+import com.se100.bds.services.domains.property.readmodel.PropertyCardProjector;
+import com.se100.bds.services.domains.ranking.RankingService;
+import com.se100.bds.services.domains.ranking.leaderboard.RankingLeaderboard;
 import com.se100.bds.services.domains.user.UserService;
 import com.se100.bds.utils.Constants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.util.List;
+import java.time.YearMonth;
+import java.util.*;
 import java.util.stream.Collectors;
 
 import com.se100.bds.services.domains.ranking.utils.RankingUtil;
@@ -26,235 +32,155 @@ import com.se100.bds.services.domains.ranking.utils.RankingUtil;
 @RequiredArgsConstructor
 public class PropertyOwnerRankingScheduler {
     private final IndividualPropertyOwnerContributionMonthRepository individualPropertyOwnerContributionMonthRepository;
-    private final IndividualPropertyOwnerContributionAllRepository individualPropertyOwnerContributionAllRepository;
+    private final PropertyOwnerRepository propertyOwnerRepository;
     private final UserService userService;
+    private final RankingService rankingService;
+    private final PropertyCardProjector propertyCardProjector;
+    private final PropertyDetailsCache propertyDetailsCache;
+    private final RankingBulkWriter rankingBulkWriter;
+    private final RankingLeaderboard rankingLeaderboard;
 
     // Run every day at 00:00 AM (midnight)
     @Scheduled(cron = "0 0 0 * * ?")
     protected void calculateRanking() {
-        createIfNotExist();
-
-        calculateRankingMonth();
+        YearMonth currentMonth = YearMonth.now();
+        List<YearMonth> scoredMonths = new ArrayList<>();
+        // The first run of a month closes out the previous one so its last day is scored and ranked as well
+        if (LocalDate.now().getDayOfMonth() == 1) {
+            calculateRankingMonth(currentMonth.minusMonths(1), List.of());
+            scoredMonths.add(currentMonth.minusMonths(1));
+        }
+        calculateRankingMonth(currentMonth, userService.findAllByRoleAndStillAvailable(Constants.RoleEnum.PROPERTY_OWNER));
+        scoredMonths.add(currentMonth);
         calculateRankingAll();
-        calculateRankingPosition();
+        calculateRankingPosition(scoredMonths);
+        syncCurrentTiers();
+        rankingService.refreshTierCache(Constants.RoleEnum.PROPERTY_OWNER);
+        rankingLeaderboard.rebuild(Constants.RoleEnum.PROPERTY_OWNER);
+        propertyCardProjector.refreshTiers(Constants.RoleEnum.PROPERTY_OWNER);
+        propertyDetailsCache.invalidateAll();
     }
 
-    private void calculateRankingMonth() {
+    private void syncCurrentTiers() {
+        int month = LocalDate.now().getMonthValue();
+        int year = LocalDate.now().getYear();
 
-        List<IndividualPropertyOwnerContributionMonth> propertyOwnerContributionMonthList = individualPropertyOwnerContributionMonthRepository.findAll();
-        for (IndividualPropertyOwnerContributionMonth propertyOwnerContributionMonth : propertyOwnerContributionMonthList) {
-            updatePointMonth(propertyOwnerContributionMonth);
+        // Copy the current month tier onto property_owners so property searches can filter by tier in SQL
+        try {
+            Map<Constants.ContributionTierEnum, List<UUID>> ownerIdsByTier = individualPropertyOwnerContributionMonthRepository.findAllByMonthAndYear(month, year).stream()
+                    .filter(m -> m.getContributionTier() != null)
+                    .collect(Collectors.groupingBy(
+                            IndividualPropertyOwnerContributionMonth::getContributionTier,
+                            Collectors.mapping(IndividualPropertyOwnerContributionMonth::getOwnerId, Collectors.toList())
+                    ));
+
+            ownerIdsByTier.forEach((tier, ownerIds) -> propertyOwnerRepository.updateCurrentTier(
+                    ownerIds.stream().filter(Objects::nonNull).toList(), tier
+            ));
+        } catch (Exception e) {
+            log.error("syncCurrentTiers - {}", e.getMessage());
         }
-
-        individualPropertyOwnerContributionMonthRepository.saveAll(propertyOwnerContributionMonthList);
     }
 
-    private void calculateRankingAll() {
-        List<IndividualPropertyOwnerContributionAll> propertyOwnerContributionAllList = individualPropertyOwnerContributionAllRepository.findAll();
-        for (IndividualPropertyOwnerContributionAll propertyOwnerContributionAll : propertyOwnerContributionAllList) {
-            updatePointAll(propertyOwnerContributionAll);
-        }
-
-        individualPropertyOwnerContributionAllRepository.saveAll(propertyOwnerContributionAllList);
-    }
+    private void calculateRankingMonth(YearMonth yearMonth, List<User> availablePropertyOwners) {
+        int month = yearMonth.getMonthValue();
+        int year = yearMonth.getYear();
+        YearMonth previous = yearMonth.minusMonths(1);
 
-    private void updatePointMonth(IndividualPropertyOwnerContributionMonth individualPropertyOwnerContributionMonth) {
-        // Get previous month data for ExtraPoint
-        LocalDateTime previousMonthTime = RankingUtil.getPreviousMonth(
-                individualPropertyOwnerContributionMonth.getMonth(),
-                individualPropertyOwnerContributionMonth.getYear()
-        );
-        IndividualPropertyOwnerContributionMonth previousMonthData = individualPropertyOwnerContributionMonthRepository.findByOwnerIdAndMonthAndYear(
-                individualPropertyOwnerContributionMonth.getOwnerId(),
-                previousMonthTime.getMonthValue(), previousMonthTime.getYear()
-        );
-        int extraPoint = 0;
-        if (previousMonthData != null) {
-            extraPoint = RankingUtil.getExtraPoint(previousMonthData.getContributionTier().getValue());
+        // Two queries: this month's counters and last month's tiers for the extra point
+        Map<UUID, IndividualPropertyOwnerContributionMonth> currentByOwner = new LinkedHashMap<>();
+        for (IndividualPropertyOwnerContributionMonth contribution : individualPropertyOwnerContributionMonthRepository.findAllByMonthAndYear(month, year)) {
+            if (contribution.getOwnerId() != null) {
+                currentByOwner.putIfAbsent(contribution.getOwnerId(), contribution);
+            }
+        }
+        Map<UUID, Constants.ContributionTierEnum> previousTiers = new HashMap<>();
+        for (IndividualPropertyOwnerContributionMonth contribution : individualPropertyOwnerContributionMonthRepository.findAllByMonthAndYear(previous.getMonthValue(), previous.getYear())) {
+            if (contribution.getOwnerId() != null && contribution.getContributionTier() != null) {
+                previousTiers.putIfAbsent(contribution.getOwnerId(), contribution.getContributionTier());
+            }
         }
 
-        // Calculate avg_transaction_benchmark and avg_revenue_benchmark
-        List<IndividualPropertyOwnerContributionMonth> allMonthData = individualPropertyOwnerContributionMonthRepository.findAll().stream()
-                .filter(m -> m.getMonth().equals(individualPropertyOwnerContributionMonth.getMonth()) && m.getYear().equals(individualPropertyOwnerContributionMonth.getYear()))
-                .toList();
+        Set<UUID> ownerIds = new LinkedHashSet<>(currentByOwner.keySet());
+        availablePropertyOwners.forEach(owner -> ownerIds.add(owner.getId()));
 
-        int totalTransactions = allMonthData.stream()
-                .mapToInt(m -> m.getMonthTotalPropertiesSold() + (m.getMonthTotalForRents() != null ? m.getMonthTotalForRents() : 0))
+        // avg_transaction_benchmark and avg_revenue_benchmark are shared by every owner of the month, so they are computed once
+        int totalOwners = ownerIds.size();
+        int totalTransactions = currentByOwner.values().stream()
+                .mapToInt(RankingUtil::ownerTransactions)
                 .sum();
-        int totalOwners = allMonthData.size();
         double avgTransactionBenchmark = totalOwners > 0 ? (double) totalTransactions / totalOwners : 0;
 
-        BigDecimal totalRevenue = allMonthData.stream()
-                .map(IndividualPropertyOwnerContributionMonth::getMonthContributionValue)
+        BigDecimal totalRevenue = currentByOwner.values().stream()
+                .map(m -> RankingUtil.orZero(m.getMonthContributionValue()))
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
         BigDecimal avgRevenueBenchmark = totalOwners > 0 ? totalRevenue.divide(BigDecimal.valueOf(totalOwners), 2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
 
-        // Calculate scores
-        double propertyUtilizationScore = individualPropertyOwnerContributionMonth.getMonthTotalProperties() > 0 ?
-                ((double) (individualPropertyOwnerContributionMonth.getMonthTotalPropertiesSold() + individualPropertyOwnerContributionMonth.getMonthTotalForRents()) /
-                individualPropertyOwnerContributionMonth.getMonthTotalProperties() * 100) : 0;
-
-        double transactionSuccessScore = avgTransactionBenchmark > 0 ?
-                ((double) (individualPropertyOwnerContributionMonth.getMonthTotalPropertiesSold() + individualPropertyOwnerContributionMonth.getMonthTotalForRents()) /
-                avgTransactionBenchmark * 100) : 0;
-
-        BigDecimal revenueScore = avgRevenueBenchmark.compareTo(BigDecimal.ZERO) > 0 ?
-                individualPropertyOwnerContributionMonth.getMonthContributionValue().divide(avgRevenueBenchmark, 2, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100)) : BigDecimal.ZERO;
-        revenueScore = revenueScore.min(BigDecimal.valueOf(150));
-
-        // Calculate contribution_point
-        double contributionPointDouble = (0.4 * propertyUtilizationScore) + (0.3 * transactionSuccessScore) + (0.3 * revenueScore.doubleValue()) + extraPoint;
-        int contributionPoint = (int) contributionPointDouble;
+        RankingBulkWriter.Batch<IndividualPropertyOwnerContributionMonth> batch = rankingBulkWriter.batch(IndividualPropertyOwnerContributionMonth.class);
+        for (UUID ownerId : ownerIds) {
+            IndividualPropertyOwnerContributionMonth contribution = currentByOwner.get(ownerId);
+            Constants.ContributionTierEnum previousTier = previousTiers.get(ownerId);
+            int extraPoint = previousTier != null ? RankingUtil.getExtraPoint(previousTier.getValue()) : 0;
+
+            int contributionPoint = contribution != null
+                    ? RankingUtil.ownerContributionPoint(contribution, avgTransactionBenchmark, avgRevenueBenchmark, extraPoint)
+                    : extraPoint;
+            Constants.ContributionTierEnum contributionTier = Constants.ContributionTierEnum.get(RankingUtil.getCustomerTier(contributionPoint));
+
+            // Counters belong to propertyOwnerAction, only brand-new rows get zeroed defaults
+            Update update = RankingBulkWriter.upsertUpdate()
+                    .set("contribution_point", contributionPoint)
+                    .set("contribution_tier", contributionTier)
+                    .setOnInsert("ranking_position", 0)
+                    .setOnInsert("month_contribution_value", BigDecimal.ZERO)
+                    .setOnInsert("month_total_properties", 0)
+                    .setOnInsert("month_total_for_sales", 0)
+                    .setOnInsert("month_total_for_rents", 0)
+                    .setOnInsert("month_total_properties_sold", 0)
+                    .setOnInsert("month_total_properties_rented", 0);
+            batch.upsert(RankingBulkWriter.byUserAndMonth("owner_id", ownerId, month, year), update);
+        }
 
-        // Set contribution_point and tier
-        individualPropertyOwnerContributionMonth.setContributionPoint(contributionPoint);
-        Constants.ContributionTierEnum newTier = Constants.ContributionTierEnum.get(RankingUtil.getCustomerTier(contributionPoint));
-        individualPropertyOwnerContributionMonth.setContributionTier(newTier);
+        int written = batch.execute();
+        log.info("calculateRankingMonth - {}/{}: {} owners scored, {} rows written", month, year, ownerIds.size(), written);
     }
 
-    private void updatePointAll(IndividualPropertyOwnerContributionAll individualPropertyOwnerContributionAll) {
-        int month = LocalDate.now().getMonthValue();
-        int year = LocalDate.now().getYear();
-
-        IndividualPropertyOwnerContributionMonth currentMonthData = individualPropertyOwnerContributionMonthRepository.findByOwnerIdAndMonthAndYear(
-                individualPropertyOwnerContributionAll.getOwnerId(),
-                month, year
-        );
-
-        if (currentMonthData != null) {
-            individualPropertyOwnerContributionAll.setContributionPoint(
-                    individualPropertyOwnerContributionAll.getContributionPoint() +
-                            currentMonthData.getContributionPoint());
-            individualPropertyOwnerContributionAll.setContributionValue(
-                    individualPropertyOwnerContributionAll.getContributionValue().add(
-                            currentMonthData.getMonthContributionValue()
-                    )
-            );
-            individualPropertyOwnerContributionAll.setTotalProperties(
-                    individualPropertyOwnerContributionAll.getTotalProperties() +
-                            currentMonthData.getMonthTotalProperties()
-            );
-            individualPropertyOwnerContributionAll.setTotalPropertiesSold(
-                    individualPropertyOwnerContributionAll.getTotalPropertiesSold() +
-                            currentMonthData.getMonthTotalForSales()
-            );
-            individualPropertyOwnerContributionAll.setTotalPropertiesRented(
-                    individualPropertyOwnerContributionAll.getTotalPropertiesRented() +
-                            currentMonthData.getMonthTotalForRents()
-            );
-        }
+    private void calculateRankingAll() {
+        // Lifetime totals are re-derived from every month on each run, so re-running the job never double counts
+        rankingBulkWriter.mergeTotals(IndividualPropertyOwnerContributionMonth.class, IndividualPropertyOwnerContributionAll.class, "owner_id",
+                new Document("contribution_point", new Document("$sum", "$contribution_point"))
+                        .append("contribution_value", new Document("$sum", new Document("$toDecimal", "$month_contribution_value")))
+                        .append("total_properties", new Document("$sum", "$month_total_properties"))
+                        .append("total_properties_sold", new Document("$sum", "$month_total_for_sales"))
+                        .append("total_properties_rented", new Document("$sum", "$month_total_for_rents")),
+                new Document("contribution_point", "$contribution_point")
+                        .append("contribution_value", new Document("$toString", "$contribution_value"))
+                        .append("total_properties", "$total_properties")
+                        .append("total_properties_sold", "$total_properties_sold")
+                        .append("total_properties_rented", "$total_properties_rented"),
+                new Document("ranking_position", 0));
+        log.info("calculateRankingAll - owner lifetime totals merged");
     }
 
-    private void calculateRankingPosition() {
-        int month = LocalDate.now().getMonthValue();
-        int year = LocalDate.now().getYear();
-
-        // Calculate ranking for current month
-        try {
-            List<IndividualPropertyOwnerContributionMonth> propertyOwnerContributionMonthList = individualPropertyOwnerContributionMonthRepository.findAll().stream()
-                    .filter(m -> m.getMonth().equals(month) && m.getYear().equals(year))
-                    .collect(Collectors.toList());
-
-            // Sort by contributionPoint descending
-            propertyOwnerContributionMonthList.sort((p1, p2) -> p2.getContributionPoint().compareTo(p1.getContributionPoint()));
-
-            // Update ranking with handling for same points
-            int ranking = 1;
-            Integer previousPoint = null;
-            int currentPosition = 1;
-
-            for (IndividualPropertyOwnerContributionMonth propertyOwnerContribution : propertyOwnerContributionMonthList) {
-                if (previousPoint != null && !previousPoint.equals(propertyOwnerContribution.getContributionPoint())) {
-                    // Different point, update ranking to current position
-                    ranking = currentPosition;
-                }
-                propertyOwnerContribution.setRankingPosition(ranking);
-                previousPoint = propertyOwnerContribution.getContributionPoint();
-                currentPosition++;
+    private void calculateRankingPosition(List<YearMonth> months) {
+        // Calculate ranking for each scored month, served by the (month, year, points desc) index
+        for (YearMonth yearMonth : months) {
+            int month = yearMonth.getMonthValue();
+            int year = yearMonth.getYear();
+            try {
+                rankingBulkWriter.rankPositions(IndividualPropertyOwnerContributionMonth.class,
+                        new Document("month", month).append("year", year),
+                        "contribution_point", "ranking_position");
+            } catch (Exception e) {
+                log.error("calculateRankingPosition for month {}/{} - {}", month, year, e.getMessage());
             }
-
-            // Save all
-            individualPropertyOwnerContributionMonthRepository.saveAll(propertyOwnerContributionMonthList);
-        } catch (Exception e) {
-            log.error("calculateRankingPosition for month - {}", e.getMessage());
         }
 
         // Calculate ranking for all time
         try {
-            List<IndividualPropertyOwnerContributionAll> propertyOwnerContributionAllList = individualPropertyOwnerContributionAllRepository.findAll();
-
-            // Sort by contributionPoint descending
-            propertyOwnerContributionAllList.sort((p1, p2) -> p2.getContributionPoint().compareTo(p1.getContributionPoint()));
-
-            // Update ranking with handling for same points
-            int ranking = 1;
-            Integer previousPoint = null;
-            int currentPosition = 1;
-
-            for (IndividualPropertyOwnerContributionAll propertyOwnerContribution : propertyOwnerContributionAllList) {
-                if (previousPoint != null && !previousPoint.equals(propertyOwnerContribution.getContributionPoint())) {
-                    // Different point, update ranking to current position
-                    ranking = currentPosition;
-                }
-                propertyOwnerContribution.setRankingPosition(ranking);
-                previousPoint = propertyOwnerContribution.getContributionPoint();
-                currentPosition++;
-            }
-
-            // Save all
-            individualPropertyOwnerContributionAllRepository.saveAll(propertyOwnerContributionAllList);
+            rankingBulkWriter.rankPositions(IndividualPropertyOwnerContributionAll.class, null, "contribution_point", "ranking_position");
         } catch (Exception e) {
             log.error("calculateRankingPosition for all - {}", e.getMessage());
         }
     }
-
-    private void createIfNotExist() {
-        int month = LocalDate.now().getMonthValue();
-        int year = LocalDate.now().getYear();
-
-        List<User> availablePropertyOwners = userService.findAllByRoleAndStillAvailable(Constants.RoleEnum.PROPERTY_OWNER);
-
-
-        for (User availablePropertyOwner : availablePropertyOwners) {
-
-            // Check if data exists for all history tracking
-            if (individualPropertyOwnerContributionAllRepository.findByOwnerId(
-                    availablePropertyOwner.getId()
-            ) == null) {
-                individualPropertyOwnerContributionAllRepository.save(
-                    IndividualPropertyOwnerContributionAll.builder()
-                            .ownerId(availablePropertyOwner.getId())
-                            .contributionPoint(0)
-                            .rankingPosition(0)
-                            .contributionValue(BigDecimal.ZERO)
-                            .totalProperties(0)
-                            .totalPropertiesSold(0)
-                            .totalPropertiesRented(0)
-                            .build()
-                );
-            }
-
-            // Check if data exists for current month tracking
-            if (individualPropertyOwnerContributionMonthRepository.findByOwnerIdAndMonthAndYear(
-                    availablePropertyOwner.getId(),
-                    month, year
-            ) == null) {
-                individualPropertyOwnerContributionMonthRepository.save(
-                        IndividualPropertyOwnerContributionMonth.builder()
-                                .ownerId(availablePropertyOwner.getId())
-                                .month(month)
-                                .year(year)
-                                .contributionPoint(0)
-                                .contributionTier(Constants.ContributionTierEnum.BRONZE)
-                                .rankingPosition(0)
-                                .monthContributionValue(BigDecimal.ZERO)
-                                .monthTotalProperties(0)
-                                .monthTotalForSales(0)
-                                .monthTotalForRents(0)
-                                .monthTotalPropertiesSold(0)
-                                .build()
-                );
-            }
-        }
-    }
 }
@@ -0,0 +1,153 @@
+package com.se100.bds.services.domains.ranking.scheduler;
+
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.data.util.Pair;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Collects ranking upserts and writes them as unordered Mongo bulk writes, one round-trip per batch.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RankingBulkWriter {
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${app.ranking.bulk-batch-size:1000}")
+    private int batchSize;
+
+    public <T> Batch<T> batch(Class<T> type) {
+        return new Batch<>(type);
+    }
+
+    /**
+     * Ranks the matching documents by points on the server ($rank keeps ties on the same position: 1, 1, 3)
+     * and merges back only the positions that changed. Nothing is pulled into the JVM.
+     */
+    public void rankPositions(Class<?> type, Document match, String pointField, String positionField) {
+        String collection = mongoTemplate.getCollectionName(type);
+
+        List<Document> pipeline = new ArrayList<>();
+        if (match != null) {
+            pipeline.add(new Document("$match", match));
+        }
+        pipeline.add(new Document("$setWindowFields", new Document("sortBy", new Document(pointField, -1))
+                .append("output", new Document("new_position", new Document("$rank", new Document())))));
+        pipeline.add(new Document("$match", new Document("$expr",
+                new Document("$ne", List.of("$" + positionField, "$new_position")))));
+        pipeline.add(new Document("$project", new Document(positionField, "$new_position")
+                .append("updatedAt", "$$NOW")));
+        pipeline.add(new Document("$merge", new Document("into", collection)
+                .append("on", "_id")
+                .append("whenMatched", "merge")
+                .append("whenNotMatched", "discard")));
+
+        long start = System.nanoTime();
+        mongoTemplate.getCollection(collection).aggregate(pipeline).allowDiskUse(true).toCollection();
+        log.debug("RankingBulkWriter - {} positions ranked in {} ms", collection, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Sums the month documents of every user on the server and merges the totals into the lifetime collection,
+     * matched on the user field. {@code sums} are $group accumulators, {@code fields} the stored values computed
+     * from them, and {@code insertDefaults} are only written to documents this creates. Nothing is pulled into
+     * the JVM.
+     */
+    public void mergeTotals(Class<?> monthType, Class<?> totalsType, String userField,
+                            Document sums, Document fields, Document insertDefaults) {
+        String collection = mongoTemplate.getCollectionName(totalsType);
+
+        Document group = new Document("_id", "$" + userField);
+        group.putAll(sums);
+        Document project = new Document("_id", 0)
+                .append(userField, "$_id")
+                .append("createdAt", "$$NOW")
+                .append("updatedAt", "$$NOW");
+        project.putAll(fields);
+        insertDefaults.forEach((field, value) -> project.append(field, new Document("$literal", value)));
+
+        // Existing documents keep their _id, createdAt and positions
+        Document whenMatched = new Document("updatedAt", "$$new.updatedAt");
+        fields.keySet().forEach(field -> whenMatched.append(field, "$$new." + field));
+
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document(userField, new Document("$ne", null))),
+                new Document("$group", group),
+                new Document("$project", project),
+                new Document("$merge", new Document("into", collection)
+                        .append("on", userField)
+                        .append("whenMatched", List.of(new Document("$set", whenMatched)))
+                        .append("whenNotMatched", "insert")));
+
+        long start = System.nanoTime();
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(monthType)).aggregate(pipeline).allowDiskUse(true).toCollection();
+        log.debug("RankingBulkWriter - {} totals merged in {} ms", collection, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Upsert that fills in the base schema fields (_id, createdAt) only when the document is created
+    public static Update upsertUpdate() {
+        LocalDateTime now = LocalDateTime.now();
+        return new Update()
+                .setOnInsert("_id", UUID.randomUUID().toString())
+                .setOnInsert("createdAt", now)
+                .set("updatedAt", now);
+    }
+
+    public static Query byUser(String userField, UUID userId) {
+        return Query.query(Criteria.where(userField).is(userId));
+    }
+
+    public static Query byUserAndMonth(String userField, UUID userId, int month, int year) {
+        return Query.query(Criteria.where(userField).is(userId).and("month").is(month).and("year").is(year));
+    }
+
+    public class Batch<T> {
+        private final Class<T> type;
+        private final List<Pair<Query, UpdateDefinition>> pending = new ArrayList<>();
+        private int written;
+
+        private Batch(Class<T> type) {
+            this.type = type;
+        }
+
+        public void upsert(Query query, Update update) {
+            pending.add(Pair.of(query, update));
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        // Returns the number of documents inserted or modified across all batches
+        public int execute() {
+            flush();
+            return written;
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            BulkWriteResult result = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type)
+                    .upsert(pending)
+                    .execute();
+            written += result.getUpserts().size() + result.getModifiedCount();
+            log.debug("RankingBulkWriter - {}: {} upserts in one bulk write", type.getSimpleName(), pending.size());
+            pending.clear();
+        }
+    }
+}
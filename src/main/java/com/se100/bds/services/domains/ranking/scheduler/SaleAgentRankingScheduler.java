@@ -3,21 +3,27 @@ package com.se100.bds.services.domains.ranking.scheduler;
 import com.se100.bds.models.entities.user.User;
 import com.se100.bds.models.schemas.ranking.IndividualSalesAgentPerformanceCareer;
 import com.se100.bds.models.schemas.ranking.IndividualSalesAgentPerformanceMonth;
-import com.se100.bds.repositories.domains.mongo.ranking.IndividualSalesAgentPerformanceCareerRepository;
 import com.se100.bds.repositories.domains.mongo.ranking.IndividualSalesAgentPerformanceMonthRepository;
+import com.se100.bds.repositories.domains.user.SaleAgentRepository;
 import com.se100.bds.services.domains.ranking.utils.RankingUtil;
+import com.se100.bds.services.domains.property.cache.PropertyDetailsCache;
+import com.se100.bds.services.domains.property.readmodel.PropertyCardProjector;
+import com.se100.bds.services.domains.ranking.RankingService;
+import com.se100.bds.services.domains.ranking.leaderboard.RankingLeaderboard;
 import com.se100.bds.services.domains.user.UserService;
 import com.se100.bds.utils.Constants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.util.List;
+import java.time.YearMonth;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,237 +31,173 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class SaleAgentRankingScheduler {
     private final IndividualSalesAgentPerformanceMonthRepository individualSalesAgentPerformanceMonthRepository;
-    private final IndividualSalesAgentPerformanceCareerRepository individualSalesAgentPerformanceCareerRepository;
+    private final SaleAgentRepository saleAgentRepository;
     private final UserService userService;
+    private final RankingService rankingService;
+    private final PropertyCardProjector propertyCardProjector;
+    private final PropertyDetailsCache propertyDetailsCache;
+    private final RankingBulkWriter rankingBulkWriter;
+    private final RankingLeaderboard rankingLeaderboard;
 
     // Run every day at 00:00 AM (midnight)
     @Scheduled(cron = "0 0 0 * * ?")
     protected void calculateRanking() {
-        createIfNotExist();
-
-        calculateRankingMonth();
+        YearMonth currentMonth = YearMonth.now();
+        List<YearMonth> scoredMonths = new ArrayList<>();
+        // The first run of a month closes out the previous one so its last day is scored and ranked as well
+        if (LocalDate.now().getDayOfMonth() == 1) {
+            calculateRankingMonth(currentMonth.minusMonths(1), List.of());
+            scoredMonths.add(currentMonth.minusMonths(1));
+        }
+        calculateRankingMonth(currentMonth, userService.findAllByRoleAndStillAvailable(Constants.RoleEnum.SALESAGENT));
+        scoredMonths.add(currentMonth);
         calculateRankingAll();
-        calculateRankingPosition();
+        calculateRankingPosition(scoredMonths);
+        syncCurrentTiers();
+        rankingService.refreshTierCache(Constants.RoleEnum.SALESAGENT);
+        rankingLeaderboard.rebuild(Constants.RoleEnum.SALESAGENT);
+        propertyCardProjector.refreshTiers(Constants.RoleEnum.SALESAGENT);
+        propertyDetailsCache.invalidateAll();
     }
 
-    private void calculateRankingMonth() {
-
-        List<IndividualSalesAgentPerformanceMonth> agentPerformanceMonthList = individualSalesAgentPerformanceMonthRepository.findAll();
-        for (IndividualSalesAgentPerformanceMonth agentPerformanceMonth : agentPerformanceMonthList) {
-            updatePointMonth(agentPerformanceMonth);
-        }
-
-        individualSalesAgentPerformanceMonthRepository.saveAll(agentPerformanceMonthList);
-    }
+    private void syncCurrentTiers() {
+        int month = LocalDate.now().getMonthValue();
+        int year = LocalDate.now().getYear();
 
-    private void calculateRankingAll() {
-        List<IndividualSalesAgentPerformanceCareer> agentPerformanceCareerList = individualSalesAgentPerformanceCareerRepository.findAll();
-        for (IndividualSalesAgentPerformanceCareer agentPerformanceCareer : agentPerformanceCareerList) {
-            updatePointAll(agentPerformanceCareer);
+        // Copy the current month tier onto sale_agents so property searches can filter by tier in SQL
+        try {
+            Map<Constants.PerformanceTierEnum, List<UUID>> agentIdsByTier = individualSalesAgentPerformanceMonthRepository.findAllByMonthAndYear(month, year).stream()
+                    .filter(m -> m.getPerformanceTier() != null)
+                    .collect(Collectors.groupingBy(
+                            IndividualSalesAgentPerformanceMonth::getPerformanceTier,
+                            Collectors.mapping(IndividualSalesAgentPerformanceMonth::getAgentId, Collectors.toList())
+                    ));
+
+            agentIdsByTier.forEach((tier, agentIds) -> saleAgentRepository.updateCurrentTier(
+                    agentIds.stream().filter(Objects::nonNull).toList(), tier
+            ));
+        } catch (Exception e) {
+            log.error("syncCurrentTiers - {}", e.getMessage());
         }
-
-        individualSalesAgentPerformanceCareerRepository.saveAll(agentPerformanceCareerList);
     }
 
-    private void updatePointMonth(IndividualSalesAgentPerformanceMonth individualSalesAgentPerformanceMonth) {
-        int conversionScore = (individualSalesAgentPerformanceMonth.getMonthContracts() / individualSalesAgentPerformanceMonth.getMonthAppointmentsCompleted()) * 100;
-        int completionScore = (individualSalesAgentPerformanceMonth.getMonthAppointmentsCompleted() / individualSalesAgentPerformanceMonth.getMonthAppointmentsAssigned()) * 100;
-        int satisfactionScore = individualSalesAgentPerformanceMonth.getMonthCustomerSatisfactionAvg().intValue();
+    private void calculateRankingMonth(YearMonth yearMonth, List<User> availableAgents) {
+        int month = yearMonth.getMonthValue();
+        int year = yearMonth.getYear();
+        YearMonth previous = yearMonth.minusMonths(1);
 
-        LocalDateTime previousMonthTime = RankingUtil.getPreviousMonth(
-                individualSalesAgentPerformanceMonth.getMonth(),
-                individualSalesAgentPerformanceMonth.getYear()
-        );
-        IndividualSalesAgentPerformanceMonth previousMonthDataRanking = individualSalesAgentPerformanceMonthRepository.findByAgentIdAndMonthAndYear(
-                individualSalesAgentPerformanceMonth.getAgentId(),
-                previousMonthTime.getMonthValue(), previousMonthTime.getYear()
-        );
-        int extraPoint = 0;
-        if (previousMonthDataRanking != null) {
-            extraPoint = RankingUtil.getExtraPoint(previousMonthDataRanking.getPerformanceTier().getValue());
+        // Two queries: this month's counters and last month's tiers for the extra point
+        Map<UUID, IndividualSalesAgentPerformanceMonth> currentByAgent = new LinkedHashMap<>();
+        for (IndividualSalesAgentPerformanceMonth performance : individualSalesAgentPerformanceMonthRepository.findAllByMonthAndYear(month, year)) {
+            if (performance.getAgentId() != null) {
+                currentByAgent.putIfAbsent(performance.getAgentId(), performance);
+            }
+        }
+        Map<UUID, Constants.PerformanceTierEnum> previousTiers = new HashMap<>();
+        for (IndividualSalesAgentPerformanceMonth performance : individualSalesAgentPerformanceMonthRepository.findAllByMonthAndYear(previous.getMonthValue(), previous.getYear())) {
+            if (performance.getAgentId() != null && performance.getPerformanceTier() != null) {
+                previousTiers.putIfAbsent(performance.getAgentId(), performance.getPerformanceTier());
+            }
         }
 
-        int newPerformancePoint = (int) ((
-                0.4 * conversionScore +
-                0.3 * completionScore +
-                0.3 * satisfactionScore
-        ) + extraPoint);
-
-        Constants.PerformanceTierEnum newPerformanceTier = Constants.PerformanceTierEnum.get(
-                RankingUtil.getCustomerTier(newPerformancePoint)
-        );
-
-        individualSalesAgentPerformanceMonth.setPerformancePoint(newPerformancePoint);
-        individualSalesAgentPerformanceMonth.setPerformanceTier(newPerformanceTier);
-    }
-
-    private void updatePointAll(IndividualSalesAgentPerformanceCareer individualSalesAgentPerformanceCareer) {
-        int month = LocalDate.now().getMonthValue();
-        int year = LocalDate.now().getYear();
+        Set<UUID> agentIds = new LinkedHashSet<>(currentByAgent.keySet());
+        availableAgents.forEach(agent -> agentIds.add(agent.getId()));
 
-        IndividualSalesAgentPerformanceMonth currentMonthData = individualSalesAgentPerformanceMonthRepository.findByAgentIdAndMonthAndYear(
-                individualSalesAgentPerformanceCareer.getAgentId(),
-                month, year
-        );
+        RankingBulkWriter.Batch<IndividualSalesAgentPerformanceMonth> batch = rankingBulkWriter.batch(IndividualSalesAgentPerformanceMonth.class);
+        for (UUID agentId : agentIds) {
+            IndividualSalesAgentPerformanceMonth performance = currentByAgent.get(agentId);
+            Constants.PerformanceTierEnum previousTier = previousTiers.get(agentId);
+            int extraPoint = previousTier != null ? RankingUtil.getExtraPoint(previousTier.getValue()) : 0;
 
-        if (currentMonthData != null) {
-            individualSalesAgentPerformanceCareer.setPerformancePoint(
-                    individualSalesAgentPerformanceCareer.getPerformancePoint() +
-                    currentMonthData.getPerformancePoint());
-            individualSalesAgentPerformanceCareer.setPropertiesAssigned(
-                    individualSalesAgentPerformanceCareer.getPropertiesAssigned() +
-                    currentMonthData.getMonthPropertiesAssigned()
-            );
-            individualSalesAgentPerformanceCareer.setAppointmentAssigned(
-                    individualSalesAgentPerformanceCareer.getAppointmentAssigned() +
-                    currentMonthData.getMonthAppointmentsAssigned()
-            );
-            individualSalesAgentPerformanceCareer.setAppointmentCompleted(
-                    individualSalesAgentPerformanceCareer.getAppointmentCompleted() +
-                    currentMonthData.getMonthAppointmentsCompleted()
-            );
-            individualSalesAgentPerformanceCareer.setTotalContracts(
-                    individualSalesAgentPerformanceCareer.getTotalContracts() +
-                    currentMonthData.getMonthContracts()
-            );
-            individualSalesAgentPerformanceCareer.setTotalRates(
-                    individualSalesAgentPerformanceCareer.getTotalRates() +
-                    currentMonthData.getMonthRates()
+            int performancePoint = performance != null ? RankingUtil.agentPerformancePoint(performance, extraPoint) : extraPoint;
+            Constants.PerformanceTierEnum performanceTier = Constants.PerformanceTierEnum.get(
+                    RankingUtil.getCustomerTier(performancePoint)
             );
 
-            // Calculate average rating and customer satisfaction
-            Long monthCount = individualSalesAgentPerformanceMonthRepository.countByAgentId(individualSalesAgentPerformanceCareer.getAgentId());
-
-            if (monthCount > 0) {
-                BigDecimal newAvgRating = (individualSalesAgentPerformanceCareer.getAvgRating()
-                        .multiply(BigDecimal.valueOf(monthCount - 1))
-                        .add(currentMonthData.getAvgRating()))
-                        .divide(BigDecimal.valueOf(monthCount), 2, RoundingMode.HALF_UP);
-                individualSalesAgentPerformanceCareer.setAvgRating(newAvgRating);
-
-                BigDecimal newCustomerSatisfactionAvg = (individualSalesAgentPerformanceCareer.getCustomerSatisfactionAvg()
-                        .multiply(BigDecimal.valueOf(monthCount - 1))
-                        .add(currentMonthData.getMonthCustomerSatisfactionAvg()))
-                        .divide(BigDecimal.valueOf(monthCount), 2, RoundingMode.HALF_UP);
-                individualSalesAgentPerformanceCareer.setCustomerSatisfactionAvg(newCustomerSatisfactionAvg);
-            }
+            // Counters belong to agentAction, only brand-new rows get zeroed defaults
+            Update update = RankingBulkWriter.upsertUpdate()
+                    .set("performance_point", performancePoint)
+                    .set("performance_tier", performanceTier)
+                    .setOnInsert("ranking_position", 0)
+                    .setOnInsert("handling_properties", 0)
+                    .setOnInsert("month_properties_assigned", 0)
+                    .setOnInsert("month_appointments_assigned", 0)
+                    .setOnInsert("month_appointments_completed", 0)
+                    .setOnInsert("month_contracts", 0)
+                    .setOnInsert("month_rates", 0)
+                    .setOnInsert("rating_sum", BigDecimal.ZERO)
+                    .setOnInsert("month_satisfied_rates", 0);
+            batch.upsert(RankingBulkWriter.byUserAndMonth("agent_id", agentId, month, year), update);
         }
-    }
 
-    private void calculateRankingPosition() {
-        int month = LocalDate.now().getMonthValue();
-        int year = LocalDate.now().getYear();
+        int written = batch.execute();
+        log.info("calculateRankingMonth - {}/{}: {} agents scored, {} rows written", month, year, agentIds.size(), written);
+    }
 
-        // Calculate ranking for current month
-        try {
-            List<IndividualSalesAgentPerformanceMonth> agentPerformanceMonthList = individualSalesAgentPerformanceMonthRepository.findAll().stream()
-                    .filter(m -> m.getMonth().equals(month) && m.getYear().equals(year)).sorted((a1, a2) -> a2.getPerformancePoint().compareTo(a1.getPerformancePoint())).collect(Collectors.toList());
+    private void calculateRankingAll() {
+        // Career totals are re-derived from every month on each run, so re-running the job never double counts
+        Document rates = new Document("$ifNull", List.of("$month_rates", 0));
+        // Rows that predate the month counters weight their stored averages by month_rates
+        Document hasCounters = new Document("$ne", List.of(new Document("$type", "$rating_sum"), "missing"));
+        Document ratingSum = new Document("$cond", List.of(hasCounters,
+                new Document("$toDecimal", "$rating_sum"),
+                new Document("$multiply", List.of(decimalOrZero("$avg_rating"), rates))));
+        Document satisfactionSum = new Document("$cond", List.of(hasCounters,
+                new Document("$multiply", List.of(new Document("$ifNull", List.of("$month_satisfied_rates", 0)), 100)),
+                new Document("$multiply", List.of(decimalOrZero("$month_customer_satisfaction_avg"), rates))));
+
+        rankingBulkWriter.mergeTotals(IndividualSalesAgentPerformanceMonth.class, IndividualSalesAgentPerformanceCareer.class, "agent_id",
+                new Document("performance_point", new Document("$sum", "$performance_point"))
+                        .append("properties_assigned", new Document("$sum", "$month_properties_assigned"))
+                        .append("appointment_assigned", new Document("$sum", "$month_appointments_assigned"))
+                        .append("appointment_completed", new Document("$sum", "$month_appointments_completed"))
+                        .append("total_contracts", new Document("$sum", "$month_contracts"))
+                        .append("total_rates", new Document("$sum", "$month_rates"))
+                        .append("rating_sum", new Document("$sum", ratingSum))
+                        .append("satisfaction_sum", new Document("$sum", satisfactionSum)),
+                new Document("performance_point", "$performance_point")
+                        .append("properties_assigned", "$properties_assigned")
+                        .append("appointment_assigned", "$appointment_assigned")
+                        .append("appointment_completed", "$appointment_completed")
+                        .append("total_contracts", "$total_contracts")
+                        .append("total_rates", "$total_rates")
+                        .append("avg_rating", perRate("$rating_sum"))
+                        .append("customer_satisfaction_avg", perRate("$satisfaction_sum")),
+                new Document("career_ranking", 0));
+        log.info("calculateRankingAll - agent career totals merged");
+    }
 
-            // Sort by performancePoint descending
+    private static Document decimalOrZero(String path) {
+        return new Document("$toDecimal", new Document("$ifNull", List.of(path, "0")));
+    }
 
-            // Update ranking with handling for same points
-            int ranking = 1;
-            Integer previousPoint = null;
-            int currentPosition = 1;
+    // Average per rate rounded half up to two places, "0" without rates
+    private static Document perRate(String sumPath) {
+        Document average = new Document("$trunc", List.of(new Document("$add", List.of(
+                new Document("$divide", List.of(new Document("$toDecimal", sumPath), "$total_rates")), new Decimal128(new BigDecimal("0.005")))), 2));
+        return new Document("$cond", List.of(new Document("$gt", List.of("$total_rates", 0)),
+                new Document("$toString", average), "0"));
+    }
 
-            for (IndividualSalesAgentPerformanceMonth agentPerformance : agentPerformanceMonthList) {
-                if (previousPoint != null && !previousPoint.equals(agentPerformance.getPerformancePoint())) {
-                    // Different point, update ranking to current position
-                    ranking = currentPosition;
-                }
-                agentPerformance.setRankingPosition(ranking);
-                previousPoint = agentPerformance.getPerformancePoint();
-                currentPosition++;
+    private void calculateRankingPosition(List<YearMonth> months) {
+        // Calculate ranking for each scored month, served by the (month, year, points desc) index
+        for (YearMonth yearMonth : months) {
+            int month = yearMonth.getMonthValue();
+            int year = yearMonth.getYear();
+            try {
+                rankingBulkWriter.rankPositions(IndividualSalesAgentPerformanceMonth.class,
+                        new Document("month", month).append("year", year),
+                        "performance_point", "ranking_position");
+            } catch (Exception e) {
+                log.error("calculateRankingPosition for month {}/{} - {}", month, year, e.getMessage());
             }
-
-            // Save all
-            individualSalesAgentPerformanceMonthRepository.saveAll(agentPerformanceMonthList);
-        } catch (Exception e) {
-            log.error("calculateRankingPosition for month - {}", e.getMessage());
         }
 
         // Calculate ranking for all time
         try {
-            List<IndividualSalesAgentPerformanceCareer> agentPerformanceCareerList = individualSalesAgentPerformanceCareerRepository.findAll();
-
-            // Sort by performancePoint descending
-            agentPerformanceCareerList.sort((a1, a2) -> a2.getPerformancePoint().compareTo(a1.getPerformancePoint()));
-
-            // Update ranking with handling for same points
-            int ranking = 1;
-            Integer previousPoint = null;
-            int currentPosition = 1;
-
-            for (IndividualSalesAgentPerformanceCareer agentPerformance : agentPerformanceCareerList) {
-                if (previousPoint != null && !previousPoint.equals(agentPerformance.getPerformancePoint())) {
-                    // Different point, update ranking to current position
-                    ranking = currentPosition;
-                }
-                agentPerformance.setCareerRanking(ranking);
-                previousPoint = agentPerformance.getPerformancePoint();
-                currentPosition++;
-            }
-
-            // Save all
-            individualSalesAgentPerformanceCareerRepository.saveAll(agentPerformanceCareerList);
+            rankingBulkWriter.rankPositions(IndividualSalesAgentPerformanceCareer.class, null, "performance_point", "career_ranking");
         } catch (Exception e) {
             log.error("calculateRankingPosition for all - {}", e.getMessage());
         }
     }
-
-    private void createIfNotExist() {
-        int month = LocalDate.now().getMonthValue();
-        int year = LocalDate.now().getYear();
-
-        List<User> availableAgents = userService.findAllByRoleAndStillAvailable(Constants.RoleEnum.SALESAGENT);
-
-
-        for (User availableAgent : availableAgents) {
-
-            // Check if data exists for all history tracking
-            if (individualSalesAgentPerformanceCareerRepository.findByAgentId(
-                    availableAgent.getId()
-            ) != null) {
-                individualSalesAgentPerformanceCareerRepository.save(
-                    IndividualSalesAgentPerformanceCareer.builder()
-                            .agentId(availableAgent.getId())
-                            .performancePoint(0)
-                            .careerRanking(0)
-                            .propertiesAssigned(0)
-                            .appointmentAssigned(0)
-                            .appointmentCompleted(0)
-                            .totalContracts(0)
-                            .totalRates(0)
-                            .avgRating(BigDecimal.ZERO)
-                            .customerSatisfactionAvg(BigDecimal.ZERO)
-                            .build()
-                );
-            }
-
-            // Check if data exists for current month tracking
-            if (individualSalesAgentPerformanceMonthRepository.findByAgentIdAndMonthAndYear(
-                    availableAgent.getId(),
-                    month, year
-            ) != null) {
-                individualSalesAgentPerformanceMonthRepository.save(
-                        IndividualSalesAgentPerformanceMonth.builder()
-                                .agentId(availableAgent.getId())
-                                .month(month)
-                                .year(year)
-                                .performancePoint(0)
-                                .performanceTier(Constants.PerformanceTierEnum.BRONZE)
-                                .rankingPosition(0)
-                                .handlingProperties(0)
-                                .monthPropertiesAssigned(0)
-                                .monthAppointmentsAssigned(0)
-                                .monthAppointmentsCompleted(0)
-                                .monthContracts(0)
-                                .monthRates(0)
-                                .avgRating(BigDecimal.ZERO)
-                                .monthCustomerSatisfactionAvg(BigDecimal.ZERO)
-                                .build()
-                );
-            }
-        }
-    }
 }
@@ -1,6 +1,13 @@
 package com.se100.bds.services.domains.ranking.utils;
 
+import com.se100.bds.models.schemas.ranking.IndividualCustomerPotentialMonth;
+import com.se100.bds.models.schemas.ranking.IndividualPropertyOwnerContributionMonth;
+import com.se100.bds.models.schemas.ranking.IndividualSalesAgentPerformanceMonth;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.Objects;
 
 public final class RankingUtil {
@@ -27,10 +34,85 @@ public final class RankingUtil {
     }
 
     public static LocalDateTime getPreviousMonth(int month, int year) {
-        if (month == 1) {
-            month = 12;
-            year--;
-        }
-        return LocalDateTime.of(year, month, 1, 0, 0, 0);
+        return YearMonth.of(year, month).minusMonths(1).atDay(1).atStartOfDay();
+    }
+
+    public static int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    public static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    // part / whole as a 0..100 percentage, 0 when there is nothing to divide by
+    public static int percent(int part, int whole) {
+        return whole > 0 ? (int) ((double) part / whole * 100) : 0;
+    }
+
+    public static int agentPerformancePoint(IndividualSalesAgentPerformanceMonth performance, int extraPoint) {
+        int conversionScore = percent(
+                orZero(performance.getMonthContracts()),
+                orZero(performance.getMonthAppointmentsCompleted())
+        );
+        int completionScore = percent(
+                orZero(performance.getMonthAppointmentsCompleted()),
+                orZero(performance.getMonthAppointmentsAssigned())
+        );
+        int satisfactionScore = orZero(performance.getMonthCustomerSatisfactionAvg()).intValue();
+
+        return (int) ((
+                0.4 * conversionScore +
+                0.3 * completionScore +
+                0.3 * satisfactionScore
+        ) + extraPoint);
+    }
+
+    public static int customerLeadScore(IndividualCustomerPotentialMonth individualCustomerPotentialMonth, BigDecimal avgSpendingBenchmark, int extraPoint) {
+        int viewingsRequested = orZero(individualCustomerPotentialMonth.getMonthViewingsRequested());
+        int viewingsAttended = orZero(individualCustomerPotentialMonth.getMonthViewingAttended());
+        BigDecimal monthSpending = orZero(individualCustomerPotentialMonth.getMonthSpending());
+
+        int viewingAttendedScore = percent(viewingsAttended, viewingsRequested);
+
+        int totalContractsSigned = orZero(individualCustomerPotentialMonth.getMonthPurchases())
+                + orZero(individualCustomerPotentialMonth.getMonthRentals());
+
+        int conversionScore = percent(totalContractsSigned, viewingsAttended);
+
+        BigDecimal spendingScore = avgSpendingBenchmark.compareTo(BigDecimal.ZERO) > 0 ?
+                monthSpending.divide(avgSpendingBenchmark, 2, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100)) : BigDecimal.ZERO;
+        spendingScore = spendingScore.min(BigDecimal.valueOf(150));
+
+        int contractScore = Math.min(totalContractsSigned * 25, 100);
+
+        // Calculate lead_score
+        double leadScoreDouble = (0.2 * viewingAttendedScore) + (0.2 * conversionScore) + (0.4 * spendingScore.doubleValue()) + (0.2 * contractScore) + extraPoint;
+        return (int) leadScoreDouble;
+    }
+
+    public static int ownerTransactions(IndividualPropertyOwnerContributionMonth contribution) {
+        return orZero(contribution.getMonthTotalPropertiesSold()) + orZero(contribution.getMonthTotalForRents());
+    }
+
+    public static int ownerContributionPoint(IndividualPropertyOwnerContributionMonth contribution,
+                                             double avgTransactionBenchmark,
+                                             BigDecimal avgRevenueBenchmark,
+                                             int extraPoint) {
+        int transactions = ownerTransactions(contribution);
+        int totalProperties = orZero(contribution.getMonthTotalProperties());
+
+        // Calculate scores
+        double propertyUtilizationScore = totalProperties > 0 ? ((double) transactions / totalProperties * 100) : 0;
+
+        double transactionSuccessScore = avgTransactionBenchmark > 0 ? (transactions / avgTransactionBenchmark * 100) : 0;
+
+        BigDecimal revenueScore = avgRevenueBenchmark.compareTo(BigDecimal.ZERO) > 0 ?
+                orZero(contribution.getMonthContributionValue()).divide(avgRevenueBenchmark, 2, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100)) : BigDecimal.ZERO;
+        revenueScore = revenueScore.min(BigDecimal.valueOf(150));
+
+        // Calculate contribution_point
+        double contributionPointDouble = (0.4 * propertyUtilizationScore) + (0.3 * transactionSuccessScore) + (0.3 * revenueScore.doubleValue()) + extraPoint;
+        return (int) contributionPointDouble;
     }
 }
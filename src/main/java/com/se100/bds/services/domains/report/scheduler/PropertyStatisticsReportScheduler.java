@@ -9,11 +9,17 @@ import com.se100.bds.services.domains.property.PropertyService;
 import com.se100.bds.utils.Constants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 
@@ -26,6 +32,7 @@ public class PropertyStatisticsReportScheduler {
     private final PropertyService propertyService;
     private final LocationService locationService;
     private final SimpleMapper simpleMapper;
+    private final MongoTemplate mongoTemplate;
 
     @Scheduled(cron = "0 0 0 1 * ?")
     protected void initNewMonthData() {
@@ -108,7 +115,20 @@ public class PropertyStatisticsReportScheduler {
         updateLocationMap(currentMonth.getSearchedPropertyTypes(), propertyTypeIds);
         updateLocationMap(currentMonth.getFavoritePropertyTypes(), propertyTypeIds);
 
-        propertyStatisticsReportRepository.save(currentMonth);
+        if (existingReport != null) {
+            // searched_properties is $inc-ed by MostSearchedPropertyTracker, saving the whole document would drop
+            // the searches counted since it was read
+            Document fields = new Document();
+            mongoTemplate.getConverter().write(currentMonth, fields);
+            fields.remove("_id");
+            fields.remove("searched_properties");
+            Update update = new Update();
+            fields.forEach(update::set);
+            update.set("updatedAt", LocalDateTime.now());
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(existingReport.getId())), update, PropertyStatisticsReport.class);
+        } else {
+            propertyStatisticsReportRepository.save(currentMonth);
+        }
 
         return CompletableFuture.completedFuture(null);
     }
@@ -10,4 +10,9 @@ public interface SearchService {
     void addSearchList(UUID userId, List<UUID> cityIds, List<UUID> districtIds, List<UUID> wardIds, List<UUID> propertyTypeIds);
     List<UUID> topMostSearchByUser(UUID userId, int offset, int limit, Constants.SearchTypeEnum searchType, int year, int month);
     List<UUID> getMostSearchedPropertyIds(int limit, int year, int month);
+    // Current month ranking, maintained incrementally, best first
+    List<UUID> getCurrentMostSearchedPropertyIds();
+    // Best first, cityId == null for all cities
+    List<UUID> getTrendingPropertyIds(Constants.TrendingWindowEnum window, UUID cityId, int limit);
+    List<UUID> getTrendingCityIds(Constants.TrendingWindowEnum window, int limit);
 }
\ No newline at end of file
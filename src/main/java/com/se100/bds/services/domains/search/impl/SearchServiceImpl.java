@@ -4,7 +4,10 @@ import com.se100.bds.models.schemas.report.PropertyStatisticsReport;
 import com.se100.bds.models.schemas.search.SearchLog;
 import com.se100.bds.repositories.domains.mongo.report.PropertyStatisticsReportRepository;
 import com.se100.bds.repositories.domains.mongo.search.SearchLogRepository;
+import com.se100.bds.services.domains.customer.profile.CustomerPreferenceProfiles;
 import com.se100.bds.services.domains.search.SearchService;
+import com.se100.bds.services.domains.search.topk.MostSearchedPropertyTracker;
+import com.se100.bds.services.domains.search.trending.TrendingTracker;
 import com.se100.bds.utils.Constants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,10 +24,20 @@ public class SearchServiceImpl implements SearchService {
 
     private final SearchLogRepository searchLogRepository;
     private final PropertyStatisticsReportRepository propertyStatisticsReportRepository;
+    private final MostSearchedPropertyTracker mostSearchedPropertyTracker;
+    private final TrendingTracker trendingTracker;
+    private final CustomerPreferenceProfiles customerPreferenceProfiles;
 
     @Override
     public void addSearch(UUID userId, UUID cityId, UUID districtId, UUID wardId, UUID propertyId, UUID propertyTypeId) {
         searchLogRepository.save(new SearchLog(userId, cityId, districtId, wardId, propertyId, propertyTypeId));
+        if (userId != null) {
+            customerPreferenceProfiles.onSearch(userId, cityId, districtId, wardId, propertyTypeId);
+        }
+        if (propertyId != null) {
+            mostSearchedPropertyTracker.record(propertyId, 1);
+            trendingTracker.recordPropertySearch(propertyId, cityId);
+        }
     }
 
     @Async
@@ -37,6 +50,12 @@ public class SearchServiceImpl implements SearchService {
             UUID propertyTypeId = (propertyTypeIds != null && !propertyTypeIds.isEmpty()) ? propertyTypeIds.get(0) : null;
 
             searchLogRepository.save(new SearchLog(userId, cityId, districtId, wardId, null, propertyTypeId));
+            if (userId != null) {
+                customerPreferenceProfiles.onSearch(userId, cityId, districtId, wardId, propertyTypeId);
+            }
+            if (cityIds != null) {
+                trendingTracker.recordCitySearches(cityIds.stream().filter(Objects::nonNull).toList());
+            }
 
             log.debug("Search log saved asynchronously for user: {}", userId);
         } catch (Exception e) {
@@ -108,6 +127,21 @@ public class SearchServiceImpl implements SearchService {
         }
     }
 
+    @Override
+    public List<UUID> getCurrentMostSearchedPropertyIds() {
+        return mostSearchedPropertyTracker.topIds();
+    }
+
+    @Override
+    public List<UUID> getTrendingPropertyIds(Constants.TrendingWindowEnum window, UUID cityId, int limit) {
+        return trendingTracker.trendingPropertyIds(window, cityId, limit);
+    }
+
+    @Override
+    public List<UUID> getTrendingCityIds(Constants.TrendingWindowEnum window, int limit) {
+        return trendingTracker.trendingCityIds(window, limit);
+    }
+
     /**
      * Lấy Map dữ liệu search tương ứng với SearchTypeEnum
      * @param report PropertyStatisticsReport
@@ -0,0 +1,232 @@
+package com.se100.bds.services.domains.search.topk;
+
+import com.se100.bds.models.schemas.report.PropertyStatisticsReport;
+import com.se100.bds.repositories.domains.mongo.report.PropertyStatisticsReportRepository;
+import com.se100.bds.repositories.domains.property.MostSearchedPropertyRepository;
+import com.se100.bds.services.domains.property.event.PropertyViewsFlushedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Keeps the current month's {@value #TOP_K} most searched properties up to date as searches and views arrive.
+ * <p>
+ * Counts live in memory next to a sorted set of the top entries, so an event costs O(log K) instead of a sort of
+ * the whole month. The ranking is written to most_searched_properties (which the topK card filter joins against)
+ * and the new counts are $inc-ed into the month's PropertyStatisticsReport, where the counts are reloaded from at
+ * startup. All Mongo and SQL writes happen in {@link #persist()}, never on the recording thread.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MostSearchedPropertyTracker {
+    public static final int TOP_K = 1000;
+
+    private static final String INSERT_RANKING_SQL =
+            "INSERT INTO most_searched_properties (property_id, search_count, ranking_position) VALUES (?, ?, ?)";
+
+    // Highest count first, ties broken by id so that no two entries compare equal
+    private static final Comparator<Ranked> BY_COUNT_DESC =
+            Comparator.comparingLong(Ranked::count).reversed().thenComparing(Ranked::propertyId);
+
+    private record Ranked(UUID propertyId, long count) {}
+
+    private final PropertyStatisticsReportRepository propertyStatisticsReportRepository;
+    private final MostSearchedPropertyRepository mostSearchedPropertyRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final MongoTemplate mongoTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Guarded by this
+    private YearMonth month = YearMonth.now();
+    private final Map<UUID, Long> counts = new HashMap<>();
+    private final TreeSet<Ranked> top = new TreeSet<>(BY_COUNT_DESC);
+    private final Map<UUID, Long> unsavedCounts = new HashMap<>();
+    // Unsaved counts of months that ended, stored by the next persist
+    private final Map<YearMonth, Map<UUID, Long>> unsavedPastCounts = new HashMap<>();
+    private boolean rankingChanged = false;
+
+    // Ids of the last written ranking, best first, for the in-memory facet index
+    private volatile List<UUID> topIds = List.of();
+
+    public List<UUID> topIds() {
+        return topIds;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        loadMonth();
+        persist();
+    }
+
+    @EventListener
+    public void onViewsFlushed(PropertyViewsFlushedEvent event) {
+        event.views().forEach(this::record);
+    }
+
+    public synchronized void record(UUID propertyId, long searches) {
+        rollOverIfNewMonth();
+        long count = counts.merge(propertyId, searches, Long::sum);
+        unsavedCounts.merge(propertyId, searches, Long::sum);
+
+        Ranked updated = new Ranked(propertyId, count);
+        if (top.remove(new Ranked(propertyId, count - searches))) {
+            top.add(updated);
+            rankingChanged = true;
+        } else if (top.size() < TOP_K) {
+            top.add(updated);
+            rankingChanged = true;
+        } else if (BY_COUNT_DESC.compare(updated, top.last()) < 0) {
+            top.pollLast();
+            top.add(updated);
+            rankingChanged = true;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.most-searched.persist-interval-ms:60000}")
+    public void persist() {
+        YearMonth snapshotMonth;
+        Map<UUID, Long> newCounts;
+        Map<YearMonth, Map<UUID, Long>> pastCounts;
+        List<Ranked> ranking = null;
+        synchronized (this) {
+            rollOverIfNewMonth();
+            snapshotMonth = month;
+            newCounts = new HashMap<>(unsavedCounts);
+            unsavedCounts.clear();
+            pastCounts = new HashMap<>(unsavedPastCounts);
+            unsavedPastCounts.clear();
+            if (rankingChanged) {
+                ranking = new ArrayList<>(top);
+                rankingChanged = false;
+            }
+        }
+
+        pastCounts.forEach(this::saveCounts);
+        saveCounts(snapshotMonth, newCounts);
+        if (ranking != null) {
+            saveRanking(ranking);
+        }
+    }
+
+    private synchronized void loadMonth() {
+        PropertyStatisticsReport report = findReport(month);
+        if (report != null && report.getSearchedProperties() != null) {
+            // Events recorded before the load are kept on top of the stored counts
+            report.getSearchedProperties().forEach((propertyId, count) -> {
+                if (count != null && count > 0) {
+                    counts.merge(propertyId, count.longValue(), Long::sum);
+                }
+            });
+        }
+        top.clear();
+        counts.forEach((propertyId, count) -> {
+            top.add(new Ranked(propertyId, count));
+            if (top.size() > TOP_K) {
+                top.pollLast();
+            }
+        });
+        rankingChanged = true;
+        log.info("Most searched properties loaded for {}: {} properties counted", month, counts.size());
+    }
+
+    // Callers hold the lock, only swaps memory: the last counts of the month are stored by the next persist
+    private void rollOverIfNewMonth() {
+        YearMonth now = YearMonth.now();
+        if (now.equals(month)) {
+            return;
+        }
+        if (!unsavedCounts.isEmpty()) {
+            unsavedPastCounts.put(month, new HashMap<>(unsavedCounts));
+        }
+        unsavedCounts.clear();
+        counts.clear();
+        top.clear();
+        month = now;
+        rankingChanged = true;
+    }
+
+    private void saveCounts(YearMonth reportMonth, Map<UUID, Long> newCounts) {
+        if (newCounts.isEmpty()) {
+            return;
+        }
+        // $inc in place, so the report scheduler and other instances writing the same report lose nothing
+        Update update = new Update();
+        newCounts.forEach((propertyId, count) -> update.inc("searched_properties." + propertyId, count.intValue()));
+        Query query = Query.query(Criteria.where("base_report_data.month").is(reportMonth.getMonthValue())
+                        .and("base_report_data.year").is(reportMonth.getYear()))
+                .with(Sort.by(Sort.Direction.DESC, "createdAt"));
+        query.fields().include("_id");
+
+        try {
+            if (mongoTemplate.findAndModify(query, update, PropertyStatisticsReport.class) == null) {
+                // Created by the monthly report scheduler, which also carries last month's data over: not created here.
+                // Kept until it exists, a month that ended without one never gets it
+                boolean kept = requeue(reportMonth, newCounts, false);
+                log.debug("No property statistics report for {}, {} search counts {}", reportMonth, newCounts.size(), kept ? "kept" : "not stored");
+            }
+        } catch (RuntimeException e) {
+            requeue(reportMonth, newCounts, true);
+            log.warn("Could not store {} search counts for {}: {}", newCounts.size(), reportMonth, e.getMessage());
+        }
+    }
+
+    private synchronized boolean requeue(YearMonth reportMonth, Map<UUID, Long> newCounts, boolean pastMonths) {
+        Map<UUID, Long> target;
+        if (reportMonth.equals(month)) {
+            target = unsavedCounts;
+        } else if (pastMonths) {
+            target = unsavedPastCounts.computeIfAbsent(reportMonth, key -> new HashMap<>());
+        } else {
+            return false;
+        }
+        newCounts.forEach((propertyId, count) -> target.merge(propertyId, count, Long::sum));
+        return true;
+    }
+
+    private void saveRanking(List<Ranked> ranking) {
+        List<Object[]> rows = new ArrayList<>(ranking.size());
+        for (int i = 0; i < ranking.size(); i++) {
+            rows.add(new Object[]{ranking.get(i).propertyId(), ranking.get(i).count(), i + 1});
+        }
+        try {
+            // One transaction, the card queries keep seeing the previous ranking until it commits
+            transactionTemplate.executeWithoutResult(status -> {
+                mostSearchedPropertyRepository.deleteAllInBatch();
+                jdbcTemplate.batchUpdate(INSERT_RANKING_SQL, rows);
+            });
+            topIds = ranking.stream().map(Ranked::propertyId).toList();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                rankingChanged = true;
+            }
+            log.warn("Could not write the most searched properties ranking: {}", e.getMessage());
+        }
+    }
+
+    private PropertyStatisticsReport findReport(YearMonth reportMonth) {
+        return propertyStatisticsReportRepository.findFirstByBaseReportData_MonthAndBaseReportData_YearOrderByCreatedAtDesc(
+                reportMonth.getMonthValue(), reportMonth.getYear());
+    }
+}
@@ -0,0 +1,60 @@
+package com.se100.bds.services.domains.search.trending;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Count-min sketch over UUID keys: fixed memory (width * depth counters), estimates never below the true count
+ * and above it by at most 2/width of the total with probability 1 - 2^-depth.
+ */
+final class CountMinSketch {
+    // Fixed seeds, one per row
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x27D4EB2F165667C5L, 0x94D049BB133111EBL
+    };
+
+    private final int mask;
+    private final long[][] counts;
+
+    // width is rounded up to a power of two, depth is at most 8
+    CountMinSketch(int width, int depth) {
+        if (depth < 1 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("Depth must be between 1 and " + SEEDS.length);
+        }
+        int size = Integer.highestOneBit(Math.max(width - 1, 1)) << 1;
+        this.mask = size - 1;
+        this.counts = new long[depth][size];
+    }
+
+    void add(UUID key, long count) {
+        for (int row = 0; row < counts.length; row++) {
+            counts[row][index(key, row)] += count;
+        }
+    }
+
+    long estimate(UUID key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < counts.length; row++) {
+            estimate = Math.min(estimate, counts[row][index(key, row)]);
+        }
+        return estimate;
+    }
+
+    void clear() {
+        for (long[] row : counts) {
+            Arrays.fill(row, 0L);
+        }
+    }
+
+    private int index(UUID key, int row) {
+        // murmur3 finalizer over the key mixed with the row seed
+        long h = key.getMostSignificantBits() * 31 + key.getLeastSignificantBits() + SEEDS[row];
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return (int) (h & mask);
+    }
+}
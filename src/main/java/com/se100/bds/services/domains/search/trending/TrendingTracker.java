@@ -0,0 +1,75 @@
+package com.se100.bds.services.domains.search.trending;
+
+import com.se100.bds.repositories.domains.property.PropertyRepository;
+import com.se100.bds.repositories.dtos.PropertyCityProjection;
+import com.se100.bds.services.domains.property.event.PropertyViewsFlushedEvent;
+import com.se100.bds.utils.Constants;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * What is hot right now: properties by views and property searches (overall and per city), and cities by searches,
+ * over the last hour (12 buckets of 5 minutes) and the last day (24 buckets of 1 hour).
+ * <p>
+ * Backed by {@link TrendingWindow}s, so memory stays bounded whatever the traffic. Counts are not persisted: after
+ * a restart the windows fill up again from new events.
+ */
+@Component
+@RequiredArgsConstructor
+public class TrendingTracker {
+    public static final int MAX_LIMIT = 50;
+
+    private final PropertyRepository propertyRepository;
+
+    private final Map<Constants.TrendingWindowEnum, TrendingWindow> propertyWindows = windows(4096);
+    private final Map<Constants.TrendingWindowEnum, TrendingWindow> cityWindows = windows(256);
+
+    private static Map<Constants.TrendingWindowEnum, TrendingWindow> windows(int sketchWidth) {
+        Map<Constants.TrendingWindowEnum, TrendingWindow> windows = new EnumMap<>(Constants.TrendingWindowEnum.class);
+        windows.put(Constants.TrendingWindowEnum.HOUR, new TrendingWindow(Duration.ofMinutes(5), 12, sketchWidth, MAX_LIMIT));
+        windows.put(Constants.TrendingWindowEnum.DAY, new TrendingWindow(Duration.ofHours(1), 24, sketchWidth, MAX_LIMIT));
+        return windows;
+    }
+
+    @EventListener
+    public void onViewsFlushed(PropertyViewsFlushedEvent event) {
+        // One lookup per flush for the cities of the viewed properties
+        Map<UUID, UUID> cityIds = propertyRepository.findCityIdsByPropertyIds(event.views().keySet()).stream()
+                .filter(row -> row.cityId() != null)
+                .collect(Collectors.toMap(PropertyCityProjection::propertyId, PropertyCityProjection::cityId));
+        long now = System.currentTimeMillis();
+        event.views().forEach((propertyId, views) ->
+                propertyWindows.values().forEach(window -> window.add(propertyId, cityIds.get(propertyId), views, now)));
+    }
+
+    public void recordPropertySearch(UUID propertyId, UUID cityId) {
+        long now = System.currentTimeMillis();
+        propertyWindows.values().forEach(window -> window.add(propertyId, cityId, 1, now));
+    }
+
+    public void recordCitySearches(Collection<UUID> cityIds) {
+        long now = System.currentTimeMillis();
+        for (UUID cityId : cityIds) {
+            cityWindows.values().forEach(window -> window.add(cityId, null, 1, now));
+        }
+    }
+
+    // cityId == null for all cities
+    public List<UUID> trendingPropertyIds(Constants.TrendingWindowEnum window, UUID cityId, int limit) {
+        return propertyWindows.get(window).top(cityId != null ? cityId : TrendingWindow.ALL,
+                Math.min(limit, MAX_LIMIT), System.currentTimeMillis());
+    }
+
+    public List<UUID> trendingCityIds(Constants.TrendingWindowEnum window, int limit) {
+        return cityWindows.get(window).top(TrendingWindow.ALL, Math.min(limit, MAX_LIMIT), System.currentTimeMillis());
+    }
+}
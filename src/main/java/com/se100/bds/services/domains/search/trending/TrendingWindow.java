@@ -0,0 +1,117 @@
+package com.se100.bds.services.domains.search.trending;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Sliding window of event counts split into time buckets, each holding a count-min sketch and, per group, a short
+ * list of its heaviest keys. Memory and query cost depend on the bucket count, sketch size and list size only,
+ * never on the number of events; the window slides one bucket at a time.
+ */
+final class TrendingWindow {
+    // Group of the keys counted regardless of group
+    static final UUID ALL = new UUID(0L, 0L);
+
+    private static final int SKETCH_DEPTH = 4;
+
+    private final long bucketMillis;
+    private final int sketchWidth;
+    private final int heavyHittersPerGroup;
+    private final Bucket[] buckets;
+
+    private static final class Bucket {
+        long index = Long.MIN_VALUE;
+        CountMinSketch sketch;
+        // group -> key -> estimated count in this bucket
+        final Map<UUID, Map<UUID, Long>> heavyHitters = new HashMap<>();
+    }
+
+    TrendingWindow(Duration bucket, int bucketCount, int sketchWidth, int heavyHittersPerGroup) {
+        this.bucketMillis = bucket.toMillis();
+        this.sketchWidth = sketchWidth;
+        this.heavyHittersPerGroup = heavyHittersPerGroup;
+        this.buckets = new Bucket[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    // group may be null when the key only counts for ALL
+    synchronized void add(UUID key, UUID group, long count, long nowMillis) {
+        Bucket bucket = currentBucket(nowMillis);
+        bucket.sketch.add(key, count);
+        long estimate = bucket.sketch.estimate(key);
+        offer(bucket, ALL, key, estimate);
+        if (group != null) {
+            offer(bucket, group, key, estimate);
+        }
+    }
+
+    synchronized List<UUID> top(UUID group, int limit, long nowMillis) {
+        long current = nowMillis / bucketMillis;
+        Set<UUID> candidates = new HashSet<>();
+        for (Bucket bucket : buckets) {
+            if (isLive(bucket, current)) {
+                candidates.addAll(bucket.heavyHitters.getOrDefault(group, Map.of()).keySet());
+            }
+        }
+
+        // A key listed in one bucket is still scored over the whole window
+        Map<UUID, Long> scores = new HashMap<>();
+        for (UUID key : candidates) {
+            long score = 0;
+            for (Bucket bucket : buckets) {
+                if (isLive(bucket, current)) {
+                    score += bucket.sketch.estimate(key);
+                }
+            }
+            scores.put(key, score);
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<UUID, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private boolean isLive(Bucket bucket, long current) {
+        return bucket.index > current - buckets.length && bucket.index <= current;
+    }
+
+    private Bucket currentBucket(long nowMillis) {
+        long index = nowMillis / bucketMillis;
+        Bucket bucket = buckets[(int) Math.floorMod(index, (long) buckets.length)];
+        if (bucket.index != index) {
+            // The slot held a bucket that slid out of the window
+            if (bucket.sketch == null) {
+                bucket.sketch = new CountMinSketch(sketchWidth, SKETCH_DEPTH);
+            } else {
+                bucket.sketch.clear();
+            }
+            bucket.heavyHitters.clear();
+            bucket.index = index;
+        }
+        return bucket;
+    }
+
+    private void offer(Bucket bucket, UUID group, UUID key, long estimate) {
+        Map<UUID, Long> heavyHitters = bucket.heavyHitters.computeIfAbsent(group, g -> new HashMap<>());
+        if (heavyHitters.containsKey(key) || heavyHitters.size() < heavyHittersPerGroup) {
+            heavyHitters.put(key, estimate);
+            return;
+        }
+        Map.Entry<UUID, Long> lightest = heavyHitters.entrySet().stream()
+                .min(Comparator.comparingLong(Map.Entry::getValue))
+                .orElseThrow();
+        if (estimate > lightest.getValue()) {
+            heavyHitters.remove(lightest.getKey());
+            heavyHitters.put(key, estimate);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.se100.bds.services.domains.user.event;
+
+import java.util.UUID;
+
+/**
+ * Published when a user's first or last name changes, consumed after commit by the read models that copy the name.
+ */
+public record UserNameChangedEvent(UUID userId) {}
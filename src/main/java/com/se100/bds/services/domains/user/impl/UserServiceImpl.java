@@ -34,10 +34,12 @@ import com.se100.bds.services.domains.appointment.AppointmentService;
 import com.se100.bds.services.domains.property.PropertyService;
 import com.se100.bds.services.domains.ranking.RankingService;
 import com.se100.bds.services.domains.user.UserService;
-import com.se100.bds.services.fileupload.CloudinaryService;
+import com.se100.bds.services.domains.user.event.UserNameChangedEvent;
+import com.se100.bds.services.fileupload.FileStorageService;
 import com.se100.bds.utils.Constants;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -76,7 +78,8 @@ public class UserServiceImpl implements UserService {
     private final AppointmentService appointmentService;
     private final RankingService rankingService;
     private final WardRepository wardRepository;
-    private final CloudinaryService cloudinaryService;
+    private final FileStorageService fileStorageService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public UserServiceImpl(
             UserRepository userRepository,
@@ -88,8 +91,9 @@ public class UserServiceImpl implements UserService {
             @Lazy PropertyService propertyService,
             @Lazy AppointmentService appointmentService,
             @Lazy RankingService rankingService,
-            CloudinaryService cloudinaryService,
-            WardRepository wardRepository
+            FileStorageService fileStorageService,
+            WardRepository wardRepository,
+            ApplicationEventPublisher eventPublisher
     ) {
         this.userRepository = userRepository;
         this.saleAgentRepository = saleAgentRepository;
@@ -99,9 +103,10 @@ public class UserServiceImpl implements UserService {
         this.userMapper = userMapper;
         this.propertyService = propertyService;
         this.appointmentService = appointmentService;
-        this.cloudinaryService = cloudinaryService;
+        this.fileStorageService = fileStorageService;
         this.rankingService = rankingService;
         this.wardRepository = wardRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public Authentication getAuthentication() {
@@ -279,6 +284,10 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId));
 
+        // Property cards copy the name, they are refreshed once this commits
+        boolean nameChanged = (updateAccountDto.getFirstName() != null && !updateAccountDto.getFirstName().equals(user.getFirstName()))
+                || (updateAccountDto.getLastName() != null && !updateAccountDto.getLastName().equals(user.getLastName()));
+
         // Update fields only if they are not null
         if (updateAccountDto.getFirstName() != null) {
             user.setFirstName(updateAccountDto.getFirstName());
@@ -322,10 +331,10 @@ public class UserServiceImpl implements UserService {
             try {
                 // Delete old avatar if exists
                 if (user.getAvatarUrl() != null && !user.getAvatarUrl().isEmpty()) {
-                    cloudinaryService.deleteFile(user.getAvatarUrl());
+                    fileStorageService.deleteFile(user.getAvatarUrl());
                 }
                 // Upload new avatar
-                String avatarUrl = cloudinaryService.uploadFile(updateAccountDto.getAvatar(), "avatars");
+                String avatarUrl = fileStorageService.uploadFile(updateAccountDto.getAvatar(), "avatars");
                 user.setAvatarUrl(avatarUrl);
             } catch (IOException e) {
                 log.error("Failed to upload avatar: {}", e.getMessage());
@@ -337,10 +346,10 @@ public class UserServiceImpl implements UserService {
             try {
                 // Delete old front ID picture if exists
                 if (user.getFrontIdPicturePath() != null && !user.getFrontIdPicturePath().isEmpty()) {
-                    cloudinaryService.deleteFile(user.getFrontIdPicturePath());
+                    fileStorageService.deleteFile(user.getFrontIdPicturePath());
                 }
                 // Upload new front ID picture
-                String frontIdUrl = cloudinaryService.uploadFile(updateAccountDto.getFrontIdPicture(), "id_pictures");
+                String frontIdUrl = fileStorageService.uploadFile(updateAccountDto.getFrontIdPicture(), "id_pictures");
                 user.setFrontIdPicturePath(frontIdUrl);
             } catch (IOException e) {
                 log.error("Failed to upload front ID picture: {}", e.getMessage());
@@ -352,10 +361,10 @@ public class UserServiceImpl implements UserService {
             try {
                 // Delete old back ID picture if exists
                 if (user.getBackIdPicturePath() != null && !user.getBackIdPicturePath().isEmpty()) {
-                    cloudinaryService.deleteFile(user.getBackIdPicturePath());
+                    fileStorageService.deleteFile(user.getBackIdPicturePath());
                 }
                 // Upload new back ID picture
-                String backIdUrl = cloudinaryService.uploadFile(updateAccountDto.getBackIdPicture(), "id_pictures");
+                String backIdUrl = fileStorageService.uploadFile(updateAccountDto.getBackIdPicture(), "id_pictures");
                 user.setBackIdPicturePath(backIdUrl);
             } catch (IOException e) {
                 log.error("Failed to upload back ID picture: {}", e.getMessage());
@@ -365,6 +374,9 @@ public class UserServiceImpl implements UserService {
 
         // Save updated user
         userRepository.save(user);
+        if (nameChanged) {
+            eventPublisher.publishEvent(new UserNameChangedEvent(userId));
+        }
 
         // Return updated MeResponse
         return getUserById(userId);
@@ -630,8 +642,8 @@ public class UserServiceImpl implements UserService {
 
         user.setPassword(passwordEncoder.encode(request.getPassword()));
         user.setWard(ward);
-        user.setFrontIdPicturePath(cloudinaryService.uploadFile(request.getFrontIdPicture(), "Identification Picture"));
-        user.setBackIdPicturePath(cloudinaryService.uploadFile(request.getBackIdPicture(), "Identification Picture"));
+        user.setFrontIdPicturePath(fileStorageService.uploadFile(request.getFrontIdPicture(), "Identification Picture"));
+        user.setBackIdPicturePath(fileStorageService.uploadFile(request.getBackIdPicture(), "Identification Picture"));
 
         if (roleEnum.equals(Constants.RoleEnum.CUSTOMER)) {
             user.setStatus(Constants.StatusProfileEnum.ACTIVE);
@@ -1166,6 +1178,14 @@ public class UserServiceImpl implements UserService {
 
         boolean findByMonth = month != null;
 
+        // Current tiers of all candidates in one lookup instead of one per owner
+        Map<UUID, String> currentOwnerTiers = findByMonth
+                ? Map.of()
+                : rankingService.getCurrentTiers(
+                        propertyOwners.stream().map(User::getId).toList(),
+                        Constants.RoleEnum.PROPERTY_OWNER
+                );
+
         for (User ownerUser : propertyOwners) {
             // Filter by joinedDate (createdAt) in service layer
             LocalDateTime ownerJoinedDate = ownerUser.getCreatedAt();
@@ -1309,7 +1329,7 @@ public class UserServiceImpl implements UserService {
                                 .avatarUrl(ownerUser.getAvatarUrl())
                                 .ranking(ranking)
                                 .point(contributionPoint)
-                                .tier(rankingService.getCurrentTier(ownerUser.getId(), Constants.RoleEnum.PROPERTY_OWNER))
+                                .tier(currentOwnerTiers.get(ownerUser.getId()))
                                 .totalValue(ownerContributionAll.getContributionValue())
                                 .totalProperties(totalProperties)
                                 .createdAt(ownerUser.getCreatedAt())
@@ -1368,6 +1388,11 @@ public class UserServiceImpl implements UserService {
 
         List<FreeAgentListItem> freeAgentList = new ArrayList<>();
 
+        // Tiers and positions of all candidates in one lookup each instead of one per agent
+        List<UUID> agentIds = agents.stream().map(User::getId).toList();
+        Map<UUID, String> currentAgentTiers = rankingService.getCurrentTiers(agentIds, Constants.RoleEnum.SALESAGENT);
+        Map<UUID, Integer> currentAgentRankings = rankingService.getSaleAgentCurrentRankings(agentIds);
+
         for (User agentUser : agents) {
             SaleAgent saleAgent = agentUser.getSaleAgent();
             if (saleAgent == null) continue;
@@ -1405,15 +1430,14 @@ public class UserServiceImpl implements UserService {
                 continue;
             }
 
-            // Get agent tier from ranking service
-            IndividualSalesAgentPerformanceMonth agentPerformanceMonth = rankingService.getSaleAgentCurrentMonth(agentUser.getId());
-            String tier = agentPerformanceMonth.getPerformanceTier().getValue();
+            // Agents without a ranking row this month have no tier yet
+            String tier = currentAgentTiers.get(agentUser.getId());
 
             // Filter by tier
             if (agentTiers != null && !agentTiers.isEmpty()) {
                 boolean tierMatched = false;
                 for (Constants.PerformanceTierEnum desiredTier : agentTiers) {
-                    if (agentPerformanceMonth.getPerformanceTier() == desiredTier) {
+                    if (desiredTier.getValue().equals(tier)) {
                         tierMatched = true;
                         break;
                     }
@@ -1429,7 +1453,7 @@ public class UserServiceImpl implements UserService {
                     .createdAt(agentUser.getCreatedAt())
                     .updatedAt(agentUser.getUpdatedAt())
                     .fullName(agentUser.getFullName())
-                    .ranking(agentPerformanceMonth.getRankingPosition())
+                    .ranking(currentAgentRankings.get(agentUser.getId()))
                     .employeeCode(saleAgent.getEmployeeCode())
                     .avatarUrl(agentUser.getAvatarUrl())
                     .tier(tier)
@@ -2,10 +2,10 @@ package com.se100.bds.services.domains.violation.impl;
 
 import com.se100.bds.dtos.requests.violation.UpdateViolationRequest;
 import com.se100.bds.dtos.requests.violation.ViolationCreateRequest;
+import com.se100.bds.dtos.responses.property.MediaUploadStatusResponse;
 import com.se100.bds.dtos.responses.violation.*;
 import com.se100.bds.exceptions.NotFoundException;
 import com.se100.bds.mappers.ViolationMapper;
-import com.se100.bds.models.entities.property.Media;
 import com.se100.bds.models.entities.property.Property;
 import com.se100.bds.models.entities.user.User;
 import com.se100.bds.models.entities.violation.ViolationReport;
@@ -13,7 +13,7 @@ import com.se100.bds.repositories.domains.violation.ViolationRepository;
 import com.se100.bds.services.domains.property.PropertyService;
 import com.se100.bds.services.domains.user.UserService;
 import com.se100.bds.services.domains.violation.ViolationService;
-import com.se100.bds.services.fileupload.CloudinaryService;
+import com.se100.bds.services.fileupload.pipeline.MediaUploadPipeline;
 import com.se100.bds.utils.Constants;
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
@@ -40,7 +40,7 @@ public class ViolationServiceImpl implements ViolationService {
     private final UserService userService;
     private final PropertyService propertyService;
     private final ViolationMapper violationMapper;
-    private final CloudinaryService cloudinaryService;
+    private final MediaUploadPipeline mediaUploadPipeline;
 
     @Override
     @Transactional(readOnly = true)
@@ -162,7 +162,9 @@ public class ViolationServiceImpl implements ViolationService {
         }
 
         String targetName = getTargetName(violation);
-        return violationMapper.toUserDetails(violation, targetName);
+        ViolationUserDetails details = violationMapper.toUserDetails(violation, targetName);
+        details.setEvidenceUploads(mediaUploadPipeline.getStatuses(id));
+        return details;
     }
 
     @Override
@@ -220,44 +222,18 @@ public class ViolationServiceImpl implements ViolationService {
         // Save to get ID
         ViolationReport savedViolation = violationRepository.save(violation);
 
-        // Upload evidence files if provided
-        if (evidenceFiles != null && evidenceFiles.length > 0) {
-            for (MultipartFile file : evidenceFiles) {
-                if (file != null && !file.isEmpty()) {
-                    try {
-                        String fileUrl = cloudinaryService.uploadFile(file, "violations/" + savedViolation.getId());
-                        String mimeType = file.getContentType() != null ? file.getContentType() : "application/octet-stream";
-
-                        // Determine media type based on MIME type
-                        Constants.MediaTypeEnum mediaType = Constants.MediaTypeEnum.IMAGE;
-                        if (mimeType.startsWith("application/") || mimeType.startsWith("text/")) {
-                            mediaType = Constants.MediaTypeEnum.DOCUMENT;
-                        }
-
-                        Media media = Media.builder()
-                                .violationReport(savedViolation)
-                                .mediaType(mediaType)
-                                .fileName(file.getOriginalFilename() != null ? file.getOriginalFilename() : file.getName())
-                                .filePath(fileUrl)
-                                .mimeType(mimeType)
-                                .build();
-
-                        savedViolation.getMediaList().add(media);
-                    } catch (Exception e) {
-                        log.error("Failed to upload evidence file for violation {}: {}", savedViolation.getId(), e.getMessage());
-                        // Continue with other files
-                    }
-                }
-            }
-            violationRepository.save(savedViolation);
-        }
+        // Evidence uploads after commit and is attached to the report as each file completes
+        List<MediaUploadStatusResponse> evidenceUploads = mediaUploadPipeline.enqueue(
+                MediaUploadPipeline.Target.VIOLATION, savedViolation.getId(), evidenceFiles);
 
         log.info("User {} created violation report {} for {} with ID {}",
                 currentUser.getId(), savedViolation.getId(),
                 request.getViolationReportedType(), request.getReportedId());
 
         String targetName = getTargetName(savedViolation);
-        return violationMapper.toUserDetails(savedViolation, targetName);
+        ViolationUserDetails details = violationMapper.toUserDetails(savedViolation, targetName);
+        details.setEvidenceUploads(evidenceUploads);
+        return details;
     }
 
     @Override
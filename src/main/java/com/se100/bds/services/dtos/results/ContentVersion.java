@@ -0,0 +1,31 @@
+package com.se100.bds.services.dtos.results;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Validators for a conditional GET: a strong ETag hashed from everything the response is built from, and the
+ * Last-Modified time in epoch milliseconds (-1 when unknown).
+ */
+public record ContentVersion(String etag, long lastModified) {
+
+    public static ContentVersion of(LocalDateTime lastModified, Object... parts) {
+        String source = Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining("|"));
+        String etag = "\"" + DigestUtils.md5DigestAsHex(source.getBytes(StandardCharsets.UTF_8)) + "\"";
+        long lastModifiedMillis = lastModified != null
+                ? lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : -1;
+        return new ContentVersion(etag, lastModifiedMillis);
+    }
+
+    // Latest of the given timestamps, nulls ignored
+    public static LocalDateTime latest(LocalDateTime... timestamps) {
+        return Arrays.stream(timestamps).filter(Objects::nonNull).max(LocalDateTime::compareTo).orElse(null);
+    }
+}
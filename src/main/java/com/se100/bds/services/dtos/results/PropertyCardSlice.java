@@ -0,0 +1,18 @@
+package com.se100.bds.services.dtos.results;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropertyCardSlice {
+    private List<PropertyCard> cards;
+    // Opaque cursor of the last card, null when there is no next page
+    private String nextCursor;
+}
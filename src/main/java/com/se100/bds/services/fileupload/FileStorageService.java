@@ -0,0 +1,18 @@
+package com.se100.bds.services.fileupload;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Where uploaded files live. Cloudinary by default, the local disk with {@code app.storage.type=local}.
+ * Uploads return the public URL of the file, which is also what {@link #deleteFile(String)} takes.
+ */
+public interface FileStorageService {
+    String uploadFile(MultipartFile file, String folder) throws IOException;
+    // Streams the file from disk instead of loading it into memory
+    String uploadFile(File file, String folder) throws IOException;
+    void uploadMultipleFiles(MultipartFile[] files, String folder) throws IOException;
+    void deleteFile(String url) throws IOException;
+}
\ No newline at end of file
@@ -2,22 +2,39 @@ package com.se100.bds.services.fileupload.impl;
 
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
-import com.se100.bds.services.fileupload.CloudinaryService;
+import com.se100.bds.exceptions.UploadCapacityExceededException;
+import com.se100.bds.services.fileupload.FileStorageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.*;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
-public class CloudinaryServiceImpl implements CloudinaryService {
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryServiceImpl implements FileStorageService {
 
     private final Cloudinary cloudinary;
-    public CloudinaryServiceImpl(Cloudinary cloudinary) {
+    private final ThreadPoolTaskExecutor mediaUploadExecutor;
+    private final MeterRegistry meterRegistry;
+
+    public CloudinaryServiceImpl(Cloudinary cloudinary, ThreadPoolTaskExecutor mediaUploadExecutor,
+                                 MeterRegistry meterRegistry) {
         this.cloudinary = cloudinary;
+        this.mediaUploadExecutor = mediaUploadExecutor;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
@@ -26,41 +43,68 @@ public class CloudinaryServiceImpl implements CloudinaryService {
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("File cannot be null or empty");
         }
-        return cloudinary.uploader().upload(file.getBytes(),
-                ObjectUtils.asMap("folder", folder)).get("secure_url").toString();
+        return upload(file.getBytes(), folder);
+    }
+
+    @Override
+    public String uploadFile(File file, String folder) throws IOException {
+        if (file == null || !file.isFile() || file.length() == 0) {
+            throw new IllegalArgumentException("File cannot be null or empty");
+        }
+        return upload(file, folder);
     }
 
     @Override
-    @Transactional
     public void uploadMultipleFiles(MultipartFile[] files, String folder) throws IOException {
-        // Sử dụng ExecutorService để xử lý song song
-        ExecutorService executor = Executors.newFixedThreadPool(5);
-        List<Future<?>> futures = new ArrayList<>();
-
-        for (MultipartFile file : files) {
-            if (!file.isEmpty()) {
-                Future<?> future = executor.submit(() -> {
-                    try {
-                        String fileUrl = uploadFile(file, folder);
-                    } catch (IOException e) {
-                        throw new RuntimeException("Failed to upload file: " + file.getOriginalFilename(), e);
-                    }
-                });
-                futures.add(future);
+        // Runs on the shared upload pool; a batch the queue cannot take is refused before anything is sent
+        long fileCount = Arrays.stream(files).filter(file -> !file.isEmpty()).count();
+        if (fileCount > mediaUploadExecutor.getThreadPoolExecutor().getQueue().remainingCapacity()) {
+            throw new UploadCapacityExceededException();
+        }
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                if (!file.isEmpty()) {
+                    futures.add(CompletableFuture.supplyAsync(() -> {
+                        try {
+                            return uploadFile(file, folder);
+                        } catch (IOException e) {
+                            throw new CompletionException(
+                                    new IOException("Failed to upload file: " + file.getOriginalFilename(), e));
+                        }
+                    }, mediaUploadExecutor));
+                }
             }
+        } catch (TaskRejectedException e) {
+            // Lost a race for the last queue slots, uploads already queued still run
+            throw new UploadCapacityExceededException();
         }
 
-        // Đợi tất cả các task hoàn thành
-        for (Future<?> future : futures) {
-            try {
-                future.get();
-            } catch (InterruptedException | ExecutionException e) {
-                Thread.currentThread().interrupt();
-                throw new IOException("Upload process was interrupted", e);
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
             }
+            throw new IOException("Upload failed", e.getCause());
         }
+    }
 
-        executor.shutdown();
+    // Every upload is timed under media.upload, tagged with its outcome
+    private String upload(Object file, String folder) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "failure";
+        try {
+            Map<?, ?> response = cloudinary.uploader().upload(file, ObjectUtils.asMap("folder", folder));
+            result = "success";
+            return response.get("secure_url").toString();
+        } finally {
+            sample.stop(Timer.builder("media.upload")
+                    .description("Duration of a single Cloudinary upload")
+                    .tag("result", result)
+                    .register(meterRegistry));
+        }
     }
 
     @Override
@@ -0,0 +1,212 @@
+package com.se100.bds.services.fileupload.impl;
+
+import com.se100.bds.exceptions.NotFoundException;
+import com.se100.bds.services.fileupload.FileStorageService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Keeps files on the local disk, for load tests and installs without Cloudinary. Every upload gets its own key
+ * ({@code <folder>/<sha-256>-<id>.<ext>}), so deleting one Media row or avatar never takes the bytes of another, and
+ * an upload can never change a URL handed out before. The same image sent twice is still stored once: keys are hard
+ * links to one object per content hash under {@code .objects}, the object goes with its last key.
+ * Writes go to a temp file first and are linked into place, readers never see a partial file.
+ * Served by {@code FileController}.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "local")
+public class LocalFileStorageServiceImpl implements FileStorageService {
+    public static final String FILES_PATH = "/public/files/";
+
+    @Value("${app.storage.local.root-dir:./storage}")
+    private String rootDir;
+
+    // Public URL of this application, stored file URLs are built from it
+    @Value("${app.storage.local.base-url:}")
+    private String baseUrl;
+
+    private Path root;
+    private Path tempDir;
+    private Path objectsDir;
+    // Guards linking a key to an object against deleting that object's last key
+    private final Object[] objectLocks = new Object[64];
+
+    public record StoredFile(Path path, long size, long lastModified, String etag) {}
+
+    @PostConstruct
+    void init() throws IOException {
+        root = Paths.get(rootDir).toAbsolutePath().normalize();
+        tempDir = root.resolve(".tmp");
+        objectsDir = root.resolve(".objects");
+        Files.createDirectories(tempDir);
+        Files.createDirectories(objectsDir);
+        for (int i = 0; i < objectLocks.length; i++) {
+            objectLocks[i] = new Object();
+        }
+        log.info("Storing files under {}", root);
+    }
+
+    @Override
+    public String uploadFile(MultipartFile file, String folder) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("File cannot be null or empty");
+        }
+        try (InputStream in = file.getInputStream()) {
+            return store(in, file.getOriginalFilename(), folder);
+        }
+    }
+
+    @Override
+    public String uploadFile(File file, String folder) throws IOException {
+        if (file == null || !file.isFile() || file.length() == 0) {
+            throw new IllegalArgumentException("File cannot be null or empty");
+        }
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            return store(in, file.getName(), folder);
+        }
+    }
+
+    @Override
+    public void uploadMultipleFiles(MultipartFile[] files, String folder) throws IOException {
+        for (MultipartFile file : files) {
+            if (!file.isEmpty()) {
+                uploadFile(file, folder);
+            }
+        }
+    }
+
+    @Override
+    public void deleteFile(String url) throws IOException {
+        if (url == null || url.isEmpty()) {
+            throw new IllegalArgumentException("URL cannot be null or empty");
+        }
+        int keyIndex = url.indexOf(FILES_PATH);
+        if (keyIndex == -1) {
+            throw new IllegalArgumentException("Invalid local storage URL format");
+        }
+        Path path = resolve(url.substring(keyIndex + FILES_PATH.length()));
+
+        String hash = hashOf(path);
+        synchronized (objectLock(hash)) {
+            Files.deleteIfExists(path);
+            Path object = objectsDir.resolve(hash);
+            // Only the object itself links to the bytes any more
+            if (Files.exists(object) && linkCount(object) <= 1) {
+                Files.deleteIfExists(object);
+            }
+        }
+    }
+
+    public StoredFile find(String key) throws IOException {
+        Path path = resolve(key);
+        if (!Files.isRegularFile(path)) {
+            throw new NotFoundException("File not found: " + key);
+        }
+        // The name starts with the content hash, a strong validator as is
+        String etag = "\"" + hashOf(path) + "\"";
+        return new StoredFile(path, Files.size(path), Files.getLastModifiedTime(path).toMillis(), etag);
+    }
+
+    private String store(InputStream in, String originalName, String folder) throws IOException {
+        Path temp = Files.createTempFile(tempDir, "upload-", null);
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream hashing = new DigestInputStream(in, digest)) {
+                Files.copy(hashing, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String key = folder + "/" + hash + "-" + UUID.randomUUID() + extensionOf(originalName);
+            Path target = resolve(key);
+            Files.createDirectories(target.getParent());
+
+            synchronized (objectLock(hash)) {
+                Path object = objectsDir.resolve(hash);
+                // Same content already stored means the new key is just linked to it
+                if (!Files.exists(object)) {
+                    Files.move(temp, object, StandardCopyOption.ATOMIC_MOVE);
+                }
+                try {
+                    Files.createLink(target, object);
+                } catch (UnsupportedOperationException | FileSystemException e) {
+                    // No hard links on this file system, the key gets its own copy
+                    Files.copy(object, target);
+                }
+            }
+            return baseUrl + FILES_PATH + key;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Keys are relative to the root, anything escaping it (or reaching the temp or object dir) is refused
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.startsWith(tempDir) || path.startsWith(objectsDir) || path.equals(root)) {
+            throw new NotFoundException("File not found: " + key);
+        }
+        return path;
+    }
+
+    private Object objectLock(String hash) {
+        return objectLocks[Math.floorMod(hash.hashCode(), objectLocks.length)];
+    }
+
+    private static long linkCount(Path path) throws IOException {
+        try {
+            return ((Number) Files.getAttribute(path, "unix:nlink")).longValue();
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            // Keys are copies here, the object is only needed while it is linked
+            return 1;
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    // The content hash in front of the id and extension of a file name
+    private static String hashOf(Path path) {
+        String fileName = path.getFileName().toString();
+        int end = fileName.indexOf('-');
+        return end != -1 ? fileName.substring(0, end) : fileName;
+    }
+
+    private static String extensionOf(String fileName) {
+        if (fileName == null) {
+            return "";
+        }
+        int extensionIndex = fileName.lastIndexOf('.');
+        if (extensionIndex == -1 || extensionIndex == fileName.length() - 1) {
+            return "";
+        }
+        String extension = fileName.substring(extensionIndex + 1).toLowerCase(Locale.ROOT);
+        return extension.matches("[a-z0-9]{1,10}") ? "." + extension : "";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
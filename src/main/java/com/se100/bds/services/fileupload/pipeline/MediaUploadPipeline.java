@@ -0,0 +1,393 @@
+package com.se100.bds.services.fileupload.pipeline;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.se100.bds.dtos.responses.property.MediaUploadStatusResponse;
+import com.se100.bds.exceptions.UploadCapacityExceededException;
+import com.se100.bds.models.entities.property.Media;
+import com.se100.bds.repositories.domains.property.MediaRepository;
+import com.se100.bds.repositories.domains.property.PropertyRepository;
+import com.se100.bds.repositories.domains.violation.ViolationRepository;
+import com.se100.bds.services.domains.property.event.PropertyChangedEvent;
+import com.se100.bds.services.fileupload.FileStorageService;
+import com.se100.bds.utils.Constants;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uploads property images and violation evidence off the request path. Files are spooled to disk while the
+ * request is alive (a rename for parts the container already buffered on disk, never a heap copy), the owning row
+ * is committed without waiting on the storage, then each file is streamed from disk on the bounded upload executor
+ * and its media row attached in a short transaction of its own. Failed uploads are retried with a doubling delay;
+ * per-file states stay queryable for an hour after the owner's last upload.
+ * <p>
+ * Each spooled file has a small manifest next to it, so uploads still pending when the application stops are
+ * resumed on the next start; spooled files without one are deleted then.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MediaUploadPipeline {
+    public enum Target {
+        PROPERTY,
+        VIOLATION
+    }
+
+    private static final String MANIFEST_SUFFIX = ".task";
+
+    private final FileStorageService fileStorageService;
+    private final MediaRepository mediaRepository;
+    private final PropertyRepository propertyRepository;
+    private final ViolationRepository violationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ThreadPoolTaskExecutor mediaUploadExecutor;
+
+    @Value("${app.media-upload.spool-dir:${java.io.tmpdir}/bds-media-uploads}")
+    private String spoolDir;
+
+    @Value("${app.media-upload.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.media-upload.retry-backoff-ms:2000}")
+    private long retryBackoffMs;
+
+    private final Cache<UUID, List<UploadTask>> uploadsByOwner = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+
+    // Spool files older than this were left by a previous run
+    private Instant startedAt;
+
+    @PostConstruct
+    void createSpoolDir() throws IOException {
+        startedAt = Instant.now();
+        Files.createDirectories(Paths.get(spoolDir));
+    }
+
+    /**
+     * Resumes the uploads a previous run left in the spool directory. Their owners are attached as usual, and an
+     * owner that never committed fails the attach, which deletes the upload again. A crash between attaching a
+     * file and deleting its spool copy uploads that file a second time.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeSpooled() {
+        int resumed = 0;
+        int swept = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(Paths.get(spoolDir))) {
+            for (Path entry : entries) {
+                // Requests served since the start spool their own files
+                if (!Files.isRegularFile(entry) || !Files.getLastModifiedTime(entry).toInstant().isBefore(startedAt)) {
+                    continue;
+                }
+                String name = entry.getFileName().toString();
+                if (name.endsWith(MANIFEST_SUFFIX)) {
+                    UploadTask task = readManifest(entry);
+                    if (task != null && Files.exists(task.spooled)) {
+                        appendTasks(task.ownerId, List.of(task));
+                        submit(task);
+                        resumed++;
+                    } else {
+                        Files.deleteIfExists(entry);
+                        swept++;
+                    }
+                } else if (!Files.exists(entry.resolveSibling(name + MANIFEST_SUFFIX))) {
+                    Files.deleteIfExists(entry);
+                    swept++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not scan the upload spool directory {}: {}", spoolDir, e.getMessage());
+        }
+        if (resumed + swept > 0) {
+            log.info("Upload spool: resumed {} uploads, deleted {} leftover files", resumed, swept);
+        }
+    }
+
+    /**
+     * Spools the files and queues them for upload once the current transaction commits; nothing is uploaded when
+     * it rolls back. Returns the initial state of each accepted file.
+     *
+     * @throws UploadCapacityExceededException when the upload queue cannot take the files, so the request fails
+     *                                         (and its transaction rolls back) instead of piling up more work
+     */
+    public List<MediaUploadStatusResponse> enqueue(Target target, UUID ownerId, MultipartFile[] files) {
+        if (files == null) {
+            return List.of();
+        }
+        long fileCount = Arrays.stream(files).filter(file -> file != null && !file.isEmpty()).count();
+        if (fileCount > mediaUploadExecutor.getThreadPoolExecutor().getQueue().remainingCapacity()) {
+            throw new UploadCapacityExceededException();
+        }
+
+        List<UploadTask> tasks = new ArrayList<>();
+        for (MultipartFile file : files) {
+            if (file == null || file.isEmpty()) {
+                continue;
+            }
+            tasks.add(spool(target, ownerId, file));
+        }
+        if (tasks.isEmpty()) {
+            return List.of();
+        }
+
+        appendTasks(ownerId, tasks);
+        eventPublisher.publishEvent(new UploadsQueued(tasks));
+        return tasks.stream().map(UploadTask::toResponse).toList();
+    }
+
+    // Recent uploads of a property or violation, oldest first
+    public List<MediaUploadStatusResponse> getStatuses(UUID ownerId) {
+        List<UploadTask> tasks = uploadsByOwner.getIfPresent(ownerId);
+        return tasks != null ? tasks.stream().map(UploadTask::toResponse).toList() : List.of();
+    }
+
+    // compute is a write, so the hour restarts with every upload of the owner
+    private void appendTasks(UUID ownerId, List<UploadTask> tasks) {
+        uploadsByOwner.asMap().compute(ownerId, (id, current) -> {
+            List<UploadTask> ownerTasks = current != null ? current : new CopyOnWriteArrayList<>();
+            ownerTasks.addAll(tasks);
+            return ownerTasks;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUploadsQueued(UploadsQueued event) {
+        event.tasks().forEach(this::submit);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public void onUploadsAbandoned(UploadsQueued event) {
+        event.tasks().forEach(task -> fail(task, "Request was rolled back"));
+    }
+
+    private UploadTask spool(Target target, UUID ownerId, MultipartFile file) {
+        String fileName = file.getOriginalFilename() != null ? file.getOriginalFilename() : file.getName();
+        String mimeType = file.getContentType() != null ? file.getContentType() : "application/octet-stream";
+        // The extension is kept, storages derive the stored name and content type from it
+        int extensionIndex = fileName.lastIndexOf('.');
+        Path spooled = Paths.get(spoolDir, UUID.randomUUID()
+                + (extensionIndex != -1 ? fileName.substring(extensionIndex).replaceAll("[^.A-Za-z0-9]", "") : ""));
+        UploadTask task = new UploadTask(UUID.randomUUID(), target, ownerId, fileName, mimeType, spooled);
+        try {
+            file.transferTo(spooled);
+            writeManifest(task);
+        } catch (IOException e) {
+            deleteSpooled(task);
+            throw new IllegalStateException("Failed to receive file " + fileName, e);
+        }
+        return task;
+    }
+
+    private void writeManifest(UploadTask task) throws IOException {
+        Properties manifest = new Properties();
+        manifest.setProperty("id", task.id.toString());
+        manifest.setProperty("target", task.target.name());
+        manifest.setProperty("ownerId", task.ownerId.toString());
+        manifest.setProperty("fileName", task.fileName);
+        manifest.setProperty("mimeType", task.mimeType);
+        try (OutputStream out = Files.newOutputStream(manifestOf(task.spooled))) {
+            manifest.store(out, null);
+        }
+    }
+
+    // null when the manifest cannot be read
+    private UploadTask readManifest(Path manifestPath) {
+        Properties manifest = new Properties();
+        try (InputStream in = Files.newInputStream(manifestPath)) {
+            manifest.load(in);
+            String spooledName = manifestPath.getFileName().toString();
+            return new UploadTask(
+                    UUID.fromString(manifest.getProperty("id")),
+                    Target.valueOf(manifest.getProperty("target")),
+                    UUID.fromString(manifest.getProperty("ownerId")),
+                    manifest.getProperty("fileName"),
+                    manifest.getProperty("mimeType"),
+                    manifestPath.resolveSibling(spooledName.substring(0, spooledName.length() - MANIFEST_SUFFIX.length())));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not read upload manifest {}: {}", manifestPath, e.getMessage());
+            return null;
+        }
+    }
+
+    private static Path manifestOf(Path spooled) {
+        return spooled.resolveSibling(spooled.getFileName() + MANIFEST_SUFFIX);
+    }
+
+    private void submit(UploadTask task) {
+        try {
+            mediaUploadExecutor.execute(() -> upload(task));
+        } catch (RejectedExecutionException e) {
+            task.attempts++;
+            retryOrFail(task, "Upload queue is full");
+        }
+    }
+
+    private void upload(UploadTask task) {
+        task.attempts++;
+        task.update(Constants.MediaUploadStateEnum.UPLOADING, null);
+
+        String url;
+        try {
+            url = fileStorageService.uploadFile(task.spooled.toFile(), folderOf(task));
+        } catch (Exception e) {
+            log.warn("Upload {} of {} failed on attempt {}: {}", task.id, task.fileName, task.attempts, e.getMessage());
+            retryOrFail(task, e.getMessage());
+            return;
+        }
+
+        try {
+            task.mediaId = transactionTemplate.execute(status -> attach(task, url));
+        } catch (Exception e) {
+            // The owner is gone (e.g. deleted meanwhile), the uploaded file would be orphaned
+            log.error("Could not attach upload {} to {} {}: {}", task.id, task.target, task.ownerId, e.getMessage());
+            deleteUploaded(url);
+            fail(task, "Could not attach the uploaded file");
+            return;
+        }
+
+        task.filePath = url;
+        task.update(Constants.MediaUploadStateEnum.COMPLETED, null);
+        deleteSpooled(task);
+        if (task.target == Target.PROPERTY) {
+            eventPublisher.publishEvent(new PropertyChangedEvent(task.ownerId));
+        }
+    }
+
+    private UUID attach(UploadTask task, String url) {
+        Media.MediaBuilder media = Media.builder()
+                .mediaType(mediaTypeOf(task))
+                .fileName(task.fileName)
+                .filePath(url)
+                .mimeType(task.mimeType);
+        if (task.target == Target.PROPERTY) {
+            media.property(propertyRepository.getReferenceById(task.ownerId));
+        } else {
+            media.violationReport(violationRepository.getReferenceById(task.ownerId));
+        }
+        return mediaRepository.save(media.build()).getId();
+    }
+
+    private void retryOrFail(UploadTask task, String error) {
+        if (task.attempts >= maxAttempts) {
+            fail(task, error);
+            return;
+        }
+        task.update(Constants.MediaUploadStateEnum.RETRYING, error);
+        long delayMs = retryBackoffMs << (task.attempts - 1);
+        CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS).execute(() -> submit(task));
+    }
+
+    private void fail(UploadTask task, String error) {
+        log.error("Upload {} of {} for {} {} failed after {} attempts: {}",
+                task.id, task.fileName, task.target, task.ownerId, task.attempts, error);
+        task.update(Constants.MediaUploadStateEnum.FAILED, error);
+        deleteSpooled(task);
+    }
+
+    private Constants.MediaTypeEnum mediaTypeOf(UploadTask task) {
+        if (task.target == Target.VIOLATION
+                && (task.mimeType.startsWith("application/") || task.mimeType.startsWith("text/"))) {
+            return Constants.MediaTypeEnum.DOCUMENT;
+        }
+        return Constants.MediaTypeEnum.IMAGE;
+    }
+
+    private String folderOf(UploadTask task) {
+        return (task.target == Target.PROPERTY ? "properties/" : "violations/") + task.ownerId;
+    }
+
+    private void deleteSpooled(UploadTask task) {
+        try {
+            Files.deleteIfExists(task.spooled);
+            Files.deleteIfExists(manifestOf(task.spooled));
+        } catch (IOException e) {
+            log.warn("Could not delete spooled file {}: {}", task.spooled, e.getMessage());
+        }
+    }
+
+    private void deleteUploaded(String url) {
+        try {
+            fileStorageService.deleteFile(url);
+        } catch (Exception e) {
+            log.warn("Could not delete orphaned upload {}: {}", url, e.getMessage());
+        }
+    }
+
+    record UploadsQueued(List<UploadTask> tasks) {}
+
+    static final class UploadTask {
+        private final UUID id;
+        private final Target target;
+        private final UUID ownerId;
+        private final String fileName;
+        private final String mimeType;
+        private final Path spooled;
+        private volatile Constants.MediaUploadStateEnum state = Constants.MediaUploadStateEnum.QUEUED;
+        private volatile int attempts;
+        private volatile UUID mediaId;
+        private volatile String filePath;
+        private volatile String error;
+        private volatile LocalDateTime updatedAt = LocalDateTime.now();
+
+        private UploadTask(UUID id, Target target, UUID ownerId, String fileName, String mimeType, Path spooled) {
+            this.id = id;
+            this.target = target;
+            this.ownerId = ownerId;
+            this.fileName = fileName;
+            this.mimeType = mimeType;
+            this.spooled = spooled;
+        }
+
+        private void update(Constants.MediaUploadStateEnum state, String error) {
+            this.state = state;
+            this.error = error;
+            this.updatedAt = LocalDateTime.now();
+        }
+
+        private MediaUploadStatusResponse toResponse() {
+            return MediaUploadStatusResponse.builder()
+                    .uploadId(id)
+                    .fileName(fileName)
+                    .state(state)
+                    .attempts(attempts)
+                    .mediaId(mediaId)
+                    .filePath(filePath)
+                    .error(error)
+                    .updatedAt(updatedAt)
+                    .build();
+        }
+    }
+}
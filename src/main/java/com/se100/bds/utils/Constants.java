@@ -15,6 +15,17 @@ public final class Constants {
 
     public static final BigDecimal DEFAULT_PROPERTY_COMMISSION_RATE = new BigDecimal("0.05");
 
+    // Vietnamese diacritic folding for full-text search, applied with SQL translate() both when building
+    // properties.search_vector and when parsing the keyword. Trailing combining marks (decomposed input) have
+    // no counterpart and are dropped.
+    public static final String SEARCH_FOLD_FROM =
+            "àáạảãâầấậẩẫăằắặẳẵèéẹẻẽêềếệểễìíịỉĩòóọỏõôồốộổỗơờớợởỡùúụủũưừứựửữỳýỵỷỹđ"
+            + "ÀÁẠẢÃÂẦẤẬẨẪĂẰẮẶẲẴÈÉẸẺẼÊỀẾỆỂỄÌÍỊỈĨÒÓỌỎÕÔỒỐỘỔỖƠỜỚỢỞỠÙÚỤỦŨƯỪỨỰỬỮỲÝỴỶỸĐ"
+            + "\u0300\u0301\u0303\u0309\u0323\u0302\u0306\u031B";
+    public static final String SEARCH_FOLD_TO =
+            "aaaaaaaaaaaaaaaaaeeeeeeeeeeeiiiiiooooooooooooooooouuuuuuuuuuuyyyyyd"
+            + "aaaaaaaaaaaaaaaaaeeeeeeeeeeeiiiiiooooooooooooooooouuuuuuuuuuuyyyyyd";
+
     @Getter
     @AllArgsConstructor
     public enum RoleEnum {
@@ -532,6 +543,41 @@ public final class Constants {
         }
     }
 
+    @Getter
+    @AllArgsConstructor
+    public enum TrendingWindowEnum {
+        HOUR("HOUR"),
+        DAY("DAY");
+
+        private final String value;
+
+        public static TrendingWindowEnum get(final String name) {
+            return Stream.of(TrendingWindowEnum.values())
+                    .filter(p -> p.name().equals(name.toUpperCase()) || p.getValue().equals(name.toUpperCase()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(String.format("Invalid trending window name: %s", name)));
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public enum MediaUploadStateEnum {
+        QUEUED("QUEUED"),
+        UPLOADING("UPLOADING"),
+        RETRYING("RETRYING"),
+        COMPLETED("COMPLETED"),
+        FAILED("FAILED");
+
+        private final String value;
+
+        public static MediaUploadStateEnum get(final String name) {
+            return Stream.of(MediaUploadStateEnum.values())
+                    .filter(p -> p.name().equals(name.toUpperCase()) || p.getValue().equals(name.toUpperCase()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(String.format("Invalid media upload state name: %s", name)));
+        }
+    }
+
     @Getter
     @AllArgsConstructor
     public enum AgentActionEnum {
@@ -0,0 +1,112 @@
+package com.se100.bds.services.domains.property.counter;
+
+import com.se100.bds.services.domains.property.event.PropertyViewsFlushedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+// Flushes against the schema Hibernate generates from the entities, so the SQL is checked against the real columns
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// The counter commits on its own, as it does when the scheduler calls it
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PropertyViewCounterTest {
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    // Flushes sort by id, so the first property is always updated before the second
+    private static final UUID FIRST = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID SECOND = UUID.fromString("00000000-0000-0000-0000-000000000002");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    private PropertyViewCounter counter;
+
+    @BeforeEach
+    void insertProperties() {
+        // The rows stand alone, their owner, type and ward are not part of the test
+        jdbcTemplate.execute("ALTER TABLE properties DISABLE TRIGGER ALL");
+        jdbcTemplate.update("DELETE FROM properties");
+        insertProperty(FIRST);
+        insertProperty(SECOND);
+        counter = new PropertyViewCounter(jdbcTemplate, transactionTemplate, eventPublisher);
+    }
+
+    @Test
+    void shouldAddViewsToTheRows() {
+        counter.record(FIRST);
+        counter.record(FIRST);
+        counter.record(SECOND);
+        counter.flush();
+
+        assertEquals(2, viewCount(FIRST));
+        assertEquals(1, viewCount(SECOND));
+        assertEquals(0, counter.pendingViews(FIRST));
+        verify(eventPublisher).publishEvent(new PropertyViewsFlushedEvent(Map.of(FIRST, 2L, SECOND, 1L)));
+
+        counter.record(SECOND);
+        counter.flush();
+        assertEquals(2, viewCount(SECOND));
+    }
+
+    @Test
+    void shouldKeepAFailedBatchPendingWithoutCountingItTwice() {
+        // The second row overflows view_count after the first one was already updated
+        jdbcTemplate.update("UPDATE properties SET view_count = ? WHERE property_id = ?", Integer.MAX_VALUE, SECOND);
+        counter.record(FIRST);
+        counter.record(SECOND);
+        counter.flush();
+
+        assertEquals(0, viewCount(FIRST));
+        assertEquals(1, counter.pendingViews(FIRST));
+        assertEquals(1, counter.pendingViews(SECOND));
+        verify(eventPublisher, never()).publishEvent(any(PropertyViewsFlushedEvent.class));
+
+        jdbcTemplate.update("UPDATE properties SET view_count = 0 WHERE property_id = ?", SECOND);
+        counter.flush();
+
+        assertEquals(1, viewCount(FIRST));
+        assertEquals(1, viewCount(SECOND));
+    }
+
+    private void insertProperty(UUID id) {
+        jdbcTemplate.update("""
+                INSERT INTO properties (property_id, created_at, updated_at, owner_id, property_type_id, ward_id,
+                        title, description, transaction_type, area, price_amount, commission_rate,
+                        service_fee_amount, service_fee_collected_amount, view_count)
+                VALUES (?, now(), now(), ?, ?, ?, 'Title', 'Description', 'SALE', 80, 1500000000, 0.02, 0, 0, 0)
+                """, id, UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+    }
+
+    private int viewCount(UUID id) {
+        return jdbcTemplate.queryForObject("SELECT view_count FROM properties WHERE property_id = ?", Integer.class, id);
+    }
+}
@@ -0,0 +1,161 @@
+package com.se100.bds.services.domains.property.index;
+
+import com.se100.bds.repositories.domains.property.PropertyRepository;
+import com.se100.bds.repositories.dtos.PropertyFacetProjection;
+import com.se100.bds.services.domains.property.event.PropertyChangedEvent;
+import com.se100.bds.utils.Constants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PropertyFacetIndexTest {
+    private static final UUID HANOI = UUID.randomUUID();
+    private static final UUID SAIGON = UUID.randomUUID();
+
+    private final PropertyRepository repository = mock(PropertyRepository.class);
+    private final PropertyFacetIndex index = new PropertyFacetIndex(repository);
+
+    private final PropertyFacetProjection oldSale = row(HANOI, Constants.TransactionTypeEnum.SALE, "1500000000.00", "80.00", 21.03, 105.85);
+    private final PropertyFacetProjection rental = row(HANOI, Constants.TransactionTypeEnum.RENTAL, "12000000.00", "45.50", 21.01, 105.80);
+    private final PropertyFacetProjection newSale = row(SAIGON, Constants.TransactionTypeEnum.SALE, "3200000000.00", "120.00", 10.78, 106.70);
+
+    @BeforeEach
+    void build() {
+        when(repository.findAllFacetRows()).thenReturn(List.of(oldSale, rental, newSale));
+        index.rebuild();
+    }
+
+    @Test
+    void shouldListNewestFirst() {
+        PropertyFacetIndex.FacetPage page = index.search(PropertyFacetQuery.builder().build(), 0, 10);
+
+        assertTrue(index.isReady());
+        assertEquals(3, page.total());
+        assertEquals(List.of(newSale.id(), rental.id(), oldSale.id()), page.propertyIds());
+        assertEquals(List.of(rental.id()), index.search(PropertyFacetQuery.builder().build(), 1, 1).propertyIds());
+    }
+
+    @Test
+    void shouldOrValuesInsideAFacetAndAndFacets() {
+        PropertyFacetQuery anyCity = PropertyFacetQuery.builder().cityIds(List.of(HANOI, SAIGON)).build();
+        assertEquals(3, index.search(anyCity, 0, 10).total());
+
+        PropertyFacetQuery hanoiSales = PropertyFacetQuery.builder()
+                .cityIds(List.of(HANOI))
+                .transactionTypes(List.of(Constants.TransactionTypeEnum.SALE))
+                .build();
+        assertEquals(List.of(oldSale.id()), index.search(hanoiSales, 0, 10).propertyIds());
+
+        PropertyFacetQuery unknownOwner = PropertyFacetQuery.builder().ownerId(UUID.randomUUID()).build();
+        assertEquals(0, index.search(unknownOwner, 0, 10).total());
+    }
+
+    @Test
+    void shouldCheckRangeLimitsExactly() {
+        PropertyFacetQuery priced = PropertyFacetQuery.builder()
+                .minPrice(new BigDecimal("1500000000.00"))
+                .maxPrice(new BigDecimal("3199999999.99"))
+                .build();
+        assertEquals(List.of(oldSale.id()), index.search(priced, 0, 10).propertyIds());
+
+        PropertyFacetQuery sized = PropertyFacetQuery.builder().minArea(new BigDecimal("45.51")).build();
+        assertEquals(List.of(newSale.id(), oldSale.id()), index.search(sized, 0, 10).propertyIds());
+    }
+
+    @Test
+    void shouldFilterByArea() {
+        GeoArea hanoiBox = GeoArea.of(20.9, 21.1, 105.7, 105.9, null, null, null);
+        assertEquals(2, index.search(PropertyFacetQuery.builder().geoArea(hanoiBox).build(), 0, 10).total());
+
+        // Only the first listing lies within 3 km of the center
+        GeoArea circle = GeoArea.of(null, null, null, null, 21.03, 105.85, 3.0);
+        assertEquals(List.of(oldSale.id()), index.search(PropertyFacetQuery.builder().geoArea(circle).build(), 0, 10).propertyIds());
+    }
+
+    @Test
+    void shouldCountFacetValuesWithinMatches() {
+        PropertyFacetIndex.FacetCounts counts = index.countFacets(PropertyFacetQuery.builder()
+                .transactionTypes(List.of(Constants.TransactionTypeEnum.SALE))
+                .build());
+
+        assertEquals(2, counts.total());
+        assertEquals(1, counts.cities().get(HANOI));
+        assertEquals(1, counts.cities().get(SAIGON));
+        assertEquals(2, counts.transactionTypes().get(Constants.TransactionTypeEnum.SALE));
+        assertFalse(counts.transactionTypes().containsKey(Constants.TransactionTypeEnum.RENTAL));
+    }
+
+    @Test
+    void shouldBucketOnRoundBounds() {
+        int billion = PropertyFacetIndex.bucketOf(new BigDecimal("1500000000.00"));
+        assertEquals(new BigDecimal("1000000000.00"), PropertyFacetIndex.bucketMin(billion));
+        assertEquals(new BigDecimal("1999999999.99"), PropertyFacetIndex.bucketMax(billion));
+        assertEquals(billion + 1, PropertyFacetIndex.bucketOf(new BigDecimal("2000000000.00")));
+        assertEquals(new BigDecimal("4999999999.99"), PropertyFacetIndex.bucketMax(billion + 1));
+        assertEquals(0, PropertyFacetIndex.bucketOf(new BigDecimal("0.50")));
+
+        PropertyFacetIndex.FacetCounts counts = index.countFacets(PropertyFacetQuery.builder().build());
+        assertEquals(1, counts.priceBuckets().get(billion));
+        assertEquals(1, counts.priceBuckets().get(billion + 1));
+        int fifty = PropertyFacetIndex.bucketOf(new BigDecimal("80.00"));
+        assertEquals(new BigDecimal("50.00"), PropertyFacetIndex.bucketMin(fifty));
+        assertEquals(1, counts.areaBuckets().get(fifty));
+    }
+
+    @Test
+    void shouldApplyChangesAndRemovals() {
+        PropertyFacetProjection moved = withCity(rental, SAIGON);
+        when(repository.findFacetRowById(rental.id())).thenReturn(Optional.of(moved));
+        index.onPropertyChanged(new PropertyChangedEvent(rental.id()));
+
+        PropertyFacetQuery saigon = PropertyFacetQuery.builder().cityIds(List.of(SAIGON)).build();
+        assertEquals(List.of(newSale.id(), rental.id()), index.search(saigon, 0, 10).propertyIds());
+
+        when(repository.findFacetRowById(oldSale.id())).thenReturn(Optional.empty());
+        index.onPropertyChanged(new PropertyChangedEvent(oldSale.id()));
+
+        assertEquals(2, index.search(PropertyFacetQuery.builder().build(), 0, 10).total());
+        assertTrue(index.findRows(List.of(oldSale.id())).isEmpty());
+    }
+
+    @Test
+    void shouldReplayChangesMadeDuringARebuild() {
+        PropertyFacetProjection moved = withCity(oldSale, SAIGON);
+        when(repository.findFacetRowById(oldSale.id())).thenReturn(Optional.of(moved));
+        // The change commits after the snapshot was read, so the snapshot still has the old city
+        when(repository.findAllFacetRows()).thenAnswer(invocation -> {
+            index.onPropertyChanged(new PropertyChangedEvent(oldSale.id()));
+            return List.of(oldSale, rental, newSale);
+        });
+
+        index.rebuild();
+
+        PropertyFacetQuery hanoi = PropertyFacetQuery.builder().cityIds(List.of(HANOI)).build();
+        assertEquals(List.of(rental.id()), index.search(hanoi, 0, 10).propertyIds());
+        assertEquals(SAIGON, index.findRows(List.of(oldSale.id())).get(oldSale.id()).cityId());
+    }
+
+    private static PropertyFacetProjection row(UUID cityId, Constants.TransactionTypeEnum transactionType,
+                                               String price, String area, Double latitude, Double longitude) {
+        return new PropertyFacetProjection(UUID.randomUUID(), cityId, UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(),
+                UUID.randomUUID(), null, transactionType, Constants.PropertyStatusEnum.AVAILABLE, null, null,
+                3, 2, 2, 1, new BigDecimal(price), new BigDecimal(area), latitude, longitude);
+    }
+
+    private static PropertyFacetProjection withCity(PropertyFacetProjection row, UUID cityId) {
+        return new PropertyFacetProjection(row.id(), cityId, row.districtId(), row.wardId(), row.propertyTypeId(),
+                row.ownerId(), row.agentId(), row.transactionType(), row.status(), row.houseOrientation(),
+                row.balconyOrientation(), row.rooms(), row.bathrooms(), row.bedrooms(), row.floors(),
+                row.priceAmount(), row.area(), row.latitude(), row.longitude());
+    }
+}
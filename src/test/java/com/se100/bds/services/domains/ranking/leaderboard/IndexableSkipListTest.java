@@ -0,0 +1,122 @@
+package com.se100.bds.services.domains.ranking.leaderboard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexableSkipListTest {
+    private final IndexableSkipList<Integer> list = new IndexableSkipList<>(Comparator.naturalOrder());
+
+    @Test
+    void shouldKeepElementsSorted() {
+        List.of(50, 10, 40, 20, 30).forEach(list::add);
+
+        assertEquals(5, list.size());
+        assertEquals(List.of(10, 20, 30, 40, 50), list.range(0, 10));
+        assertEquals(List.of(30, 40), list.range(2, 2));
+        assertEquals(List.of(50), list.range(4, 10));
+    }
+
+    @Test
+    void shouldReturnNothingOutsideTheList() {
+        List.of(1, 2, 3).forEach(list::add);
+
+        assertTrue(list.range(3, 5).isEmpty());
+        assertTrue(list.range(-1, 5).isEmpty());
+        assertTrue(list.range(0, 0).isEmpty());
+        assertTrue(new IndexableSkipList<Integer>(Comparator.naturalOrder()).range(0, 5).isEmpty());
+    }
+
+    @Test
+    void shouldCountElementsBeforeAProbe() {
+        List.of(10, 20, 30).forEach(list::add);
+
+        assertEquals(0, list.countBefore(5));
+        assertEquals(0, list.countBefore(10));
+        assertEquals(1, list.countBefore(15));
+        assertEquals(2, list.countBefore(30));
+        assertEquals(3, list.countBefore(99));
+    }
+
+    @Test
+    void shouldRemoveOnlyPresentElements() {
+        List.of(10, 20, 30).forEach(list::add);
+
+        assertFalse(list.remove(25));
+        assertTrue(list.remove(20));
+        assertFalse(list.remove(20));
+
+        assertEquals(2, list.size());
+        assertEquals(List.of(10, 30), list.range(0, 10));
+        assertEquals(1, list.countBefore(30));
+    }
+
+    @Test
+    void shouldKeepWidthsAfterTheLevelShrinks() {
+        IntStream.range(0, 2000).forEach(list::add);
+        // Removing almost everything drops the upper levels
+        IntStream.range(0, 2000).filter(i -> i % 500 != 0).forEach(i -> assertTrue(list.remove(i)));
+        assertEquals(List.of(0, 500, 1000, 1500), list.range(0, 10));
+
+        // Growing again reuses the head links of the dropped levels
+        IntStream.range(2000, 3000).forEach(list::add);
+
+        List<Integer> expected = new ArrayList<>(List.of(0, 500, 1000, 1500));
+        IntStream.range(2000, 3000).forEach(expected::add);
+        assertListMatches(expected);
+    }
+
+    @Test
+    void shouldMatchASortedListUnderRandomChanges() {
+        Random random = new Random(42);
+        List<Integer> expected = new ArrayList<>();
+
+        for (int step = 0; step < 20000; step++) {
+            int value = random.nextInt(3000);
+            int index = indexOf(expected, value);
+            if (index >= 0) {
+                assertTrue(list.remove(value));
+                expected.remove(index);
+            } else {
+                list.add(value);
+                expected.add(-index - 1, value);
+            }
+        }
+
+        assertListMatches(expected);
+    }
+
+    @Test
+    void shouldStartOverAfterClear() {
+        IntStream.range(0, 100).forEach(list::add);
+        list.clear();
+
+        assertEquals(0, list.size());
+        assertTrue(list.range(0, 10).isEmpty());
+
+        List.of(3, 1, 2).forEach(list::add);
+        assertListMatches(List.of(1, 2, 3));
+    }
+
+    private void assertListMatches(List<Integer> expected) {
+        assertEquals(expected.size(), list.size());
+        assertEquals(expected, list.range(0, expected.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(i, list.countBefore(expected.get(i)));
+            assertEquals(List.of(expected.get(i)), list.range(i, 1));
+        }
+    }
+
+    private static int indexOf(List<Integer> sorted, int value) {
+        return Collections.binarySearch(sorted, value);
+    }
+}